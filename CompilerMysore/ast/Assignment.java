@@ -2,6 +2,10 @@ package ast;
 
 import emitter.Emitter;
 import environment.Environment;
+import environment.Scope;
+import ir.IrBuilder;
+import vm.Bytecode;
+import vm.BytecodeBuilder;
 
 /**
  * This class is a statement that represents the assigning of a given variable to a given value.
@@ -9,8 +13,10 @@ import environment.Environment;
  * It contains two instance variables: a String representing the variable's name and an Expression
  * representing the variable's value.
  * 
- * To execute this statement, we simply call the environment's setVariable method, passing in the
- * variable's name and the evaluation of the variable's value.
+ * To execute this statement, we simply evaluate the variable's value and store it in the
+ * variable's slot. An assignment of a procedure's call to itself to its own result, at the end
+ * of its body, is a tail call (see markTailCalls), and reuses the frame of the running call
+ * instead of making a new one.
  * 
  * @author Ishan Mysore
  * @version 12/14/23
@@ -19,6 +25,8 @@ public class Assignment extends Statement
 {
     private String var;
     private Expression exp;
+    private int slot;
+    private ProcedureDeclaration tailCallee;
 
     /**
      * Creates a new Assignment and initializes the instance variables to the corresponding
@@ -34,15 +42,22 @@ public class Assignment extends Statement
     }
 
     /**
-     * Given the environment, executes this statement by calling the environment's setVariable 
-     * method to add a map entry with the variable's name and value.
+     * Given the environment, executes this statement by storing the value in the variable's
+     * slot.
      * @param env the Environment with all the variables
-     * @throws InterruptedException
-     * @postcondition a new map entry has been added with the variable's name and value
+     * @precondition resolve() has been called
+     * @return NORMAL, or TAIL_CALL if the statement is a tail call and the frame now holds the
+     *         arguments of the next call
+     * @postcondition the variable's slot holds the value
      */
-    public void exec(Environment env) throws InterruptedException
+    public int exec(Environment env)
     {
-        env.setVariable(var, exp.eval(env));
+        if (tailCallee != null && ((ProcedureCall) exp).reenter(env, tailCallee))
+        {
+            return TAIL_CALL;
+        }
+        env.store(slot, exp.eval(env));
+        return NORMAL;
     }
 
     /**
@@ -51,10 +66,16 @@ public class Assignment extends Statement
      * stack.
      * If the variable is local, it calculates the offset of the variable and stores it at that
      * position in the stack.
+     * A tail call instead overwrites the parameters of the current call and jumps back to the
+     * start of the procedure.
      * @param e the Emitter that writes code to the output file
      */
     public void compile(Emitter e)
     {
+        if (tailCallee != null && ((ProcedureCall) exp).compileTailCall(e, tailCallee))
+        {
+            return;
+        }
         exp.compile(e);
 
         if (e.isLocalVariable(var))
@@ -68,4 +89,138 @@ public class Assignment extends Statement
         }
         
     }
-}
\ No newline at end of file
+
+    /**
+     * Looks up the slot of the variable in the given scope, and resolves the value.
+     * @param scope the scope the assignment appears in
+     */
+    public void resolve(Scope scope)
+    {
+        slot = scope.resolve(var);
+        exp.resolve(scope);
+        tailCallee = null;
+    }
+
+    /**
+     * Specializes the assignment into a write of one slot of either the current or the global
+     * frame, or of a tail call into a TailCall.
+     * @param env the environment the statement will first be executed in
+     * @return a LocalStore, a GlobalStore, or a TailCall
+     */
+    public Statement specialize(Environment env)
+    {
+        if (tailCallee != null)
+        {
+            Statement tailCall = ((ProcedureCall) exp).specializeTailCall(env, tailCallee);
+            if (tailCall != null)
+            {
+                return tailCall;
+            }
+        }
+        if (slot >= 0)
+        {
+            return new Specialized.LocalStore(slot, exp.specialize(env));
+        }
+        return new Specialized.GlobalStore(~slot, exp.specialize(env));
+    }
+
+    /**
+     * Lowers the assignment. The value is computed straight into the variable's register when
+     * possible; a global variable inside a procedure is written with STOREG. A tail call becomes
+     * a jump back to the start of the procedure.
+     * @param b the BytecodeBuilder the instructions are added to
+     */
+    public void compile(BytecodeBuilder b)
+    {
+        if (tailCallee != null)
+        {
+            ((ProcedureCall) exp).compileTailCall(b, tailCallee);
+            return;
+        }
+        int mark = b.getTemps();
+        int value = exp.compile(b);
+        if (slot < 0)
+        {
+            b.emit(Bytecode.STOREG, ~slot, value, 0);
+        }
+        else if (value != slot && !b.retarget(value, slot))
+        {
+            b.emit(Bytecode.MOVE, slot, value, 0);
+        }
+        b.release(mark);
+    }
+
+    /**
+     * Lowers the assignment: a local variable simply takes the new value, and a global one is
+     * written with STOREG. A tail call becomes a jump back to the start of the procedure.
+     * @param b the IrBuilder the instructions are added to
+     */
+    public void lower(IrBuilder b)
+    {
+        if (tailCallee != null)
+        {
+            ((ProcedureCall) exp).lowerTailCall(b, tailCallee);
+            return;
+        }
+        b.writeVariable(var, exp.lower(b));
+    }
+
+    /**
+     * Records the assignment. Assigning to a global variable is impure; the value's effects are
+     * added either way.
+     * @param effects the Effects to add to
+     */
+    public void addEffects(Effects effects)
+    {
+        effects.addAssignment(var);
+        if (slot < 0)
+        {
+            effects.markImpure();
+        }
+        exp.addEffects(effects);
+    }
+
+    /**
+     * Marks the assignment as a tail call if it stores a call to the procedure in the
+     * procedure's result.
+     * @param procedure the procedure whose body this assignment ends
+     */
+    public void markTailCalls(ProcedureDeclaration procedure)
+    {
+        if (var.equals(procedure.getName()) && exp instanceof ProcedureCall
+            && ((ProcedureCall) exp).getName().equals(procedure.getName()))
+        {
+            tailCallee = procedure;
+        }
+    }
+
+    /**
+     * Folds the value, and records it as the variable's value if it is now a Number.
+     * @param known the values known before the assignment; updated to those known after it
+     * @return this assignment
+     */
+    public Statement fold(Constants known)
+    {
+        exp = exp.fold(known);
+        if (exp instanceof Number)
+        {
+            known.set(var, ((Number) exp).getValue());
+        }
+        else
+        {
+            known.kill(var);
+        }
+        return this;
+    }
+
+    /**
+     * Hoists the invariant parts of the value.
+     * @param h the Hoister, which knows the loops the assignment is in
+     * @return this assignment
+     */
+    public Statement hoist(Hoister h)
+    {
+        exp = h.rewrite(exp);
+        return this;
+    }
+}
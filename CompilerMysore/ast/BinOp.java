@@ -2,6 +2,11 @@ package ast;
 
 import emitter.Emitter;
 import environment.Environment;
+import environment.Scope;
+import ir.IrBuilder;
+import ir.Op;
+import vm.Bytecode;
+import vm.BytecodeBuilder;
 
 /**
  * This class is an expression that represents a binary operator.
@@ -13,13 +18,17 @@ import environment.Environment;
  * To evaluate this expression, we simply add/subtract/multiply/divide/mod the two operands.
  * 
  * @author Ishan Mysore
- * @version 11/20/23
+ * @version 10/17/26
  */
 public class BinOp extends Expression
 {
+    private static final int MAX_RECURSION = 64;
+
     private String op;
     private Expression exp1;
     private Expression exp2;
+    private int depth;
+    private boolean calls;
 
     /**
      * Creates a new BinOp and initializes the instance variables to the corresponding
@@ -27,27 +36,72 @@ public class BinOp extends Expression
      * @param op a String representing the binary operator (+, -, *, /, mod)
      * @param exp1 an Expression for the operand on the left side of the operator
      * @param exp2 an Expression for the operand on the right side of the operator
-     * @postcondition the instance variables are set as described above
+     * @postcondition the instance variables are set as described above, and depth is the number
+     *                of BinOps down the chain of left operands, counting this one, and calls
+     *                is true if either operand calls a procedure
      */
     public BinOp(String op, Expression exp1, Expression exp2)
     {
         this.op = op;
         this.exp1 = exp1;
         this.exp2 = exp2;
+        depth = exp1 instanceof BinOp ? ((BinOp) exp1).depth + 1 : 1;
+        calls = exp1.hasCall() || exp2.hasCall();
+    }
+
+    /**
+     * Collects the chain of BinOps down the left operands, starting at this one.
+     * @return the chain, with this BinOp first and the innermost BinOp last
+     */
+    private BinOp[] leftSpine()
+    {
+        BinOp[] spine = new BinOp[depth];
+        BinOp current = this;
+        for (int i = 0; i < depth; i++)
+        {
+            spine[i] = current;
+            if (i < depth - 1)
+            {
+                current = (BinOp) current.exp1;
+            }
+        }
+        return spine;
     }
 
     /**
      * Given the environment, evaluate this binary operator by performing the binary
      * operation on the operands.
+     * 
+     * A long chain such as 1 + 2 + ... + n is a BinOp whose left operand is another BinOp, many
+     * levels deep. Rather than recursing once per level, such a chain is evaluated bottom-up in a
+     * loop, so its length is not limited by the Java stack.
+     * 
      * @param env the environment with all the variables
      * @return an integer representing the result of the evaluation
-     * @throws InterruptedException
      */
-    public int eval(Environment env) throws InterruptedException
+    public int eval(Environment env)
     {
-        int exp1Eval = exp1.eval(env);
-        int exp2Eval = exp2.eval(env);
+        if (depth <= MAX_RECURSION)
+        {
+            return apply(exp1.eval(env), exp2.eval(env));
+        }
+        BinOp[] spine = leftSpine();
+        int result = spine[depth - 1].exp1.eval(env);
+        for (int i = depth - 1; i >= 0; i--)
+        {
+            result = spine[i].apply(result, spine[i].exp2.eval(env));
+        }
+        return result;
+    }
 
+    /**
+     * Performs the binary operation on two evaluated operands.
+     * @param exp1Eval the value of the left operand
+     * @param exp2Eval the value of the right operand
+     * @return the result of the operation
+     */
+    private int apply(int exp1Eval, int exp2Eval)
+    {
         if (op.equals("+"))
         {
             return exp1Eval + exp2Eval;
@@ -70,12 +124,33 @@ public class BinOp extends Expression
     /**
      * Generates MIPS code for a BinOp that compiles each side of the BinOp (storing the first
      * result in $t0 and the second result in $v0), and then adds, subtracts, multiplies, or
-     * divides the BinOp as appropriate.
+     * divides the BinOp as appropriate. A long chain of left operands is compiled bottom-up in a
+     * loop, which emits exactly the same code as compiling it recursively.
      * @param e the Emitter that writes code to the output file
      */
     public void compile(Emitter e)
     {
-        exp1.compile(e);
+        if (depth <= MAX_RECURSION)
+        {
+            exp1.compile(e);
+            emitOp(e);
+            return;
+        }
+        BinOp[] spine = leftSpine();
+        spine[depth - 1].exp1.compile(e);
+        for (int i = depth - 1; i >= 0; i--)
+        {
+            spine[i].emitOp(e);
+        }
+    }
+
+    /**
+     * Generates MIPS code that saves the left operand (already in $v0), compiles the right
+     * operand, and combines the two.
+     * @param e the Emitter that writes code to the output file
+     */
+    private void emitOp(Emitter e)
+    {
         e.emitPush("$v0");
         exp2.compile(e);
         e.emitPop("$t0");
@@ -99,4 +174,349 @@ public class BinOp extends Expression
             e.emit("mflo $v0\t# stores result in $v0");
         }
     }
+
+    /**
+     * Resolves both operands, walking a long chain of left operands in a loop.
+     * @param scope the scope the expression appears in
+     */
+    public void resolve(Scope scope)
+    {
+        if (depth <= MAX_RECURSION)
+        {
+            exp1.resolve(scope);
+            exp2.resolve(scope);
+            return;
+        }
+        BinOp[] spine = leftSpine();
+        spine[depth - 1].exp1.resolve(scope);
+        for (int i = depth - 1; i >= 0; i--)
+        {
+            spine[i].exp2.resolve(scope);
+        }
+    }
+
+    /**
+     * Specializes the operator into a node that performs only that operation on the specialized
+     * operands. Adding a Number becomes an AddConstant. A long chain of left operands is left as
+     * it is, since its nodes evaluate it without recursion.
+     * @param env the environment the expression will first be evaluated in
+     * @return an equivalent specialized expression
+     */
+    public Expression specialize(Environment env)
+    {
+        if (depth > MAX_RECURSION)
+        {
+            return this;
+        }
+        Expression left = exp1.specialize(env);
+        Expression right = exp2.specialize(env);
+        switch (op)
+        {
+            case "+":
+                if (right instanceof Number)
+                {
+                    return new Specialized.AddConstant(left, ((Number) right).getValue());
+                }
+                if (left instanceof Number)
+                {
+                    return new Specialized.AddConstant(right, ((Number) left).getValue());
+                }
+                return new Specialized.Add(left, right);
+            case "-":
+                return new Specialized.Subtract(left, right);
+            case "*":
+                return new Specialized.Multiply(left, right);
+            case "/":
+                return new Specialized.Divide(left, right);
+            default:
+                return new Specialized.Mod(left, right);
+        }
+    }
+
+    /**
+     * Lowers the expression to bytecode, walking long chains of left operands iteratively just
+     * as eval() does.
+     * @param b the BytecodeBuilder the instructions are added to
+     * @return the temporary that holds the result
+     */
+    public int compile(BytecodeBuilder b)
+    {
+        int mark = b.getTemps();
+        if (depth <= MAX_RECURSION)
+        {
+            return emitOp(b, mark, exp1.compile(b));
+        }
+        BinOp[] spine = leftSpine();
+        int result = spine[depth - 1].exp1.compile(b);
+        for (int i = depth - 1; i >= 0; i--)
+        {
+            result = spine[i].emitOp(b, mark, result);
+        }
+        return result;
+    }
+
+    /**
+     * Lowers the right operand and the operator itself, once the left operand is in a register.
+     * If the left operand is a global variable of the main program and the right operand calls
+     * a procedure, the variable is copied first, since the call could change it.
+     * @param b the BytecodeBuilder the instructions are added to
+     * @param mark the temporaries in use before the left operand was lowered
+     * @param left the register that holds the value of the left operand
+     * @return the temporary that holds the result
+     */
+    private int emitOp(BytecodeBuilder b, int mark, int left)
+    {
+        if (exp2.hasCall() && b.isGlobalRegister(left))
+        {
+            int copy = b.allocate();
+            b.emit(Bytecode.MOVE, copy, left, 0);
+            left = copy;
+        }
+        if (exp2 instanceof Number)
+        {
+            int value = ((Number) exp2).getValue();
+            b.release(mark);
+            int result = b.allocate();
+            switch (op)
+            {
+                case "+":
+                    b.emit(Bytecode.ADDI, result, left, value);
+                    break;
+                case "-":
+                    b.emit(Bytecode.ADDI, result, left, -value);
+                    break;
+                case "*":
+                    b.emit(Bytecode.MULI, result, left, value);
+                    break;
+                case "/":
+                    b.emit(Bytecode.DIVI, result, left, value);
+                    break;
+                default:
+                    b.emit(Bytecode.MODI, result, left, value);
+            }
+            return result;
+        }
+        int right = exp2.compile(b);
+        b.release(mark);
+        int result = b.allocate();
+        int opcode;
+        switch (op)
+        {
+            case "+":
+                opcode = Bytecode.ADD;
+                break;
+            case "-":
+                opcode = Bytecode.SUB;
+                break;
+            case "*":
+                opcode = Bytecode.MUL;
+                break;
+            case "/":
+                opcode = Bytecode.DIV;
+                break;
+            default:
+                opcode = Bytecode.MOD;
+        }
+        b.emit(opcode, result, left, right);
+        return result;
+    }
+
+    /**
+     * Lowers the expression to three-address code, walking long chains of left operands
+     * iteratively just as eval() does.
+     * @param b the IrBuilder the instructions are added to
+     * @return the value of the expression
+     */
+    public int lower(IrBuilder b)
+    {
+        if (depth <= MAX_RECURSION)
+        {
+            int left = exp1.lower(b);
+            return b.arithmetic(getIrOp(), left, exp2.lower(b));
+        }
+        BinOp[] spine = leftSpine();
+        int result = spine[depth - 1].exp1.lower(b);
+        for (int i = depth - 1; i >= 0; i--)
+        {
+            result = b.arithmetic(spine[i].getIrOp(), result, spine[i].exp2.lower(b));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the three-address operation for the operator.
+     * @return ADD, SUB, MUL, DIV, or MOD
+     */
+    private Op getIrOp()
+    {
+        switch (op)
+        {
+            case "+":
+                return Op.ADD;
+            case "-":
+                return Op.SUB;
+            case "*":
+                return Op.MUL;
+            case "/":
+                return Op.DIV;
+            default:
+                return Op.MOD;
+        }
+    }
+
+    /**
+     * Determines if evaluating the expression can call a procedure.
+     * @return the instance variable calls
+     */
+    public boolean hasCall()
+    {
+        return calls;
+    }
+
+    /**
+     * Adds the effects of both operands, walking long chains of left operands iteratively.
+     * @param effects the Effects to add to
+     */
+    public void addEffects(Effects effects)
+    {
+        if (depth <= MAX_RECURSION)
+        {
+            exp1.addEffects(effects);
+            exp2.addEffects(effects);
+            return;
+        }
+        BinOp[] spine = leftSpine();
+        spine[depth - 1].exp1.addEffects(effects);
+        for (int i = depth - 1; i >= 0; i--)
+        {
+            spine[i].exp2.addEffects(effects);
+        }
+    }
+
+    /**
+     * Folds both operands, and then the operation itself if both operands are now Numbers.
+     * Adding or subtracting 0 and multiplying or dividing by 1 are dropped. A division by a
+     * constant 0 is left for run time, so that it still fails there. Long chains of left
+     * operands are folded iteratively.
+     * @param known the values known before the expression is evaluated; updated to those known
+     *        after it
+     * @return a Number if both operands are known, or else an equivalent expression
+     */
+    public Expression fold(Constants known)
+    {
+        if (depth <= MAX_RECURSION)
+        {
+            Expression left = exp1.fold(known);
+            return combine(left, exp2.fold(known));
+        }
+        BinOp[] spine = leftSpine();
+        Expression result = spine[depth - 1].exp1.fold(known);
+        for (int i = depth - 1; i >= 0; i--)
+        {
+            result = spine[i].combine(result, spine[i].exp2.fold(known));
+        }
+        return result;
+    }
+
+    /**
+     * Applies this node's operator to two folded operands.
+     * @param left the folded left operand
+     * @param right the folded right operand
+     * @return the folded operation
+     */
+    private Expression combine(Expression left, Expression right)
+    {
+        if (right instanceof Number)
+        {
+            int value = ((Number) right).getValue();
+            if (left instanceof Number && (value != 0 || op.equals("+") || op.equals("-")
+                || op.equals("*")))
+            {
+                return new Number(apply(((Number) left).getValue(), value));
+            }
+            if (value == 0 && (op.equals("+") || op.equals("-"))
+                || value == 1 && (op.equals("*") || op.equals("/")))
+            {
+                return left;
+            }
+        }
+        if (left instanceof Number)
+        {
+            int value = ((Number) left).getValue();
+            if (value == 0 && op.equals("+") || value == 1 && op.equals("*"))
+            {
+                return right;
+            }
+        }
+        if (left == exp1 && right == exp2)
+        {
+            return this;
+        }
+        return new BinOp(op, left, right);
+    }
+
+    /**
+     * Finds the level of the operation from those of its operands, and hoists each operand that
+     * is invariant in more loops than the operation is. The operation itself is left for its
+     * parent to hoist, since the parent may be invariant in the same loops. Long chains of left
+     * operands are walked iteratively.
+     * @param h the Hoister, which knows the loops the operation is in
+     * @return the operation, with its operands replaced if any were hoisted
+     * @postcondition h.getLevel() is the level of the operation
+     */
+    public Expression hoist(Hoister h)
+    {
+        if (depth <= MAX_RECURSION)
+        {
+            Expression left = exp1.hoist(h);
+            int leftLevel = h.getLevel();
+            Expression right = exp2.hoist(h);
+            return hoist(h, left, leftLevel, right, h.getLevel());
+        }
+        BinOp[] spine = leftSpine();
+        Expression result = spine[depth - 1].exp1.hoist(h);
+        for (int i = depth - 1; i >= 0; i--)
+        {
+            int resultLevel = h.getLevel();
+            Expression right = spine[i].exp2.hoist(h);
+            result = spine[i].hoist(h, result, resultLevel, right, h.getLevel());
+        }
+        return result;
+    }
+
+    /**
+     * Applies this node's operator to two operands whose invariant parts have been hoisted. A
+     * division is only invariant if its divisor is a nonzero Number, so that hoisting it can
+     * never make it fail.
+     * @param h the Hoister, which knows the loops the operation is in
+     * @param left the left operand
+     * @param leftLevel the level of the left operand
+     * @param right the right operand
+     * @param rightLevel the level of the right operand
+     * @return the operation
+     */
+    private Expression hoist(Hoister h, Expression left, int leftLevel, Expression right,
+        int rightLevel)
+    {
+        int level = Math.max(leftLevel, rightLevel);
+        if (!op.equals("+") && !op.equals("-") && !op.equals("*")
+            && !(right instanceof Number && ((Number) right).getValue() != 0))
+        {
+            level = h.getDepth();
+        }
+        if (leftLevel < level)
+        {
+            left = h.extract(left, leftLevel);
+        }
+        if (rightLevel < level)
+        {
+            right = h.extract(right, rightLevel);
+        }
+        h.setLevel(level);
+        if (left == exp1 && right == exp2)
+        {
+            return this;
+        }
+        return new BinOp(op, left, right);
+    }
 }
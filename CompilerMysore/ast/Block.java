@@ -4,6 +4,9 @@ import java.util.*;
 
 import emitter.Emitter;
 import environment.Environment;
+import environment.Scope;
+import ir.IrBuilder;
+import vm.BytecodeBuilder;
 
 /**
  * This class is a statement that represents a block of statements, starting with BEGIN and ending
@@ -35,14 +38,21 @@ public class Block extends Statement
     /**
      * Executes this statement by executing each statement in the list of statements.
      * @param env the Environment with all the variables
+     * @return NORMAL, or BREAK or CONTINUE if a statement in the block broke or continued,
+     *         in which case the statements after it are skipped
      * @postcondition all the statements in the block have been executed
      */
-    public void exec(Environment env) throws InterruptedException
+    public int exec(Environment env)
     {
         for (Statement stmt : stmts)
         {
-            stmt.exec(env);
+            int completion = stmt.exec(env);
+            if (completion != NORMAL)
+            {
+                return completion;
+            }
         }
+        return NORMAL;
     }
 
     /**
@@ -56,4 +66,160 @@ public class Block extends Statement
             stmt.compile(e);
         }
     }
+
+    /**
+     * Resolves every statement in the block.
+     * @param scope the scope the block appears in
+     */
+    public void resolve(Scope scope)
+    {
+        for (Statement stmt : stmts)
+        {
+            stmt.resolve(scope);
+        }
+    }
+
+    /**
+     * Specializes every statement in the block.
+     * @param env the environment the block will first be executed in
+     * @return a Sequence of the specialized statements
+     */
+    public Statement specialize(Environment env)
+    {
+        Statement[] specialized = new Statement[stmts.size()];
+        for (int i = 0; i < specialized.length; i++)
+        {
+            specialized[i] = stmts.get(i).specialize(env);
+        }
+        return new Specialized.Sequence(specialized);
+    }
+
+    /**
+     * Lowers each statement in order.
+     * @param b the BytecodeBuilder the instructions are added to
+     */
+    public void compile(BytecodeBuilder b)
+    {
+        for (Statement stmt : stmts)
+        {
+            stmt.compile(b);
+        }
+    }
+
+    /**
+     * Lowers each statement in order.
+     * @param b the IrBuilder the instructions are added to
+     */
+    public void lower(IrBuilder b)
+    {
+        for (Statement stmt : stmts)
+        {
+            stmt.lower(b);
+        }
+    }
+
+    /**
+     * Adds the effects of every statement.
+     * @param effects the Effects to add to
+     */
+    public void addEffects(Effects effects)
+    {
+        for (Statement stmt : stmts)
+        {
+            stmt.addEffects(effects);
+        }
+    }
+
+    /**
+     * Only the last statement of a block in tail position is in tail position.
+     * @param procedure the procedure whose body this block ends
+     */
+    public void markTailCalls(ProcedureDeclaration procedure)
+    {
+        if (!stmts.isEmpty())
+        {
+            stmts.get(stmts.size() - 1).markTailCalls(procedure);
+        }
+    }
+
+    /**
+     * Folds every statement in order, each with what is known after the ones before it.
+     * @param known the values known before the block; updated to those known after it
+     * @return this block
+     */
+    public Statement fold(Constants known)
+    {
+        List<Statement> folded = new ArrayList<Statement>(stmts.size());
+        for (Statement stmt : stmts)
+        {
+            folded.add(stmt.fold(known));
+        }
+        stmts = folded;
+        return this;
+    }
+
+    /**
+     * Prunes every statement, dropping the ones that have become empty blocks and everything
+     * after a statement that always ends with a BREAK or CONTINUE.
+     * @return this block
+     */
+    public Statement prune()
+    {
+        List<Statement> pruned = new ArrayList<Statement>(stmts.size());
+        for (Statement stmt : stmts)
+        {
+            Statement live = stmt.prune();
+            if (!(live instanceof Block && ((Block) live).isEmpty()))
+            {
+                pruned.add(live);
+            }
+            if (live.endsAbruptly())
+            {
+                break;
+            }
+        }
+        stmts = pruned;
+        return this;
+    }
+
+    /**
+     * A block ends abruptly if any of its statements does.
+     * @return true if some statement always ends with a BREAK or CONTINUE, false otherwise
+     */
+    public boolean endsAbruptly()
+    {
+        for (Statement stmt : stmts)
+        {
+            if (stmt.endsAbruptly())
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Determines if the block has no statements.
+     * @return true if the block is empty, false otherwise
+     */
+    public boolean isEmpty()
+    {
+        return stmts.isEmpty();
+    }
+
+    /**
+     * Hoists the invariant parts of every statement.
+     * @param h the Hoister, which knows the loops the block is in
+     * @return this block
+     */
+    public Statement hoist(Hoister h)
+    {
+        List<Statement> hoisted = new ArrayList<Statement>(stmts.size());
+        for (Statement stmt : stmts)
+        {
+            hoisted.add(stmt.hoist(h));
+        }
+        stmts = hoisted;
+        return this;
+    }
 }
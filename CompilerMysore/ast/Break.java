@@ -1,24 +1,73 @@
 package ast;
 
 import environment.Environment;
+import ir.IrBuilder;
+import vm.Bytecode;
+import vm.BytecodeBuilder;
 
 /**
  * This class is a statement that represents the BREAK keyword.
  *
- * To execute this statement, we simply throw a RuntimeException to break from the loop.
+ * To execute this statement, we simply return BREAK, which the enclosing loop acts on by
+ * terminating.
  * 
  * @author Ishan Mysore
- * @version 10/14/23
+ * @version 10/17/26
  */
 public class Break extends Statement
 {
     /**
-     * Throws a RuntimeException in order to break from the loop.
+     * Returns BREAK in order to break from the loop.
      * @param env the environment with all the variables
-     * @throws RuntimeException
+     * @return BREAK
      */
-    public void exec(Environment env)
+    public int exec(Environment env)
     {
-        throw new RuntimeException();
+        return BREAK;
+    }
+
+    /**
+     * Lowers the statement to a jump out of the innermost loop.
+     * @param b the BytecodeBuilder the instructions are added to
+     */
+    public void compile(BytecodeBuilder b)
+    {
+        b.emitJump(Bytecode.JMP, 0, 0, b.getBreakLabel());
+    }
+
+    /**
+     * Lowers the statement to a jump out of the innermost loop.
+     * @param b the IrBuilder the instructions are added to
+     */
+    public void lower(IrBuilder b)
+    {
+        b.jump(b.getBreakTarget());
+    }
+
+    /**
+     * Leaving a loop has no effects outside the frame.
+     * @param effects the Effects to add to
+     */
+    public void addEffects(Effects effects)
+    {
+    }
+
+    /**
+     * Has nothing to fold, and changes no variable.
+     * @param known the values known before the statement
+     * @return this statement
+     */
+    public Statement fold(Constants known)
+    {
+        return this;
+    }
+
+    /**
+     * Nothing after this statement in the same block can run.
+     * @return true
+     */
+    public boolean endsAbruptly()
+    {
+        return true;
     }
 }
@@ -2,6 +2,11 @@ package ast;
 
 import emitter.Emitter;
 import environment.Environment;
+import environment.Scope;
+import ir.BasicBlock;
+import ir.IrBuilder;
+import vm.Bytecode;
+import vm.BytecodeBuilder;
 
 /**
  * This class represents a boolean expression, or a condition.
@@ -42,9 +47,8 @@ public class Condition
      * on the operands.
      * @param env the environment with all the variables
      * @return true if the operation is a true statement, false otherwise
-     * @throws InterruptedException
      */
-    public boolean eval(Environment env) throws InterruptedException
+    public boolean eval(Environment env)
     {
         int exp1Eval = exp1.eval(env);
         int exp2Eval = exp2.eval(env);
@@ -111,4 +115,202 @@ public class Condition
             e.emit("beq $t0 $v0 " + target + "\t# jumps to target label if $t0 equals $v0");
         }
     }
+
+    /**
+     * Resolves both sides of the condition.
+     * @param scope the scope the condition appears in
+     */
+    public void resolve(Scope scope)
+    {
+        exp1.resolve(scope);
+        exp2.resolve(scope);
+    }
+
+    /**
+     * Specializes the condition into a node that performs only its comparison on the
+     * specialized operands. A comparison against a Number on the right compares against the
+     * number directly.
+     * @param env the environment the condition will first be evaluated in
+     * @return an equivalent specialized condition
+     */
+    public Condition specialize(Environment env)
+    {
+        Expression left = exp1.specialize(env);
+        Expression right = exp2.specialize(env);
+        if (right instanceof Number)
+        {
+            Number constant = (Number) right;
+            switch (relop)
+            {
+                case "=":
+                    return new Specialized.EqualConstant(left, constant);
+                case "<>":
+                    return new Specialized.NotEqualConstant(left, constant);
+                case "<":
+                    return new Specialized.LessConstant(left, constant);
+                case "<=":
+                    return new Specialized.LessEqualConstant(left, constant);
+                case ">":
+                    return new Specialized.GreaterConstant(left, constant);
+                default:
+                    return new Specialized.GreaterEqualConstant(left, constant);
+            }
+        }
+        switch (relop)
+        {
+            case "=":
+                return new Specialized.Equal(left, right);
+            case "<>":
+                return new Specialized.NotEqual(left, right);
+            case "<":
+                return new Specialized.Less(left, right);
+            case "<=":
+                return new Specialized.LessEqual(left, right);
+            case ">":
+                return new Specialized.Greater(left, right);
+            default:
+                return new Specialized.GreaterEqual(left, right);
+        }
+    }
+
+    /**
+     * Lowers the condition to a jump that is taken when the condition is false.
+     * @param b the BytecodeBuilder the instructions are added to
+     * @param label the label to jump to if the condition is false
+     */
+    public void compile(BytecodeBuilder b, int label)
+    {
+        compile(b, label, false);
+    }
+
+    /**
+     * Lowers the condition to a single conditional jump, comparing against an immediate when the
+     * right side is a number.
+     * @param b the BytecodeBuilder the instructions are added to
+     * @param label the label to jump to
+     * @param when true to jump if the condition is true, false to jump if it is false
+     */
+    public void compile(BytecodeBuilder b, int label, boolean when)
+    {
+        int mark = b.getTemps();
+        int left = exp1.compile(b);
+        if (exp2.hasCall() && b.isGlobalRegister(left))
+        {
+            int copy = b.allocate();
+            b.emit(Bytecode.MOVE, copy, left, 0);
+            left = copy;
+        }
+        int opcode;
+        switch (relop)
+        {
+            case "=":
+                opcode = Bytecode.JNE;
+                break;
+            case "<>":
+                opcode = Bytecode.JEQ;
+                break;
+            case "<":
+                opcode = Bytecode.JGE;
+                break;
+            case "<=":
+                opcode = Bytecode.JGT;
+                break;
+            case ">":
+                opcode = Bytecode.JLE;
+                break;
+            default:
+                opcode = Bytecode.JLT;
+        }
+        if (when)
+        {
+            opcode = negate(opcode);
+        }
+        if (exp2 instanceof Number)
+        {
+            b.emitJump(opcode + Bytecode.JEQI - Bytecode.JEQ, left, ((Number) exp2).getValue(),
+                label);
+        }
+        else
+        {
+            b.emitJump(opcode, left, exp2.compile(b), label);
+        }
+        b.release(mark);
+    }
+
+    /**
+     * Lowers the condition to a BRANCH, which ends the current block.
+     * @param b the IrBuilder the instructions are added to
+     * @param ifTrue the block to go to if the condition is true
+     * @param ifFalse the block to go to if the condition is false
+     */
+    public void lower(IrBuilder b, BasicBlock ifTrue, BasicBlock ifFalse)
+    {
+        int left = exp1.lower(b);
+        b.branch(relop, left, exp2.lower(b), ifTrue, ifFalse);
+    }
+
+    /**
+     * Returns the conditional jump that is taken exactly when the given one is not.
+     * @param opcode one of JEQ, JNE, JLT, JLE, JGT, and JGE
+     * @return the opposite jump
+     */
+    private static int negate(int opcode)
+    {
+        switch (opcode)
+        {
+            case Bytecode.JEQ:
+                return Bytecode.JNE;
+            case Bytecode.JNE:
+                return Bytecode.JEQ;
+            case Bytecode.JLT:
+                return Bytecode.JGE;
+            case Bytecode.JGE:
+                return Bytecode.JLT;
+            case Bytecode.JLE:
+                return Bytecode.JGT;
+            default:
+                return Bytecode.JLE;
+        }
+    }
+
+    /**
+     * Adds the effects of both sides of the condition.
+     * @param effects the Effects to add to
+     */
+    public void addEffects(Effects effects)
+    {
+        exp1.addEffects(effects);
+        exp2.addEffects(effects);
+    }
+
+    /**
+     * Folds both sides of the condition.
+     * @param known the values known before the condition is evaluated; updated to those known
+     *        after it
+     */
+    public void fold(Constants known)
+    {
+        exp1 = exp1.fold(known);
+        exp2 = exp2.fold(known);
+    }
+
+    /**
+     * Determines if the outcome of the condition is known without running the program.
+     * @return true if both sides are Numbers, false otherwise
+     */
+    public boolean isConstant()
+    {
+        return exp1 instanceof Number && exp2 instanceof Number;
+    }
+
+    /**
+     * Hoists both sides of the condition, if they are invariant operations, along with any
+     * invariant operations inside them.
+     * @param h the Hoister, which knows the loops the condition is in
+     */
+    public void hoist(Hoister h)
+    {
+        exp1 = h.rewrite(exp1);
+        exp2 = h.rewrite(exp2);
+    }
 }
@@ -0,0 +1,119 @@
+package ast;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Constants holds what constant folding knows at one point of a program: the variables whose
+ * values are known there, and those values. Nodes read and update it through fold(), in the
+ * order they execute.
+ *
+ * Inside a procedure, the parameters, the procedure's name, and the local variables are local,
+ * and every other name is global. In the main program, every name is global. A procedure call
+ * can assign any global variable, so it forgets all the global values, but it never touches the
+ * caller's local variables.
+ *
+ * @author Ishan Mysore
+ * @version 10/17/26
+ */
+public class Constants
+{
+    private Map<String, Integer> values;
+    private Set<String> locals;
+
+    /**
+     * Creates a new Constants that knows nothing.
+     * @param locals the names of the local variables of the procedure being folded, or null for
+     *        the main program
+     */
+    public Constants(Set<String> locals)
+    {
+        values = new HashMap<String, Integer>();
+        this.locals = locals;
+    }
+
+    /**
+     * Returns the value of a variable, if it is known.
+     * @param name the name of the variable
+     * @return the value, or null if it is not known
+     */
+    public Integer get(String name)
+    {
+        return values.get(name);
+    }
+
+    /**
+     * Records the value of a variable.
+     * @param name the name of the variable
+     * @param value its value
+     */
+    public void set(String name, int value)
+    {
+        values.put(name, value);
+    }
+
+    /**
+     * Forgets the value of a variable.
+     * @param name the name of the variable
+     */
+    public void kill(String name)
+    {
+        values.remove(name);
+    }
+
+    /**
+     * Forgets the values of several variables.
+     * @param names the names of the variables
+     */
+    public void killAll(Collection<String> names)
+    {
+        values.keySet().removeAll(names);
+    }
+
+    /**
+     * Forgets the value of every global variable, as a procedure call has to.
+     */
+    public void killGlobals()
+    {
+        if (locals == null)
+        {
+            values.clear();
+        }
+        else
+        {
+            values.keySet().retainAll(locals);
+        }
+    }
+
+    /**
+     * Forgets every value.
+     */
+    public void clear()
+    {
+        values.clear();
+    }
+
+    /**
+     * Returns a Constants that knows the same values as this one, for folding one of two paths.
+     * @return the copy
+     */
+    public Constants copy()
+    {
+        Constants copy = new Constants(locals);
+        copy.values.putAll(values);
+        return copy;
+    }
+
+    /**
+     * Keeps only the values that another Constants knows too, for the point where two paths
+     * meet.
+     * @param other what is known at the end of the other path
+     */
+    public void retainCommon(Constants other)
+    {
+        values.entrySet().removeIf(
+            entry -> !entry.getValue().equals(other.values.get(entry.getKey())));
+    }
+}
@@ -1,25 +1,73 @@
 package ast;
 
 import environment.Environment;
+import ir.IrBuilder;
+import vm.Bytecode;
+import vm.BytecodeBuilder;
 
 /**
  * This class is a statement that represents the CONTINUE keyword.
  *
- * To execute this statement, we simply throw an InterruptedException to go to the next iteration
- * of the loop.
+ * To execute this statement, we simply return CONTINUE, which the enclosing loop acts on by
+ * going to the next iteration.
  * 
  * @author Ishan Mysore
- * @version 10/14/23
+ * @version 10/17/26
  */
 public class Continue extends Statement
 {
     /**
-     * Throws an InterruptedException in order to go to the next iteration of the loop
+     * Returns CONTINUE in order to go to the next iteration of the loop.
      * @param env the environment with all the variables
-     * @throws InterruptedException
+     * @return CONTINUE
      */
-    public void exec(Environment env) throws InterruptedException
+    public int exec(Environment env)
     {
-        throw new InterruptedException();
+        return CONTINUE;
+    }
+
+    /**
+     * Lowers the statement to a jump to the next iteration of the innermost loop.
+     * @param b the BytecodeBuilder the instructions are added to
+     */
+    public void compile(BytecodeBuilder b)
+    {
+        b.emitJump(Bytecode.JMP, 0, 0, b.getContinueLabel());
+    }
+
+    /**
+     * Lowers the statement to a jump to the next iteration of the innermost loop.
+     * @param b the IrBuilder the instructions are added to
+     */
+    public void lower(IrBuilder b)
+    {
+        b.jump(b.getContinueTarget());
+    }
+
+    /**
+     * Leaving a loop has no effects outside the frame.
+     * @param effects the Effects to add to
+     */
+    public void addEffects(Effects effects)
+    {
+    }
+
+    /**
+     * Has nothing to fold, and changes no variable.
+     * @param known the values known before the statement
+     * @return this statement
+     */
+    public Statement fold(Constants known)
+    {
+        return this;
+    }
+
+    /**
+     * Nothing after this statement in the same block can run.
+     * @return true
+     */
+    public boolean endsAbruptly()
+    {
+        return true;
     }
 }
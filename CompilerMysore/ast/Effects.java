@@ -0,0 +1,134 @@
+package ast;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Effects collects what a piece of code can do besides computing values in its own frame: touch
+ * a global variable, print, or call procedures. Nodes add to it through addEffects(), and
+ * anything a node does not know how to describe counts as impure. It also records the names of
+ * the variables the code assigns.
+ *
+ * markPure() uses it to decide which procedures are pure functions of their arguments, so that
+ * their results can be memoized. Constant folding uses it to find what a loop can change.
+ *
+ * @author Ishan Mysore
+ * @version 10/17/26
+ */
+public class Effects
+{
+    private boolean impure;
+    private Set<String> calls;
+    private Set<String> assignments;
+
+    /**
+     * Creates a new Effects with no effects in it.
+     */
+    public Effects()
+    {
+        calls = new HashSet<String>();
+        assignments = new HashSet<String>();
+    }
+
+    /**
+     * Records that the code reads or writes a global variable, prints, or does something else
+     * whose result could differ between two calls with the same arguments.
+     */
+    public void markImpure()
+    {
+        impure = true;
+    }
+
+    /**
+     * Determines if the code has been found to be impure.
+     * @return the instance variable impure
+     */
+    public boolean isImpure()
+    {
+        return impure;
+    }
+
+    /**
+     * Records that the code calls a procedure.
+     * @param name the name of the procedure
+     */
+    public void addCall(String name)
+    {
+        calls.add(name);
+    }
+
+    /**
+     * Returns the names of the procedures the code calls.
+     * @return the instance variable calls
+     */
+    public Set<String> getCalls()
+    {
+        return calls;
+    }
+
+    /**
+     * Records that the code assigns a variable.
+     * @param name the name of the variable
+     */
+    public void addAssignment(String name)
+    {
+        assignments.add(name);
+    }
+
+    /**
+     * Returns the names of the variables the code assigns.
+     * @return the instance variable assignments
+     */
+    public Set<String> getAssignments()
+    {
+        return assignments;
+    }
+
+    /**
+     * Marks each procedure as pure or not. A procedure is pure if its statement does not read
+     * or write any global variable, does not print, and only calls pure procedures. Procedures
+     * that call each other are assumed pure until one of them is found not to be, so a recursive
+     * procedure can be pure. A call to a procedure that does not exist makes the caller impure.
+     * @precondition the procedures have been resolved
+     * @param procedures the procedures of a program, in declaration order
+     * @postcondition isPure() of each procedure reflects the analysis
+     */
+    public static void markPure(List<ProcedureDeclaration> procedures)
+    {
+        Map<String, ProcedureDeclaration> byName = new HashMap<String, ProcedureDeclaration>();
+        Map<ProcedureDeclaration, Effects> effects = new HashMap<ProcedureDeclaration, Effects>();
+        for (ProcedureDeclaration procedure : procedures)
+        {
+            byName.put(procedure.getName(), procedure);
+            Effects body = new Effects();
+            procedure.getStatement().addEffects(body);
+            effects.put(procedure, body);
+            procedure.setPure(!body.isImpure());
+        }
+        boolean changed = true;
+        while (changed)
+        {
+            changed = false;
+            for (ProcedureDeclaration procedure : procedures)
+            {
+                if (!procedure.isPure())
+                {
+                    continue;
+                }
+                for (String name : effects.get(procedure).getCalls())
+                {
+                    ProcedureDeclaration callee = byName.get(name);
+                    if (callee == null || !callee.isPure())
+                    {
+                        procedure.setPure(false);
+                        changed = true;
+                        break;
+                    }
+                }
+            }
+        }
+    }
+}
@@ -2,6 +2,9 @@ package ast;
 
 import emitter.Emitter;
 import environment.Environment;
+import environment.Scope;
+import ir.IrBuilder;
+import vm.BytecodeBuilder;
 
 /**
  * This abstract class represents an expression that we will evaluate. A expression can be one of
@@ -21,9 +24,8 @@ public abstract class Expression
      * method will be overriden in each subclass.
      * @param env the environment with all the variables and their values
      * @return an integer representing the evaluated expression
-     * @throws InterruptedException
      */
-    public abstract int eval(Environment env) throws InterruptedException;
+    public abstract int eval(Environment env);
 
     /**
      * Compile method for an expression; will be overriden in subclasses
@@ -34,4 +36,96 @@ public abstract class Expression
     {
         throw new RuntimeException("Implement me!!!");
     }
+
+    /**
+     * Gives every variable this expression uses a slot in the given scope, so that evaluating
+     * it never has to look a variable up by name. Does nothing by default, for expressions that
+     * use no variables.
+     * @param scope the scope the expression appears in
+     */
+    public void resolve(Scope scope)
+    {
+    }
+
+    /**
+     * Returns a version of this expression specialized for fast, repeated evaluation: one in
+     * which every decision that does not depend on the values of variables has already been
+     * made. Returns this expression by default, for expressions that have nothing to decide.
+     * @precondition the expression has been resolved
+     * @param env the environment the expression will first be evaluated in
+     * @return an equivalent expression for evaluating only
+     */
+    public Expression specialize(Environment env)
+    {
+        return this;
+    }
+
+    /**
+     * Lowers the expression to bytecode that leaves its value in a register. Temporaries the
+     * expression allocates stay allocated until the caller releases them.
+     * @param b the BytecodeBuilder the instructions are added to
+     * @return the register that holds the value of the expression
+     */
+    public int compile(BytecodeBuilder b)
+    {
+        throw new RuntimeException("Implement me!!!");
+    }
+
+    /**
+     * Lowers the expression to three-address code.
+     * @param b the IrBuilder the instructions are added to
+     * @return the value of the expression
+     * @throws RuntimeException if this method needs to be implemented in subclasses
+     */
+    public int lower(IrBuilder b)
+    {
+        throw new RuntimeException("Implement me!!!");
+    }
+
+    /**
+     * Determines if evaluating the expression can call a procedure, which may change global
+     * variables.
+     * @return false by default
+     */
+    public boolean hasCall()
+    {
+        return false;
+    }
+
+    /**
+     * Adds what evaluating the expression can do besides computing its value to an Effects.
+     * @param effects the Effects to add to
+     * @postcondition effects is marked impure, unless a subclass knows better
+     */
+    public void addEffects(Effects effects)
+    {
+        effects.markImpure();
+    }
+
+    /**
+     * Folds the constant parts of the expression, using and updating what is known about the
+     * variables at the point where it is evaluated. Returns the expression itself by default,
+     * for expressions that have nothing to fold and no effect on what is known.
+     * @param known the values known before the expression is evaluated; updated to those known
+     *        after it
+     * @return an equivalent expression, which is a Number if its value is known
+     */
+    public Expression fold(Constants known)
+    {
+        return this;
+    }
+
+    /**
+     * Hoists the loop-invariant parts of the expression out of the loops it is in. By default
+     * nothing is hoisted, and the expression is taken to vary in every loop, since it could
+     * depend on anything.
+     * @param h the Hoister, which knows the loops the expression is in
+     * @return the expression to evaluate in place of this one
+     * @postcondition h.getLevel() is the level of the expression
+     */
+    public Expression hoist(Hoister h)
+    {
+        h.setLevel(h.getDepth());
+        return this;
+    }
 }
@@ -0,0 +1,195 @@
+package ast;
+
+import emitter.Emitter;
+import environment.Environment;
+import environment.Scope;
+import ir.IrBuilder;
+import vm.BytecodeBuilder;
+
+/**
+ * This class is a statement that stands in for a statement stored in a FlatTree.
+ * 
+ * The ordinary Statement objects for the node are built the first time the statement is
+ * executed or compiled, and every call after that is simply passed on to them.
+ * 
+ * @author Ishan Mysore
+ * @version 10/17/26
+ */
+public class FlatStatement extends Statement
+{
+    private FlatTree tree;
+    private int node;
+    private volatile Statement statement;
+    private Scope scope;
+    private ProcedureDeclaration tailProcedure;
+
+    /**
+     * Creates a new FlatStatement for a node of a FlatTree.
+     * @param tree the FlatTree holding the statement
+     * @param node the index of the statement node
+     */
+    public FlatStatement(FlatTree tree, int node)
+    {
+        this.tree = tree;
+        this.node = node;
+    }
+
+    /**
+     * Returns the ordinary Statement for the node, building it if this is the first time it has
+     * been needed. Once built, the statement is read without taking the lock; it is only
+     * published after it has been resolved and its tail calls marked.
+     * @return the equivalent Statement
+     */
+    public Statement getStatement()
+    {
+        Statement built = statement;
+        if (built != null)
+        {
+            return built;
+        }
+        synchronized (this)
+        {
+            if (statement == null)
+            {
+                built = tree.toStatement(node);
+                if (built != null && scope != null)
+                {
+                    built.resolve(scope);
+                }
+                if (built != null && tailProcedure != null)
+                {
+                    built.markTailCalls(tailProcedure);
+                }
+                tree = null;
+                statement = built;
+            }
+            return statement;
+        }
+    }
+
+    /**
+     * Builds the statement, if it has not been built yet.
+     */
+    public void build()
+    {
+        getStatement();
+    }
+
+    /**
+     * Executes the statement, building it first if needed.
+     * @param env the environment to execute the statement in
+     * @return the completion of the statement
+     */
+    public int exec(Environment env)
+    {
+        return getStatement().exec(env);
+    }
+
+    /**
+     * Generates MIPS code for the statement, building it first if needed.
+     * @param e the Emitter that writes code to the output file
+     */
+    public void compile(Emitter e)
+    {
+        getStatement().compile(e);
+    }
+
+    /**
+     * Resolves the statement in the given scope, or remembers the scope so that the statement
+     * is resolved in it as soon as it is built.
+     * @param scope the scope the statement appears in
+     */
+    public synchronized void resolve(Scope scope)
+    {
+        if (statement == null)
+        {
+            this.scope = scope;
+        }
+        else
+        {
+            statement.resolve(scope);
+        }
+    }
+
+    /**
+     * Specializes the statement, building it first if needed.
+     * @param env the environment the statement will first be executed in
+     * @return the specialized statement
+     */
+    public Statement specialize(Environment env)
+    {
+        return getStatement().specialize(env);
+    }
+
+    /**
+     * Lowers the statement to bytecode, building it first if needed.
+     * @param b the BytecodeBuilder the instructions are added to
+     */
+    public void compile(BytecodeBuilder b)
+    {
+        getStatement().compile(b);
+    }
+
+    /**
+     * Lowers the statement to three-address code, building it first if needed.
+     * @param b the IrBuilder the instructions are added to
+     */
+    public void lower(IrBuilder b)
+    {
+        getStatement().lower(b);
+    }
+
+    /**
+     * Adds the effects of the statement, building it first if needed.
+     * @param effects the Effects to add to
+     */
+    public void addEffects(Effects effects)
+    {
+        getStatement().addEffects(effects);
+    }
+
+    /**
+     * Marks the tail calls of the statement, or remembers the procedure so that they are marked as
+     * soon as it is built.
+     * @param procedure the procedure whose body this statement ends
+     */
+    public synchronized void markTailCalls(ProcedureDeclaration procedure)
+    {
+        if (statement == null)
+        {
+            tailProcedure = procedure;
+        }
+        else
+        {
+            statement.markTailCalls(procedure);
+        }
+    }
+
+    /**
+     * Prunes the statement, building it first if needed.
+     * @return the pruned statement, which takes the place of this one
+     */
+    public Statement prune()
+    {
+        return getStatement().prune();
+    }
+
+    /**
+     * Determines if the statement always ends abruptly, building it first if needed.
+     * @return true if the statement always ends with a BREAK or CONTINUE, false otherwise
+     */
+    public boolean endsAbruptly()
+    {
+        return getStatement().endsAbruptly();
+    }
+
+    /**
+     * Hoists the invariant parts of the statement, building it first if needed.
+     * @param h the Hoister, which knows the loops the statement is in
+     * @return the hoisted statement, which takes the place of this one
+     */
+    public Statement hoist(Hoister h)
+    {
+        return getStatement().hoist(h);
+    }
+}
@@ -0,0 +1,643 @@
+package ast;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+import scanner.SymbolTable;
+
+/**
+ * This class is a compact, array-backed form of the AST.
+ *
+ * Instead of one object per node, every node is a row across four parallel arrays: an opcode
+ * byte, an int payload, the index of the node's first child, and the index of its next sibling.
+ * The payload is the value of a NUMBER, or the symbol ID of the name a node refers to (a
+ * variable, a procedure, a parameter, or the target of an assignment or FOR). Operators are
+ * told apart by opcode, so no node carries a String.
+ *
+ * Nodes are added bottom-up, so a node's children always have smaller indexes than the node
+ * itself, and a node's subtree occupies a contiguous range of indexes ending at the node. A walk
+ * over the tree is therefore a walk over a few arrays in nearly sequential order.
+ *
+ * The layout of each node's children is:
+ * - PROGRAM: GLOBAL..., PROCEDURE..., and then the main statement (if any)
+ * - PROCEDURE: PARAM..., LOCAL..., and then the body
+ * - CALL and BLOCK: any number of arguments or statements
+ * - IF: condition, statement, and optionally the else statement
+ * - WHILE: condition, statement
+ * - FOR: start, end, statement (payload is the loop variable)
+ * - ASSIGN and WRITELN: expression
+ * - the binary operators and the relational operators: left operand, right operand
+ *
+ * The to* methods are adapters that build the ordinary AST objects for a node, so everything
+ * that executes or compiles the ordinary AST can run a FlatTree as well.
+ *
+ * A FlatTree can be written to and read back from a compact binary form. Payloads and the
+ * distances from each node to its first child and next sibling are written as variable-length
+ * integers, since they are almost always small. The form begins with MAGIC and FORMAT_VERSION,
+ * and FORMAT_VERSION must be bumped whenever the form, the opcodes, or the trees the parsers
+ * build change, so that trees written by an older compiler are never read as current ones. It
+ * ends with a CRC-32 of everything after MAGIC, so a damaged tree is never read as a valid one.
+ *
+ * @author Ishan Mysore
+ * @version 10/17/26
+ */
+public class FlatTree
+{
+    public static final byte NUMBER = 0;
+    public static final byte VARIABLE = 1;
+    public static final byte CALL = 2;
+    public static final byte ADD = 3;
+    public static final byte SUBTRACT = 4;
+    public static final byte MULTIPLY = 5;
+    public static final byte DIVIDE = 6;
+    public static final byte MOD = 7;
+    public static final byte EQUAL = 8;
+    public static final byte NOT_EQUAL = 9;
+    public static final byte LESS = 10;
+    public static final byte LESS_EQUAL = 11;
+    public static final byte GREATER = 12;
+    public static final byte GREATER_EQUAL = 13;
+    public static final byte WRITELN = 14;
+    public static final byte BLOCK = 15;
+    public static final byte IF = 16;
+    public static final byte WHILE = 17;
+    public static final byte FOR = 18;
+    public static final byte ASSIGN = 19;
+    public static final byte BREAK = 20;
+    public static final byte CONTINUE = 21;
+    public static final byte PARAM = 22;
+    public static final byte LOCAL = 23;
+    public static final byte PROCEDURE = 24;
+    public static final byte GLOBAL = 25;
+    public static final byte PROGRAM = 26;
+
+    public static final int FORMAT_VERSION = 1;
+
+    private static final int MAGIC = 0x464C4154;
+    private static final int READ_CHUNK = 1 << 12;
+
+    private static final String[] OPERATORS = {null, null, null, "+", "-", "*", "/", "%",
+        "=", "<>", "<", "<=", ">", ">="};
+
+    private byte[] ops;
+    private int[] payloads;
+    private int[] firstChildren;
+    private int[] nextSiblings;
+    private int count;
+    private SymbolTable symbols;
+
+    /**
+     * Creates a new, empty FlatTree.
+     * @param symbols the SymbolTable that name payloads refer to
+     */
+    public FlatTree(SymbolTable symbols)
+    {
+        this.symbols = symbols;
+        ops = new byte[256];
+        payloads = new int[256];
+        firstChildren = new int[256];
+        nextSiblings = new int[256];
+        count = 0;
+    }
+
+    /**
+     * Adds a node with the given children.
+     * @param op the opcode of the node
+     * @param payload the value or symbol ID of the node, or 0
+     * @param children the indexes of the node's children, in order
+     * @return the index of the new node
+     */
+    public int add(byte op, int payload, int... children)
+    {
+        return add(op, payload, children, children.length);
+    }
+
+    /**
+     * Adds a node whose children are the first few entries of an array.
+     * @param op the opcode of the node
+     * @param payload the value or symbol ID of the node, or 0
+     * @param children an array holding the indexes of the node's children, in order
+     * @param childCount the number of children
+     * @return the index of the new node
+     */
+    public int add(byte op, int payload, int[] children, int childCount)
+    {
+        if (count == ops.length)
+        {
+            int capacity = count * 2;
+            ops = Arrays.copyOf(ops, capacity);
+            payloads = Arrays.copyOf(payloads, capacity);
+            firstChildren = Arrays.copyOf(firstChildren, capacity);
+            nextSiblings = Arrays.copyOf(nextSiblings, capacity);
+        }
+        ops[count] = op;
+        payloads[count] = payload;
+        firstChildren[count] = childCount > 0 ? children[0] : -1;
+        nextSiblings[count] = -1;
+        for (int i = 0; i + 1 < childCount; i++)
+        {
+            nextSiblings[children[i]] = children[i + 1];
+        }
+        return count++;
+    }
+
+    /**
+     * Replaces the payload of a node.
+     * @param node the index of the node
+     * @param payload the new payload
+     */
+    public void setPayload(int node, int payload)
+    {
+        payloads[node] = payload;
+    }
+
+    /**
+     * Returns the number of nodes in the tree.
+     * @return the instance variable count
+     */
+    public int size()
+    {
+        return count;
+    }
+
+    /**
+     * Returns the opcode of a node.
+     * @param node the index of the node
+     * @return the node's opcode
+     */
+    public byte getOp(int node)
+    {
+        return ops[node];
+    }
+
+    /**
+     * Returns the payload of a node.
+     * @param node the index of the node
+     * @return the value or symbol ID of the node
+     */
+    public int getPayload(int node)
+    {
+        return payloads[node];
+    }
+
+    /**
+     * Returns the first child of a node.
+     * @param node the index of the node
+     * @return the index of the first child, or -1 if the node has no children
+     */
+    public int getFirstChild(int node)
+    {
+        return firstChildren[node];
+    }
+
+    /**
+     * Returns the next sibling of a node.
+     * @param node the index of the node
+     * @return the index of the next sibling, or -1 if the node is its parent's last child
+     */
+    public int getNextSibling(int node)
+    {
+        return nextSiblings[node];
+    }
+
+    /**
+     * Returns the name a node's payload refers to.
+     * @param node the index of a node whose payload is a symbol ID
+     * @return the interned name
+     */
+    public String getName(int node)
+    {
+        return symbols.getName(payloads[node]);
+    }
+
+    /**
+     * Returns the SymbolTable that name payloads refer to.
+     * @return the instance variable symbols
+     */
+    public SymbolTable getSymbols()
+    {
+        return symbols;
+    }
+
+    /**
+     * Finds the smallest index among a node and all of its descendants with an explicit stack.
+     * Because children are always added before their parents, the subtree is every node from
+     * this index up to the node itself.
+     * @param node the index of the root of the subtree
+     * @param start an index already known to be in the subtree
+     * @return the smallest index in the subtree
+     */
+    private int lowest(int node, int start)
+    {
+        int[] stack = new int[16];
+        int top = 0;
+        stack[top++] = node;
+        while (top > 0)
+        {
+            int current = stack[--top];
+            start = Math.min(start, current);
+            for (int child = firstChildren[current]; child >= 0; child = nextSiblings[child])
+            {
+                if (top == stack.length)
+                {
+                    stack = Arrays.copyOf(stack, top * 2);
+                }
+                stack[top++] = child;
+            }
+        }
+        return start;
+    }
+
+    /**
+     * Builds the ordinary AST objects for every node of a subtree, children first.
+     * @param node the index of the root of the subtree
+     * @return the objects built, indexed by node index minus the subtree's first index
+     */
+    private Object[] build(int node)
+    {
+        int start = lowest(node, node);
+        Object[] built = new Object[node - start + 1];
+        for (int i = start; i <= node; i++)
+        {
+            built[i - start] = build(i, built, start);
+        }
+        return built;
+    }
+
+    /**
+     * Builds the ordinary AST object for one node whose children have already been built.
+     * @param node the index of the node
+     * @param built the objects built so far
+     * @param start the index of the first node in built
+     * @return the object for the node: an Expression, Condition, Statement, String (for the
+     *         names in a PROCEDURE), Variable (for a GLOBAL), ProcedureDeclaration, or Program
+     */
+    private Object build(int node, Object[] built, int start)
+    {
+        List<Object> children = new ArrayList<Object>();
+        for (int child = firstChildren[node]; child >= 0; child = nextSiblings[child])
+        {
+            children.add(built[child - start]);
+        }
+        byte op = ops[node];
+        switch (op)
+        {
+            case NUMBER:
+                return new Number(payloads[node]);
+            case VARIABLE:
+                return new Variable(getName(node));
+            case CALL:
+            {
+                List<Expression> args = new ArrayList<Expression>();
+                for (Object arg : children)
+                {
+                    args.add((Expression) arg);
+                }
+                return new ProcedureCall(getName(node), args);
+            }
+            case ADD:
+            case SUBTRACT:
+            case MULTIPLY:
+            case DIVIDE:
+            case MOD:
+                return new BinOp(OPERATORS[op], (Expression) children.get(0),
+                    (Expression) children.get(1));
+            case EQUAL:
+            case NOT_EQUAL:
+            case LESS:
+            case LESS_EQUAL:
+            case GREATER:
+            case GREATER_EQUAL:
+                return new Condition(OPERATORS[op], (Expression) children.get(0),
+                    (Expression) children.get(1));
+            case WRITELN:
+                return new Writeln((Expression) children.get(0));
+            case BLOCK:
+            {
+                List<Statement> stmts = new ArrayList<Statement>();
+                for (Object stmt : children)
+                {
+                    stmts.add((Statement) stmt);
+                }
+                return new Block(stmts);
+            }
+            case IF:
+                return new If((Condition) children.get(0), (Statement) children.get(1),
+                    children.size() > 2 ? (Statement) children.get(2) : null);
+            case WHILE:
+                return new While((Condition) children.get(0), (Statement) children.get(1));
+            case FOR:
+                return new For(getName(node), (Expression) children.get(0),
+                    (Expression) children.get(1), (Statement) children.get(2));
+            case ASSIGN:
+                return new Assignment(getName(node), (Expression) children.get(0));
+            case BREAK:
+                return new Break();
+            case CONTINUE:
+                return new Continue();
+            case PARAM:
+            case LOCAL:
+                return getName(node);
+            case GLOBAL:
+                return new Variable(getName(node));
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Builds the ordinary Expression for a node.
+     * @param node the index of an expression node
+     * @return the equivalent Expression
+     */
+    public Expression toExpression(int node)
+    {
+        Object[] built = build(node);
+        return (Expression) built[built.length - 1];
+    }
+
+    /**
+     * Builds the ordinary Statement for a node.
+     * @param node the index of a statement node, or -1 for no statement
+     * @return the equivalent Statement, or null if node is -1
+     */
+    public Statement toStatement(int node)
+    {
+        if (node < 0)
+        {
+            return null;
+        }
+        Object[] built = build(node);
+        return (Statement) built[built.length - 1];
+    }
+
+    /**
+     * Builds the ordinary ProcedureDeclaration for a PROCEDURE node. The body is not built
+     * until the procedure is first called or compiled.
+     * @param node the index of a PROCEDURE node
+     * @return the equivalent ProcedureDeclaration
+     */
+    public ProcedureDeclaration toProcedure(int node)
+    {
+        List<String> params = new ArrayList<String>();
+        List<String> localVars = new ArrayList<String>();
+        int body = -1;
+        for (int child = firstChildren[node]; child >= 0; child = nextSiblings[child])
+        {
+            if (ops[child] == PARAM)
+            {
+                params.add(getName(child));
+            }
+            else if (ops[child] == LOCAL)
+            {
+                localVars.add(getName(child));
+            }
+            else
+            {
+                body = child;
+            }
+        }
+        return new ProcedureDeclaration(getName(node), params, localVars,
+            new FlatStatement(this, body));
+    }
+
+    /**
+     * Builds the ordinary Program for a PROGRAM node, so it can be executed or compiled.
+     * @param node the index of a PROGRAM node
+     * @return the equivalent Program
+     */
+    public Program toProgram(int node)
+    {
+        List<Variable> variables = new ArrayList<Variable>();
+        List<ProcedureDeclaration> procedures = new ArrayList<ProcedureDeclaration>();
+        int main = -1;
+        for (int child = firstChildren[node]; child >= 0; child = nextSiblings[child])
+        {
+            if (ops[child] == GLOBAL)
+            {
+                variables.add(new Variable(getName(child)));
+            }
+            else if (ops[child] == PROCEDURE)
+            {
+                procedures.add(toProcedure(child));
+            }
+            else
+            {
+                main = child;
+            }
+        }
+        return new Program(variables, procedures, toStatement(main));
+    }
+
+    /**
+     * Writes this tree, along with the names its payloads refer to, in binary form.
+     * @param out the stream to write to
+     * @throws IOException if the stream cannot be written
+     */
+    public void write(DataOutputStream out) throws IOException
+    {
+        out.writeInt(MAGIC);
+        CheckedOutputStream checked = new CheckedOutputStream(out, new CRC32());
+        DataOutputStream body = new DataOutputStream(checked);
+        writeVarInt(body, FORMAT_VERSION);
+        writeVarInt(body, symbols.size());
+        for (int id = 0; id < symbols.size(); id++)
+        {
+            body.writeUTF(symbols.getName(id));
+        }
+        writeVarInt(body, count);
+        body.write(ops, 0, count);
+        for (int node = 0; node < count; node++)
+        {
+            writeVarInt(body, zigzag(payloads[node]));
+            writeVarInt(body, firstChildren[node] < 0 ? 0 : node - firstChildren[node]);
+            writeVarInt(body, nextSiblings[node] < 0 ? 0 : zigzag(nextSiblings[node] - node));
+        }
+        body.flush();
+        out.writeInt((int) checked.getChecksum().getValue());
+    }
+
+    /**
+     * Reads a tree that was written by write(). The tree gets a new SymbolTable with the same
+     * names under the same IDs. Every count, index and symbol ID is checked as it is read, and
+     * no array is allocated larger than what has actually been read, so a damaged stream ends in
+     * an IOException rather than a tree that fails later or an enormous allocation.
+     * @param stream the stream to read from
+     * @return the tree that was written
+     * @throws IOException if the stream cannot be read, does not hold a FlatTree of this
+     *         FORMAT_VERSION, or is damaged
+     */
+    public static FlatTree read(DataInputStream stream) throws IOException
+    {
+        if (stream.readInt() != MAGIC)
+        {
+            throw new IOException("Not a FlatTree");
+        }
+        CheckedInputStream checked = new CheckedInputStream(stream, new CRC32());
+        DataInputStream in = new DataInputStream(checked);
+        if (readVarInt(in) != FORMAT_VERSION)
+        {
+            throw new IOException("Not a FlatTree of format version " + FORMAT_VERSION);
+        }
+        SymbolTable symbols = new SymbolTable();
+        int names = readVarInt(in);
+        if (names < 0)
+        {
+            throw new IOException("Bad name count " + names);
+        }
+        for (int id = 0; id < names; id++)
+        {
+            if (symbols.intern(in.readUTF()) != id)
+            {
+                throw new IOException("Duplicate name " + symbols.getName(id));
+            }
+        }
+        FlatTree tree = new FlatTree(symbols);
+        int size = readVarInt(in);
+        if (size < 0)
+        {
+            throw new IOException("Bad node count " + size);
+        }
+        tree.ops = readBytes(in, size);
+        tree.payloads = new int[tree.ops.length];
+        tree.firstChildren = new int[tree.ops.length];
+        tree.nextSiblings = new int[tree.ops.length];
+        for (int node = 0; node < size; node++)
+        {
+            byte op = tree.ops[node];
+            if (op < NUMBER || op > PROGRAM)
+            {
+                throw new IOException("Bad opcode " + op + " at node " + node);
+            }
+            int payload = unzigzag(readVarInt(in));
+            if (hasName(op) && (payload < 0 || payload >= names))
+            {
+                throw new IOException("Bad symbol ID " + payload + " at node " + node);
+            }
+            tree.payloads[node] = payload;
+            int child = readVarInt(in);
+            if (child < 0 || child > node)
+            {
+                throw new IOException("Bad first child at node " + node);
+            }
+            tree.firstChildren[node] = child == 0 ? -1 : node - child;
+            int sibling = readVarInt(in);
+            int next = node + unzigzag(sibling);
+            if (sibling != 0 && (next <= node || next >= size))
+            {
+                throw new IOException("Bad next sibling at node " + node);
+            }
+            tree.nextSiblings[node] = sibling == 0 ? -1 : next;
+        }
+        if (stream.readInt() != (int) checked.getChecksum().getValue())
+        {
+            throw new IOException("FlatTree checksum does not match");
+        }
+        tree.count = size;
+        return tree;
+    }
+
+    /**
+     * Determines if the payload of a node with the given opcode is a symbol ID.
+     * @param op the opcode
+     * @return true for the opcodes of nodes that refer to a name, false otherwise
+     */
+    private static boolean hasName(byte op)
+    {
+        return op == VARIABLE || op == CALL || op == FOR || op == ASSIGN || op == PARAM
+            || op == LOCAL || op == PROCEDURE || op == GLOBAL;
+    }
+
+    /**
+     * Reads a given number of bytes, in chunks, so that a damaged length runs out of input
+     * before it can allocate more than the stream holds.
+     * @param in the stream to read from
+     * @param length the number of bytes to read
+     * @return an array of at least one byte whose first length bytes were read
+     * @throws IOException if the stream ends before length bytes
+     */
+    private static byte[] readBytes(DataInputStream in, int length) throws IOException
+    {
+        byte[] bytes = new byte[Math.max(Math.min(length, READ_CHUNK), 1)];
+        int read = 0;
+        while (read < length)
+        {
+            int chunk = Math.min(length - read, READ_CHUNK);
+            if (read + chunk > bytes.length)
+            {
+                bytes = Arrays.copyOf(bytes, (int) Math.min(length, 2L * bytes.length));
+            }
+            in.readFully(bytes, read, chunk);
+            read += chunk;
+        }
+        return bytes;
+    }
+
+    /**
+     * Writes an int in as few bytes as its magnitude allows, seven bits per byte.
+     * @param out the stream to write to
+     * @param value the int to write, treated as unsigned
+     * @throws IOException if the stream cannot be written
+     */
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException
+    {
+        while ((value & ~0x7F) != 0)
+        {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    /**
+     * Reads an int written by writeVarInt().
+     * @param in the stream to read from
+     * @return the int that was written
+     * @throws IOException if the stream cannot be read, or the int runs past five bytes
+     */
+    private static int readVarInt(DataInputStream in) throws IOException
+    {
+        int value = 0;
+        int shift = 0;
+        int b;
+        do
+        {
+            if (shift > 28)
+            {
+                throw new IOException("Variable-length int is too long");
+            }
+            b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        }
+        while ((b & 0x80) != 0);
+        return value;
+    }
+
+    /**
+     * Maps a signed int to an unsigned one so that numbers near zero stay small.
+     * @param value the signed int
+     * @return 0, -1, 1, -2, 2, ... mapped to 0, 1, 2, 3, 4, ...
+     */
+    private static int zigzag(int value)
+    {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    /**
+     * Reverses zigzag().
+     * @param value the unsigned int
+     * @return the signed int it stands for
+     */
+    private static int unzigzag(int value)
+    {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
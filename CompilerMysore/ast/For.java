@@ -1,20 +1,26 @@
 package ast;
 
 import environment.Environment;
+import environment.Scope;
+import ir.BasicBlock;
+import ir.IrBuilder;
+import ir.Op;
+import vm.Bytecode;
+import vm.BytecodeBuilder;
 
 /**
  * This class is a statement that represents a for loop.
  * 
- * It contains five instance variables: a String representing the name of the loop variable, an
+ * It contains four instance variables: a String representing the name of the loop variable, an
  * Expression representing the starting value for the loop variable, an Expression representing the
- * ending value for the loop variable, a Statement representing the statement to execute inside the
- * for loop, and an integer representing the current value of the loop variable.
+ * ending value for the loop variable, and a Statement representing the statement to execute inside
+ * the for loop.
  * 
  * To execute this statement, we simply execute the given statement a fixed amount of times,
  * incrementing the loop variable's value after every iteration.
  * 
  * @author Ishan Mysore
- * @version 10/14/23
+ * @version 10/17/26
  */
 public class For extends Statement
 {
@@ -22,7 +28,11 @@ public class For extends Statement
     private Expression start;
     private Expression end;
     private Statement statement;
-    private int current;
+    private boolean invariantEnd;
+    private int slot;
+    private boolean compilable;
+    private int backEdges;
+    private volatile For compiled;
 
     /**
      * Creates a new For and initializes the instance variables to the corresponding parameters.
@@ -38,47 +48,265 @@ public class For extends Statement
         this.start = start;
         this.end = end;
         this.statement = statement;
+        compilable = true;
     }
 
     /**
      * Given the environment, executes the given statements a fixed amount of times, incrementing
-     * the loop variable's value after every iteration.
-     * If a BREAK statement is encountered, the method is terminated.
+     * the loop variable's value after every iteration. The end value is evaluated again before
+     * every iteration, unless hoist() has found that the loop cannot change it, in which case it
+     * is evaluated once, before the first.
+     * If a BREAK statement is encountered, the loop is terminated.
      * If a CONTINUE statement is encountered, we immediately increment the loop variable's value 
      * and advance to the next iteration.
+     * Under tiered execution, the iteration that reaches the threshold sends the loop off to be
+     * specialized in the background. Since the count is kept outside the Environment, the
+     * specialized loop takes over the next time the loop is entered rather than midway.
      * @param env the environment with all the variables
+     * @return NORMAL
      * @postcondition the for loop has been executed
      */
-    public void exec(Environment env) throws InterruptedException
+    public int exec(Environment env)
     {
-        try
+        For fast = compiled;
+        if (fast != null)
         {
-            current = start.eval(env);
-            env.setVariable(variable, current);
-            for (int i = current; i <= end.eval(env); i++)
+            env.getGlobals().ensureCapacity(env.getGlobals().getScope().size());
+            return fast.exec(env);
+        }
+        Tiering tiering = compilable ? env.getTiering() : null;
+        int current = start.eval(env);
+        env.store(slot, current);
+        int last = end.eval(env);
+        while (current <= last)
+        {
+            if (statement.exec(env) == BREAK)
+            {
+                break;
+            }
+            current++;
+            env.store(slot, current);
+            if (tiering != null && ++backEdges == tiering.getLoopThreshold())
             {
-                statement.exec(env);
-                current++;
-                env.setVariable(variable, current);
+                Environment globals = env.getGlobals();
+                tiering.submit(() -> compiled = (For) specialize(globals));
+            }
+            if (!invariantEnd)
+            {
+                last = end.eval(env);
             }
         }
-        catch (RuntimeException exp1)
+        return NORMAL;
+    }
+
+    /**
+     * Looks up the slot of the loop variable in the given scope, resolves the bounds and the
+     * statement, and starts counting iterations from scratch.
+     * @param scope the scope the loop appears in
+     */
+    public void resolve(Scope scope)
+    {
+        slot = scope.resolve(variable);
+        start.resolve(scope);
+        end.resolve(scope);
+        statement.resolve(scope);
+        backEdges = 0;
+        compiled = null;
+    }
+
+    /**
+     * Specializes the bounds and the loop body.
+     * @param env the environment the loop will first be executed in
+     * @return a For of the specialized parts, using the same slot for the loop variable and
+     *         evaluating the end value as often as this loop does, which is never compiled again
+     */
+    public Statement specialize(Environment env)
+    {
+        For specialized = new For(variable, start.specialize(env), end.specialize(env),
+            statement.specialize(env));
+        specialized.slot = slot;
+        specialized.invariantEnd = invariantEnd;
+        specialized.compilable = false;
+        return specialized;
+    }
+
+    /**
+     * Lowers the loop. Like exec(), it counts in a register of its own and copies the count
+     * into the loop variable at the start of every iteration, so an assignment to the variable
+     * in the body does not change the number of iterations. The end expression is evaluated
+     * again before every iteration. The test is at the bottom, after the increment, so that
+     * each iteration takes one jump. CONTINUE jumps to the increment, BREAK out of the loop.
+     * @param b the BytecodeBuilder the instructions are added to
+     */
+    public void compile(BytecodeBuilder b)
+    {
+        int mark = b.getTemps();
+        int counter = b.allocate();
+        int value = start.compile(b);
+        if (value != counter && !b.retarget(value, counter))
         {
+            b.emit(Bytecode.MOVE, counter, value, 0);
+        }
+        b.release(mark + 1);
+        int label = b.newLabel();
+        int nextLabel = b.newLabel();
+        int endLabel = b.newLabel();
+        emitStore(b, counter);
+        emitTest(b, counter, Bytecode.JGT, endLabel);
+        b.placeLabel(label);
+        b.beginLoop(endLabel, nextLabel);
+        statement.compile(b);
+        b.endLoop();
+        b.placeLabel(nextLabel);
+        b.emit(Bytecode.ADDI, counter, counter, 1);
+        emitStore(b, counter);
+        emitTest(b, counter, Bytecode.JLE, label);
+        b.placeLabel(endLabel);
+        b.release(mark);
+    }
 
+    /**
+     * Copies the count into the loop variable.
+     * @param b the BytecodeBuilder the instructions are added to
+     * @param counter the register that holds the count
+     */
+    private void emitStore(BytecodeBuilder b, int counter)
+    {
+        if (slot < 0)
+        {
+            b.emit(Bytecode.STOREG, ~slot, counter, 0);
         }
-        catch (InterruptedException exp2)
+        else
         {
-            current++;
-            env.setVariable(variable, current);
-            for (int i = current; i <= end.eval(env); i++)
-            {
-                statement.exec(env);
-                current++;
-                env.setVariable(variable, current);
-            }
+            b.emit(Bytecode.MOVE, slot, counter, 0);
         }
-        
     }
 
+    /**
+     * Compares the count with the end expression, evaluating it again.
+     * @param b the BytecodeBuilder the instructions are added to
+     * @param counter the register that holds the count
+     * @param opcode JGT or JLE
+     * @param label the label to jump to if the comparison holds
+     */
+    private void emitTest(BytecodeBuilder b, int counter, int opcode, int label)
+    {
+        int mark = b.getTemps();
+        if (end instanceof Number)
+        {
+            b.emitJump(opcode + Bytecode.JEQI - Bytecode.JEQ, counter,
+                ((Number) end).getValue(), label);
+        }
+        else
+        {
+            b.emitJump(opcode, counter, end.compile(b), label);
+        }
+        b.release(mark);
+    }
+
+    /**
+     * Lowers the loop with the test at the bottom, as compile(BytecodeBuilder) does. The count
+     * is kept in a hidden variable of its own and copied into the loop variable at the start of
+     * every iteration. CONTINUE jumps to the block that counts and tests.
+     * @param b the IrBuilder the instructions are added to
+     */
+    public void lower(IrBuilder b)
+    {
+        String counter = b.newHiddenVariable();
+        int first = start.lower(b);
+        b.writeVariable(counter, first);
+        b.writeVariable(variable, first);
+        BasicBlock body = b.newBlock();
+        BasicBlock next = b.newBlock();
+        BasicBlock done = b.newBlock();
+        int limit = end.lower(b);
+        b.branch("<=", first, limit, body, done);
+        b.setBlock(body);
+        b.beginLoop(done, next);
+        statement.lower(b);
+        b.endLoop();
+        b.jump(next);
+        b.seal(next);
+        b.setBlock(next);
+        int count = b.arithmetic(Op.ADD, b.readVariable(counter), b.constant(1));
+        b.writeVariable(counter, count);
+        b.writeVariable(variable, count);
+        limit = end.lower(b);
+        b.branch("<=", count, limit, body, done);
+        b.seal(body);
+        b.seal(done);
+        b.setBlock(done);
+    }
+
+    /**
+     * Records the assignment of the loop variable, which is impure if the variable is global; the
+     * effects of the bounds and the body are added either way.
+     * @param effects the Effects to add to
+     */
+    public void addEffects(Effects effects)
+    {
+        effects.addAssignment(variable);
+        if (slot < 0)
+        {
+            effects.markImpure();
+        }
+        start.addEffects(effects);
+        end.addEffects(effects);
+        statement.addEffects(effects);
+    }
 
+    /**
+     * Folds the start value with what is known before the loop, and the end value and the body
+     * with only what stays true on every iteration: the values of the variables the loop never
+     * assigns, and of no global at all if it calls a procedure. The loop variable is not known
+     * afterwards.
+     * @param known the values known before the loop; updated to those known after it
+     * @return this loop
+     */
+    public Statement fold(Constants known)
+    {
+        start = start.fold(known);
+        Effects effects = new Effects();
+        end.addEffects(effects);
+        statement.addEffects(effects);
+        known.kill(variable);
+        known.killAll(effects.getAssignments());
+        if (!effects.getCalls().isEmpty())
+        {
+            known.killGlobals();
+        }
+        end = end.fold(known);
+        statement = statement.fold(known.copy());
+        return this;
+    }
+
+    /**
+     * Prunes the loop body. The loop itself always assigns its variable, so it is kept.
+     * @return this loop
+     */
+    public Statement prune()
+    {
+        statement = statement.prune();
+        return this;
+    }
+
+    /**
+     * Hoists the start value like any expression outside the loop, and what the loop cannot
+     * change out of the end value and the body, as While.hoist() does. The start value counts as
+     * part of the loop, since the hoisted code runs before it. If the end value is invariant,
+     * exec() evaluates it only once.
+     * @param h the Hoister, which knows the loops this one is in
+     * @return this loop, or a Block of the hoisted assignments followed by this loop
+     */
+    public Statement hoist(Hoister h)
+    {
+        start = h.rewrite(start);
+        Effects effects = new Effects();
+        addEffects(effects);
+        h.enterLoop(effects);
+        end = h.rewrite(end);
+        invariantEnd = h.getLevel() < h.getDepth();
+        statement = statement.hoist(h);
+        return h.exitLoop(this);
+    }
 }
@@ -0,0 +1,183 @@
+package ast;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Hoister moves the loop-invariant parts of a procedure, or of the main program, out of the loops
+ * they are in. Nodes pass it through hoist(), from the outside in, and it keeps the loops the
+ * node is in, the outermost first.
+ *
+ * An expression is invariant in a loop if nothing the loop does can change its value: it calls
+ * no procedure, the loop assigns none of the variables it reads, and it reads no global variable
+ * if the loop calls a procedure. The level of an expression is the outermost of the enclosing
+ * loops it is invariant in, and every loop inside that one; an expression that is not invariant
+ * even in the innermost loop has the level of the number of loops. Since an inner loop can only
+ * change what its outer loops change, the levels of an operation's operands decide its own.
+ *
+ * An invariant operation is hoisted by assigning it to a new hidden variable just before the
+ * loop of its level, which is where a loop's preheader would be, and reading the variable where
+ * it was. Only operations are hoisted, since reading a hidden variable costs as much as reading
+ * a variable or a number. A division is hoisted only if its divisor is a nonzero Number, since
+ * the hoisted copy runs even if the loop does not, and must not fail where the original would
+ * not have. Hidden variables start with $, which no name in a program can.
+ *
+ * @author Ishan Mysore
+ * @version 10/17/26
+ */
+public class Hoister
+{
+    private Set<String> locals;
+    private Set<String> taken;
+    private List<Effects> loops;
+    private List<List<Statement>> preheaders;
+    private List<String> hidden;
+    private int level;
+
+    /**
+     * Creates a new Hoister that is not in any loop.
+     * @param locals the names of the local variables of the procedure, or null for the main
+     *        program; the hidden variables are added to it
+     * @param taken the names of the variables that already exist where the hidden variables are
+     *        declared; the hidden variables are added to it
+     */
+    public Hoister(Set<String> locals, Set<String> taken)
+    {
+        this.locals = locals;
+        this.taken = taken;
+        loops = new ArrayList<Effects>();
+        preheaders = new ArrayList<List<Statement>>();
+        hidden = new ArrayList<String>();
+    }
+
+    /**
+     * Enters a loop, which becomes the innermost.
+     * @param effects the effects of the whole loop, including its condition or bounds
+     */
+    public void enterLoop(Effects effects)
+    {
+        loops.add(effects);
+        preheaders.add(new ArrayList<Statement>());
+    }
+
+    /**
+     * Leaves the innermost loop.
+     * @param loop the loop, with its invariant parts replaced
+     * @return the loop, or a Block of the assignments hoisted out of it followed by the loop
+     */
+    public Statement exitLoop(Statement loop)
+    {
+        loops.remove(loops.size() - 1);
+        List<Statement> preheader = preheaders.remove(preheaders.size() - 1);
+        if (preheader.isEmpty())
+        {
+            return loop;
+        }
+        preheader.add(loop);
+        return new Block(preheader);
+    }
+
+    /**
+     * Returns the number of loops the Hoister is in, which is the level of an expression that
+     * is not invariant in any of them.
+     * @return the number of loops
+     */
+    public int getDepth()
+    {
+        return loops.size();
+    }
+
+    /**
+     * Returns the level of the expression hoist() was last called on.
+     * @return the instance variable level
+     */
+    public int getLevel()
+    {
+        return level;
+    }
+
+    /**
+     * Records the level of the expression being hoisted.
+     * @param level the level
+     */
+    public void setLevel(int level)
+    {
+        this.level = level;
+    }
+
+    /**
+     * Finds the level of a read of a variable: the outermost loop from which inward no loop can
+     * change it.
+     * @param name the name of the variable
+     * @return the level
+     */
+    public int levelOf(String name)
+    {
+        boolean global = locals == null || !locals.contains(name);
+        int outermost = loops.size();
+        while (outermost > 0)
+        {
+            Effects effects = loops.get(outermost - 1);
+            if (effects.getAssignments().contains(name)
+                || global && !effects.getCalls().isEmpty())
+            {
+                break;
+            }
+            outermost--;
+        }
+        return outermost;
+    }
+
+    /**
+     * Hoists the invariant parts of an expression evaluated in the current loops, and then the
+     * expression itself if it is invariant.
+     * @param exp the expression
+     * @return the expression to evaluate in its place
+     * @postcondition getLevel() is the level of the expression
+     */
+    public Expression rewrite(Expression exp)
+    {
+        Expression hoisted = exp.hoist(this);
+        return extract(hoisted, level);
+    }
+
+    /**
+     * Hoists an expression to the preheader of the loop of its level, if it is an invariant
+     * operation.
+     * @param exp the expression, whose own invariant parts have already been hoisted
+     * @param level the level of the expression
+     * @return a read of the hidden variable the expression is assigned to, or the expression if
+     *         it stays where it is
+     */
+    public Expression extract(Expression exp, int level)
+    {
+        if (level >= loops.size() || !(exp instanceof BinOp))
+        {
+            return exp;
+        }
+        String name = "$h" + hidden.size();
+        for (int i = hidden.size() + 1; taken.contains(name); i++)
+        {
+            name = "$h" + i;
+        }
+        taken.add(name);
+        if (locals != null)
+        {
+            locals.add(name);
+        }
+        hidden.add(name);
+        preheaders.get(level).add(new Assignment(name, exp));
+        return new Variable(name);
+    }
+
+    /**
+     * Returns the hidden variables made so far, which have to be declared where the code that
+     * was hoisted runs.
+     * @return the instance variable hidden
+     */
+    public List<String> getHidden()
+    {
+        return hidden;
+    }
+}
@@ -1,7 +1,14 @@
 package ast;
 
+import java.util.ArrayList;
+
 import emitter.Emitter;
 import environment.Environment;
+import environment.Scope;
+import ir.BasicBlock;
+import ir.IrBuilder;
+import vm.Bytecode;
+import vm.BytecodeBuilder;
 
 /**
  * This class is a statement that represents an if-then-else block.
@@ -41,25 +48,28 @@ public class If extends Statement
      * statement if the condition is satisfied, or evaluating the latter statement (if one is 
      * provided) if the condition is not satisfied.
      * @param env the environment with all the variables
+     * @return the completion of whichever statement was executed, or NORMAL if neither was
      * @postcondition the if statement has been executed
      */
-    public void exec(Environment env) throws InterruptedException
+    public int exec(Environment env)
     {
         if (condition.eval(env))
         {
-            statement.exec(env);
+            return statement.exec(env);
         }
         else if (elseStatement != null)
         {
-            elseStatement.exec(env);
+            return elseStatement.exec(env);
         }
+        return NORMAL;
     }
 
     /**
      * Generates MIPS code for an If statement that generates a label name, compiles the
-     * condition, compiles the statement to be executed if the condition is true, and then
-     * jumps to the label that executes the remaining code. If an elseStatement is provided, then
-     * the method also compiles the elseStatement and jumps to that target label.
+     * condition to jump to that label when it is false, and compiles the statement to be
+     * executed if the condition is true, which falls through to the label. If an elseStatement
+     * is provided, the label starts the elseStatement instead, and the true statement jumps over
+     * it to a second label.
      * @param e the Emitter that writes code to the output file
      */
     public void compile(Emitter e)
@@ -67,12 +77,193 @@ public class If extends Statement
         String label = "endif" + e.nextIfLabelID();
         condition.compile(e, label);
         statement.compile(e);
-        e.emit("j " + label);
+        if (elseStatement == null)
+        {
+            e.emit(label + ":");
+            return;
+        }
+        String endLabel = "endif" + e.nextIfLabelID();
+        e.emit("j " + endLabel);
         e.emit(label + ":");
+        elseStatement.compile(e);
+        e.emit(endLabel + ":");
+    }
+
+    /**
+     * Resolves the condition and both branches.
+     * @param scope the scope the statement appears in
+     */
+    public void resolve(Scope scope)
+    {
+        condition.resolve(scope);
+        statement.resolve(scope);
+        if (elseStatement != null)
+        {
+            elseStatement.resolve(scope);
+        }
+    }
+
+    /**
+     * Specializes the condition and both branches.
+     * @param env the environment the statement will first be executed in
+     * @return an If of the specialized parts
+     */
+    public Statement specialize(Environment env)
+    {
+        return new If(condition.specialize(env), statement.specialize(env),
+            elseStatement == null ? null : elseStatement.specialize(env));
+    }
+
+    /**
+     * Lowers the statement: the condition jumps past the THEN branch when it is false, and the
+     * THEN branch jumps past the ELSE branch when there is one.
+     * @param b the BytecodeBuilder the instructions are added to
+     */
+    public void compile(BytecodeBuilder b)
+    {
+        int elseLabel = b.newLabel();
+        condition.compile(b, elseLabel);
+        statement.compile(b);
+        if (elseStatement == null)
+        {
+            b.placeLabel(elseLabel);
+            return;
+        }
+        int endLabel = b.newLabel();
+        b.emitJump(Bytecode.JMP, 0, 0, endLabel);
+        b.placeLabel(elseLabel);
+        elseStatement.compile(b);
+        b.placeLabel(endLabel);
+    }
+
+    /**
+     * Lowers the statement to a BRANCH to a block for each branch, which both go on to the block
+     * after the statement.
+     * @param b the IrBuilder the instructions are added to
+     */
+    public void lower(IrBuilder b)
+    {
+        BasicBlock thenBlock = b.newBlock();
+        BasicBlock end = b.newBlock();
+        BasicBlock elseBlock = elseStatement == null ? end : b.newBlock();
+        condition.lower(b, thenBlock, elseBlock);
+        b.seal(thenBlock);
+        b.setBlock(thenBlock);
+        statement.lower(b);
+        b.jump(end);
+        if (elseStatement != null)
+        {
+            b.seal(elseBlock);
+            b.setBlock(elseBlock);
+            elseStatement.lower(b);
+            b.jump(end);
+        }
+        b.seal(end);
+        b.setBlock(end);
+    }
+
+    /**
+     * Adds the effects of the condition and of both branches.
+     * @param effects the Effects to add to
+     */
+    public void addEffects(Effects effects)
+    {
+        condition.addEffects(effects);
+        statement.addEffects(effects);
+        if (elseStatement != null)
+        {
+            elseStatement.addEffects(effects);
+        }
+    }
+
+    /**
+     * Both branches of an If in tail position are in tail position.
+     * @param procedure the procedure whose body this If ends
+     */
+    public void markTailCalls(ProcedureDeclaration procedure)
+    {
+        statement.markTailCalls(procedure);
+        if (elseStatement != null)
+        {
+            elseStatement.markTailCalls(procedure);
+        }
+    }
+
+    /**
+     * Folds the condition. If its outcome is now known, the If is replaced by the branch that
+     * would be taken, folded. Otherwise each branch is folded with what is known before it, and
+     * only the values both branches agree on are known afterwards.
+     * @param known the values known before the statement; updated to those known after it
+     * @return the folded If, or the folded branch that is always taken
+     */
+    public Statement fold(Constants known)
+    {
+        condition.fold(known);
+        if (condition.isConstant())
+        {
+            Statement taken = condition.eval(null) ? statement : elseStatement;
+            if (taken == null)
+            {
+                return new Block(new ArrayList<Statement>());
+            }
+            return taken.fold(known);
+        }
+        Constants otherwise = known.copy();
+        statement = statement.fold(known);
+        if (elseStatement != null)
+        {
+            elseStatement = elseStatement.fold(otherwise);
+        }
+        known.retainCommon(otherwise);
+        return this;
+    }
+
+    /**
+     * Replaces an If whose condition is constant with the branch that is always taken, and
+     * otherwise prunes both branches, dropping an else branch that has become empty.
+     * @return the pruned If, or the pruned branch that is always taken
+     */
+    public Statement prune()
+    {
+        if (condition.isConstant())
+        {
+            Statement taken = condition.eval(null) ? statement : elseStatement;
+            return taken == null ? new Block(new ArrayList<Statement>()) : taken.prune();
+        }
+        statement = statement.prune();
+        if (elseStatement != null)
+        {
+            elseStatement = elseStatement.prune();
+            if (elseStatement instanceof Block && ((Block) elseStatement).isEmpty())
+            {
+                elseStatement = null;
+            }
+        }
+        return this;
+    }
+
+    /**
+     * An If ends abruptly if it has two branches and both do.
+     * @return true if both branches always end with a BREAK or CONTINUE, false otherwise
+     */
+    public boolean endsAbruptly()
+    {
+        return elseStatement != null && statement.endsAbruptly() && elseStatement.endsAbruptly();
+    }
+
+    /**
+     * Hoists the invariant parts of the condition and of both branches.
+     * @param h the Hoister, which knows the loops the statement is in
+     * @return this statement
+     */
+    public Statement hoist(Hoister h)
+    {
+        condition.hoist(h);
+        statement = statement.hoist(h);
         if (elseStatement != null)
         {
-            elseStatement.compile(e);
-            e.emit("endif" + e.nextIfLabelID() + ":");
+            elseStatement = elseStatement.hoist(h);
         }
+        return this;
     }
-}
\ No newline at end of file
+}
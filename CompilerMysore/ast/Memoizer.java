@@ -0,0 +1,214 @@
+package ast;
+
+import environment.Environment;
+
+/**
+ * A Memoizer remembers the results of calls to pure procedures, so that a call with arguments
+ * that have been seen before returns at once instead of running the procedure again.
+ *
+ * Each procedure gets its own table with a fixed number of entries. An entry is chosen by hashing
+ * the arguments, and a new result simply replaces whatever was in its entry, so the tables never
+ * grow and a lookup never allocates. Hits, misses, and evictions are counted across all tables.
+ *
+ * @author Ishan Mysore
+ * @version 10/17/26
+ */
+public class Memoizer
+{
+    public static final int CAPACITY = 4096;
+
+    private int capacity;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Creates a new Memoizer whose tables have the default number of entries.
+     */
+    public Memoizer()
+    {
+        this(CAPACITY);
+    }
+
+    /**
+     * Creates a new Memoizer.
+     * @param capacity the number of entries in each procedure's table, rounded up to a power of
+     *        two
+     */
+    public Memoizer(int capacity)
+    {
+        this.capacity = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+    }
+
+    /**
+     * Returns the number of calls that were answered from a table.
+     * @return the instance variable hits
+     */
+    public long getHits()
+    {
+        return hits;
+    }
+
+    /**
+     * Returns the number of calls that had to run their procedure.
+     * @return the instance variable misses
+     */
+    public long getMisses()
+    {
+        return misses;
+    }
+
+    /**
+     * Returns the number of remembered results that were replaced by newer ones.
+     * @return the instance variable evictions
+     */
+    public long getEvictions()
+    {
+        return evictions;
+    }
+
+    /**
+     * Calls a pure procedure whose arguments are already in its frame, answering from the table
+     * when it can.
+     * @precondition the procedure is pure, and every parameter slot of the frame holds an argument
+     * @param procedure the procedure
+     * @param frame the frame of the call
+     * @param env the environment of the caller
+     * @return the value the procedure returns
+     */
+    public int call(ProcedureDeclaration procedure, Environment frame, Environment env)
+    {
+        Table table = procedure.getMemoTable();
+        if (table == null || table.owner != this)
+        {
+            table = new Table(this, procedure.getParams().size(), capacity);
+            procedure.setMemoTable(table);
+        }
+        int entry = table.find(frame);
+        if (table.matches(entry, frame))
+        {
+            hits++;
+            return table.results[entry];
+        }
+        misses++;
+        if (table.used[entry])
+        {
+            evictions++;
+        }
+        int stamp = table.reserve(entry, frame);
+        procedure.run(env, frame);
+        int result = frame.getLocal(procedure.getResultSlot());
+        table.fill(entry, stamp, result);
+        return result;
+    }
+
+    /**
+     * The table of one procedure. The arguments of entry i are keys[i * arity] through
+     * keys[i * arity + arity - 1].
+     */
+    static final class Table
+    {
+        private final Memoizer owner;
+        private final int arity;
+        private final int mask;
+        private final int[] keys;
+        private final int[] results;
+        private final int[] stamps;
+        private final boolean[] used;
+        private final boolean[] valid;
+        private int nextStamp;
+
+        /**
+         * Creates a new, empty Table.
+         * @param owner the Memoizer the table belongs to
+         * @param arity the number of parameters of the procedure
+         * @param capacity the number of entries, a power of two
+         */
+        Table(Memoizer owner, int arity, int capacity)
+        {
+            this.owner = owner;
+            this.arity = arity;
+            mask = capacity - 1;
+            keys = new int[capacity * arity];
+            results = new int[capacity];
+            stamps = new int[capacity];
+            used = new boolean[capacity];
+            valid = new boolean[capacity];
+        }
+
+        /**
+         * Returns the entry for the arguments in a frame.
+         * @param frame the frame of the call
+         * @return the index of the entry
+         */
+        int find(Environment frame)
+        {
+            int hash = 0;
+            for (int i = 0; i < arity; i++)
+            {
+                hash = hash * 31 + frame.getLocal(i);
+            }
+            hash *= 0x9E3779B9;
+            return (hash ^ hash >>> 16) & mask;
+        }
+
+        /**
+         * Determines if an entry holds the result for the arguments in a frame.
+         * @param entry the index of the entry
+         * @param frame the frame of the call
+         * @return true if the entry is valid and its arguments are the same, false otherwise
+         */
+        boolean matches(int entry, Environment frame)
+        {
+            if (!valid[entry])
+            {
+                return false;
+            }
+            int base = entry * arity;
+            for (int i = 0; i < arity; i++)
+            {
+                if (keys[base + i] != frame.getLocal(i))
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Claims an entry for a call that is about to run, saving its arguments before the
+         * procedure can change its parameters.
+         * @param entry the index of the entry
+         * @param frame the frame of the call
+         * @return a stamp that fill() checks, since a call made while this one runs may claim
+         *         the same entry
+         */
+        int reserve(int entry, Environment frame)
+        {
+            int base = entry * arity;
+            for (int i = 0; i < arity; i++)
+            {
+                keys[base + i] = frame.getLocal(i);
+            }
+            used[entry] = true;
+            valid[entry] = false;
+            stamps[entry] = ++nextStamp;
+            return nextStamp;
+        }
+
+        /**
+         * Stores the result of a call, unless a later call has claimed the entry in the meantime.
+         * @param entry the index of the entry
+         * @param stamp the stamp reserve() returned
+         * @param result the value the procedure returned
+         */
+        void fill(int entry, int stamp, int result)
+        {
+            if (stamps[entry] == stamp)
+            {
+                results[entry] = result;
+                valid[entry] = true;
+            }
+        }
+    }
+}
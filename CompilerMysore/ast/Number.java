@@ -2,6 +2,9 @@ package ast;
 
 import emitter.Emitter;
 import environment.Environment;
+import ir.IrBuilder;
+import vm.Bytecode;
+import vm.BytecodeBuilder;
 
 /**
  * This class is an expression that represents an integer number.
@@ -27,6 +30,15 @@ public class Number extends Expression
         this.value = value;
     }
 
+    /**
+     * Returns the value of the number.
+     * @return the instance variable value
+     */
+    public int getValue()
+    {
+        return value;
+    }
+
     /**
      * Evaluates this expression by returning the value of the number
      * @return the value of the number
@@ -44,4 +56,46 @@ public class Number extends Expression
     {
         e.emit("li $v0 " + value + "\t# stores number's value into $v0");
     }
+
+    /**
+     * Lowers the number to a CONST into a new temporary.
+     * @param b the BytecodeBuilder the instructions are added to
+     * @return the temporary holding the value
+     */
+    public int compile(BytecodeBuilder b)
+    {
+        int register = b.allocate();
+        b.emit(Bytecode.CONST, register, value, 0);
+        return register;
+    }
+
+    /**
+     * Lowers the number to a CONST.
+     * @param b the IrBuilder the instructions are added to
+     * @return the value of the CONST
+     */
+    public int lower(IrBuilder b)
+    {
+        return b.constant(value);
+    }
+
+    /**
+     * A number has no effects.
+     * @param effects the Effects to add to
+     */
+    public void addEffects(Effects effects)
+    {
+    }
+
+    /**
+     * A number is invariant in every loop.
+     * @param h the Hoister, which knows the loops the number is in
+     * @return this number
+     * @postcondition h.getLevel() is 0
+     */
+    public Expression hoist(Hoister h)
+    {
+        h.setLevel(0);
+        return this;
+    }
 }
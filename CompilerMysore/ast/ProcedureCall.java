@@ -1,9 +1,14 @@
 package ast;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import emitter.Emitter;
 import environment.Environment;
+import environment.Scope;
+import ir.IrBuilder;
+import vm.Bytecode;
+import vm.BytecodeBuilder;
 
 /**
  * This class is an expression that represents a call to a procedure.
@@ -11,8 +16,8 @@ import environment.Environment;
  * It contains two instance variables: a String representing the name of the procedure and a
  * List of Expressions representing the arguments inside the procedure call.
  * 
- * To evaluate this expression, we create a local environment and assign the corresponding
- * parameters to the corresponding arguments inside the local environment. Then, we execute the
+ * To evaluate this expression, we create a local environment and store the arguments in the
+ * slots of the corresponding parameters inside the local environment. Then, we execute the
  * statement inside the local environment, and return the variable with the same name as the
  * procedure name.
  * 
@@ -36,28 +41,40 @@ public class ProcedureCall extends Expression
     }
 
     /**
-     * To evaluate this expression, we create a local environment and assign the corresponding
-     * parameters to the corresponding arguments inside the local environment. Then, we execute the
-     * statement inside the local environment, and return the variable with the same name as the
-     * procedure name.
+     * To evaluate this expression, we build the procedure's body if it has not been built yet,
+     * and take a local environment with a slot for every variable in the procedure's scope from
+     * the global environment's frame stack. We store each argument in the slot of the
+     * corresponding parameter (the parameters take the first slots, in order). Then, we execute
+     * the statement inside the local environment, and return the value in the slot of the
+     * variable with the same name as the procedure. A BREAK or CONTINUE
+     * outside of any loop in the statement simply ends the statement. If the program memoizes
+     * calls and the procedure is pure, the Memoizer may answer the call without running it.
      * @param env the environment storing all the variables
-     * @throws InterruptedException if a CONTINUE statement is encountered
      */
-    public int eval(Environment env) throws InterruptedException
+    public int eval(Environment env)
     {
-        List<String> params = env.getProcedure(name).getParams();
-        Statement statement = env.getProcedure(name).getStatement();
-        Environment temp = env;
-        if (temp.getParent() != null)
-            temp = temp.getParent();
-        Environment localEnv = new Environment(temp);
-        for (int i = 0; i < args.size(); i++)
+        ProcedureDeclaration procedure = env.getProcedure(name);
+        procedure.build();
+        Environment localEnv = env.pushFrame(procedure.getScope());
+        try
+        {
+            for (int i = 0; i < args.size(); i++)
+            {
+                localEnv.store(i, args.get(i).eval(env));
+            }
+            Memoizer memoizer = env.getMemoizer();
+            if (memoizer != null && procedure.isPure()
+                && args.size() == procedure.getParams().size())
+            {
+                return memoizer.call(procedure, localEnv, env);
+            }
+            procedure.run(env, localEnv);
+            return localEnv.load(procedure.getResultSlot());
+        }
+        finally
         {
-            localEnv.declareVariable(params.get(i), args.get(i).eval(env));
+            env.popFrame();
         }
-        localEnv.declareVariable(name, 0);
-        statement.exec(localEnv);
-        return localEnv.getVariable(name);
     }
 
     /**
@@ -82,4 +99,330 @@ public class ProcedureCall extends Expression
         }
         e.emitPop("$ra");
     }
+
+    /**
+     * Resolves every argument in the scope of the caller.
+     * @param scope the scope the call appears in
+     */
+    public void resolve(Scope scope)
+    {
+        for (Expression arg : args)
+        {
+            arg.resolve(scope);
+        }
+    }
+
+    /**
+     * Specializes the call into one that looks the procedure up now, once, rather than on
+     * every call. A call to a procedure that has not been declared is left as it is.
+     * @param env the environment the call will first be evaluated in
+     * @return a Call with the specialized arguments
+     */
+    public Expression specialize(Environment env)
+    {
+        ProcedureDeclaration procedure = env.getProcedure(name);
+        if (procedure == null)
+        {
+            return this;
+        }
+        Expression[] specializedArgs = new Expression[args.size()];
+        for (int i = 0; i < specializedArgs.length; i++)
+        {
+            specializedArgs[i] = args.get(i).specialize(env);
+        }
+        return new Specialized.Call(procedure, specializedArgs);
+    }
+
+    /**
+     * Lowers the call. The arguments are evaluated in order into consecutive temporaries, which
+     * CALL copies into the parameters of the new frame. Missing arguments are passed as 0, and
+     * arguments beyond the procedure's parameters are evaluated but not passed.
+     * @param b the BytecodeBuilder the instructions are added to
+     * @return the temporary that receives the return value
+     * @throws IllegalArgumentException if no procedure has the called name
+     */
+    public int compile(BytecodeBuilder b)
+    {
+        int procedure = b.getProcedure(name);
+        int mark = b.getTemps();
+        int argBase = compileArguments(b, Math.max(args.size(), b.getParamCount(procedure)));
+        b.release(mark);
+        int result = b.allocate();
+        b.emit(Bytecode.CALL, result, procedure, argBase < 0 ? result : argBase);
+        return result;
+    }
+
+    /**
+     * Evaluates the arguments in order into consecutive temporaries, padding them with zeros.
+     * @param b the BytecodeBuilder the instructions are added to
+     * @param count the number of temporaries to fill, at least the number of arguments
+     * @return the first of the temporaries, or -1 if count is 0
+     * @postcondition the temporaries are still allocated
+     */
+    private int compileArguments(BytecodeBuilder b, int count)
+    {
+        int mark = b.getTemps();
+        int argBase = -1;
+        for (int i = 0; i < count; i++)
+        {
+            int register = b.allocate();
+            if (i == 0)
+            {
+                argBase = register;
+            }
+            if (i < args.size())
+            {
+                int value = args.get(i).compile(b);
+                if (value != register && !b.retarget(value, register))
+                {
+                    b.emit(Bytecode.MOVE, register, value, 0);
+                }
+            }
+            else
+            {
+                b.emit(Bytecode.CONST, register, 0, 0);
+            }
+            b.release(mark + i + 1);
+        }
+        return argBase;
+    }
+
+    /**
+     * Lowers the call to a CALL. Missing arguments are passed as 0, and arguments beyond the
+     * procedure's parameters are evaluated but not passed.
+     * @param b the IrBuilder the instructions are added to
+     * @return the value the procedure returns
+     * @throws IllegalArgumentException if no procedure has the called name
+     */
+    public int lower(IrBuilder b)
+    {
+        return b.call(name, lowerArguments(b, b.getParamCount(name)));
+    }
+
+    /**
+     * Evaluates the arguments in order, padding them with zeros.
+     * @param b the IrBuilder the instructions are added to
+     * @param count the number of parameters to pass arguments for
+     * @return the value of each parameter
+     */
+    private int[] lowerArguments(IrBuilder b, int count)
+    {
+        int[] values = new int[count];
+        for (int i = 0; i < Math.max(count, args.size()); i++)
+        {
+            int value = i < args.size() ? args.get(i).lower(b) : b.constant(0);
+            if (i < count)
+            {
+                values[i] = value;
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Returns true, since this expression calls a procedure.
+     * @return true
+     */
+    public boolean hasCall()
+    {
+        return true;
+    }
+
+    /**
+     * Records the call, and adds the effects of the arguments.
+     * @param effects the Effects to add to
+     */
+    public void addEffects(Effects effects)
+    {
+        effects.addCall(name);
+        for (Expression arg : args)
+        {
+            arg.addEffects(effects);
+        }
+    }
+
+    /**
+     * Returns the name of the procedure being called.
+     * @return the instance variable name
+     */
+    public String getName()
+    {
+        return name;
+    }
+
+    /**
+     * Makes this call as a tail call from a running call to the same procedure. The arguments
+     * are evaluated in the running call's frame into the frame above it, as for an ordinary
+     * call, and that frame is then copied over the running one.
+     * @precondition env is the frame of a call to procedure
+     * @param env the frame of the running call
+     * @param procedure the procedure the call was marked as a tail call to
+     * @return true if env now holds the new call, or false if the name no longer refers to
+     *         procedure and the call has to be made in the ordinary way
+     */
+    boolean reenter(Environment env, ProcedureDeclaration procedure)
+    {
+        if (env.getProcedure(name) != procedure)
+        {
+            return false;
+        }
+        Environment next = env.pushFrame(procedure.getScope());
+        try
+        {
+            for (int i = 0; i < args.size(); i++)
+            {
+                next.store(i, args.get(i).eval(env));
+            }
+            env.replace(next);
+        }
+        finally
+        {
+            env.popFrame();
+        }
+        return true;
+    }
+
+    /**
+     * Specializes this call as a tail call from a call to the same procedure.
+     * @param env the environment the call will first be evaluated in
+     * @param procedure the procedure the call was marked as a tail call to
+     * @return a TailCall, or null if the name does not refer to procedure
+     */
+    Statement specializeTailCall(Environment env, ProcedureDeclaration procedure)
+    {
+        if (env.getProcedure(name) != procedure)
+        {
+            return null;
+        }
+        Expression[] specializedArgs = new Expression[args.size()];
+        for (int i = 0; i < specializedArgs.length; i++)
+        {
+            specializedArgs[i] = args.get(i).specialize(env);
+        }
+        return new Specialized.TailCall(procedure, specializedArgs);
+    }
+
+    /**
+     * Generates MIPS code for this call as a tail call from a call to the same procedure.
+     * The arguments are pushed onto the stack as for an ordinary call, and then popped into the
+     * slots of the parameters of the running call. The return value and the local variables are
+     * popped off, and the code jumps back to the start of the procedure, which pushes them again
+     * as zeros. The return address is left as it is, so the last call returns straight to the
+     * first call's caller, and the stack never grows.
+     * @param e the Emitter that writes code to the output file
+     * @param procedure the procedure the call was marked as a tail call to
+     * @return true if the code was generated, or false if the number of arguments does not
+     *         match the parameters and the call has to be made in the ordinary way
+     */
+    boolean compileTailCall(Emitter e, ProcedureDeclaration procedure)
+    {
+        List<String> params = procedure.getParams();
+        if (args.size() != params.size())
+        {
+            return false;
+        }
+        for (Expression arg : args)
+        {
+            arg.compile(e);
+            e.emitPush("$v0");
+        }
+        for (int i = params.size() - 1; i >= 0; i--)
+        {
+            e.emitPop("$t0");
+            e.emit("sw $t0 " + e.getOffset(params.get(i)) + "($sp)");
+        }
+        e.emit("addu $sp $sp " + 4 * (procedure.getLocalVars().size() + 1)
+            + "\t# pop the return value and local variables");
+        e.emit("j proc" + name + "\t\t# tail call");
+        return true;
+    }
+
+    /**
+     * Lowers this call as a tail call from a call to the same procedure. The arguments are
+     * evaluated into temporaries, moved into the parameters, and the rest of the procedure's
+     * variables are cleared before jumping back to the start of the body.
+     * @precondition b is lowering the body of procedure
+     * @param b the BytecodeBuilder the instructions are added to
+     * @param procedure the procedure the call was marked as a tail call to
+     */
+    void compileTailCall(BytecodeBuilder b, ProcedureDeclaration procedure)
+    {
+        int mark = b.getTemps();
+        int params = procedure.getParams().size();
+        int argBase = compileArguments(b, Math.max(args.size(), params));
+        for (int i = 0; i < params; i++)
+        {
+            b.emit(Bytecode.MOVE, i, argBase + i, 0);
+        }
+        for (int i = params; i < procedure.getScope().size(); i++)
+        {
+            b.emit(Bytecode.CONST, i, 0, 0);
+        }
+        b.release(mark);
+        b.emitJump(Bytecode.JMP, 0, 0, b.getEntryLabel());
+    }
+
+    /**
+     * Lowers this call as a tail call from a call to the same procedure. The parameters are
+     * given the values of the arguments, the rest of the variables in the procedure's scope
+     * (including those only its body uses, which are never declared) are set back to 0, and the
+     * code jumps back to the start of the body, where PHIs merge the new values with
+     * those of the first call.
+     * @precondition b is lowering the body of procedure
+     * @param b the IrBuilder the instructions are added to
+     * @param procedure the procedure the call was marked as a tail call to
+     */
+    void lowerTailCall(IrBuilder b, ProcedureDeclaration procedure)
+    {
+        List<String> params = procedure.getParams();
+        int[] values = lowerArguments(b, params.size());
+        for (int i = 0; i < values.length; i++)
+        {
+            b.writeVariable(params.get(i), values[i]);
+        }
+        int zero = b.constant(0);
+        Scope scope = procedure.getScope();
+        for (int slot = params.size(); slot < scope.size(); slot++)
+        {
+            b.writeVariable(scope.getName(slot), zero);
+        }
+        b.jump(b.getStart());
+    }
+
+    /**
+     * Folds the arguments in order. The call itself could change any global variable, so
+     * their values are forgotten afterwards.
+     * @param known the values known before the call; updated to those known after it
+     * @return this call
+     */
+    public Expression fold(Constants known)
+    {
+        List<Expression> folded = new ArrayList<Expression>(args.size());
+        for (Expression arg : args)
+        {
+            folded.add(arg.fold(known));
+        }
+        args = folded;
+        known.killGlobals();
+        return this;
+    }
+
+    /**
+     * Hoists the invariant arguments. The call itself could do anything, so it is never
+     * invariant.
+     * @param h the Hoister, which knows the loops the call is in
+     * @return this call
+     * @postcondition h.getLevel() is h.getDepth()
+     */
+    public Expression hoist(Hoister h)
+    {
+        List<Expression> hoisted = new ArrayList<Expression>(args.size());
+        for (Expression arg : args)
+        {
+            hoisted.add(h.rewrite(arg));
+        }
+        args = hoisted;
+        h.setLevel(h.getDepth());
+        return this;
+    }
 }
@@ -1,9 +1,15 @@
 package ast;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import emitter.Emitter;
 import environment.Environment;
+import environment.Scope;
+import ir.IrBuilder;
+import vm.BytecodeBuilder;
 
 /**
  * This class is a statement that represents a declaration of a procedure.
@@ -17,7 +23,7 @@ import environment.Environment;
  * symbol table.
  * 
  * @author Ishan Mysore
- * @version 12/14/23
+ * @version 10/17/26
  */
 public class ProcedureDeclaration extends Statement
 {
@@ -25,6 +31,13 @@ public class ProcedureDeclaration extends Statement
     private List<String> params;
     private List<String> localVars;
     private Statement statement;
+    private Scope scope;
+    private int resultSlot;
+    private Statement specialized;
+    private int invocations;
+    private volatile Statement compiled;
+    private boolean pure;
+    private Memoizer.Table memoTable;
 
     /**
      * Creates a new ProcedureDeclaration and initializes the instance variables.
@@ -44,10 +57,13 @@ public class ProcedureDeclaration extends Statement
     /**
      * Executes this statement by telling the environment to add this instance to the procedure
      * symbol table.
+     * @param env the environment to declare the procedure in
+     * @return NORMAL
      */
-    public void exec(Environment env) throws InterruptedException
+    public int exec(Environment env)
     {
         env.setProcedure(name, this);
+        return NORMAL;
     }
 
     /**
@@ -88,7 +104,7 @@ public class ProcedureDeclaration extends Statement
 
     /**
      * Generates MIPS code for a procedure declaration.
-     * First, it declares the procedure name as a label. Next, it pushes the return value onto the
+     * First, it declares the procedure name as a label, which tail calls jump back to. Next, it pushes the return value onto the
      * stack, and then pushes all the local variables onto the stack. After that, it sets the
      * procedure context, and executes the statement contained within the procedure. Once the
      * statement has finished execution, the method pops off all the local variables, pops off the
@@ -105,6 +121,7 @@ public class ProcedureDeclaration extends Statement
             e.emitPush("$zero");
         }
         e.setProcedureContext(this);
+        statement.markTailCalls(this);
         statement.compile(e);
         for (String localVar : localVars)
         {
@@ -114,4 +131,239 @@ public class ProcedureDeclaration extends Statement
         e.emit("jr $ra");
         e.clearProcedureContext();
     }
+
+    /**
+     * Gives the procedure its own scope, whose first slots are the parameters in order, followed
+     * by the procedure's name (which holds the return value) and the local variables, and then
+     * resolves the statement in that scope and marks its tail calls.
+     * @param globals the global scope
+     * @postcondition scope and resultSlot are set, and the statement is resolved
+     */
+    public void resolve(Scope globals)
+    {
+        scope = new Scope(globals);
+        for (String param : params)
+        {
+            scope.declare(param);
+        }
+        resultSlot = scope.declare(name);
+        for (String localVar : localVars)
+        {
+            scope.declare(localVar);
+        }
+        statement.resolve(scope);
+        statement.markTailCalls(this);
+        specialized = null;
+        invocations = 0;
+        compiled = null;
+        pure = false;
+        memoTable = null;
+    }
+
+    /**
+     * Returns the scope of the procedure.
+     * @precondition resolve() has been called
+     * @return the instance variable scope
+     */
+    public Scope getScope()
+    {
+        return scope;
+    }
+
+    /**
+     * Returns the slot that holds the procedure's return value.
+     * @precondition resolve() has been called
+     * @return the instance variable resultSlot
+     */
+    public int getResultSlot()
+    {
+        return resultSlot;
+    }
+
+    /**
+     * Returns the specialized version of the procedure's statement, specializing it the first
+     * time it is needed.
+     * @precondition resolve() has been called
+     * @param env the environment of the first call
+     * @return the specialized statement
+     */
+    public Statement specializeBody(Environment env)
+    {
+        if (specialized == null)
+        {
+            specialized = statement.specialize(env);
+            env.getGlobals().ensureCapacity(scope.getParent().size());
+        }
+        return specialized;
+    }
+
+    /**
+     * Builds the body of the procedure, if it has not been built yet. Building the body resolves
+     * it, which gives every variable only the body uses a slot in the procedure's scope, so this
+     * has to happen before a frame is laid out from the scope's size.
+     * @precondition resolve() has been called
+     * @postcondition the scope holds every variable of the procedure
+     */
+    public void build()
+    {
+        statement.build();
+    }
+
+    /**
+     * Lowers the body of the procedure to bytecode. Its frame holds the variables of its scope
+     * in slot order, followed by the temporaries the body needs. The body is built first, so
+     * that any variable only the body uses already has its slot when the frame is laid out.
+     * @precondition resolve() has been called, and the procedure has been declared to b
+     * @param b the BytecodeBuilder the instructions are added to
+     */
+    public void compile(BytecodeBuilder b)
+    {
+        build();
+        b.beginProcedure(name, scope.size());
+        statement.compile(b);
+        b.endProcedure();
+    }
+
+    /**
+     * Lowers the procedure to a Function of three-address code, after marking its tail calls.
+     * @precondition the procedure has been declared to b
+     * @param b the IrBuilder the instructions are added to
+     */
+    public void lower(IrBuilder b)
+    {
+        statement.markTailCalls(this);
+        b.beginProcedure(name, params, localVars);
+        statement.lower(b);
+        b.endFunction();
+    }
+
+    /**
+     * Returns the statement a call to the procedure should execute, and counts the call. Under
+     * tiered execution, the call that reaches the threshold sends the body off to be specialized
+     * in the background, and once that is done every later call gets the specialized body.
+     * @precondition resolve() has been called
+     * @param env the environment of the caller
+     * @return the specialized body if it is ready, or else the statement
+     */
+    public Statement enter(Environment env)
+    {
+        Statement body = compiled;
+        if (body != null)
+        {
+            env.getGlobals().ensureCapacity(scope.getParent().size());
+            return body;
+        }
+        Tiering tiering = env.getTiering();
+        if (tiering != null && ++invocations == tiering.getCallThreshold())
+        {
+            Environment globals = env.getGlobals();
+            tiering.submit(() -> compiled = statement.specialize(globals));
+        }
+        return statement;
+    }
+
+    /**
+     * Folds the constant parts of the procedure's statement. On entry, the parameters and the
+     * global variables could have any value, but the return value and the local variables are
+     * known to be 0.
+     * @postcondition the statement is folded, and has to be resolved again before it runs
+     */
+    public void foldConstants()
+    {
+        Set<String> locals = new HashSet<String>(params);
+        locals.add(name);
+        locals.addAll(localVars);
+        Constants known = new Constants(locals);
+        for (String local : locals)
+        {
+            if (!params.contains(local))
+            {
+                known.set(local, 0);
+            }
+        }
+        statement = statement.fold(known);
+    }
+
+    /**
+     * Removes the parts of the procedure's statement that can never run.
+     * @postcondition the statement is pruned, and has to be resolved again before it runs
+     */
+    public void eliminateDeadCode()
+    {
+        statement = statement.prune();
+    }
+
+    /**
+     * Hoists the loop-invariant parts of the procedure's statement out of its loops. The hidden
+     * variables they are assigned to become local variables of the procedure, so that every call
+     * has its own.
+     * @postcondition the statement is hoisted, and has to be resolved again before it runs
+     */
+    public void hoistInvariants()
+    {
+        Set<String> locals = new HashSet<String>(params);
+        locals.add(name);
+        locals.addAll(localVars);
+        Hoister hoister = new Hoister(locals, locals);
+        statement = statement.hoist(hoister);
+        if (!hoister.getHidden().isEmpty())
+        {
+            localVars = new ArrayList<String>(localVars);
+            localVars.addAll(hoister.getHidden());
+        }
+    }
+
+    /**
+     * Runs a call to the procedure in a frame that already holds the arguments. Each time the
+     * body ends in a tail call, the frame holds the arguments of the next call, and the body is
+     * simply run again, so a chain of tail calls takes no more stack than a single call.
+     * @precondition resolve() has been called
+     * @param env the environment of the caller
+     * @param frame the frame of the call
+     */
+    public void run(Environment env, Environment frame)
+    {
+        int completion;
+        do
+        {
+            completion = enter(env).exec(frame);
+        }
+        while (completion == TAIL_CALL);
+    }
+
+    /**
+     * Determines if the procedure has been found to be a pure function of its arguments.
+     * @return the instance variable pure
+     */
+    public boolean isPure()
+    {
+        return pure;
+    }
+
+    /**
+     * Sets whether the procedure is a pure function of its arguments (see Effects.markPure).
+     * @param pure true if the procedure is pure, false otherwise
+     */
+    public void setPure(boolean pure)
+    {
+        this.pure = pure;
+    }
+
+    /**
+     * Returns the table of remembered results of the procedure.
+     * @return the instance variable memoTable, or null if no call has been memoized yet
+     */
+    Memoizer.Table getMemoTable()
+    {
+        return memoTable;
+    }
+
+    /**
+     * Sets the table of remembered results of the procedure.
+     * @param memoTable the table
+     */
+    void setMemoTable(Memoizer.Table memoTable)
+    {
+        this.memoTable = memoTable;
+    }
 }
@@ -1,11 +1,25 @@
 package ast;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 
 import emitter.Emitter;
 import environment.Environment;
+import environment.Scope;
+import ir.IrBuilder;
+import ir.IrProgram;
+import ir.MipsGenerator;
+import ir.PassManager;
+import vm.Bytecode;
+import vm.BytecodeBuilder;
 
 /**
  * This class represents the complete program, and serves as the root of our AST.
@@ -17,13 +31,15 @@ import environment.Environment;
  * To execute this statement, we simply execute each procedure and then execute the main statement.
  * 
  * @author Ishan Mysore
- * @version 11/20/23
+ * @version 10/17/26
  */
 public class Program
 {
     private List<Variable> variables;
     private List<ProcedureDeclaration> procedures;
     private Statement mainStatement;
+    private Scope resolved;
+    private Statement specialized;
 
     /**
      * Creates a new Program and initializes the instance variables.
@@ -40,17 +56,81 @@ public class Program
 
     /**
      * To execute this statement, we simply execute each procedure and then execute the main
-     * statement.
+     * statement. Whatever the program printed is flushed when it ends, even if it ends with an
+     * exception.
      * @param env the environment storing all the variables
-     * @throws InterruptedException if we encounter a CONTINUE statement
      */
-    public void exec(Environment env) throws InterruptedException
+    public void exec(Environment env)
     {
+        resolve(env.getScope());
+        try
+        {
+            for (ProcedureDeclaration procedure : procedures)
+            {
+                procedure.exec(env);
+            }
+            mainStatement.exec(env);
+        }
+        finally
+        {
+            env.getOutput().flush();
+        }
+    }
+
+    /**
+     * Executes the program with tiered execution: everything starts out interpreted, and the
+     * procedures and loops that get hot are specialized in the background and switched to.
+     * @param env the environment storing all the variables
+     * @param tiering the thresholds and the background compiler to use
+     */
+    public void execTiered(Environment env, Tiering tiering)
+    {
+        env.setTiering(tiering);
+        exec(env);
+    }
+
+    /**
+     * Executes the program with memoization: the procedures are analyzed first, and calls to the
+     * ones that are pure functions of their arguments are answered from the Memoizer's tables
+     * whenever the same arguments have been seen before.
+     * @param env the environment storing all the variables
+     * @param memoizer the tables to remember results in
+     */
+    public void execMemoized(Environment env, Memoizer memoizer)
+    {
+        resolve(env.getScope());
+        Effects.markPure(procedures);
+        env.setMemoizer(memoizer);
+        exec(env);
+    }
+
+    /**
+     * Executes the program in specializing mode. The main statement is rewritten into
+     * specialized nodes the first time it runs (and each procedure's statement the first time
+     * the procedure is called), and the specialized nodes are what actually execute. Whatever the
+     * program printed is flushed when it ends.
+     * @param env the environment storing all the variables
+     */
+    public void execSpecialized(Environment env)
+    {
+        resolve(env.getScope());
         for (ProcedureDeclaration procedure : procedures)
         {
             procedure.exec(env);
         }
-        mainStatement.exec(env);
+        try
+        {
+            if (specialized == null)
+            {
+                specialized = mainStatement.specialize(env);
+            }
+            env.getGlobals().ensureCapacity(env.getGlobals().getScope().size());
+            specialized.exec(env);
+        }
+        finally
+        {
+            env.getOutput().flush();
+        }
     }
 
     /**
@@ -62,12 +142,7 @@ public class Program
     public void compile(String outputFile)
     {
         Emitter e = new Emitter(outputFile);
-        LocalDateTime myDateObj = LocalDateTime.now();
-        DateTimeFormatter myFormatObj = DateTimeFormatter.ofPattern("MM-dd-yyyy HH:mm:ss");
-        String formattedDate = myDateObj.format(myFormatObj);
-        e.emit("# This is an auto-generated file with MIPS Code generated from a Pascal program, using Ishan's compiler.");
-        e.emit("# @author Ishan Mysore");
-        e.emit("# @version " + formattedDate);
+        emitHeader(e);
         e.emit(".data");
         e.emit("nL: .asciiz \"\\n\"");
         for (Variable var : variables)
@@ -86,4 +161,247 @@ public class Program
         }
         e.close();
     }
-}
\ No newline at end of file
+
+    /**
+     * Generates MIPS code for this file by way of three-address code. The program is lowered to
+     * an IrProgram, the passes are run over it, and MIPS code is generated from what they leave.
+     * Unlike compile(), this handles BREAK, CONTINUE, FOR, and mod.
+     * @param outputFile the output file to write the MIPS code to
+     * @param passes the optimizations to run, which keep the time each one takes
+     */
+    public void compile(String outputFile, PassManager passes)
+    {
+        IrProgram program = lower();
+        passes.run(program);
+        Emitter e = new Emitter(outputFile);
+        emitHeader(e);
+        new MipsGenerator(e).generate(program);
+        e.close();
+    }
+
+    /**
+     * Writes the comments at the top of a generated file, which say where it came from.
+     * @param e the Emitter that writes code to the output file
+     */
+    private static void emitHeader(Emitter e)
+    {
+        LocalDateTime myDateObj = LocalDateTime.now();
+        DateTimeFormatter myFormatObj = DateTimeFormatter.ofPattern("MM-dd-yyyy HH:mm:ss");
+        String formattedDate = myDateObj.format(myFormatObj);
+        e.emit("# This is an auto-generated file with MIPS Code generated from a Pascal program, using Ishan's compiler.");
+        e.emit("# @author Ishan Mysore");
+        e.emit("# @version " + formattedDate);
+    }
+
+    /**
+     * Lowers the whole program to three-address code in SSA form. The program is resolved in a
+     * new global scope first, and every global it leaves there is declared, so that the
+     * procedures tell their globals from their locals just as the interpreter does. Every
+     * procedure is declared before any body is lowered, so that calls can refer to procedures
+     * declared later. When two procedures have the same name, only the last, which is the one
+     * calls reach, is lowered.
+     * @return the IrProgram
+     */
+    public IrProgram lower()
+    {
+        Scope globals = new Scope(null);
+        resolve(globals);
+        IrBuilder b = new IrBuilder();
+        for (int slot = 0; slot < globals.size(); slot++)
+        {
+            b.declareGlobal(globals.getName(slot));
+        }
+        Map<String, ProcedureDeclaration> byName = new HashMap<String, ProcedureDeclaration>();
+        for (ProcedureDeclaration procedure : procedures)
+        {
+            b.declareProcedure(procedure.getName(), procedure.getParams().size());
+            byName.put(procedure.getName(), procedure);
+        }
+        for (ProcedureDeclaration procedure : procedures)
+        {
+            if (byName.get(procedure.getName()) == procedure)
+            {
+                procedure.lower(b);
+            }
+        }
+        b.beginMain();
+        if (mainStatement != null)
+        {
+            mainStatement.lower(b);
+        }
+        b.endFunction();
+        return b.build();
+    }
+
+    /**
+     * Gives every variable in the program a slot: globals in the given global scope, and the
+     * parameters and locals of each procedure in the procedure's own scope. The main program is
+     * resolved before the procedures, so that a variable the main program uses is a global in
+     * every procedure too, while one that only a procedure uses is local to it. Nothing is done
+     * if the program has already been resolved against the same global scope.
+     * @param globals the scope of the global environment the program will run in
+     */
+    public void resolve(Scope globals)
+    {
+        if (resolved == globals)
+        {
+            return;
+        }
+        for (Variable var : variables)
+        {
+            globals.declare(var.getName());
+        }
+        if (mainStatement != null)
+        {
+            mainStatement.resolve(globals);
+        }
+        for (ProcedureDeclaration procedure : procedures)
+        {
+            procedure.resolve(globals);
+        }
+        resolved = globals;
+        specialized = null;
+    }
+
+    /**
+     * Folds the constant parts of the program, between parsing it and running or compiling it.
+     * Constant operations and conditions are computed now, and the values of variables are
+     * carried forward from the assignments that set them to the places that read them, so
+     * that neither the interpreter nor the generated code computes them again. Nothing is
+     * assumed about the global variables when the main program starts.
+     * @postcondition the program is folded, and is resolved again before it next runs
+     */
+    public void foldConstants()
+    {
+        for (ProcedureDeclaration procedure : procedures)
+        {
+            procedure.foldConstants();
+        }
+        if (mainStatement != null)
+        {
+            mainStatement = mainStatement.fold(new Constants(null));
+        }
+        resolved = null;
+        specialized = null;
+    }
+
+    /**
+     * Removes the code that can never run: IF branches and WHILE loops whose condition is
+     * constant, statements after a BREAK or CONTINUE, and procedures that are never called.
+     * A procedure is kept only if the main program calls it, or a procedure that is kept calls
+     * it, once their dead code is gone. When two procedures have the same name, only the last,
+     * which is the one calls reach, can be kept. The bodies of procedures that are dropped are
+     * never parsed.
+     * @postcondition the program is pruned, and is resolved again before it next runs
+     */
+    public void eliminateDeadCode()
+    {
+        Map<String, ProcedureDeclaration> byName = new HashMap<String, ProcedureDeclaration>();
+        for (ProcedureDeclaration procedure : procedures)
+        {
+            byName.put(procedure.getName(), procedure);
+        }
+        Deque<String> pending = new ArrayDeque<String>();
+        if (mainStatement != null)
+        {
+            mainStatement = mainStatement.prune();
+            addCalls(mainStatement, pending);
+        }
+        Set<ProcedureDeclaration> reachable = new HashSet<ProcedureDeclaration>();
+        while (!pending.isEmpty())
+        {
+            ProcedureDeclaration procedure = byName.get(pending.pop());
+            if (procedure != null && reachable.add(procedure))
+            {
+                procedure.eliminateDeadCode();
+                addCalls(procedure.getStatement(), pending);
+            }
+        }
+        List<ProcedureDeclaration> live = new ArrayList<ProcedureDeclaration>();
+        for (ProcedureDeclaration procedure : procedures)
+        {
+            if (reachable.contains(procedure))
+            {
+                live.add(procedure);
+            }
+        }
+        procedures = live;
+        resolved = null;
+        specialized = null;
+    }
+
+    /**
+     * Moves the loop-invariant operations of the program out of its loops, between parsing it
+     * and running or compiling it, so that each is computed once before the loop instead of on
+     * every iteration. Each is assigned to a hidden variable just before the outermost loop that
+     * cannot change it. In the main program, the hidden variables are globals, and are declared
+     * with the program's variables.
+     * @postcondition the program is hoisted, and is resolved again before it next runs
+     */
+    public void hoistInvariants()
+    {
+        for (ProcedureDeclaration procedure : procedures)
+        {
+            procedure.hoistInvariants();
+        }
+        if (mainStatement != null)
+        {
+            Set<String> taken = new HashSet<String>();
+            for (Variable var : variables)
+            {
+                taken.add(var.getName());
+            }
+            Hoister hoister = new Hoister(null, taken);
+            mainStatement = mainStatement.hoist(hoister);
+            for (String name : hoister.getHidden())
+            {
+                variables.add(new Variable(name));
+            }
+        }
+        resolved = null;
+        specialized = null;
+    }
+
+    /**
+     * Adds the names of the procedures a statement calls to a list of names to visit.
+     * @param statement the statement
+     * @param pending the names still to visit
+     */
+    private static void addCalls(Statement statement, Deque<String> pending)
+    {
+        Effects effects = new Effects();
+        statement.addEffects(effects);
+        pending.addAll(effects.getCalls());
+    }
+
+    /**
+     * Lowers the whole program to bytecode for the VM.
+     * The program is resolved in a new global scope, and every procedure is declared before any
+     * body is lowered so that calls can refer to procedures declared later. Resolving leaves the
+     * global scope with every global the program has, so the main program's frame has room for
+     * all of them.
+     * @return the bytecode
+     */
+    public Bytecode compileBytecode()
+    {
+        Scope globals = new Scope(null);
+        resolve(globals);
+        BytecodeBuilder b = new BytecodeBuilder();
+        for (ProcedureDeclaration procedure : procedures)
+        {
+            b.declareProcedure(procedure.getName(), procedure.getParams().size(),
+                procedure.getResultSlot());
+        }
+        for (ProcedureDeclaration procedure : procedures)
+        {
+            procedure.compile(b);
+        }
+        b.beginMain(globals.size());
+        if (mainStatement != null)
+        {
+            mainStatement.compile(b);
+        }
+        b.endMain();
+        return b.build();
+    }
+}
@@ -0,0 +1,832 @@
+package ast;
+
+import environment.Environment;
+
+/**
+ * This class holds the specialized nodes that the ordinary AST nodes rewrite themselves into
+ * the first time they run in specializing mode (see Program.execSpecialized).
+ *
+ * Each specialized node does exactly one thing. An Add only adds, a LessConstant only compares
+ * its operand against a fixed number, and a LocalLoad only reads one slot of the current frame.
+ * None of them tests an operator String, looks a name up, or decides anything else that was
+ * already known before the program ran, so the JIT sees a small, monomorphic method at every
+ * node.
+ *
+ * Specialized nodes only run; the ordinary nodes they were made from still do all compiling.
+ *
+ * @author Ishan Mysore
+ * @version 10/17/26
+ */
+public final class Specialized
+{
+    /**
+     * Specialized is never instantiated; it only holds the node classes.
+     */
+    private Specialized()
+    {
+    }
+
+    /**
+     * Reads a variable from a slot of the current frame.
+     */
+    static final class LocalLoad extends Expression
+    {
+        private final int slot;
+
+        /**
+         * Creates a new LocalLoad.
+         * @param slot the slot to read
+         */
+        LocalLoad(int slot)
+        {
+            this.slot = slot;
+        }
+
+        /**
+         * Returns the value in the slot.
+         * @param env the current frame
+         * @return the value of the variable
+         */
+        public int eval(Environment env)
+        {
+            return env.getLocal(slot);
+        }
+    }
+
+    /**
+     * Reads a variable from a slot of the global frame.
+     */
+    static final class GlobalLoad extends Expression
+    {
+        private final int slot;
+
+        /**
+         * Creates a new GlobalLoad.
+         * @param slot the global slot to read
+         */
+        GlobalLoad(int slot)
+        {
+            this.slot = slot;
+        }
+
+        /**
+         * Returns the value in the global slot.
+         * @param env the current frame
+         * @return the value of the variable
+         */
+        public int eval(Environment env)
+        {
+            return env.getGlobal(slot);
+        }
+    }
+
+    /**
+     * Adds two expressions.
+     */
+    static final class Add extends Expression
+    {
+        private final Expression left;
+        private final Expression right;
+
+        /**
+         * Creates a new Add.
+         * @param left the left operand
+         * @param right the right operand
+         */
+        Add(Expression left, Expression right)
+        {
+            this.left = left;
+            this.right = right;
+        }
+
+        /**
+         * Returns the sum of the operands.
+         * @param env the current frame
+         * @return left + right
+         */
+        public int eval(Environment env)
+        {
+            return left.eval(env) + right.eval(env);
+        }
+    }
+
+    /**
+     * Adds a fixed number to an expression.
+     */
+    static final class AddConstant extends Expression
+    {
+        private final Expression left;
+        private final int right;
+
+        /**
+         * Creates a new AddConstant.
+         * @param left the left operand
+         * @param right the number to add
+         */
+        AddConstant(Expression left, int right)
+        {
+            this.left = left;
+            this.right = right;
+        }
+
+        /**
+         * Returns the sum of the operand and the number.
+         * @param env the current frame
+         * @return left + right
+         */
+        public int eval(Environment env)
+        {
+            return left.eval(env) + right;
+        }
+    }
+
+    /**
+     * Subtracts one expression from another.
+     */
+    static final class Subtract extends Expression
+    {
+        private final Expression left;
+        private final Expression right;
+
+        /**
+         * Creates a new Subtract.
+         * @param left the left operand
+         * @param right the right operand
+         */
+        Subtract(Expression left, Expression right)
+        {
+            this.left = left;
+            this.right = right;
+        }
+
+        /**
+         * Returns the difference of the operands.
+         * @param env the current frame
+         * @return left - right
+         */
+        public int eval(Environment env)
+        {
+            return left.eval(env) - right.eval(env);
+        }
+    }
+
+    /**
+     * Multiplies two expressions.
+     */
+    static final class Multiply extends Expression
+    {
+        private final Expression left;
+        private final Expression right;
+
+        /**
+         * Creates a new Multiply.
+         * @param left the left operand
+         * @param right the right operand
+         */
+        Multiply(Expression left, Expression right)
+        {
+            this.left = left;
+            this.right = right;
+        }
+
+        /**
+         * Returns the product of the operands.
+         * @param env the current frame
+         * @return left * right
+         */
+        public int eval(Environment env)
+        {
+            return left.eval(env) * right.eval(env);
+        }
+    }
+
+    /**
+     * Divides one expression by another.
+     */
+    static final class Divide extends Expression
+    {
+        private final Expression left;
+        private final Expression right;
+
+        /**
+         * Creates a new Divide.
+         * @param left the left operand
+         * @param right the right operand
+         */
+        Divide(Expression left, Expression right)
+        {
+            this.left = left;
+            this.right = right;
+        }
+
+        /**
+         * Returns the quotient of the operands.
+         * @param env the current frame
+         * @return left / right
+         */
+        public int eval(Environment env)
+        {
+            return left.eval(env) / right.eval(env);
+        }
+    }
+
+    /**
+     * Takes the remainder of one expression divided by another.
+     */
+    static final class Mod extends Expression
+    {
+        private final Expression left;
+        private final Expression right;
+
+        /**
+         * Creates a new Mod.
+         * @param left the left operand
+         * @param right the right operand
+         */
+        Mod(Expression left, Expression right)
+        {
+            this.left = left;
+            this.right = right;
+        }
+
+        /**
+         * Returns the remainder of the operands.
+         * @param env the current frame
+         * @return left % right
+         */
+        public int eval(Environment env)
+        {
+            return left.eval(env) % right.eval(env);
+        }
+    }
+
+    /**
+     * Calls a procedure that was looked up once, when the call was specialized.
+     */
+    static final class Call extends Expression
+    {
+        private final ProcedureDeclaration procedure;
+        private final Expression[] args;
+        private Statement body;
+
+        /**
+         * Creates a new Call.
+         * @param procedure the procedure to call
+         * @param args the specialized arguments
+         */
+        Call(ProcedureDeclaration procedure, Expression[] args)
+        {
+            this.procedure = procedure;
+            this.args = args;
+        }
+
+        /**
+         * Runs the procedure in a reused frame whose first slots hold the arguments, and returns
+         * the value of its result slot. The body is run again for as long as it ends in a tail
+         * call. The procedure's body is specialized on its first call.
+         * @param env the current frame
+         * @return the value the procedure returns
+         */
+        public int eval(Environment env)
+        {
+            Statement statement = body;
+            if (statement == null)
+            {
+                statement = procedure.specializeBody(env);
+                body = statement;
+            }
+            Environment localEnv = env.pushFrame(procedure.getScope());
+            try
+            {
+                for (int i = 0; i < args.length; i++)
+                {
+                    localEnv.setLocal(i, args[i].eval(env));
+                }
+                int completion;
+                do
+                {
+                    completion = statement.exec(localEnv);
+                }
+                while (completion == Statement.TAIL_CALL);
+                return localEnv.getLocal(procedure.getResultSlot());
+            }
+            finally
+            {
+                env.popFrame();
+            }
+        }
+    }
+
+    /**
+     * Tests whether two expressions are equal.
+     */
+    static final class Equal extends Condition
+    {
+        private final Expression left;
+        private final Expression right;
+
+        /**
+         * Creates a new Equal.
+         * @param left the left operand
+         * @param right the right operand
+         */
+        Equal(Expression left, Expression right)
+        {
+            super("=", left, right);
+            this.left = left;
+            this.right = right;
+        }
+
+        /**
+         * Compares the operands.
+         * @param env the current frame
+         * @return left = right
+         */
+        public boolean eval(Environment env)
+        {
+            return left.eval(env) == right.eval(env);
+        }
+    }
+
+    /**
+     * Tests whether two expressions differ.
+     */
+    static final class NotEqual extends Condition
+    {
+        private final Expression left;
+        private final Expression right;
+
+        /**
+         * Creates a new NotEqual.
+         * @param left the left operand
+         * @param right the right operand
+         */
+        NotEqual(Expression left, Expression right)
+        {
+            super("<>", left, right);
+            this.left = left;
+            this.right = right;
+        }
+
+        /**
+         * Compares the operands.
+         * @param env the current frame
+         * @return left <> right
+         */
+        public boolean eval(Environment env)
+        {
+            return left.eval(env) != right.eval(env);
+        }
+    }
+
+    /**
+     * Tests whether one expression is less than another.
+     */
+    static final class Less extends Condition
+    {
+        private final Expression left;
+        private final Expression right;
+
+        /**
+         * Creates a new Less.
+         * @param left the left operand
+         * @param right the right operand
+         */
+        Less(Expression left, Expression right)
+        {
+            super("<", left, right);
+            this.left = left;
+            this.right = right;
+        }
+
+        /**
+         * Compares the operands.
+         * @param env the current frame
+         * @return left < right
+         */
+        public boolean eval(Environment env)
+        {
+            return left.eval(env) < right.eval(env);
+        }
+    }
+
+    /**
+     * Tests whether one expression is at most another.
+     */
+    static final class LessEqual extends Condition
+    {
+        private final Expression left;
+        private final Expression right;
+
+        /**
+         * Creates a new LessEqual.
+         * @param left the left operand
+         * @param right the right operand
+         */
+        LessEqual(Expression left, Expression right)
+        {
+            super("<=", left, right);
+            this.left = left;
+            this.right = right;
+        }
+
+        /**
+         * Compares the operands.
+         * @param env the current frame
+         * @return left <= right
+         */
+        public boolean eval(Environment env)
+        {
+            return left.eval(env) <= right.eval(env);
+        }
+    }
+
+    /**
+     * Tests whether one expression is greater than another.
+     */
+    static final class Greater extends Condition
+    {
+        private final Expression left;
+        private final Expression right;
+
+        /**
+         * Creates a new Greater.
+         * @param left the left operand
+         * @param right the right operand
+         */
+        Greater(Expression left, Expression right)
+        {
+            super(">", left, right);
+            this.left = left;
+            this.right = right;
+        }
+
+        /**
+         * Compares the operands.
+         * @param env the current frame
+         * @return left > right
+         */
+        public boolean eval(Environment env)
+        {
+            return left.eval(env) > right.eval(env);
+        }
+    }
+
+    /**
+     * Tests whether one expression is at least another.
+     */
+    static final class GreaterEqual extends Condition
+    {
+        private final Expression left;
+        private final Expression right;
+
+        /**
+         * Creates a new GreaterEqual.
+         * @param left the left operand
+         * @param right the right operand
+         */
+        GreaterEqual(Expression left, Expression right)
+        {
+            super(">=", left, right);
+            this.left = left;
+            this.right = right;
+        }
+
+        /**
+         * Compares the operands.
+         * @param env the current frame
+         * @return left >= right
+         */
+        public boolean eval(Environment env)
+        {
+            return left.eval(env) >= right.eval(env);
+        }
+    }
+
+    /**
+     * Tests whether an expression equals a fixed number.
+     */
+    static final class EqualConstant extends Condition
+    {
+        private final Expression left;
+        private final int right;
+
+        /**
+         * Creates a new EqualConstant.
+         * @param left the left operand
+         * @param right the Number on the right
+         */
+        EqualConstant(Expression left, Number right)
+        {
+            super("=", left, right);
+            this.left = left;
+            this.right = right.getValue();
+        }
+
+        /**
+         * Compares the operand against the number.
+         * @param env the current frame
+         * @return left = right
+         */
+        public boolean eval(Environment env)
+        {
+            return left.eval(env) == right;
+        }
+    }
+
+    /**
+     * Tests whether an expression differs from a fixed number.
+     */
+    static final class NotEqualConstant extends Condition
+    {
+        private final Expression left;
+        private final int right;
+
+        /**
+         * Creates a new NotEqualConstant.
+         * @param left the left operand
+         * @param right the Number on the right
+         */
+        NotEqualConstant(Expression left, Number right)
+        {
+            super("<>", left, right);
+            this.left = left;
+            this.right = right.getValue();
+        }
+
+        /**
+         * Compares the operand against the number.
+         * @param env the current frame
+         * @return left <> right
+         */
+        public boolean eval(Environment env)
+        {
+            return left.eval(env) != right;
+        }
+    }
+
+    /**
+     * Tests whether an expression is less than a fixed number.
+     */
+    static final class LessConstant extends Condition
+    {
+        private final Expression left;
+        private final int right;
+
+        /**
+         * Creates a new LessConstant.
+         * @param left the left operand
+         * @param right the Number on the right
+         */
+        LessConstant(Expression left, Number right)
+        {
+            super("<", left, right);
+            this.left = left;
+            this.right = right.getValue();
+        }
+
+        /**
+         * Compares the operand against the number.
+         * @param env the current frame
+         * @return left < right
+         */
+        public boolean eval(Environment env)
+        {
+            return left.eval(env) < right;
+        }
+    }
+
+    /**
+     * Tests whether an expression is at most a fixed number.
+     */
+    static final class LessEqualConstant extends Condition
+    {
+        private final Expression left;
+        private final int right;
+
+        /**
+         * Creates a new LessEqualConstant.
+         * @param left the left operand
+         * @param right the Number on the right
+         */
+        LessEqualConstant(Expression left, Number right)
+        {
+            super("<=", left, right);
+            this.left = left;
+            this.right = right.getValue();
+        }
+
+        /**
+         * Compares the operand against the number.
+         * @param env the current frame
+         * @return left <= right
+         */
+        public boolean eval(Environment env)
+        {
+            return left.eval(env) <= right;
+        }
+    }
+
+    /**
+     * Tests whether an expression is greater than a fixed number.
+     */
+    static final class GreaterConstant extends Condition
+    {
+        private final Expression left;
+        private final int right;
+
+        /**
+         * Creates a new GreaterConstant.
+         * @param left the left operand
+         * @param right the Number on the right
+         */
+        GreaterConstant(Expression left, Number right)
+        {
+            super(">", left, right);
+            this.left = left;
+            this.right = right.getValue();
+        }
+
+        /**
+         * Compares the operand against the number.
+         * @param env the current frame
+         * @return left > right
+         */
+        public boolean eval(Environment env)
+        {
+            return left.eval(env) > right;
+        }
+    }
+
+    /**
+     * Tests whether an expression is at least a fixed number.
+     */
+    static final class GreaterEqualConstant extends Condition
+    {
+        private final Expression left;
+        private final int right;
+
+        /**
+         * Creates a new GreaterEqualConstant.
+         * @param left the left operand
+         * @param right the Number on the right
+         */
+        GreaterEqualConstant(Expression left, Number right)
+        {
+            super(">=", left, right);
+            this.left = left;
+            this.right = right.getValue();
+        }
+
+        /**
+         * Compares the operand against the number.
+         * @param env the current frame
+         * @return left >= right
+         */
+        public boolean eval(Environment env)
+        {
+            return left.eval(env) >= right;
+        }
+    }
+
+    /**
+     * Replaces the current frame with that of a call to the same procedure.
+     */
+    static final class TailCall extends Statement
+    {
+        private final ProcedureDeclaration procedure;
+        private final Expression[] args;
+
+        /**
+         * Creates a new TailCall.
+         * @param procedure the procedure whose body the tail call ends
+         * @param args the specialized arguments
+         */
+        TailCall(ProcedureDeclaration procedure, Expression[] args)
+        {
+            this.procedure = procedure;
+            this.args = args;
+        }
+
+        /**
+         * Evaluates the arguments into the frame above the current one and copies that frame
+         * over the current one.
+         * @param env the current frame
+         * @return TAIL_CALL
+         */
+        public int exec(Environment env)
+        {
+            Environment next = env.pushFrame(procedure.getScope());
+            try
+            {
+                for (int i = 0; i < args.length; i++)
+                {
+                    next.store(i, args[i].eval(env));
+                }
+                env.replace(next);
+            }
+            finally
+            {
+                env.popFrame();
+            }
+            return TAIL_CALL;
+        }
+    }
+
+    /**
+     * Stores a value in a slot of the current frame.
+     */
+    static final class LocalStore extends Statement
+    {
+        private final int slot;
+        private final Expression exp;
+
+        /**
+         * Creates a new LocalStore.
+         * @param slot the slot to write
+         * @param exp the value to store
+         */
+        LocalStore(int slot, Expression exp)
+        {
+            this.slot = slot;
+            this.exp = exp;
+        }
+
+        /**
+         * Evaluates the value and stores it in the slot.
+         * @param env the current frame
+         * @return NORMAL
+         */
+        public int exec(Environment env)
+        {
+            env.setLocal(slot, exp.eval(env));
+            return NORMAL;
+        }
+    }
+
+    /**
+     * Stores a value in a slot of the global frame.
+     */
+    static final class GlobalStore extends Statement
+    {
+        private final int slot;
+        private final Expression exp;
+
+        /**
+         * Creates a new GlobalStore.
+         * @param slot the global slot to write
+         * @param exp the value to store
+         */
+        GlobalStore(int slot, Expression exp)
+        {
+            this.slot = slot;
+            this.exp = exp;
+        }
+
+        /**
+         * Evaluates the value and stores it in the global slot.
+         * @param env the current frame
+         * @return NORMAL
+         */
+        public int exec(Environment env)
+        {
+            env.setGlobal(slot, exp.eval(env));
+            return NORMAL;
+        }
+    }
+
+    /**
+     * Runs an array of statements in order.
+     */
+    static final class Sequence extends Statement
+    {
+        private final Statement[] stmts;
+
+        /**
+         * Creates a new Sequence.
+         * @param stmts the specialized statements
+         */
+        Sequence(Statement[] stmts)
+        {
+            this.stmts = stmts;
+        }
+
+        /**
+         * Runs each statement, stopping at the first that breaks or continues.
+         * @param env the current frame
+         * @return NORMAL, or the completion of the statement that broke or continued
+         */
+        public int exec(Environment env)
+        {
+            for (Statement stmt : stmts)
+            {
+                int completion = stmt.exec(env);
+                if (completion != NORMAL)
+                {
+                    return completion;
+                }
+            }
+            return NORMAL;
+        }
+    }
+}
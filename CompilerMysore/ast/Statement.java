@@ -2,6 +2,9 @@ package ast;
 
 import emitter.Emitter;
 import environment.Environment;
+import environment.Scope;
+import ir.IrBuilder;
+import vm.BytecodeBuilder;
 
 /**
  * This abstract class represents a statement that we will parse. A statement can be one of
@@ -12,18 +15,30 @@ import environment.Environment;
  * differently.
  * 
  * @author Ishan Mysore
- * @version 11/20/23
+ * @version 10/17/26
  */
 public abstract class Statement
 {
+    public static final int NORMAL = 0;
+    public static final int BREAK = 1;
+    public static final int CONTINUE = 2;
+    public static final int TAIL_CALL = 3;
+
     /**
      * Given an environment with all the variables, execute the statement.
      * Each subclass knows how to execute its type of statement given the environment, so 
      * this method will be overriden in each subclass.
+     * 
+     * Instead of throwing, a BREAK or CONTINUE reports itself through the return value, which
+     * each enclosing Block and If passes outward until a While or For acts on it. A tail call
+     * reports itself the same way, once it has put the arguments of the next call in the frame,
+     * and the procedure's caller runs the body again.
+     * 
      * @param env the environment with all the variables and their values
-     * @throws InterruptedException if a CONTINUE statement is encountered
+     * @return NORMAL if the statement ran to completion, BREAK or CONTINUE if a BREAK or
+     *         CONTINUE statement was executed, or TAIL_CALL if a tail call was made
      */
-    public abstract void exec(Environment env) throws InterruptedException;
+    public abstract int exec(Environment env);
 
     /**
      * Compile method for an statement; will be overriden in subclasses
@@ -34,4 +49,121 @@ public abstract class Statement
     {
         throw new RuntimeException("Implement me!!!");
     }
+
+    /**
+     * Finishes building the statement, if part of it is only built the first time it is needed.
+     * Does nothing by default, for statements that are built whole.
+     * @postcondition the statement and everything in it is built, resolved and marked
+     */
+    public void build()
+    {
+    }
+
+    /**
+     * Gives every variable this statement uses a slot in the given scope, so that executing it
+     * never has to look a variable up by name. Does nothing by default, for statements that use
+     * no variables.
+     * @param scope the scope the statement appears in
+     */
+    public void resolve(Scope scope)
+    {
+    }
+
+    /**
+     * Returns a version of this statement specialized for fast, repeated execution, built from
+     * the specialized versions of its parts. Returns this statement by default, for statements
+     * that have nothing to decide.
+     * @precondition the statement has been resolved
+     * @param env the environment the statement will first be executed in
+     * @return an equivalent statement for executing only
+     */
+    public Statement specialize(Environment env)
+    {
+        return this;
+    }
+
+    /**
+     * Lowers the statement to bytecode.
+     * @param b the BytecodeBuilder the instructions are added to
+     */
+    public void compile(BytecodeBuilder b)
+    {
+        throw new RuntimeException("Implement me!!!");
+    }
+
+    /**
+     * Lowers the statement to three-address code.
+     * @param b the IrBuilder the instructions are added to
+     * @throws RuntimeException if this method needs to be implemented in subclasses
+     */
+    public void lower(IrBuilder b)
+    {
+        throw new RuntimeException("Implement me!!!");
+    }
+
+    /**
+     * Adds what executing the statement can do besides changing its own frame to an Effects.
+     * @param effects the Effects to add to
+     * @postcondition effects is marked impure, unless a subclass knows better
+     */
+    public void addEffects(Effects effects)
+    {
+        effects.markImpure();
+    }
+
+    /**
+     * Finds the statements in tail position that assign the result of a call to the procedure
+     * back to the procedure's result, and marks them so that they reuse the frame of the call
+     * they are in. Does nothing by default, since only an Assignment can be a tail call, and a
+     * loop runs again after its body, so nothing inside it is in tail position.
+     * @param procedure the procedure whose body this statement ends
+     */
+    public void markTailCalls(ProcedureDeclaration procedure)
+    {
+    }
+
+    /**
+     * Folds the constant parts of the statement, using and updating what is known about the
+     * variables at the point where it executes. By default nothing is folded, and everything
+     * known is forgotten, since the statement could have changed anything.
+     * @param known the values known before the statement executes; updated to those known after
+     *        it
+     * @return an equivalent statement
+     */
+    public Statement fold(Constants known)
+    {
+        known.clear();
+        return this;
+    }
+
+    /**
+     * Removes the parts of the statement that can never run. Returns this statement by default,
+     * for statements that contain no other statements.
+     * @return an equivalent statement without dead code
+     */
+    public Statement prune()
+    {
+        return this;
+    }
+
+    /**
+     * Determines if the statement always ends with a BREAK or CONTINUE, so that nothing after it
+     * in the same block can run.
+     * @return false by default
+     */
+    public boolean endsAbruptly()
+    {
+        return false;
+    }
+
+    /**
+     * Hoists the loop-invariant parts of the statement out of the loops they are in. Returns
+     * this statement by default, for statements that evaluate no expressions.
+     * @param h the Hoister, which knows the loops the statement is in
+     * @return an equivalent statement
+     */
+    public Statement hoist(Hoister h)
+    {
+        return this;
+    }
 }
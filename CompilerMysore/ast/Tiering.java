@@ -0,0 +1,102 @@
+package ast;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tiering holds the policy and the background compiler for tiered execution.
+ *
+ * When a global Environment has a Tiering, every ProcedureDeclaration counts the calls to it and
+ * every While and For counts its iterations. A procedure that has been called callThreshold
+ * times, or a loop that has gone around loopThreshold times, is specialized on a background
+ * thread while the interpreter carries on. A procedure or a For switches to its specialized code
+ * the next time it is entered after the compile finishes. A While switches in the middle, at
+ * the start of its next iteration, since all of its state is in the Environment.
+ *
+ * Code only becomes hot by running, so anything a background compile needs to parse has already
+ * been parsed by the interpreter. The compiler thread is only started once something gets hot,
+ * so a short program pays nothing for it.
+ *
+ * @author Ishan Mysore
+ * @version 10/17/26
+ */
+public class Tiering
+{
+    public static final int CALL_THRESHOLD = 1000;
+    public static final int LOOP_THRESHOLD = 10000;
+
+    private int callThreshold;
+    private int loopThreshold;
+    private ExecutorService compiler;
+    private AtomicInteger compilations;
+
+    /**
+     * Creates a new Tiering with the default thresholds.
+     */
+    public Tiering()
+    {
+        this(CALL_THRESHOLD, LOOP_THRESHOLD);
+    }
+
+    /**
+     * Creates a new Tiering.
+     * @param callThreshold the number of calls after which a procedure is compiled
+     * @param loopThreshold the number of iterations after which a loop is compiled
+     */
+    public Tiering(int callThreshold, int loopThreshold)
+    {
+        this.callThreshold = callThreshold;
+        this.loopThreshold = loopThreshold;
+        compilations = new AtomicInteger();
+    }
+
+    /**
+     * Returns the number of calls after which a procedure is compiled.
+     * @return the instance variable callThreshold
+     */
+    public int getCallThreshold()
+    {
+        return callThreshold;
+    }
+
+    /**
+     * Returns the number of iterations after which a loop is compiled.
+     * @return the instance variable loopThreshold
+     */
+    public int getLoopThreshold()
+    {
+        return loopThreshold;
+    }
+
+    /**
+     * Returns the number of compiles that have finished.
+     * @return the number of procedures and loops that have been compiled so far
+     */
+    public int getCompilations()
+    {
+        return compilations.get();
+    }
+
+    /**
+     * Runs a compile on the background thread, starting the thread if this is the first one.
+     * @param job the compile, which publishes its result itself
+     */
+    synchronized void submit(Runnable job)
+    {
+        if (compiler == null)
+        {
+            compiler = Executors.newSingleThreadExecutor(runnable ->
+            {
+                Thread thread = new Thread(runnable, "pascal-compiler");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        compiler.execute(() ->
+        {
+            job.run();
+            compilations.incrementAndGet();
+        });
+    }
+}
@@ -2,14 +2,18 @@ package ast;
 
 import emitter.Emitter;
 import environment.Environment;
+import environment.Scope;
+import ir.IrBuilder;
+import vm.Bytecode;
+import vm.BytecodeBuilder;
 
 /**
  * This class is an expression that represents a variable.
  * 
  * It contains one instance variable: a String representing the name of the variable.
  * 
- * To evaluate this expression, we simply call the environment's getVariable method to retrieve
- * the value associated with this variable's name.
+ * To evaluate this expression, we simply read the value in the variable's slot, which resolve()
+ * looks up once before the program runs.
  * 
  * @author Ishan Mysore
  * @version 11/20/23
@@ -17,6 +21,7 @@ import environment.Environment;
 public class Variable extends Expression
 {
     private String name;
+    private int slot;
     
     /**
      * Creates a new Variable and initializes the instance variable to the corresponding parameter.
@@ -34,13 +39,13 @@ public class Variable extends Expression
     }
 
     /**
-     * Given an environment, evaluate this expression by calling the environment's getVariable
-     * method to retrieve the value associated with this variable's name.
+     * Given an environment, evaluate this expression by reading the variable's slot.
+     * @precondition resolve() has been called
      * @return an integer representing the value associated with this variable's name
      */
     public int eval(Environment env)
     {
-        return env.getVariable(name);
+        return env.load(slot);
     }
 
     /**
@@ -65,4 +70,93 @@ public class Variable extends Expression
         }
         
     }
-}
\ No newline at end of file
+
+    /**
+     * Looks up the slot of the variable in the given scope.
+     * @param scope the scope the variable is used in
+     * @postcondition slot refers to the variable
+     */
+    public void resolve(Scope scope)
+    {
+        slot = scope.resolve(name);
+    }
+
+    /**
+     * Specializes the variable into a read of one slot of either the current or the global
+     * frame.
+     * @param env the environment the expression will first be evaluated in
+     * @return a LocalLoad or a GlobalLoad
+     */
+    public Expression specialize(Environment env)
+    {
+        if (slot >= 0)
+        {
+            return new Specialized.LocalLoad(slot);
+        }
+        return new Specialized.GlobalLoad(~slot);
+    }
+
+    /**
+     * Lowers the variable. A variable in the current frame already is a register, so nothing is
+     * emitted for it; a global variable inside a procedure is loaded into a new temporary.
+     * @param b the BytecodeBuilder the instructions are added to
+     * @return the register that holds the variable's value
+     */
+    public int compile(BytecodeBuilder b)
+    {
+        if (slot >= 0)
+        {
+            return slot;
+        }
+        int register = b.allocate();
+        b.emit(Bytecode.LOADG, register, ~slot, 0);
+        return register;
+    }
+
+    /**
+     * Lowers the read of the variable: the value a local variable currently has, or a LOADG of
+     * a global one.
+     * @param b the IrBuilder the instructions are added to
+     * @return the value of the variable
+     */
+    public int lower(IrBuilder b)
+    {
+        return b.readVariable(name);
+    }
+
+    /**
+     * Reading a global variable is impure, since it can change between calls.
+     * @param effects the Effects to add to
+     */
+    public void addEffects(Effects effects)
+    {
+        if (slot < 0)
+        {
+            effects.markImpure();
+        }
+    }
+
+    /**
+     * Replaces the variable with its value, if the value is known.
+     * @param known the values known at this point
+     * @return a Number with the variable's value, or this variable if the value is not known
+     */
+    public Expression fold(Constants known)
+    {
+        Integer value = known.get(name);
+        return value == null ? this : new Number(value);
+    }
+
+    /**
+     * A variable is invariant in the loops that cannot change it. Reading it is as cheap as
+     * reading a hidden variable, so it is never hoisted by itself.
+     * @param h the Hoister, which knows the loops the variable is read in
+     * @return this variable
+     * @postcondition h.getLevel() is the level of the variable
+     */
+    public Expression hoist(Hoister h)
+    {
+        h.setLevel(h.levelOf(name));
+        return this;
+    }
+}
@@ -1,7 +1,13 @@
 package ast;
 
+import java.util.ArrayList;
+
 import emitter.Emitter;
 import environment.Environment;
+import environment.Scope;
+import ir.BasicBlock;
+import ir.IrBuilder;
+import vm.BytecodeBuilder;
 
 /**
  * This class is a statement that represents a while loop.
@@ -20,6 +26,10 @@ public class While extends Statement
 {
     private Condition condition;
     private Statement statement;
+    private boolean compilable;
+    private int backEdges;
+    private boolean submitted;
+    private volatile While compiled;
 
     /**
      * Creates a new While and initializes the instance variables to the corresponding parameters.
@@ -33,6 +43,7 @@ public class While extends Statement
     {
         this.condition = condition;
         this.statement = statement;
+        compilable = true;
     }
 
     /**
@@ -40,26 +51,48 @@ public class While extends Statement
      * given condition is true.
      * If a BREAK statement is encountered, the method is terminated.
      * If a CONTINUE statement is encountered, we immediately advance to the next iteration.
+     * Under tiered execution, the iteration that reaches the threshold sends the loop off to be
+     * specialized in the background, and the specialized loop takes over at the start of the
+     * first iteration after it is ready.
      * @param env the environment with all the variables
+     * @return NORMAL
      * @postcondition the while loop has been executed
      */
-    public void exec(Environment env)
+    public int exec(Environment env)
     {
-        try
+        While fast = compiled;
+        if (fast != null)
         {
-            while (condition.eval(env))
-            {
-                statement.exec(env);
-            }
+            env.getGlobals().ensureCapacity(env.getGlobals().getScope().size());
+            return fast.exec(env);
         }
-        catch (RuntimeException exp1)
+        Tiering tiering = compilable ? env.getTiering() : null;
+        while (condition.eval(env))
         {
-            
-        }
-        catch (InterruptedException exp2)
-        {
-            exec(env);
+            if (statement.exec(env) == BREAK)
+            {
+                break;
+            }
+            if (tiering != null)
+            {
+                if (submitted)
+                {
+                    fast = compiled;
+                    if (fast != null)
+                    {
+                        env.getGlobals().ensureCapacity(env.getGlobals().getScope().size());
+                        return fast.exec(env);
+                    }
+                }
+                else if (++backEdges == tiering.getLoopThreshold())
+                {
+                    submitted = true;
+                    Environment globals = env.getGlobals();
+                    tiering.submit(() -> compiled = (While) specialize(globals));
+                }
+            }
         }
+        return NORMAL;
     }
 
     /**
@@ -80,4 +113,144 @@ public class While extends Statement
         e.emit("j " + label);
         e.emit(endLabel + ":");
     }
+
+    /**
+     * Resolves the condition and the loop body, and starts counting iterations from scratch.
+     * @param scope the scope the loop appears in
+     */
+    public void resolve(Scope scope)
+    {
+        condition.resolve(scope);
+        statement.resolve(scope);
+        backEdges = 0;
+        submitted = false;
+        compiled = null;
+    }
+
+    /**
+     * Specializes the condition and the loop body.
+     * @param env the environment the loop will first be executed in
+     * @return a While of the specialized parts, which is never compiled again
+     */
+    public Statement specialize(Environment env)
+    {
+        While specialized = new While(condition.specialize(env), statement.specialize(env));
+        specialized.compilable = false;
+        return specialized;
+    }
+
+    /**
+     * Lowers the loop with its test at the bottom, so that each iteration takes one jump: the
+     * condition is tested once before the loop, and again after the body to jump back to the
+     * top. CONTINUE jumps to the test at the bottom, BREAK out of the loop.
+     * @param b the BytecodeBuilder the instructions are added to
+     */
+    public void compile(BytecodeBuilder b)
+    {
+        int label = b.newLabel();
+        int testLabel = b.newLabel();
+        int endLabel = b.newLabel();
+        condition.compile(b, endLabel);
+        b.placeLabel(label);
+        b.beginLoop(endLabel, testLabel);
+        statement.compile(b);
+        b.endLoop();
+        b.placeLabel(testLabel);
+        condition.compile(b, label, true);
+        b.placeLabel(endLabel);
+    }
+
+    /**
+     * Lowers the loop with the test at the bottom, as compile(BytecodeBuilder) does: the
+     * condition is tested once before the loop, and then again at the end of every iteration,
+     * in a block of its own that CONTINUE jumps to. The body is only sealed once that block
+     * exists, since it jumps back to the body.
+     * @param b the IrBuilder the instructions are added to
+     */
+    public void lower(IrBuilder b)
+    {
+        BasicBlock body = b.newBlock();
+        BasicBlock test = b.newBlock();
+        BasicBlock end = b.newBlock();
+        condition.lower(b, body, end);
+        b.setBlock(body);
+        b.beginLoop(end, test);
+        statement.lower(b);
+        b.endLoop();
+        b.jump(test);
+        b.seal(test);
+        b.setBlock(test);
+        condition.lower(b, body, end);
+        b.seal(body);
+        b.seal(end);
+        b.setBlock(end);
+    }
+
+    /**
+     * Adds the effects of the condition and the loop body.
+     * @param effects the Effects to add to
+     */
+    public void addEffects(Effects effects)
+    {
+        condition.addEffects(effects);
+        statement.addEffects(effects);
+    }
+
+    /**
+     * Folds the loop with only what stays true on every iteration: the values of the variables
+     * the loop never assigns, and of no global at all if it calls a procedure. A loop whose
+     * condition is now known to be false is replaced by an empty Block.
+     * @param known the values known before the loop; updated to those known after it
+     * @return the folded loop, or an empty Block
+     */
+    public Statement fold(Constants known)
+    {
+        Effects effects = new Effects();
+        condition.addEffects(effects);
+        statement.addEffects(effects);
+        known.killAll(effects.getAssignments());
+        if (!effects.getCalls().isEmpty())
+        {
+            known.killGlobals();
+        }
+        condition.fold(known);
+        if (condition.isConstant() && !condition.eval(null))
+        {
+            return new Block(new ArrayList<Statement>());
+        }
+        statement = statement.fold(known.copy());
+        return this;
+    }
+
+    /**
+     * Replaces a loop whose condition is constantly false with an empty Block, and otherwise
+     * prunes the loop body.
+     * @return the pruned loop, or an empty Block
+     */
+    public Statement prune()
+    {
+        if (condition.isConstant() && !condition.eval(null))
+        {
+            return new Block(new ArrayList<Statement>());
+        }
+        statement = statement.prune();
+        return this;
+    }
+
+    /**
+     * Hoists what the loop cannot change out of the condition and the body, to just before the
+     * loop, along with what enclosing loops cannot change either out of those loops. Inner
+     * loops are hoisted while this one is entered, so their invariant parts can go further out.
+     * @param h the Hoister, which knows the loops this one is in
+     * @return this loop, or a Block of the hoisted assignments followed by this loop
+     */
+    public Statement hoist(Hoister h)
+    {
+        Effects effects = new Effects();
+        addEffects(effects);
+        h.enterLoop(effects);
+        condition.hoist(h);
+        statement = statement.hoist(h);
+        return h.exitLoop(this);
+    }
 }
@@ -2,6 +2,10 @@ package ast;
 
 import emitter.Emitter;
 import environment.Environment;
+import environment.Scope;
+import ir.IrBuilder;
+import vm.Bytecode;
+import vm.BytecodeBuilder;
 
 /**
  * This class is a statement that represents a Writeln command.
@@ -10,7 +14,7 @@ import environment.Environment;
  * the Writeln command.
  * 
  * To execute this statement, we simply execute the expression contained within the Writeln command
- * and print the result.
+ * and print the result to the Output of the environment.
  * 
  * @author Ishan Mysore
  * @version 11/20/23
@@ -31,14 +35,15 @@ public class Writeln extends Statement
 
     /**
      * Given the environment, executes this statement by executing the expression contained within
-     * the Writeln command and printing the result.
+     * the Writeln command and printing the result to the environment's Output.
      * @param env the environment with all the variables
-     * @throws InterruptedException
+     * @return NORMAL
      * @postcondition the Writeln statement has been executed, and the result has been printed
      */
-    public void exec(Environment env) throws InterruptedException
+    public int exec(Environment env)
     {
-        System.out.println(exp.eval(env));
+        env.getOutput().writeln(exp.eval(env));
+        return NORMAL;
     }
 
     /**
@@ -56,4 +61,75 @@ public class Writeln extends Statement
         e.emit("la $a0, nL\t# prints newline statement");
         e.emit("syscall");
     }
+
+    /**
+     * Resolves the expression to print.
+     * @param scope the scope the statement appears in
+     */
+    public void resolve(Scope scope)
+    {
+        exp.resolve(scope);
+    }
+
+    /**
+     * Specializes the expression to print.
+     * @param env the environment the statement will first be executed in
+     * @return a Writeln of the specialized expression
+     */
+    public Statement specialize(Environment env)
+    {
+        return new Writeln(exp.specialize(env));
+    }
+
+    /**
+     * Lowers the statement to a WRITE of the expression's register.
+     * @param b the BytecodeBuilder the instructions are added to
+     */
+    public void compile(BytecodeBuilder b)
+    {
+        int mark = b.getTemps();
+        b.emit(Bytecode.WRITE, exp.compile(b), 0, 0);
+        b.release(mark);
+    }
+
+    /**
+     * Lowers the statement to a WRITE of the expression's value.
+     * @param b the IrBuilder the instructions are added to
+     */
+    public void lower(IrBuilder b)
+    {
+        b.write(exp.lower(b));
+    }
+
+    /**
+     * Printing is impure; the effects of the expression are added too.
+     * @param effects the Effects to add to
+     */
+    public void addEffects(Effects effects)
+    {
+        effects.markImpure();
+        exp.addEffects(effects);
+    }
+
+    /**
+     * Folds the expression to print.
+     * @param known the values known before the statement; updated to those known after it
+     * @return this statement
+     */
+    public Statement fold(Constants known)
+    {
+        exp = exp.fold(known);
+        return this;
+    }
+
+    /**
+     * Hoists the invariant parts of the expression to print.
+     * @param h the Hoister, which knows the loops the statement is in
+     * @return this statement
+     */
+    public Statement hoist(Hoister h)
+    {
+        exp = h.rewrite(exp);
+        return this;
+    }
 }
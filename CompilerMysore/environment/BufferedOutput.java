@@ -0,0 +1,115 @@
+package environment;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A BufferedOutput formats each value straight into a large byte buffer, and only writes the
+ * buffer to its stream when it fills up or flush() is called. Formatting a value allocates
+ * nothing, and nothing is locked or flushed per line.
+ *
+ * The standard BufferedOutput writes to System.out. It is flushed at the end of every program
+ * and, in case a program never gets there, when the JVM exits.
+ *
+ * @author Ishan Mysore
+ * @version 10/17/26
+ */
+public class BufferedOutput implements Output
+{
+    public static final int BUFFER_SIZE = 1 << 16;
+
+    private static BufferedOutput standard;
+
+    private OutputStream out;
+    private byte[] buffer;
+    private int count;
+
+    /**
+     * Creates a new BufferedOutput with the default buffer size.
+     * @param out the stream to write to
+     */
+    public BufferedOutput(OutputStream out)
+    {
+        this(out, BUFFER_SIZE);
+    }
+
+    /**
+     * Creates a new BufferedOutput.
+     * @param out the stream to write to
+     * @param size the size of the buffer in bytes; it always has room for at least one line
+     */
+    public BufferedOutput(OutputStream out, int size)
+    {
+        this.out = out;
+        buffer = new byte[Math.max(size, 12)];
+    }
+
+    /**
+     * Returns the BufferedOutput on standard output, creating it the first time.
+     * @return the standard BufferedOutput
+     */
+    public static synchronized BufferedOutput getStandard()
+    {
+        if (standard == null)
+        {
+            standard = new BufferedOutput(System.out);
+            Runtime.getRuntime().addShutdownHook(new Thread(standard::flush));
+        }
+        return standard;
+    }
+
+    /**
+     * Formats a value and a newline into the buffer, writing the buffer out first if there is no
+     * room left. The digits are produced from a negative number, so that Integer.MIN_VALUE needs
+     * no special case.
+     * @param value the value to print
+     */
+    public void writeln(int value)
+    {
+        if (buffer.length - count < 12)
+        {
+            flush();
+        }
+        int n = value;
+        if (n < 0)
+        {
+            buffer[count++] = '-';
+        }
+        else
+        {
+            n = -n;
+        }
+        int digits = 1;
+        for (int rest = n / 10; rest != 0; rest /= 10)
+        {
+            digits++;
+        }
+        int pos = count + digits;
+        buffer[pos] = '\n';
+        do
+        {
+            buffer[--pos] = (byte) ('0' - n % 10);
+            n /= 10;
+        }
+        while (n != 0);
+        count += digits + 1;
+    }
+
+    /**
+     * Writes the buffer to the stream and flushes the stream.
+     * @throws RuntimeException if the stream cannot be written
+     */
+    public void flush()
+    {
+        try
+        {
+            out.write(buffer, 0, count);
+            count = 0;
+            out.flush();
+        }
+        catch (IOException e)
+        {
+            throw new RuntimeException(e);
+        }
+    }
+}
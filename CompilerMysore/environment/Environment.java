@@ -1,34 +1,77 @@
 package environment;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
+import ast.Memoizer;
 import ast.ProcedureDeclaration;
+import ast.Tiering;
 
 /**
  * The job of this class is to remember the values of variables and procedures.
  * 
- * It has two instance variables: a HashMap<String, Integer> where the key is the name of the
- * variable and the value is the value of the variable, and a HashMap<String, ProcedureDeclaration>
- * where the key is the name of the procedure and the value is the associated ProcedureDeclaration
+ * An Environment is a frame: an int[] holding the value of every variable in one Scope, indexed
+ * by slot. The global Environment has no parent and also holds the procedures by name. Each call
+ * to a procedure runs in an Environment for the procedure's Scope whose parent is the global
+ * Environment. The global Environment keeps one such frame for every call depth it has reached
+ * and hands them out again with pushFrame() and popFrame(), so a call in the steady state
+ * allocates nothing: it only clears the slots it needs.
  * 
- * The class also has getter and setter methods.
+ * Variables are normally read and written through load() and store(), using the references
+ * that Scope.resolve() hands out before the program runs. The methods that take a variable's
+ * name look its slot up in the Scope on every call, and are only kept for code that has not been
+ * resolved.
+ * 
+ * The global Environment also holds the program's settings: the Output WRITELN prints to, and
+ * the Tiering and Memoizer, if any.
+ * 
+ * @author Ishan Mysore
+ * @version 10/17/26
  */
 public class Environment
 {
-    private Map<String, Integer> variables;
+    private int[] values;
+    private Scope scope;
     private Map<String, ProcedureDeclaration> procedures;
     private Environment parent;
+    private Environment globals;
+    private Tiering tiering;
+    private Memoizer memoizer;
+    private Output output;
+    private Environment[] frames;
+    private int depth;
 
     /**
-     * Creates a new Environment and initializes the instance variables.
-     * @postcondition assignments is set to a new HashMap<String, Integer>
+     * Creates a new Environment with a new, empty Scope.
+     * @param parent the global Environment, or null to create the global Environment
      */
     public Environment(Environment parent)
     {
-        variables = new HashMap<String, Integer>();
-        procedures = new HashMap<String, ProcedureDeclaration>();
+        this(parent, new Scope(parent == null ? null : parent.getScope()));
+    }
+
+    /**
+     * Creates a new Environment with a slot for every variable in the given Scope, all set to 0.
+     * @param parent the global Environment, or null to create the global Environment
+     * @param scope the Scope whose variables this Environment holds
+     */
+    public Environment(Environment parent, Scope scope)
+    {
+        values = new int[scope.size()];
+        this.scope = scope;
         this.parent = parent;
+        if (parent == null)
+        {
+            procedures = new HashMap<String, ProcedureDeclaration>();
+            frames = new Environment[16];
+            output = BufferedOutput.getStandard();
+            globals = this;
+        }
+        else
+        {
+            globals = parent.globals;
+        }
     }
 
     /**
@@ -41,32 +84,136 @@ public class Environment
     }
 
     /**
-     * Adds a new entry with the given variable's name and value, or changes the value of the
-     * variable associated with the variable's name (if the name exists already)
+     * Returns the global environment.
+     * @return this environment if it is the global one, or else its parent
+     */
+    public Environment getGlobals()
+    {
+        return globals;
+    }
+
+    /**
+     * Returns the tiering policy of the program running in this environment.
+     * @return the global environment's Tiering, or null if code is only ever interpreted
+     */
+    public Tiering getTiering()
+    {
+        return globals.tiering;
+    }
+
+    /**
+     * Turns tiered execution on or off for the program running in this environment.
+     * @param tiering the Tiering to use, or null to only interpret
+     */
+    public void setTiering(Tiering tiering)
+    {
+        globals.tiering = tiering;
+    }
+
+    /**
+     * Returns the memo tables of the program running in this environment.
+     * @return the global environment's Memoizer, or null if calls are never memoized
+     */
+    public Memoizer getMemoizer()
+    {
+        return globals.memoizer;
+    }
+
+    /**
+     * Turns memoization of pure procedures on or off for the program running in this
+     * environment.
+     * @param memoizer the Memoizer to use, or null to run every call
+     */
+    public void setMemoizer(Memoizer memoizer)
+    {
+        globals.memoizer = memoizer;
+    }
+
+    /**
+     * Returns where WRITELN prints for the program running in this environment.
+     * @return the global environment's Output, which is BufferedOutput.getStandard() unless
+     *         another Output has been set
+     */
+    public Output getOutput()
+    {
+        return globals.output;
+    }
+
+    /**
+     * Sets where WRITELN prints for the program running in this environment.
+     * @param output the Output to print to
+     */
+    public void setOutput(Output output)
+    {
+        globals.output = output;
+    }
+
+    /**
+     * Returns the Scope whose variables this environment holds.
+     * @return the instance variable scope
+     */
+    public Scope getScope()
+    {
+        return scope;
+    }
+
+    /**
+     * Reads a variable.
+     * @param ref a slot in this environment, or the complement of a slot in the global one
+     * @return the value of the variable, or 0 if it has never been assigned
+     */
+    public int load(int ref)
+    {
+        if (ref < 0)
+        {
+            return globals.load(~ref);
+        }
+        return ref < values.length ? values[ref] : 0;
+    }
+
+    /**
+     * Writes a variable.
+     * @param ref a slot in this environment, or the complement of a slot in the global one
+     * @param value the new value of the variable
+     */
+    public void store(int ref, int value)
+    {
+        if (ref < 0)
+        {
+            globals.store(~ref, value);
+            return;
+        }
+        if (ref >= values.length)
+        {
+            values = Arrays.copyOf(values, Math.max(ref + 1, values.length * 2));
+        }
+        values[ref] = value;
+    }
+
+    /**
+     * Gives the named variable a slot in this environment, if it does not have one, and sets
+     * its value.
      * @param variable a String representing the name of the variable
      * @param value an integer representing the value of the variable
      */
     public void declareVariable(String variable, int value)
     {
-        variables.put(variable, value);
+        store(scope.declare(variable), value);
     }
 
     /**
-     * If the variable is not contained in the parent environment, then this method puts the
-     * variable and value as a new map entry in the parent environment. Otherwise, the method calls
-     * declareVariable to put the variable in the local environment.
+     * Sets the named variable in this environment if it has a slot here, or else in the global
+     * environment if it has a slot there. Otherwise the variable is declared in this
+     * environment.
      * @param variable a String representing the name of the variable
      * @param value an integer representing the value of the variable
      */
     public void setVariable(String variable, int value)
     {
-        if (variables.containsKey(variable))
+        int slot = scope.find(variable);
+        if (slot < 0 && parent != null && globals.scope.find(variable) >= 0)
         {
-            variables.put(variable, value);
-        }
-        else if (parent != null && parent.getVariables().containsKey(variable))
-        {
-            parent.getVariables().put(variable, value);  
+            globals.setVariable(variable, value);
         }
         else
         {
@@ -75,61 +222,164 @@ public class Environment
     }
 
     /**
-     * Given the variable's name, retrieve the value associated with the name. If the variable is
-     * contained within the local environment, then we look for the variable inside the local
-     * environment. Otherwise, we look for the variable inside the global environment.
+     * Given the variable's name, retrieve its value from this environment if it has a slot
+     * here, or else from the global environment.
      * @param variable a String representing the name of the variable
-     * @return the value associated with the name of the variable
+     * @return the value associated with the name of the variable, or 0 if it has none
      */
     public int getVariable(String variable)
     {
-        if (parent == null || variables.containsKey(variable))
+        int slot = scope.find(variable);
+        if (slot >= 0)
         {
-            return variables.get(variable);
+            return load(slot);
         }
-        return parent.getVariables().get(variable);
+        if (parent != null)
+        {
+            return globals.getVariable(variable);
+        }
+        return 0;
     }
 
     /**
      * Adds a new entry with the given procedure's name and value, or changes the value of the
-     * procedure associated with the procedure's name (if the name exists already)
-     * @param variable a String representing the name of the procedure
-     * @param value a ProcedureDeclaration representing the value of the procedure
+     * procedure associated with the procedure's name (if the name exists already). Procedures
+     * are always kept in the global environment.
+     * @param name a String representing the name of the procedure
+     * @param procedure a ProcedureDeclaration representing the value of the procedure
      */
     public void setProcedure(String name, ProcedureDeclaration procedure)
     {
-        procedures.put(name, procedure);
+        globals.procedures.put(name, procedure);
     }
 
     /**
      * Given the procedure's name, retrieve the ProcedureDeclaration associated with the name.
-     * @param variable a String representing the name of the procedure
+     * @param name a String representing the name of the procedure
      * @return the ProcedureDeclaration associated with the name of the procedure
      */
     public ProcedureDeclaration getProcedure(String name)
     {
-        if (parent != null)
+        return globals.procedures.get(name);
+    }
+
+    /**
+     * Returns the HashMap of procedures.
+     * @return the procedures of the global environment
+     */
+    public Map<String, ProcedureDeclaration> getProcedures()
+    {
+        return globals.procedures;
+    }
+
+    /**
+     * Reads a slot of this environment directly.
+     * @precondition the slot is within this environment's Scope
+     * @param slot the slot to read
+     * @return the value in the slot
+     */
+    public int getLocal(int slot)
+    {
+        return values[slot];
+    }
+
+    /**
+     * Writes a slot of this environment directly.
+     * @precondition the slot is within this environment's Scope
+     * @param slot the slot to write
+     * @param value the new value
+     */
+    public void setLocal(int slot, int value)
+    {
+        values[slot] = value;
+    }
+
+    /**
+     * Reads a slot of the global environment directly.
+     * @precondition the global environment has room for the slot (see ensureCapacity)
+     * @param slot the global slot to read
+     * @return the value in the slot
+     */
+    public int getGlobal(int slot)
+    {
+        return globals.values[slot];
+    }
+
+    /**
+     * Writes a slot of the global environment directly.
+     * @precondition the global environment has room for the slot (see ensureCapacity)
+     * @param slot the global slot to write
+     * @param value the new value
+     */
+    public void setGlobal(int slot, int value)
+    {
+        globals.values[slot] = value;
+    }
+
+    /**
+     * Makes room in this environment for at least the given number of slots.
+     * @param size the number of slots needed
+     */
+    public void ensureCapacity(int size)
+    {
+        if (values.length < size)
         {
-            return parent.getProcedure(name);
+            values = Arrays.copyOf(values, size);
         }
-        return procedures.get(name);
     }
 
     /**
-     * Returns the HashMap of variables.
-     * @return the instance variable variables
+     * Copies the variables of another frame for the same Scope into this one, so that this frame
+     * takes the place of that one.
+     * @precondition both frames hold the variables of this frame's Scope
+     * @param frame the frame to copy
      */
-    public Map<String, Integer> getVariables()
+    public void replace(Environment frame)
     {
-        return variables;
+        System.arraycopy(frame.values, 0, values, 0, scope.size());
     }
 
     /**
-     * Returns the HashMap of procedures.
-     * @return the instance variable procedures
+     * Returns a frame for a call to a procedure with the given Scope, with every slot of the
+     * Scope set to 0. The frame for each call depth is reused by every call made at that depth.
+     * @param scope the Scope of the procedure
+     * @return the frame for the call, which must be handed back with popFrame()
      */
-    public Map<String, ProcedureDeclaration> getProcedures()
+    public Environment pushFrame(Scope scope)
+    {
+        Environment root = globals;
+        if (root.depth == root.frames.length)
+        {
+            root.frames = Arrays.copyOf(root.frames, root.depth * 2);
+        }
+        Environment frame = root.frames[root.depth];
+        if (frame == null)
+        {
+            frame = new Environment(root, scope);
+            root.frames[root.depth] = frame;
+        }
+        else
+        {
+            int size = scope.size();
+            if (frame.values.length < size)
+            {
+                frame.values = new int[size];
+            }
+            else
+            {
+                Arrays.fill(frame.values, 0, size, 0);
+            }
+            frame.scope = scope;
+        }
+        root.depth++;
+        return frame;
+    }
+
+    /**
+     * Hands back the frame of the innermost call, once the call has returned.
+     */
+    public void popFrame()
     {
-        return procedures;
+        globals.depth--;
     }
-}
\ No newline at end of file
+}
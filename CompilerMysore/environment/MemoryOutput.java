@@ -0,0 +1,75 @@
+package environment;
+
+import java.util.Arrays;
+
+/**
+ * A MemoryOutput keeps every value printed to it, so that a program's output can be checked
+ * without capturing standard output.
+ *
+ * @author Ishan Mysore
+ * @version 10/17/26
+ */
+public class MemoryOutput implements Output
+{
+    private int[] values;
+    private int size;
+
+    /**
+     * Creates a new, empty MemoryOutput.
+     */
+    public MemoryOutput()
+    {
+        values = new int[16];
+    }
+
+    /**
+     * Keeps a value.
+     * @param value the value printed
+     */
+    public void writeln(int value)
+    {
+        if (size == values.length)
+        {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = value;
+    }
+
+    /**
+     * Does nothing, since the values are kept as soon as they are printed.
+     */
+    public void flush()
+    {
+    }
+
+    /**
+     * Returns the values printed so far.
+     * @return a copy of the values, in the order they were printed
+     */
+    public int[] getValues()
+    {
+        return Arrays.copyOf(values, size);
+    }
+
+    /**
+     * Returns the text that printing the values to standard output would have produced.
+     * @return each value on a line of its own
+     */
+    public String getText()
+    {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < size; i++)
+        {
+            text.append(values[i]).append('\n');
+        }
+        return text.toString();
+    }
+
+    /**
+     * Forgets every value printed so far.
+     */
+    public void clear()
+    {
+        size = 0;
+    }
+}
@@ -0,0 +1,26 @@
+package environment;
+
+/**
+ * A NullOutput throws away everything printed to it, so that a benchmark measures the program
+ * rather than the terminal.
+ *
+ * @author Ishan Mysore
+ * @version 10/17/26
+ */
+public class NullOutput implements Output
+{
+    /**
+     * Does nothing.
+     * @param value the value printed
+     */
+    public void writeln(int value)
+    {
+    }
+
+    /**
+     * Does nothing.
+     */
+    public void flush()
+    {
+    }
+}
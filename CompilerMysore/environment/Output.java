@@ -0,0 +1,23 @@
+package environment;
+
+/**
+ * Output is where WRITELN sends the values it prints. The global Environment holds the Output of
+ * the program running in it, which is a BufferedOutput on standard output unless another one is
+ * set.
+ *
+ * @author Ishan Mysore
+ * @version 10/17/26
+ */
+public interface Output
+{
+    /**
+     * Prints a value on a line of its own.
+     * @param value the value to print
+     */
+    void writeln(int value);
+
+    /**
+     * Makes sure everything printed so far has reached its destination.
+     */
+    void flush();
+}
@@ -0,0 +1,125 @@
+package environment;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The job of this class is to give every variable in one scope a fixed slot number.
+ * 
+ * The program as a whole has one global Scope, and each procedure has a Scope of its own whose
+ * parent is the global Scope. A procedure's parameters take the first slots of its Scope, in
+ * order, followed by the procedure's name (which holds its return value) and its local
+ * variables. Any other name used inside the procedure is a global if the global Scope already
+ * has it, and is otherwise given a slot of its own in the procedure's Scope, so that every call
+ * has its own copy, just as assigning an undeclared variable in a procedure always declared it
+ * in the procedure's own Environment.
+ * 
+ * Slots are handed out once, before the program runs. While it runs, every variable is read and
+ * written by slot in an int[] frame, so no name is hashed and no value is boxed.
+ * 
+ * @author Ishan Mysore
+ * @version 10/17/26
+ */
+public class Scope
+{
+    private Map<String, Integer> slots;
+    private List<String> names;
+    private Scope parent;
+
+    /**
+     * Creates a new, empty Scope.
+     * @param parent the global Scope, or null if this is the global Scope
+     */
+    public Scope(Scope parent)
+    {
+        slots = new HashMap<String, Integer>();
+        names = new ArrayList<String>();
+        this.parent = parent;
+    }
+
+    /**
+     * Returns the parent of the scope.
+     * @return the instance variable parent
+     */
+    public Scope getParent()
+    {
+        return parent;
+    }
+
+    /**
+     * Gives a name a slot in this scope, unless it already has one.
+     * @param name the name of the variable
+     * @return the slot of the variable in this scope
+     */
+    public int declare(String name)
+    {
+        Integer slot = slots.get(name);
+        if (slot == null)
+        {
+            slot = names.size();
+            slots.put(name, slot);
+            names.add(name);
+        }
+        return slot;
+    }
+
+    /**
+     * Looks up the slot of a name in this scope only.
+     * @param name the name of the variable
+     * @return the slot of the variable, or -1 if it has none in this scope
+     */
+    public int find(String name)
+    {
+        Integer slot = slots.get(name);
+        return slot == null ? -1 : slot;
+    }
+
+    /**
+     * Resolves a name used in this scope to a reference that Environment.load() and
+     * Environment.store() understand. A name with a slot in a procedure's scope refers to that
+     * slot. A name the global scope already has is a global; its reference is the bitwise
+     * complement of its global slot, which is always negative. Any other name is given a slot
+     * of its own in this scope, whether that is the global scope or a procedure's.
+     * @param name the name of the variable
+     * @return the slot of a variable in this scope, or ~slot for a global variable
+     */
+    public int resolve(String name)
+    {
+        if (parent == null)
+        {
+            return declare(name);
+        }
+        int slot = find(name);
+        if (slot >= 0)
+        {
+            return slot;
+        }
+        int global = parent.find(name);
+        if (global >= 0)
+        {
+            return ~global;
+        }
+        return declare(name);
+    }
+
+    /**
+     * Returns the name of the variable in a slot.
+     * @param slot the slot of the variable
+     * @return the name of the variable
+     */
+    public String getName(int slot)
+    {
+        return names.get(slot);
+    }
+
+    /**
+     * Returns the number of slots in the scope.
+     * @return the number of variables given a slot so far
+     */
+    public int size()
+    {
+        return names.size();
+    }
+}
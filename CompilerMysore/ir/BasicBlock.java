@@ -0,0 +1,193 @@
+package ir;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A BasicBlock is a straight line of instructions that is only ever entered at the top and left
+ * at the bottom. Its PHIs come first, and its last instruction is a terminator (a JUMP, BRANCH,
+ * or RETURN), whose targets are the block's successors.
+ *
+ * The block also keeps its predecessors, in order, since the arguments of each PHI are listed in
+ * that order. A predecessor that reaches the block along two edges (a BRANCH whose targets are
+ * both this block) is listed twice. Changing the predecessors through removePredecessor and
+ * replacePredecessor keeps the PHIs in step.
+ *
+ * @author Ishan Mysore
+ * @version 10/17/26
+ */
+public class BasicBlock
+{
+    private int id;
+    private List<Instruction> instructions;
+    private List<BasicBlock> predecessors;
+
+    /**
+     * Creates a new, empty BasicBlock.
+     * @param id the number of the block, unique within its Function
+     */
+    BasicBlock(int id)
+    {
+        this.id = id;
+        instructions = new ArrayList<Instruction>();
+        predecessors = new ArrayList<BasicBlock>();
+    }
+
+    /**
+     * Returns the number of the block.
+     * @return the instance variable id
+     */
+    public int getId()
+    {
+        return id;
+    }
+
+    /**
+     * Returns the instructions of the block. The list belongs to the block; instructions added to
+     * it directly have to be given to setBlock as well, so add() and insert() are preferred.
+     * @return the instance variable instructions
+     */
+    public List<Instruction> getInstructions()
+    {
+        return instructions;
+    }
+
+    /**
+     * Appends an instruction to the block.
+     * @param instruction the instruction
+     */
+    public void add(Instruction instruction)
+    {
+        instructions.add(instruction);
+        instruction.setBlock(this);
+    }
+
+    /**
+     * Inserts an instruction into the block.
+     * @param index the position the instruction takes
+     * @param instruction the instruction
+     */
+    public void insert(int index, Instruction instruction)
+    {
+        instructions.add(index, instruction);
+        instruction.setBlock(this);
+    }
+
+    /**
+     * Returns the number of PHIs at the top of the block.
+     * @return the number of PHIs
+     */
+    public int getPhiCount()
+    {
+        int count = 0;
+        while (count < instructions.size() && instructions.get(count).getOp() == Op.PHI)
+        {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Returns the PHIs at the top of the block.
+     * @return a new list of the PHIs
+     */
+    public List<Instruction> getPhis()
+    {
+        return new ArrayList<Instruction>(instructions.subList(0, getPhiCount()));
+    }
+
+    /**
+     * Returns the last instruction of the block, if it is a terminator.
+     * @return the terminator, or null if the block is not finished
+     */
+    public Instruction getTerminator()
+    {
+        if (instructions.isEmpty())
+        {
+            return null;
+        }
+        Instruction last = instructions.get(instructions.size() - 1);
+        return last.getOp().isTerminator() ? last : null;
+    }
+
+    /**
+     * Returns the blocks the terminator goes to.
+     * @return the targets of the terminator, in order, or an empty list if there is none
+     */
+    public List<BasicBlock> getSuccessors()
+    {
+        Instruction terminator = getTerminator();
+        if (terminator == null)
+        {
+            return Collections.emptyList();
+        }
+        List<BasicBlock> successors = new ArrayList<BasicBlock>();
+        Collections.addAll(successors, terminator.getTargets());
+        return successors;
+    }
+
+    /**
+     * Returns the predecessors of the block. The list belongs to the block.
+     * @return the instance variable predecessors
+     */
+    public List<BasicBlock> getPredecessors()
+    {
+        return predecessors;
+    }
+
+    /**
+     * Adds a predecessor to the end of the list. Any PHIs have to be given an argument for it.
+     * @param predecessor the new predecessor
+     */
+    public void addPredecessor(BasicBlock predecessor)
+    {
+        predecessors.add(predecessor);
+    }
+
+    /**
+     * Removes one occurrence of a predecessor, along with the argument every PHI has for it.
+     * @param predecessor the predecessor
+     */
+    public void removePredecessor(BasicBlock predecessor)
+    {
+        int index = predecessors.indexOf(predecessor);
+        if (index < 0)
+        {
+            return;
+        }
+        predecessors.remove(index);
+        for (Instruction phi : getPhis())
+        {
+            int[] args = phi.getArgs();
+            int[] remaining = new int[args.length - 1];
+            System.arraycopy(args, 0, remaining, 0, index);
+            System.arraycopy(args, index + 1, remaining, index, remaining.length - index);
+            phi.setArgs(remaining);
+        }
+    }
+
+    /**
+     * Replaces one occurrence of a predecessor with another block, which takes over the
+     * arguments the PHIs have for it.
+     * @param from the old predecessor
+     * @param to the new predecessor
+     */
+    public void replacePredecessor(BasicBlock from, BasicBlock to)
+    {
+        int index = predecessors.indexOf(from);
+        if (index >= 0)
+        {
+            predecessors.set(index, to);
+        }
+    }
+
+    /**
+     * Returns the name of the block in listings.
+     * @return "b" followed by the number of the block
+     */
+    public String toString()
+    {
+        return "b" + id;
+    }
+}
@@ -0,0 +1,145 @@
+package ir;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * CfgSimplification tidies the control-flow graph once other passes have changed it. It deletes
+ * the blocks that can no longer be reached, merges a block into the block before it when that
+ * block is its only predecessor and jumps straight to it, and sends the jumps to a block that
+ * does nothing but jump on straight to where it goes.
+ *
+ * A block that only jumps on is kept if the block it goes to has PHIs, since those would need an
+ * argument for each of its predecessors. The pass repeats until nothing changes.
+ *
+ * @author Ishan Mysore
+ * @version 10/17/26
+ */
+public class CfgSimplification implements Pass
+{
+    /**
+     * Returns the name of the pass.
+     * @return "cfg"
+     */
+    public String getName()
+    {
+        return "cfg";
+    }
+
+    /**
+     * Simplifies the control-flow graph of a function.
+     * @param function the function
+     */
+    public void run(Function function)
+    {
+        boolean changed = true;
+        while (changed)
+        {
+            changed = function.removeUnreachableBlocks();
+            changed |= mergeBlocks(function);
+            changed |= skipEmptyBlocks(function);
+        }
+    }
+
+    /**
+     * Merges each block that has only one predecessor, which jumps straight to it, into that
+     * predecessor. Its PHIs can only have one argument, and are replaced by it.
+     * @param function the function
+     * @return true if any block was merged, false otherwise
+     */
+    private static boolean mergeBlocks(Function function)
+    {
+        int[] replacements = new int[function.getValueCount()];
+        Arrays.fill(replacements, -1);
+        Set<BasicBlock> merged = new HashSet<BasicBlock>();
+        BasicBlock entry = function.getEntry();
+        for (BasicBlock block : function.getBlocks())
+        {
+            if (merged.contains(block))
+            {
+                continue;
+            }
+            while (true)
+            {
+                Instruction jump = block.getTerminator();
+                if (jump == null || jump.getOp() != Op.JUMP)
+                {
+                    break;
+                }
+                BasicBlock next = jump.getTargets()[0];
+                if (next == block || next == entry || next.getPredecessors().size() != 1)
+                {
+                    break;
+                }
+                List<Instruction> instructions = block.getInstructions();
+                instructions.remove(instructions.size() - 1);
+                for (Instruction instruction : next.getInstructions())
+                {
+                    if (instruction.getOp() == Op.PHI)
+                    {
+                        replacements[instruction.getDest()] = instruction.getArg(0);
+                    }
+                    else
+                    {
+                        block.add(instruction);
+                    }
+                }
+                for (BasicBlock successor : next.getSuccessors())
+                {
+                    successor.replacePredecessor(next, block);
+                }
+                merged.add(next);
+            }
+        }
+        if (merged.isEmpty())
+        {
+            return false;
+        }
+        function.getBlocks().removeAll(merged);
+        function.replaceAllUses(replacements);
+        return true;
+    }
+
+    /**
+     * Sends every jump to a block that only jumps on straight to that block's target, and
+     * deletes the block, unless its target has PHIs.
+     * @param function the function
+     * @return true if any block was skipped, false otherwise
+     */
+    private static boolean skipEmptyBlocks(Function function)
+    {
+        Set<BasicBlock> skipped = new HashSet<BasicBlock>();
+        BasicBlock entry = function.getEntry();
+        for (BasicBlock block : function.getBlocks())
+        {
+            if (block == entry || block.getInstructions().size() != 1
+                || block.getTerminator().getOp() != Op.JUMP)
+            {
+                continue;
+            }
+            BasicBlock target = block.getTerminator().getTargets()[0];
+            if (target == block || target.getPhiCount() > 0)
+            {
+                continue;
+            }
+            target.removePredecessor(block);
+            for (BasicBlock predecessor : block.getPredecessors())
+            {
+                Instruction terminator = predecessor.getTerminator();
+                terminator.retarget(block, target);
+                target.addPredecessor(predecessor);
+                BasicBlock[] targets = terminator.getTargets();
+                if (terminator.getOp() == Op.BRANCH && targets[0] == targets[1])
+                {
+                    terminator.makeJump(0);
+                }
+            }
+            block.getPredecessors().clear();
+            skipped.add(block);
+        }
+        function.getBlocks().removeAll(skipped);
+        return !skipped.isEmpty();
+    }
+}
@@ -0,0 +1,158 @@
+package ir;
+
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * ConstantFolding computes the operations whose operands are constants while compiling, and
+ * simplifies the ones that do nothing: adding or subtracting 0, multiplying or dividing by 1,
+ * and multiplying by 0. A BRANCH whose operands are both constants becomes a JUMP, which leaves
+ * the block it no longer goes to with one predecessor fewer, and possibly with none.
+ *
+ * A division by a constant 0 is left alone, so that it still fails when it runs. Folding one
+ * operation can make its users constant, so the pass repeats until nothing changes.
+ *
+ * @author Ishan Mysore
+ * @version 10/17/26
+ */
+public class ConstantFolding implements Pass
+{
+    /**
+     * Returns the name of the pass.
+     * @return "fold"
+     */
+    public String getName()
+    {
+        return "fold";
+    }
+
+    /**
+     * Folds the constants of a function.
+     * @param function the function
+     */
+    public void run(Function function)
+    {
+        boolean changed = true;
+        while (changed)
+        {
+            int[] replacements = new int[function.getValueCount()];
+            Arrays.fill(replacements, -1);
+            changed = false;
+            for (BasicBlock block : function.reversePostorder())
+            {
+                Iterator<Instruction> instructions = block.getInstructions().iterator();
+                while (instructions.hasNext())
+                {
+                    Instruction instruction = instructions.next();
+                    if (instruction.getOp().isArithmetic())
+                    {
+                        int replacement = fold(function, instruction, replacements);
+                        if (replacement >= 0)
+                        {
+                            replacements[instruction.getDest()] = replacement;
+                            instructions.remove();
+                            changed = true;
+                        }
+                        else if (instruction.getOp() == Op.CONST)
+                        {
+                            changed = true;
+                        }
+                    }
+                    else if (instruction.getOp() == Op.BRANCH)
+                    {
+                        changed |= foldBranch(function, instruction, replacements);
+                    }
+                }
+            }
+            function.replaceAllUses(replacements);
+        }
+    }
+
+    /**
+     * Folds an arithmetic operation.
+     * @param function the function the operation is in
+     * @param instruction the operation
+     * @param replacements the values already replaced in this round
+     * @return the value the operation is equal to, if it does nothing, or -1 otherwise, in which
+     *         case the operation may have been turned into a CONST
+     */
+    private static int fold(Function function, Instruction instruction, int[] replacements)
+    {
+        Op op = instruction.getOp();
+        int left = Function.resolve(replacements, instruction.getArg(0));
+        int right = Function.resolve(replacements, instruction.getArg(1));
+        Integer a = constantOf(function, left);
+        Integer b = constantOf(function, right);
+        if (a != null && b != null)
+        {
+            if (b != 0 || op == Op.ADD || op == Op.SUB || op == Op.MUL)
+            {
+                instruction.makeConstant(Instruction.apply(op, a, b));
+            }
+            return -1;
+        }
+        if (b != null)
+        {
+            if (b == 0 && (op == Op.ADD || op == Op.SUB)
+                || b == 1 && (op == Op.MUL || op == Op.DIV))
+            {
+                return left;
+            }
+            if (b == 0 && op == Op.MUL || b == 1 && op == Op.MOD)
+            {
+                instruction.makeConstant(0);
+            }
+        }
+        else if (a != null)
+        {
+            if (a == 0 && op == Op.ADD || a == 1 && op == Op.MUL)
+            {
+                return right;
+            }
+            if (a == 0 && op == Op.MUL)
+            {
+                instruction.makeConstant(0);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Turns a BRANCH into a JUMP if its operands are both constants, or if both of its targets
+     * are the same block.
+     * @param function the function the BRANCH is in
+     * @param instruction the BRANCH
+     * @param replacements the values already replaced in this round
+     * @return true if the BRANCH was folded, false otherwise
+     */
+    private static boolean foldBranch(Function function, Instruction instruction,
+        int[] replacements)
+    {
+        BasicBlock[] targets = instruction.getTargets();
+        if (targets[0] == targets[1])
+        {
+            instruction.makeJump(0);
+            return true;
+        }
+        Integer a = constantOf(function, Function.resolve(replacements, instruction.getArg(0)));
+        Integer b = constantOf(function, Function.resolve(replacements, instruction.getArg(1)));
+        if (a == null || b == null)
+        {
+            return false;
+        }
+        instruction.makeJump(Instruction.compare(instruction.getName(), a, b) ? 0 : 1);
+        return true;
+    }
+
+    /**
+     * Returns the constant a value is defined as.
+     * @param function the function the value is in
+     * @param value the value
+     * @return the constant, or null if the value is not defined by a CONST
+     */
+    static Integer constantOf(Function function, int value)
+    {
+        Instruction definition = function.getDefinition(value);
+        return definition.getOp() == Op.CONST ? definition.getConstant() : null;
+    }
+}
@@ -0,0 +1,62 @@
+package ir;
+
+import java.util.ArrayList;
+
+/**
+ * CriticalEdgeSplitting puts a new block on every edge from a BRANCH to a block with PHIs.
+ *
+ * Code generation takes the function out of SSA form by copying the arguments of each PHI into
+ * it at the end of the predecessor they come from. That is only correct if the predecessor goes
+ * nowhere else, since otherwise the copies would also run when it goes elsewhere; after this
+ * pass, every predecessor of a block with PHIs ends with a JUMP. A BRANCH whose targets are both
+ * the same block is turned into a JUMP first.
+ *
+ * @author Ishan Mysore
+ * @version 10/17/26
+ */
+public class CriticalEdgeSplitting implements Pass
+{
+    /**
+     * Returns the name of the pass.
+     * @return "split"
+     */
+    public String getName()
+    {
+        return "split";
+    }
+
+    /**
+     * Splits the edges of a function that need it.
+     * @param function the function
+     */
+    public void run(Function function)
+    {
+        for (BasicBlock block : new ArrayList<BasicBlock>(function.getBlocks()))
+        {
+            Instruction terminator = block.getTerminator();
+            if (terminator == null || terminator.getOp() != Op.BRANCH)
+            {
+                continue;
+            }
+            BasicBlock[] targets = terminator.getTargets();
+            if (targets[0] == targets[1])
+            {
+                terminator.makeJump(0);
+                continue;
+            }
+            for (BasicBlock target : targets)
+            {
+                if (target.getPhiCount() == 0)
+                {
+                    continue;
+                }
+                BasicBlock edge = function.newBlock();
+                edge.add(function.newInstruction(Op.JUMP, false, new int[0], 0, null,
+                    new BasicBlock[] {target}));
+                edge.addPredecessor(block);
+                terminator.retarget(target, edge);
+                target.replacePredecessor(block, edge);
+            }
+        }
+    }
+}
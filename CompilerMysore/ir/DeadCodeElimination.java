@@ -0,0 +1,73 @@
+package ir;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+
+/**
+ * DeadCodeElimination deletes the instructions whose values are never used, directly or through
+ * other instructions, by anything that has to be kept. The instructions with side effects are
+ * kept, along with every instruction whose value they use, directly or indirectly; the rest are
+ * deleted, including PHIs that only feed each other around a loop.
+ *
+ * @author Ishan Mysore
+ * @version 10/17/26
+ */
+public class DeadCodeElimination implements Pass
+{
+    /**
+     * Returns the name of the pass.
+     * @return "dce"
+     */
+    public String getName()
+    {
+        return "dce";
+    }
+
+    /**
+     * Deletes the dead instructions of a function.
+     * @param function the function
+     */
+    public void run(Function function)
+    {
+        boolean[] live = new boolean[function.getValueCount()];
+        Deque<Instruction> pending = new ArrayDeque<Instruction>();
+        for (BasicBlock block : function.getBlocks())
+        {
+            for (Instruction instruction : block.getInstructions())
+            {
+                if (!instruction.isRemovable(function))
+                {
+                    if (instruction.getDest() >= 0)
+                    {
+                        live[instruction.getDest()] = true;
+                    }
+                    pending.push(instruction);
+                }
+            }
+        }
+        while (!pending.isEmpty())
+        {
+            for (int arg : pending.pop().getArgs())
+            {
+                if (!live[arg])
+                {
+                    live[arg] = true;
+                    pending.push(function.getDefinition(arg));
+                }
+            }
+        }
+        for (BasicBlock block : function.getBlocks())
+        {
+            Iterator<Instruction> instructions = block.getInstructions().iterator();
+            while (instructions.hasNext())
+            {
+                int dest = instructions.next().getDest();
+                if (dest >= 0 && !live[dest])
+                {
+                    instructions.remove();
+                }
+            }
+        }
+    }
+}
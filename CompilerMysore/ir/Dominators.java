@@ -0,0 +1,171 @@
+package ir;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Dominators is the dominator tree of a Function. Block a dominates block b if every path from
+ * the entry block to b passes through a; the immediate dominator of b is the dominator of b
+ * closest to it.
+ *
+ * The tree is computed with the iterative algorithm of Cooper, Harvey, and Kennedy, "A Simple,
+ * Fast Dominance Algorithm", over the blocks in reverse postorder. It describes the function as
+ * it was when the Dominators was created, and has to be computed again once blocks are added or
+ * edges change.
+ *
+ * @author Ishan Mysore
+ * @version 10/17/26
+ */
+public class Dominators
+{
+    private List<BasicBlock> order;
+    private int[] position;
+    private BasicBlock[] idom;
+    private List<List<BasicBlock>> children;
+
+    /**
+     * Computes the dominator tree of a function.
+     * @param function the function
+     */
+    public Dominators(Function function)
+    {
+        order = function.reversePostorder();
+        int limit = function.getBlockLimit();
+        position = new int[limit];
+        for (int i = 0; i < limit; i++)
+        {
+            position[i] = -1;
+        }
+        for (int i = 0; i < order.size(); i++)
+        {
+            position[order.get(i).getId()] = i;
+        }
+        int[] doms = new int[order.size()];
+        for (int i = 1; i < doms.length; i++)
+        {
+            doms[i] = -1;
+        }
+        boolean changed = true;
+        while (changed)
+        {
+            changed = false;
+            for (int i = 1; i < doms.length; i++)
+            {
+                int newIdom = -1;
+                for (BasicBlock predecessor : order.get(i).getPredecessors())
+                {
+                    int p = position[predecessor.getId()];
+                    if (p < 0 || doms[p] < 0)
+                    {
+                        continue;
+                    }
+                    newIdom = newIdom < 0 ? p : intersect(doms, p, newIdom);
+                }
+                if (doms[i] != newIdom)
+                {
+                    doms[i] = newIdom;
+                    changed = true;
+                }
+            }
+        }
+        idom = new BasicBlock[limit];
+        children = new ArrayList<List<BasicBlock>>();
+        for (int i = 0; i < limit; i++)
+        {
+            children.add(new ArrayList<BasicBlock>());
+        }
+        for (int i = 1; i < doms.length; i++)
+        {
+            BasicBlock parent = order.get(doms[i]);
+            idom[order.get(i).getId()] = parent;
+            children.get(parent.getId()).add(order.get(i));
+        }
+    }
+
+    /**
+     * Finds the nearest common dominator of two blocks, by walking up the tree from whichever of
+     * them comes later in reverse postorder.
+     * @param doms the immediate dominators found so far, by position in reverse postorder
+     * @param a the position of one block
+     * @param b the position of the other block
+     * @return the position of the nearest common dominator
+     */
+    private static int intersect(int[] doms, int a, int b)
+    {
+        while (a != b)
+        {
+            while (a > b)
+            {
+                a = doms[a];
+            }
+            while (b > a)
+            {
+                b = doms[b];
+            }
+        }
+        return a;
+    }
+
+    /**
+     * Returns the reachable blocks in the reverse postorder the tree was computed over.
+     * @return the instance variable order
+     */
+    public List<BasicBlock> getOrder()
+    {
+        return order;
+    }
+
+    /**
+     * Determines if a block can be reached from the entry block.
+     * @param block the block
+     * @return true if the block is reachable, false otherwise
+     */
+    public boolean isReachable(BasicBlock block)
+    {
+        return block.getId() < position.length && position[block.getId()] >= 0;
+    }
+
+    /**
+     * Returns the immediate dominator of a block.
+     * @param block the block
+     * @return the immediate dominator, or null for the entry block and unreachable blocks
+     */
+    public BasicBlock getIdom(BasicBlock block)
+    {
+        return idom[block.getId()];
+    }
+
+    /**
+     * Returns the blocks a block immediately dominates.
+     * @param block the block
+     * @return the children of the block in the dominator tree, in reverse postorder
+     */
+    public List<BasicBlock> getChildren(BasicBlock block)
+    {
+        return children.get(block.getId());
+    }
+
+    /**
+     * Determines if one block dominates another. Every block dominates itself.
+     * @param a the block that may dominate
+     * @param b the block that may be dominated
+     * @return true if a dominates b, false otherwise
+     */
+    public boolean dominates(BasicBlock a, BasicBlock b)
+    {
+        if (!isReachable(a) || !isReachable(b))
+        {
+            return false;
+        }
+        int target = position[a.getId()];
+        while (b != null && position[b.getId()] >= target)
+        {
+            if (b == a)
+            {
+                return true;
+            }
+            b = idom[b.getId()];
+        }
+        return false;
+    }
+}
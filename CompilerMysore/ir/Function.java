@@ -0,0 +1,290 @@
+package ir;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * A Function is the control-flow graph of one procedure, or of the main program: its basic
+ * blocks, starting with the entry block, and the table of the values its instructions define.
+ *
+ * The parameters and local variables of a procedure are not stored anywhere; every assignment
+ * to one defines a new value, and PHIs merge the values that reach a block along different
+ * paths. Global variables live in memory, and are read and written with LOADG and STOREG, since
+ * any call can change them. The main program has no local variables of its own.
+ *
+ * @author Ishan Mysore
+ * @version 10/17/26
+ */
+public class Function
+{
+    private String name;
+    private int paramCount;
+    private boolean main;
+    private List<BasicBlock> blocks;
+    private List<Instruction> definitions;
+    private int nextBlockId;
+
+    /**
+     * Creates a new Function with no blocks.
+     * @param name the name of the procedure, or "main" for the main program
+     * @param paramCount the number of parameters
+     * @param main true if this is the main program, false if it is a procedure
+     */
+    public Function(String name, int paramCount, boolean main)
+    {
+        this.name = name;
+        this.paramCount = paramCount;
+        this.main = main;
+        blocks = new ArrayList<BasicBlock>();
+        definitions = new ArrayList<Instruction>();
+    }
+
+    /**
+     * Returns the name of the function.
+     * @return the instance variable name
+     */
+    public String getName()
+    {
+        return name;
+    }
+
+    /**
+     * Returns the number of parameters.
+     * @return the instance variable paramCount
+     */
+    public int getParamCount()
+    {
+        return paramCount;
+    }
+
+    /**
+     * Determines if the function is the main program.
+     * @return the instance variable main
+     */
+    public boolean isMain()
+    {
+        return main;
+    }
+
+    /**
+     * Returns the blocks of the function, with the entry block first. The list belongs to the
+     * function.
+     * @return the instance variable blocks
+     */
+    public List<BasicBlock> getBlocks()
+    {
+        return blocks;
+    }
+
+    /**
+     * Returns the block the function starts in.
+     * @return the first block
+     */
+    public BasicBlock getEntry()
+    {
+        return blocks.get(0);
+    }
+
+    /**
+     * Adds a new, empty block to the function. The first block added is the entry block.
+     * @return the new block
+     */
+    public BasicBlock newBlock()
+    {
+        BasicBlock block = new BasicBlock(nextBlockId++);
+        blocks.add(block);
+        return block;
+    }
+
+    /**
+     * Returns one more than the highest block number handed out so far, so that arrays indexed
+     * by block number can be sized.
+     * @return the instance variable nextBlockId
+     */
+    public int getBlockLimit()
+    {
+        return nextBlockId;
+    }
+
+    /**
+     * Creates a new instruction, giving it a new value if it defines one. The instruction still
+     * has to be added to a block.
+     * @param op the operation
+     * @param defines true if the instruction defines a value, false otherwise
+     * @param args the values the instruction uses
+     * @param constant the constant of a CONST or PARAM, or 0
+     * @param name the name of a LOADG, STOREG, CALL, or BRANCH, or null
+     * @param targets the targets of a JUMP or BRANCH, or an empty array
+     * @return the new instruction
+     */
+    public Instruction newInstruction(Op op, boolean defines, int[] args, int constant,
+        String name, BasicBlock[] targets)
+    {
+        int dest = defines ? definitions.size() : -1;
+        Instruction instruction = new Instruction(op, dest, args, constant, name, targets);
+        if (defines)
+        {
+            definitions.add(instruction);
+        }
+        return instruction;
+    }
+
+    /**
+     * Returns the instruction that defines a value.
+     * @param value the value
+     * @return the defining instruction, which may since have been deleted if the value is unused
+     */
+    public Instruction getDefinition(int value)
+    {
+        return definitions.get(value);
+    }
+
+    /**
+     * Returns the number of values handed out so far, so that arrays indexed by value can be
+     * sized.
+     * @return the number of values
+     */
+    public int getValueCount()
+    {
+        return definitions.size();
+    }
+
+    /**
+     * Makes every instruction use the replacements of the values it uses, for a pass that has
+     * found many values to replace at once. Replacements are followed to the end of a chain, so
+     * a value may be replaced by one that is itself replaced.
+     * @param replacements the value to use instead of each value, or -1 to keep it, indexed by
+     *        value
+     */
+    public void replaceAllUses(int[] replacements)
+    {
+        for (BasicBlock block : blocks)
+        {
+            for (Instruction instruction : block.getInstructions())
+            {
+                int[] args = instruction.getArgs();
+                for (int i = 0; i < args.length; i++)
+                {
+                    args[i] = resolve(replacements, args[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Follows a chain of replacements to its end.
+     * @param replacements the value to use instead of each value, or -1 to keep it
+     * @param value the value
+     * @return the value at the end of the chain
+     */
+    public static int resolve(int[] replacements, int value)
+    {
+        while (value < replacements.length && replacements[value] >= 0)
+        {
+            value = replacements[value];
+        }
+        return value;
+    }
+
+    /**
+     * Returns the blocks that can be reached from the entry block in reverse postorder, in which
+     * every block comes before its successors, except along the back edges of loops.
+     * @return the reachable blocks in reverse postorder
+     */
+    public List<BasicBlock> reversePostorder()
+    {
+        List<BasicBlock> order = new ArrayList<BasicBlock>();
+        boolean[] visited = new boolean[nextBlockId];
+        Deque<BasicBlock> blockStack = new ArrayDeque<BasicBlock>();
+        Deque<Iterator<BasicBlock>> successorStack = new ArrayDeque<Iterator<BasicBlock>>();
+        BasicBlock entry = getEntry();
+        visited[entry.getId()] = true;
+        blockStack.push(entry);
+        successorStack.push(entry.getSuccessors().iterator());
+        while (!blockStack.isEmpty())
+        {
+            Iterator<BasicBlock> successors = successorStack.peek();
+            if (successors.hasNext())
+            {
+                BasicBlock next = successors.next();
+                if (!visited[next.getId()])
+                {
+                    visited[next.getId()] = true;
+                    blockStack.push(next);
+                    successorStack.push(next.getSuccessors().iterator());
+                }
+            }
+            else
+            {
+                order.add(blockStack.pop());
+                successorStack.pop();
+            }
+        }
+        Collections.reverse(order);
+        return order;
+    }
+
+    /**
+     * Deletes the blocks that cannot be reached from the entry block, and takes them out of the
+     * predecessors of the blocks they jump to.
+     * @return true if any block was deleted, false otherwise
+     */
+    public boolean removeUnreachableBlocks()
+    {
+        boolean[] reachable = new boolean[nextBlockId];
+        for (BasicBlock block : reversePostorder())
+        {
+            reachable[block.getId()] = true;
+        }
+        List<BasicBlock> kept = new ArrayList<BasicBlock>();
+        for (BasicBlock block : blocks)
+        {
+            if (reachable[block.getId()])
+            {
+                kept.add(block);
+            }
+            else
+            {
+                for (BasicBlock successor : block.getSuccessors())
+                {
+                    successor.removePredecessor(block);
+                }
+            }
+        }
+        if (kept.size() == blocks.size())
+        {
+            return false;
+        }
+        blocks = kept;
+        return true;
+    }
+
+    /**
+     * Returns a listing of the function: a header, and then each block's label, predecessors,
+     * and instructions.
+     * @return the function as text
+     */
+    public String toString()
+    {
+        StringBuilder text = new StringBuilder();
+        text.append(main ? "main" : "procedure " + name + "(" + paramCount + ")").append(":\n");
+        for (BasicBlock block : blocks)
+        {
+            text.append(block).append(":");
+            if (!block.getPredecessors().isEmpty())
+            {
+                text.append("\t\t; preds ").append(block.getPredecessors());
+            }
+            text.append('\n');
+            for (Instruction instruction : block.getInstructions())
+            {
+                text.append('\t').append(instruction).append('\n');
+            }
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,201 @@
+package ir;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * GlobalValueNumbering deletes the instructions that compute a value some earlier instruction
+ * has already computed, and makes their users use the earlier value instead. Two instructions
+ * compute the same value if they have the same operation on the same operands, in either order
+ * for + and *. Two constants are the same if they are equal, and two PHIs of the same block are
+ * the same if their arguments are. An instruction can only be replaced by one in a block that
+ * dominates it, so the pass walks the dominator tree, keeping a table of the values available
+ * in each block that is undone when the walk leaves it.
+ *
+ * Reads of global variables are numbered too, as long as nothing can have changed the variable
+ * in between. A STOREG makes the value it stores available to the reads after it, and a CALL
+ * makes every global unknown, since the procedure may change any of them. What is known about
+ * the globals at the end of a block carries over into a block only if it is the one predecessor
+ * of that block; at any other block, paths from elsewhere meet, and nothing is known.
+ *
+ * Copy propagation is part of the same walk: a COPY is replaced by the value it copies. The
+ * IrBuilder never makes a COPY for an assignment, since assigning one variable to another just
+ * gives both the same value, so COPYs only come from other passes.
+ *
+ * @author Ishan Mysore
+ * @version 10/17/26
+ */
+public class GlobalValueNumbering implements Pass
+{
+    /**
+     * Returns the name of the pass.
+     * @return "gvn"
+     */
+    public String getName()
+    {
+        return "gvn";
+    }
+
+    /**
+     * Deletes the redundant instructions of a function.
+     * @param function the function
+     */
+    public void run(Function function)
+    {
+        Dominators dominators = new Dominators(function);
+        int[] replacements = new int[function.getValueCount()];
+        Arrays.fill(replacements, -1);
+        Map<String, Integer> available = new HashMap<String, Integer>();
+        List<Map<String, Integer>> globalsAtEnd = new ArrayList<Map<String, Integer>>();
+        for (int i = 0; i < function.getBlockLimit(); i++)
+        {
+            globalsAtEnd.add(null);
+        }
+        boolean removed = false;
+
+        Deque<BasicBlock> pending = new ArrayDeque<BasicBlock>();
+        Deque<List<String>> added = new ArrayDeque<List<String>>();
+        pending.push(function.getEntry());
+        while (!pending.isEmpty())
+        {
+            BasicBlock block = pending.peek();
+            if (globalsAtEnd.get(block.getId()) != null)
+            {
+                pending.pop();
+                for (String key : added.pop())
+                {
+                    available.remove(key);
+                }
+                globalsAtEnd.set(block.getId(), null);
+                continue;
+            }
+            List<BasicBlock> predecessors = block.getPredecessors();
+            Map<String, Integer> globals = new HashMap<String, Integer>();
+            if (predecessors.size() == 1 && globalsAtEnd.get(predecessors.get(0).getId()) != null)
+            {
+                globals.putAll(globalsAtEnd.get(predecessors.get(0).getId()));
+            }
+            List<String> keys = new ArrayList<String>();
+            removed |= number(block, available, globals, keys, replacements);
+            globalsAtEnd.set(block.getId(), globals);
+            added.push(keys);
+            List<BasicBlock> children = dominators.getChildren(block);
+            for (int i = children.size() - 1; i >= 0; i--)
+            {
+                pending.push(children.get(i));
+            }
+        }
+        if (removed)
+        {
+            function.replaceAllUses(replacements);
+        }
+    }
+
+    /**
+     * Numbers the instructions of one block, and deletes the redundant ones.
+     * @param block the block
+     * @param available the value each key stands for in the blocks that dominate this one
+     * @param globals the value each global is known to hold
+     * @param keys the list to add the keys this block makes available to
+     * @param replacements the value to use instead of each deleted value
+     * @return true if any instruction was deleted, false otherwise
+     * @postcondition globals holds what is known about the globals at the end of the block
+     */
+    private static boolean number(BasicBlock block, Map<String, Integer> available,
+        Map<String, Integer> globals, List<String> keys, int[] replacements)
+    {
+        boolean removed = false;
+        Iterator<Instruction> instructions = block.getInstructions().iterator();
+        while (instructions.hasNext())
+        {
+            Instruction instruction = instructions.next();
+            int[] args = instruction.getArgs();
+            for (int i = 0; i < args.length; i++)
+            {
+                args[i] = Function.resolve(replacements, args[i]);
+            }
+            int dest = instruction.getDest();
+            Integer same = null;
+            switch (instruction.getOp())
+            {
+                case COPY:
+                    same = args[0];
+                    break;
+                case LOADG:
+                    same = globals.get(instruction.getName());
+                    if (same == null)
+                    {
+                        globals.put(instruction.getName(), dest);
+                    }
+                    break;
+                case STOREG:
+                    globals.put(instruction.getName(), args[0]);
+                    break;
+                case CALL:
+                    globals.clear();
+                    break;
+                case CONST:
+                case PHI:
+                case ADD:
+                case SUB:
+                case MUL:
+                case DIV:
+                case MOD:
+                    String key = key(instruction, block);
+                    same = available.get(key);
+                    if (same == null)
+                    {
+                        available.put(key, dest);
+                        keys.add(key);
+                    }
+                    break;
+                default:
+                    break;
+            }
+            if (same != null)
+            {
+                replacements[dest] = same;
+                instructions.remove();
+                removed = true;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Returns the text that two instructions computing the same value have in common, such as
+     * "add v1 v2". The operands of + and * are put in order, and a PHI includes its block.
+     * @param instruction the instruction
+     * @param block the block the instruction is in
+     * @return the key
+     */
+    private static String key(Instruction instruction, BasicBlock block)
+    {
+        Op op = instruction.getOp();
+        if (op == Op.CONST)
+        {
+            return "const " + instruction.getConstant();
+        }
+        int[] args = instruction.getArgs();
+        StringBuilder key = new StringBuilder(op.name());
+        if (op == Op.PHI)
+        {
+            key.append(' ').append(block);
+        }
+        if ((op == Op.ADD || op == Op.MUL) && args[0] > args[1])
+        {
+            return key.append(" v").append(args[1]).append(" v").append(args[0]).toString();
+        }
+        for (int arg : args)
+        {
+            key.append(" v").append(arg);
+        }
+        return key.toString();
+    }
+}
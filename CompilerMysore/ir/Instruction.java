@@ -0,0 +1,363 @@
+package ir;
+
+import java.util.List;
+
+/**
+ * An Instruction is one line of three-address code: an operation, the value it defines (if any),
+ * and the values it uses.
+ *
+ * Values are numbered within their Function, and each is defined by exactly one Instruction,
+ * since the code is in SSA form. Besides its arguments, an instruction may have a constant (the
+ * value of a CONST, or the index of a PARAM), a name (the global variable of a LOADG or STOREG,
+ * the procedure of a CALL, or the relop of a BRANCH), and targets (the blocks a JUMP or BRANCH
+ * goes to). The arguments of a PHI are in the same order as the predecessors of its block.
+ *
+ * Passes rewrite instructions in place, so every field except the value defined can be changed.
+ *
+ * @author Ishan Mysore
+ * @version 10/17/26
+ */
+public class Instruction
+{
+    private Op op;
+    private int dest;
+    private int[] args;
+    private int constant;
+    private String name;
+    private BasicBlock[] targets;
+    private BasicBlock block;
+
+    /**
+     * Creates a new Instruction that is not in any block yet.
+     * @param op the operation
+     * @param dest the value the instruction defines, or -1 if it defines none
+     * @param args the values the instruction uses
+     * @param constant the constant of a CONST or PARAM, or 0
+     * @param name the name of a LOADG, STOREG, CALL, or BRANCH, or null
+     * @param targets the targets of a JUMP or BRANCH, or an empty array
+     */
+    public Instruction(Op op, int dest, int[] args, int constant, String name,
+        BasicBlock[] targets)
+    {
+        this.op = op;
+        this.dest = dest;
+        this.args = args;
+        this.constant = constant;
+        this.name = name;
+        this.targets = targets;
+    }
+
+    /**
+     * Returns the operation.
+     * @return the instance variable op
+     */
+    public Op getOp()
+    {
+        return op;
+    }
+
+    /**
+     * Returns the value the instruction defines.
+     * @return the instance variable dest, which is -1 if the instruction defines no value
+     */
+    public int getDest()
+    {
+        return dest;
+    }
+
+    /**
+     * Returns the values the instruction uses. The array belongs to the instruction.
+     * @return the instance variable args
+     */
+    public int[] getArgs()
+    {
+        return args;
+    }
+
+    /**
+     * Returns one of the values the instruction uses.
+     * @param index the index of the argument
+     * @return the value
+     */
+    public int getArg(int index)
+    {
+        return args[index];
+    }
+
+    /**
+     * Replaces one of the values the instruction uses.
+     * @param index the index of the argument
+     * @param value the new value
+     */
+    public void setArg(int index, int value)
+    {
+        args[index] = value;
+    }
+
+    /**
+     * Replaces all of the values the instruction uses.
+     * @param args the new arguments
+     */
+    public void setArgs(int[] args)
+    {
+        this.args = args;
+    }
+
+    /**
+     * Returns the constant of a CONST or the parameter index of a PARAM.
+     * @return the instance variable constant
+     */
+    public int getConstant()
+    {
+        return constant;
+    }
+
+    /**
+     * Returns the global variable, procedure, or relop the instruction refers to.
+     * @return the instance variable name
+     */
+    public String getName()
+    {
+        return name;
+    }
+
+    /**
+     * Returns the blocks a JUMP or BRANCH goes to.
+     * @return the instance variable targets
+     */
+    public BasicBlock[] getTargets()
+    {
+        return targets;
+    }
+
+    /**
+     * Replaces every occurrence of one target with another.
+     * @param from the old target
+     * @param to the new target
+     */
+    public void retarget(BasicBlock from, BasicBlock to)
+    {
+        for (int i = 0; i < targets.length; i++)
+        {
+            if (targets[i] == from)
+            {
+                targets[i] = to;
+            }
+        }
+    }
+
+    /**
+     * Returns the block the instruction is in.
+     * @return the instance variable block, or null if it is in none
+     */
+    public BasicBlock getBlock()
+    {
+        return block;
+    }
+
+    /**
+     * Records the block the instruction has been put in.
+     * @param block the block
+     */
+    void setBlock(BasicBlock block)
+    {
+        this.block = block;
+    }
+
+    /**
+     * Turns the instruction into a CONST that defines the same value.
+     * @param value the constant
+     */
+    public void makeConstant(int value)
+    {
+        op = Op.CONST;
+        args = new int[0];
+        constant = value;
+        name = null;
+    }
+
+    /**
+     * Turns the instruction into a COPY of another value.
+     * @param value the value to copy
+     */
+    public void makeCopy(int value)
+    {
+        op = Op.COPY;
+        args = new int[] {value};
+        name = null;
+    }
+
+    /**
+     * Turns a BRANCH into a JUMP to one of its targets. The block the instruction is in is no
+     * longer a predecessor of the other target.
+     * @param taken the index of the target to keep
+     */
+    public void makeJump(int taken)
+    {
+        BasicBlock kept = targets[taken];
+        BasicBlock dropped = targets[1 - taken];
+        op = Op.JUMP;
+        args = new int[0];
+        name = null;
+        targets = new BasicBlock[] {kept};
+        dropped.removePredecessor(block);
+    }
+
+    /**
+     * Determines if the instruction can be deleted when its value is never used: it has no side
+     * effects, and it is not a division that could fail because its divisor might be 0.
+     * @param function the function the instruction is in
+     * @return true if the instruction can be deleted, false otherwise
+     */
+    public boolean isRemovable(Function function)
+    {
+        if (op.hasSideEffects())
+        {
+            return false;
+        }
+        if (op == Op.DIV || op == Op.MOD)
+        {
+            Instruction divisor = function.getDefinition(args[1]);
+            return divisor.op == Op.CONST && divisor.constant != 0;
+        }
+        return true;
+    }
+
+    /**
+     * Applies an arithmetic operation the way the interpreter does.
+     * @precondition op is arithmetic, and b is not 0 if op is DIV or MOD
+     * @param op the operation
+     * @param a the left operand
+     * @param b the right operand
+     * @return the result
+     */
+    public static int apply(Op op, int a, int b)
+    {
+        switch (op)
+        {
+            case ADD:
+                return a + b;
+            case SUB:
+                return a - b;
+            case MUL:
+                return a * b;
+            case DIV:
+                return a / b;
+            default:
+                return a % b;
+        }
+    }
+
+    /**
+     * Compares two values with a relop.
+     * @param relop one of =, <>, <, <=, >, and >=
+     * @param a the left operand
+     * @param b the right operand
+     * @return true if a relop b, false otherwise
+     */
+    public static boolean compare(String relop, int a, int b)
+    {
+        switch (relop)
+        {
+            case "=":
+                return a == b;
+            case "<>":
+                return a != b;
+            case "<":
+                return a < b;
+            case "<=":
+                return a <= b;
+            case ">":
+                return a > b;
+            default:
+                return a >= b;
+        }
+    }
+
+    /**
+     * Returns the relop that holds exactly when the given one does not.
+     * @param relop one of =, <>, <, <=, >, and >=
+     * @return the opposite relop
+     */
+    public static String negate(String relop)
+    {
+        switch (relop)
+        {
+            case "=":
+                return "<>";
+            case "<>":
+                return "=";
+            case "<":
+                return ">=";
+            case "<=":
+                return ">";
+            case ">":
+                return "<=";
+            default:
+                return "<";
+        }
+    }
+
+    /**
+     * Returns the instruction as a line of a listing, such as "v3 = add v1, v2".
+     * @return the instruction as text
+     */
+    public String toString()
+    {
+        StringBuilder text = new StringBuilder();
+        if (dest >= 0)
+        {
+            text.append('v').append(dest).append(" = ");
+        }
+        text.append(op.name().toLowerCase());
+        switch (op)
+        {
+            case CONST:
+            case PARAM:
+                return text.append(' ').append(constant).toString();
+            case LOADG:
+                return text.append(' ').append(name).toString();
+            case STOREG:
+                return text.append(' ').append(name).append(", v").append(args[0]).toString();
+            case CALL:
+                text.append(' ').append(name).append('(');
+                appendValues(text, args);
+                return text.append(')').toString();
+            case PHI:
+                List<BasicBlock> predecessors = block.getPredecessors();
+                for (int i = 0; i < args.length; i++)
+                {
+                    text.append(i == 0 ? " [v" : ", [v").append(args[i]).append(", ");
+                    text.append(i < predecessors.size() ? predecessors.get(i) : "?").append(']');
+                }
+                return text.toString();
+            case BRANCH:
+                text.append(" v").append(args[0]).append(' ').append(name);
+                text.append(" v").append(args[1]);
+                return text.append(", ").append(targets[0]).append(", ").append(targets[1])
+                    .toString();
+            case JUMP:
+                return text.append(' ').append(targets[0]).toString();
+            default:
+                if (args.length > 0)
+                {
+                    text.append(' ');
+                    appendValues(text, args);
+                }
+                return text.toString();
+        }
+    }
+
+    /**
+     * Appends a list of values, separated by commas.
+     * @param text the text to append to
+     * @param values the values
+     */
+    private static void appendValues(StringBuilder text, int[] values)
+    {
+        for (int i = 0; i < values.length; i++)
+        {
+            text.append(i == 0 ? "v" : ", v").append(values[i]);
+        }
+    }
+}
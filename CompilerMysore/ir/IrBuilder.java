@@ -0,0 +1,551 @@
+package ir;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An IrBuilder collects the three-address code for a program while its AST is lowered, in the
+ * same way a BytecodeBuilder collects bytecode.
+ *
+ * The code is put into SSA form as it is built, with the method of Braun et al., "Simple and
+ * Efficient Construction of Static Single Assignment Form". The builder remembers, for each
+ * block, the value each local variable was last given in it. Reading a variable that was not
+ * given a value in the current block looks for it in the predecessors, and places a PHI where
+ * several of them meet. A block whose predecessors are not all known yet (the head of a loop,
+ * before its body has been lowered) is not sealed: reading a variable there places a PHI whose
+ * arguments are only filled in when seal() is called, once every jump to the block exists.
+ *
+ * A local variable that is read before it is ever assigned is 0. Global variables are not put
+ * into SSA form; every read and write of one is a LOADG or STOREG. In the main program every
+ * variable the program names is global. In a procedure, a variable is global only if it was
+ * declared with declareGlobal(), and any other variable is local to the procedure, so the
+ * globals have to be declared before any procedure is lowered.
+ *
+ * Code after a BREAK, CONTINUE, or tail call cannot run, but is lowered anyway into a block with
+ * no predecessors, and such blocks are deleted when the function ends.
+ *
+ * @author Ishan Mysore
+ * @version 10/17/26
+ */
+public class IrBuilder
+{
+    private static final int[] NO_ARGS = new int[0];
+    private static final BasicBlock[] NO_TARGETS = new BasicBlock[0];
+
+    private IrProgram program;
+    private Map<String, Integer> paramCounts;
+
+    private Function function;
+    private String result;
+    private Set<String> locals;
+    private BasicBlock current;
+    private BasicBlock start;
+    private BasicBlock exit;
+    private Map<BasicBlock, Map<String, Integer>> definitions;
+    private Map<BasicBlock, Map<String, Instruction>> incompletePhis;
+    private Set<BasicBlock> sealed;
+    private List<BasicBlock> breakTargets;
+    private List<BasicBlock> continueTargets;
+    private int hiddenVariables;
+
+    /**
+     * Creates a new, empty IrBuilder.
+     */
+    public IrBuilder()
+    {
+        program = new IrProgram();
+        paramCounts = new HashMap<String, Integer>();
+    }
+
+    /**
+     * Declares a global variable, so that it is in the program even if no code uses it.
+     * @param name the name of the variable
+     */
+    public void declareGlobal(String name)
+    {
+        program.addGlobal(name);
+    }
+
+    /**
+     * Declares a procedure, so that calls to it can be lowered before its body is. Declaring a
+     * name again replaces the earlier declaration.
+     * @param name the name of the procedure
+     * @param paramCount the number of parameters
+     */
+    public void declareProcedure(String name, int paramCount)
+    {
+        paramCounts.put(name, paramCount);
+    }
+
+    /**
+     * Returns the number of parameters of a declared procedure.
+     * @param name the name of the procedure
+     * @return the number of parameters
+     * @throws IllegalArgumentException if no procedure has that name
+     */
+    public int getParamCount(String name)
+    {
+        Integer count = paramCounts.get(name);
+        if (count == null)
+        {
+            throw new IllegalArgumentException("Undefined procedure " + name);
+        }
+        return count;
+    }
+
+    /**
+     * Starts lowering the body of a procedure. The entry block gives each parameter its value
+     * and jumps to the start block, which is where the body begins and where tail calls jump
+     * back to.
+     * @param name the name of the procedure, which is also the variable that holds its result
+     * @param params the names of the parameters
+     * @param localVars the names of the local variables
+     */
+    public void beginProcedure(String name, List<String> params, List<String> localVars)
+    {
+        begin(new Function(name, params.size(), false));
+        result = name;
+        locals.addAll(params);
+        locals.add(name);
+        locals.addAll(localVars);
+        for (int i = 0; i < params.size(); i++)
+        {
+            writeVariable(params.get(i), append(Op.PARAM, true, NO_ARGS, i, null, NO_TARGETS));
+        }
+        start = newBlock();
+        jump(start);
+        setBlock(start);
+    }
+
+    /**
+     * Starts lowering the main program.
+     */
+    public void beginMain()
+    {
+        begin(new Function("main", 0, true));
+        result = null;
+        start = function.getEntry();
+    }
+
+    /**
+     * Sets up the state for lowering a new function, and creates its entry and exit blocks.
+     * @param function the function to lower into
+     */
+    private void begin(Function function)
+    {
+        this.function = function;
+        locals = new HashSet<String>();
+        definitions = new HashMap<BasicBlock, Map<String, Integer>>();
+        incompletePhis = new HashMap<BasicBlock, Map<String, Instruction>>();
+        sealed = new HashSet<BasicBlock>();
+        breakTargets = new ArrayList<BasicBlock>();
+        continueTargets = new ArrayList<BasicBlock>();
+        BasicBlock entry = newBlock();
+        seal(entry);
+        exit = newBlock();
+        setBlock(entry);
+    }
+
+    /**
+     * Finishes the function being lowered. Falling off the end of the body, like a BREAK or
+     * CONTINUE outside of any loop, goes to the exit block, which returns the result of a
+     * procedure or stops the main program. Blocks that cannot be reached are deleted.
+     */
+    public void endFunction()
+    {
+        jump(exit);
+        seal(exit);
+        setBlock(exit);
+        if (result == null)
+        {
+            append(Op.RETURN, false, NO_ARGS, 0, null, NO_TARGETS);
+            program.setMain(function);
+        }
+        else
+        {
+            append(Op.RETURN, false, new int[] {readVariable(result)}, 0, null, NO_TARGETS);
+            program.addProcedure(function);
+        }
+        current = null;
+        seal(start);
+        function.removeUnreachableBlocks();
+        function = null;
+    }
+
+    /**
+     * Returns the program that has been lowered.
+     * @return the IrProgram
+     */
+    public IrProgram build()
+    {
+        return program;
+    }
+
+    /**
+     * Returns the function being lowered.
+     * @return the instance variable function
+     */
+    public Function getFunction()
+    {
+        return function;
+    }
+
+    /**
+     * Adds a new block to the function being lowered. It is not sealed.
+     * @return the new block
+     */
+    public BasicBlock newBlock()
+    {
+        return function.newBlock();
+    }
+
+    /**
+     * Makes a block the one that instructions are added to.
+     * @param block the block
+     */
+    public void setBlock(BasicBlock block)
+    {
+        current = block;
+    }
+
+    /**
+     * Returns the block that instructions are added to, creating a block that cannot be reached
+     * if the last one has just ended.
+     * @return the current block
+     */
+    private BasicBlock currentBlock()
+    {
+        if (current == null)
+        {
+            current = newBlock();
+            seal(current);
+        }
+        return current;
+    }
+
+    /**
+     * Seals a block, once every jump to it has been lowered, and fills in the arguments of the
+     * PHIs that were placed in it before then.
+     * @param block the block
+     */
+    public void seal(BasicBlock block)
+    {
+        Map<String, Instruction> phis = incompletePhis.remove(block);
+        if (phis != null)
+        {
+            for (Map.Entry<String, Instruction> phi : phis.entrySet())
+            {
+                addPhiOperands(phi.getKey(), phi.getValue());
+            }
+        }
+        sealed.add(block);
+    }
+
+    /**
+     * Returns the block that the body of the procedure starts in, which tail calls jump to.
+     * @return the instance variable start
+     */
+    public BasicBlock getStart()
+    {
+        return start;
+    }
+
+    /**
+     * Returns a name for a new variable that the program cannot refer to, such as the counter
+     * of a FOR loop.
+     * @return the name, which is local to the function being lowered
+     */
+    public String newHiddenVariable()
+    {
+        String name = "$" + hiddenVariables++;
+        locals.add(name);
+        return name;
+    }
+
+    /**
+     * Adds a CONST.
+     * @param value the constant
+     * @return the value defined
+     */
+    public int constant(int value)
+    {
+        return append(Op.CONST, true, NO_ARGS, value, null, NO_TARGETS);
+    }
+
+    /**
+     * Adds an arithmetic operation.
+     * @param op ADD, SUB, MUL, DIV, or MOD
+     * @param left the left operand
+     * @param right the right operand
+     * @return the value defined
+     */
+    public int arithmetic(Op op, int left, int right)
+    {
+        return append(op, true, new int[] {left, right}, 0, null, NO_TARGETS);
+    }
+
+    /**
+     * Adds a call.
+     * @param name the name of the procedure
+     * @param args one argument for each parameter of the procedure
+     * @return the value the procedure returns
+     */
+    public int call(String name, int[] args)
+    {
+        return append(Op.CALL, true, args, 0, name, NO_TARGETS);
+    }
+
+    /**
+     * Adds a WRITE.
+     * @param value the value to print
+     */
+    public void write(int value)
+    {
+        append(Op.WRITE, false, new int[] {value}, 0, null, NO_TARGETS);
+    }
+
+    /**
+     * Ends the current block with a jump. Does nothing if there is no current block, since the
+     * code before the jump has already ended.
+     * @param target the block to jump to
+     */
+    public void jump(BasicBlock target)
+    {
+        if (current == null)
+        {
+            return;
+        }
+        append(Op.JUMP, false, NO_ARGS, 0, null, new BasicBlock[] {target});
+        target.addPredecessor(current);
+        current = null;
+    }
+
+    /**
+     * Ends the current block with a conditional jump.
+     * @param relop one of =, <>, <, <=, >, and >=
+     * @param left the left operand
+     * @param right the right operand
+     * @param ifTrue the block to jump to if left relop right
+     * @param ifFalse the block to jump to otherwise
+     */
+    public void branch(String relop, int left, int right, BasicBlock ifTrue, BasicBlock ifFalse)
+    {
+        BasicBlock from = currentBlock();
+        append(Op.BRANCH, false, new int[] {left, right}, 0, relop,
+            new BasicBlock[] {ifTrue, ifFalse});
+        ifTrue.addPredecessor(from);
+        ifFalse.addPredecessor(from);
+        current = null;
+    }
+
+    /**
+     * Adds an instruction to the current block.
+     * @param op the operation
+     * @param defines true if the instruction defines a value, false otherwise
+     * @param args the values the instruction uses
+     * @param constant the constant of a CONST or PARAM, or 0
+     * @param name the name of a LOADG, STOREG, CALL, or BRANCH, or null
+     * @param targets the targets of a JUMP or BRANCH, or an empty array
+     * @return the value the instruction defines, or -1 if it defines none
+     */
+    private int append(Op op, boolean defines, int[] args, int constant, String name,
+        BasicBlock[] targets)
+    {
+        Instruction instruction = function.newInstruction(op, defines, args, constant, name,
+            targets);
+        currentBlock().add(instruction);
+        return instruction.getDest();
+    }
+
+    /**
+     * Determines if a variable is local to the function being lowered.
+     * @param name the name of the variable
+     * @return true if the variable is hidden, or is used in a procedure and is not a declared
+     *         global, false otherwise
+     */
+    private boolean isLocal(String name)
+    {
+        return locals.contains(name)
+            || !function.isMain() && !program.getGlobals().contains(name);
+    }
+
+    /**
+     * Reads a variable at the end of the current block.
+     * @param name the name of the variable
+     * @return the value of a local variable, or a LOADG of a global one
+     */
+    public int readVariable(String name)
+    {
+        if (isLocal(name))
+        {
+            return readLocal(name, currentBlock());
+        }
+        program.addGlobal(name);
+        return append(Op.LOADG, true, NO_ARGS, 0, name, NO_TARGETS);
+    }
+
+    /**
+     * Assigns a variable at the end of the current block.
+     * @param name the name of the variable
+     * @param value the value to assign
+     */
+    public void writeVariable(String name, int value)
+    {
+        if (isLocal(name))
+        {
+            definitionsIn(currentBlock()).put(name, value);
+            return;
+        }
+        program.addGlobal(name);
+        append(Op.STOREG, false, new int[] {value}, 0, name, NO_TARGETS);
+    }
+
+    /**
+     * Returns the values given to local variables in a block.
+     * @param block the block
+     * @return the map from variable names to values, which belongs to the builder
+     */
+    private Map<String, Integer> definitionsIn(BasicBlock block)
+    {
+        Map<String, Integer> defined = definitions.get(block);
+        if (defined == null)
+        {
+            defined = new HashMap<String, Integer>();
+            definitions.put(block, defined);
+        }
+        return defined;
+    }
+
+    /**
+     * Finds the value a local variable has at the end of a block. A chain of blocks with one
+     * predecessor each is walked iteratively, and the value found is recorded in every block
+     * of the chain so that later reads stop there.
+     * @param name the name of the variable
+     * @param block the block
+     * @return the value
+     */
+    private int readLocal(String name, BasicBlock block)
+    {
+        List<BasicBlock> chain = new ArrayList<BasicBlock>();
+        int value;
+        while (true)
+        {
+            Integer defined = definitionsIn(block).get(name);
+            if (defined != null)
+            {
+                value = defined;
+                break;
+            }
+            chain.add(block);
+            List<BasicBlock> predecessors = block.getPredecessors();
+            if (!sealed.contains(block))
+            {
+                Instruction phi = newPhi(block);
+                Map<String, Instruction> pending = incompletePhis.get(block);
+                if (pending == null)
+                {
+                    pending = new HashMap<String, Instruction>();
+                    incompletePhis.put(block, pending);
+                }
+                pending.put(name, phi);
+                value = phi.getDest();
+                break;
+            }
+            if (predecessors.size() == 1)
+            {
+                block = predecessors.get(0);
+                continue;
+            }
+            if (predecessors.isEmpty())
+            {
+                Instruction zero = function.newInstruction(Op.CONST, true, NO_ARGS, 0, null,
+                    NO_TARGETS);
+                block.insert(0, zero);
+                value = zero.getDest();
+                break;
+            }
+            Instruction phi = newPhi(block);
+            definitionsIn(block).put(name, phi.getDest());
+            addPhiOperands(name, phi);
+            value = phi.getDest();
+            break;
+        }
+        for (BasicBlock visited : chain)
+        {
+            definitionsIn(visited).put(name, value);
+        }
+        return value;
+    }
+
+    /**
+     * Places a PHI with no arguments at the top of a block.
+     * @param block the block
+     * @return the new PHI
+     */
+    private Instruction newPhi(BasicBlock block)
+    {
+        Instruction phi = function.newInstruction(Op.PHI, true, NO_ARGS, 0, null, NO_TARGETS);
+        block.insert(0, phi);
+        return phi;
+    }
+
+    /**
+     * Gives a PHI an argument for each predecessor of its block: the value the variable has at
+     * the end of that predecessor.
+     * @param name the name of the variable the PHI is for
+     * @param phi the PHI
+     */
+    private void addPhiOperands(String name, Instruction phi)
+    {
+        List<BasicBlock> predecessors = phi.getBlock().getPredecessors();
+        int[] args = new int[predecessors.size()];
+        for (int i = 0; i < args.length; i++)
+        {
+            args[i] = readLocal(name, predecessors.get(i));
+        }
+        phi.setArgs(args);
+    }
+
+    /**
+     * Enters a loop.
+     * @param breakTarget the block a BREAK in the loop jumps to
+     * @param continueTarget the block a CONTINUE in the loop jumps to
+     */
+    public void beginLoop(BasicBlock breakTarget, BasicBlock continueTarget)
+    {
+        breakTargets.add(breakTarget);
+        continueTargets.add(continueTarget);
+    }
+
+    /**
+     * Leaves the innermost loop.
+     */
+    public void endLoop()
+    {
+        breakTargets.remove(breakTargets.size() - 1);
+        continueTargets.remove(continueTargets.size() - 1);
+    }
+
+    /**
+     * Returns the block a BREAK jumps to.
+     * @return the block after the innermost loop, or the exit block outside of any loop
+     */
+    public BasicBlock getBreakTarget()
+    {
+        return breakTargets.isEmpty() ? exit : breakTargets.get(breakTargets.size() - 1);
+    }
+
+    /**
+     * Returns the block a CONTINUE jumps to.
+     * @return the block that starts the next iteration of the innermost loop, or the exit block
+     *         outside of any loop
+     */
+    public BasicBlock getContinueTarget()
+    {
+        return continueTargets.isEmpty() ? exit : continueTargets.get(continueTargets.size() - 1);
+    }
+}
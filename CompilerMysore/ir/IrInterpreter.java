@@ -0,0 +1,165 @@
+package ir;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import environment.BufferedOutput;
+import environment.Output;
+
+/**
+ * An IrInterpreter runs an IrProgram as it is, without generating code for it, so that what the
+ * passes leave can be checked against what the tree walker prints. It is meant for testing, not
+ * speed.
+ *
+ * Each call of a function gets an int[] with room for every value the function defines. When a
+ * block is entered, its PHIs take their arguments for the block it was entered from, all of them
+ * at once, since a PHI can use the value another PHI of the same block had the last time around
+ * a loop. Global variables are kept by name and start at 0. A CALL is a Java call, so recursion
+ * that is not a tail call is limited by the Java stack, just as it is for the tree walker.
+ *
+ * @author Ishan Mysore
+ * @version 10/17/26
+ */
+public class IrInterpreter
+{
+    private Output out;
+    private Map<String, Function> procedures;
+    private Map<String, Integer> globals;
+
+    /**
+     * Creates a new IrInterpreter that writes to standard output.
+     */
+    public IrInterpreter()
+    {
+        this(BufferedOutput.getStandard());
+    }
+
+    /**
+     * Creates a new IrInterpreter.
+     * @param out the Output WRITE prints to
+     */
+    public IrInterpreter(Output out)
+    {
+        this.out = out;
+    }
+
+    /**
+     * Runs the main program of an IrProgram until it returns, with every global set to 0, and
+     * then flushes the Output, even if the program ends with an exception.
+     * @param program the program
+     * @throws ArithmeticException if the program divides by zero
+     */
+    public void run(IrProgram program)
+    {
+        procedures = new HashMap<String, Function>();
+        for (Function procedure : program.getProcedures())
+        {
+            procedures.put(procedure.getName(), procedure);
+        }
+        globals = new HashMap<String, Integer>();
+        try
+        {
+            call(program.getMain(), new int[0]);
+        }
+        finally
+        {
+            out.flush();
+        }
+    }
+
+    /**
+     * Runs a function from its entry block until it returns.
+     * @param function the function
+     * @param params the values of its parameters
+     * @return the value the function returns, or 0 for the main program
+     * @throws ArithmeticException if the function divides by zero
+     */
+    private int call(Function function, int[] params)
+    {
+        int[] values = new int[function.getValueCount()];
+        BasicBlock previous = null;
+        BasicBlock block = function.getEntry();
+        while (true)
+        {
+            List<Instruction> instructions = block.getInstructions();
+            int phis = block.getPhiCount();
+            if (phis > 0)
+            {
+                int from = block.getPredecessors().indexOf(previous);
+                int[] incoming = new int[phis];
+                for (int i = 0; i < phis; i++)
+                {
+                    incoming[i] = values[instructions.get(i).getArg(from)];
+                }
+                for (int i = 0; i < phis; i++)
+                {
+                    values[instructions.get(i).getDest()] = incoming[i];
+                }
+            }
+            BasicBlock next = null;
+            for (int i = phis; i < instructions.size(); i++)
+            {
+                Instruction instruction = instructions.get(i);
+                int[] args = instruction.getArgs();
+                int dest = instruction.getDest();
+                switch (instruction.getOp())
+                {
+                    case CONST:
+                        values[dest] = instruction.getConstant();
+                        break;
+                    case PARAM:
+                        values[dest] = params[instruction.getConstant()];
+                        break;
+                    case COPY:
+                        values[dest] = values[args[0]];
+                        break;
+                    case ADD:
+                    case SUB:
+                    case MUL:
+                    case DIV:
+                    case MOD:
+                        values[dest] = Instruction.apply(instruction.getOp(), values[args[0]],
+                            values[args[1]]);
+                        break;
+                    case LOADG:
+                    {
+                        Integer value = globals.get(instruction.getName());
+                        values[dest] = value == null ? 0 : value;
+                        break;
+                    }
+                    case STOREG:
+                        globals.put(instruction.getName(), values[args[0]]);
+                        break;
+                    case CALL:
+                    {
+                        int[] arguments = new int[args.length];
+                        for (int a = 0; a < args.length; a++)
+                        {
+                            arguments[a] = values[args[a]];
+                        }
+                        values[dest] = call(procedures.get(instruction.getName()), arguments);
+                        break;
+                    }
+                    case WRITE:
+                        out.writeln(values[args[0]]);
+                        break;
+                    case JUMP:
+                        next = instruction.getTargets()[0];
+                        break;
+                    case BRANCH:
+                        next = instruction.getTargets()[
+                            Instruction.compare(instruction.getName(), values[args[0]],
+                            values[args[1]]) ? 0 : 1];
+                        break;
+                    case RETURN:
+                        return args.length > 0 ? values[args[0]] : 0;
+                    default:
+                        throw new IllegalStateException("PHI below the top of " + block);
+                }
+            }
+            previous = block;
+            block = next;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package ir;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * An IrProgram is a whole program in three-address code: a Function for each procedure, one for
+ * the main program, and the names of the global variables.
+ *
+ * @author Ishan Mysore
+ * @version 10/17/26
+ */
+public class IrProgram
+{
+    private List<Function> procedures;
+    private Function main;
+    private Set<String> globals;
+
+    /**
+     * Creates a new IrProgram with no functions and no global variables.
+     */
+    public IrProgram()
+    {
+        procedures = new ArrayList<Function>();
+        globals = new LinkedHashSet<String>();
+    }
+
+    /**
+     * Returns the procedures, in the order they were added.
+     * @return the instance variable procedures
+     */
+    public List<Function> getProcedures()
+    {
+        return procedures;
+    }
+
+    /**
+     * Adds a procedure.
+     * @param procedure the Function of the procedure
+     */
+    public void addProcedure(Function procedure)
+    {
+        procedures.add(procedure);
+    }
+
+    /**
+     * Returns the main program.
+     * @return the instance variable main, or null if it has not been added yet
+     */
+    public Function getMain()
+    {
+        return main;
+    }
+
+    /**
+     * Sets the main program.
+     * @param main the Function of the main program
+     */
+    public void setMain(Function main)
+    {
+        this.main = main;
+    }
+
+    /**
+     * Returns every function: the main program first, and then the procedures.
+     * @return a new list of the functions
+     */
+    public List<Function> getFunctions()
+    {
+        List<Function> functions = new ArrayList<Function>();
+        if (main != null)
+        {
+            functions.add(main);
+        }
+        functions.addAll(procedures);
+        return functions;
+    }
+
+    /**
+     * Returns the names of the global variables, both declared and used.
+     * @return the instance variable globals
+     */
+    public Set<String> getGlobals()
+    {
+        return globals;
+    }
+
+    /**
+     * Adds a global variable, if it is not there already.
+     * @param name the name of the variable
+     */
+    public void addGlobal(String name)
+    {
+        globals.add(name);
+    }
+
+    /**
+     * Returns a listing of the whole program.
+     * @return the listing of every function, separated by blank lines
+     */
+    public String toString()
+    {
+        StringBuilder text = new StringBuilder();
+        text.append("globals ").append(globals).append('\n');
+        for (Function function : getFunctions())
+        {
+            text.append('\n').append(function);
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,280 @@
+package ir;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * LoopInvariantCodeMotion moves the instructions that compute the same value on every iteration
+ * of a loop out of the loop, into its preheader, so that they run once each time the loop is
+ * entered.
+ *
+ * The loops are the natural loops of the control-flow graph. An edge from a block to a block
+ * that dominates it is a back edge, and the loop of a header is the header together with every
+ * block that reaches one of its back edges without going through it. The preheader of a loop is
+ * the block every entry into the loop comes from. If the header has one predecessor outside the
+ * loop, and it only jumps to the header, that is the preheader; otherwise a new block is put in
+ * front of the header, and takes over the edges from outside the loop.
+ *
+ * An instruction is invariant if it cannot fail or have side effects, and every value it uses is
+ * defined outside the loop or by an instruction that has already been moved out. A LOADG is
+ * invariant only if the loop neither stores to the global nor calls a procedure. Moved
+ * instructions run even when the path through the loop that had them would not, which is why a
+ * division is only moved if its divisor is a nonzero constant. Inner loops are done first, so
+ * that what is invariant in an outer loop too moves on out of the inner loop's preheader.
+ *
+ * @author Ishan Mysore
+ * @version 10/17/26
+ */
+public class LoopInvariantCodeMotion implements Pass
+{
+    /**
+     * Returns the name of the pass.
+     * @return "licm"
+     */
+    public String getName()
+    {
+        return "licm";
+    }
+
+    /**
+     * Moves the invariant instructions of every loop of a function into preheaders.
+     * @param function the function
+     */
+    public void run(Function function)
+    {
+        Dominators dominators = new Dominators(function);
+        Map<BasicBlock, Set<BasicBlock>> loops = findLoops(dominators);
+        List<BasicBlock> headers = new ArrayList<BasicBlock>(loops.keySet());
+        Collections.sort(headers, Comparator.comparingInt(header -> loops.get(header).size()));
+        Map<BasicBlock, BasicBlock> created = new HashMap<BasicBlock, BasicBlock>();
+        for (BasicBlock header : headers)
+        {
+            Set<BasicBlock> loop = loops.get(header);
+            List<BasicBlock> order = new ArrayList<BasicBlock>();
+            for (BasicBlock block : dominators.getOrder())
+            {
+                BasicBlock inner = created.get(block);
+                if (inner != null && loop.contains(inner))
+                {
+                    order.add(inner);
+                }
+                if (loop.contains(block))
+                {
+                    order.add(block);
+                }
+            }
+            List<Instruction> invariant = findInvariant(function, loop, order);
+            if (invariant.isEmpty())
+            {
+                continue;
+            }
+            int limit = function.getBlockLimit();
+            BasicBlock preheader = getPreheader(function, header, loop);
+            if (preheader.getId() >= limit)
+            {
+                for (Set<BasicBlock> other : loops.values())
+                {
+                    if (other != loop && other.contains(header))
+                    {
+                        other.add(preheader);
+                    }
+                }
+                created.put(header, preheader);
+            }
+            List<Instruction> instructions = preheader.getInstructions();
+            for (Instruction instruction : invariant)
+            {
+                instruction.getBlock().getInstructions().remove(instruction);
+                preheader.insert(instructions.size() - 1, instruction);
+            }
+        }
+    }
+
+    /**
+     * Finds the natural loop of every block that is the target of a back edge.
+     * @param dominators the dominator tree of the function
+     * @return the blocks of each loop, by header, with the header included
+     */
+    private static Map<BasicBlock, Set<BasicBlock>> findLoops(Dominators dominators)
+    {
+        Map<BasicBlock, Set<BasicBlock>> loops = new LinkedHashMap<BasicBlock, Set<BasicBlock>>();
+        for (BasicBlock block : dominators.getOrder())
+        {
+            for (BasicBlock header : block.getSuccessors())
+            {
+                if (!dominators.dominates(header, block))
+                {
+                    continue;
+                }
+                Set<BasicBlock> loop = loops.get(header);
+                if (loop == null)
+                {
+                    loop = new HashSet<BasicBlock>();
+                    loop.add(header);
+                    loops.put(header, loop);
+                }
+                Deque<BasicBlock> pending = new ArrayDeque<BasicBlock>();
+                pending.push(block);
+                while (!pending.isEmpty())
+                {
+                    BasicBlock current = pending.pop();
+                    if (loop.add(current))
+                    {
+                        for (BasicBlock predecessor : current.getPredecessors())
+                        {
+                            if (dominators.isReachable(predecessor))
+                            {
+                                pending.push(predecessor);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return loops;
+    }
+
+    /**
+     * Finds the instructions of a loop that can be moved out of it, in an order in which each
+     * comes after those whose values it uses.
+     * @param function the function the loop is in
+     * @param loop the blocks of the loop
+     * @param order the blocks of the loop, in an order in which each comes after the blocks that
+     *        dominate it
+     * @return the invariant instructions
+     */
+    private static List<Instruction> findInvariant(Function function, Set<BasicBlock> loop,
+        List<BasicBlock> order)
+    {
+        Set<String> stored = new HashSet<String>();
+        boolean calls = false;
+        for (BasicBlock block : order)
+        {
+            for (Instruction instruction : block.getInstructions())
+            {
+                if (instruction.getOp() == Op.STOREG)
+                {
+                    stored.add(instruction.getName());
+                }
+                calls |= instruction.getOp() == Op.CALL;
+            }
+        }
+        List<Instruction> invariant = new ArrayList<Instruction>();
+        boolean[] moved = new boolean[function.getValueCount()];
+        for (BasicBlock block : order)
+        {
+            for (Instruction instruction : block.getInstructions())
+            {
+                Op op = instruction.getOp();
+                if (op == Op.PHI || op == Op.PARAM || !instruction.isRemovable(function)
+                    || op == Op.LOADG && (calls || stored.contains(instruction.getName())))
+                {
+                    continue;
+                }
+                boolean outside = true;
+                for (int arg : instruction.getArgs())
+                {
+                    BasicBlock definedIn = function.getDefinition(arg).getBlock();
+                    outside &= moved[arg] || !loop.contains(definedIn);
+                }
+                if (outside)
+                {
+                    moved[instruction.getDest()] = true;
+                    invariant.add(instruction);
+                }
+            }
+        }
+        return invariant;
+    }
+
+    /**
+     * Returns the preheader of a loop, making one if there is none.
+     * @param function the function the loop is in
+     * @param header the header of the loop
+     * @param loop the blocks of the loop
+     * @return the block every entry into the loop comes from, which only jumps to the header
+     */
+    private static BasicBlock getPreheader(Function function, BasicBlock header,
+        Set<BasicBlock> loop)
+    {
+        List<BasicBlock> predecessors = header.getPredecessors();
+        List<Integer> outside = new ArrayList<Integer>();
+        for (int i = 0; i < predecessors.size(); i++)
+        {
+            if (!loop.contains(predecessors.get(i)))
+            {
+                outside.add(i);
+            }
+        }
+        if (outside.size() == 1)
+        {
+            BasicBlock entry = predecessors.get(outside.get(0));
+            if (entry.getTerminator().getOp() == Op.JUMP)
+            {
+                return entry;
+            }
+        }
+        BasicBlock preheader = function.newBlock();
+        List<Instruction> phis = header.getPhis();
+        for (Instruction phi : phis)
+        {
+            int[] args = new int[outside.size()];
+            for (int i = 0; i < args.length; i++)
+            {
+                args[i] = phi.getArg(outside.get(i));
+            }
+            if (args.length == 1)
+            {
+                continue;
+            }
+            Instruction merged = function.newInstruction(Op.PHI, true, args, 0, null,
+                new BasicBlock[0]);
+            preheader.add(merged);
+        }
+        List<BasicBlock> inside = new ArrayList<BasicBlock>();
+        for (int i = 0; i < predecessors.size(); i++)
+        {
+            if (!loop.contains(predecessors.get(i)))
+            {
+                BasicBlock entry = predecessors.get(i);
+                preheader.addPredecessor(entry);
+                entry.getTerminator().retarget(header, preheader);
+            }
+            else
+            {
+                inside.add(predecessors.get(i));
+            }
+        }
+        Iterator<Instruction> merged = preheader.getInstructions().iterator();
+        for (Instruction phi : phis)
+        {
+            int[] args = new int[inside.size() + 1];
+            args[0] = outside.size() == 1 ? phi.getArg(outside.get(0)) : merged.next().getDest();
+            int next = 1;
+            for (int i = 0; i < predecessors.size(); i++)
+            {
+                if (loop.contains(predecessors.get(i)))
+                {
+                    args[next++] = phi.getArg(i);
+                }
+            }
+            phi.setArgs(args);
+        }
+        predecessors.clear();
+        predecessors.add(preheader);
+        predecessors.addAll(inside);
+        preheader.add(function.newInstruction(Op.JUMP, false, new int[0], 0, null,
+            new BasicBlock[] {header}));
+        return preheader;
+    }
+}
@@ -0,0 +1,395 @@
+package ir;
+
+import java.util.Arrays;
+import java.util.List;
+
+import emitter.Emitter;
+
+/**
+ * A MipsGenerator writes MIPS code for a program in three-address code, through an Emitter.
+ *
+ * Every value a function defines, other than a constant, gets a word of its own in the
+ * function's stack frame, and each instruction loads its operands into registers, computes, and
+ * stores its result. Constants are not stored at all; they are loaded with li wherever they are
+ * used. Taking the code out of SSA form is done with copies: each PHI has its own word, and the
+ * argument for each predecessor is copied into it at the end of that predecessor. Critical edges
+ * are split first, so that the copies only run on the edge they belong to. When one PHI of a
+ * block is the argument of another, the copies go through scratch words, since they all have to
+ * happen at once.
+ *
+ * A procedure is called with its arguments pushed in order, and returns its result in $v0. Its
+ * frame holds the values, the scratch words, and the return address, with the arguments of the
+ * call just above it. Blocks are laid out in reverse postorder, so that many jumps fall through.
+ *
+ * @author Ishan Mysore
+ * @version 10/17/26
+ */
+public class MipsGenerator
+{
+    private Emitter e;
+    private Function function;
+    private String prefix;
+    private int[] slots;
+    private int scratch;
+    private int frameSize;
+
+    /**
+     * Creates a new MipsGenerator.
+     * @param e the Emitter that writes code to the output file
+     */
+    public MipsGenerator(Emitter e)
+    {
+        this.e = e;
+    }
+
+    /**
+     * Writes the .data section with every global variable, and the .text section with the main
+     * program followed by the procedures.
+     * @param program the program
+     * @postcondition the critical edges of every function have been split
+     */
+    public void generate(IrProgram program)
+    {
+        e.emit(".data");
+        e.emit("nL: .asciiz \"\\n\"");
+        for (String global : program.getGlobals())
+        {
+            e.emit("var" + global + ":\t.word 0");
+        }
+        e.emit(".text");
+        e.emit(".globl main");
+        for (Function function : program.getFunctions())
+        {
+            generate(function);
+        }
+    }
+
+    /**
+     * Writes the code for one function.
+     * @param function the function
+     */
+    private void generate(Function function)
+    {
+        this.function = function;
+        new CriticalEdgeSplitting().run(function);
+        prefix = function.isMain() ? "main" : "proc" + function.getName();
+        List<BasicBlock> order = function.reversePostorder();
+        slots = new int[function.getValueCount()];
+        Arrays.fill(slots, -1);
+        int count = 0;
+        int maxPhis = 0;
+        for (BasicBlock block : order)
+        {
+            maxPhis = Math.max(maxPhis, block.getPhiCount());
+            for (Instruction instruction : block.getInstructions())
+            {
+                if (instruction.getDest() >= 0 && instruction.getOp() != Op.CONST)
+                {
+                    slots[instruction.getDest()] = count++;
+                }
+            }
+        }
+        scratch = count;
+        frameSize = 4 * (count + maxPhis + (function.isMain() ? 0 : 1));
+
+        e.emit(prefix + ":");
+        if (frameSize > 0)
+        {
+            e.emit("subu $sp $sp " + frameSize + "\t# make room for the frame");
+        }
+        if (!function.isMain())
+        {
+            e.emit("sw $ra " + (frameSize - 4) + "($sp)\t# save the return address");
+        }
+        for (int i = 0; i < order.size(); i++)
+        {
+            BasicBlock block = order.get(i);
+            BasicBlock next = i + 1 < order.size() ? order.get(i + 1) : null;
+            e.emit(label(block) + ":");
+            for (Instruction instruction : block.getInstructions())
+            {
+                generate(instruction, next);
+            }
+        }
+    }
+
+    /**
+     * Returns the label of a block.
+     * @param block the block
+     * @return the label, which is unique in the whole program
+     */
+    private String label(BasicBlock block)
+    {
+        return prefix + "_" + block;
+    }
+
+    /**
+     * Returns the offset from $sp of the word that holds a value.
+     * @param value the value, which is not a constant
+     * @return the offset
+     */
+    private int offset(int value)
+    {
+        return 4 * slots[value];
+    }
+
+    /**
+     * Loads a value into a register.
+     * @param register the register
+     * @param value the value
+     */
+    private void load(String register, int value)
+    {
+        Instruction definition = function.getDefinition(value);
+        if (definition.getOp() == Op.CONST)
+        {
+            e.emit("li " + register + " " + definition.getConstant());
+        }
+        else
+        {
+            e.emit("lw " + register + " " + offset(value) + "($sp)");
+        }
+    }
+
+    /**
+     * Stores a register into the word of a value.
+     * @param register the register
+     * @param value the value
+     */
+    private void store(String register, int value)
+    {
+        e.emit("sw " + register + " " + offset(value) + "($sp)");
+    }
+
+    /**
+     * Writes the code for one instruction.
+     * @param instruction the instruction
+     * @param next the block laid out after the one the instruction is in, or null if it is last
+     */
+    private void generate(Instruction instruction, BasicBlock next)
+    {
+        int dest = instruction.getDest();
+        int[] args = instruction.getArgs();
+        switch (instruction.getOp())
+        {
+            case CONST:
+            case PHI:
+                break;
+            case PARAM:
+                int param = function.getParamCount() - 1 - instruction.getConstant();
+                e.emit("lw $t0 " + (frameSize + 4 * param) + "($sp)\t# parameter "
+                    + instruction.getConstant());
+                store("$t0", dest);
+                break;
+            case COPY:
+                load("$t0", args[0]);
+                store("$t0", dest);
+                break;
+            case ADD:
+            case SUB:
+            case MUL:
+            case DIV:
+            case MOD:
+                generateArithmetic(instruction);
+                break;
+            case LOADG:
+                e.emit("la $t0 var" + instruction.getName());
+                e.emit("lw $t0 ($t0)");
+                store("$t0", dest);
+                break;
+            case STOREG:
+                load("$t1", args[0]);
+                e.emit("la $t0 var" + instruction.getName());
+                e.emit("sw $t1 ($t0)");
+                break;
+            case CALL:
+                for (int i = 0; i < args.length; i++)
+                {
+                    load("$t0", args[i]);
+                    e.emit("sw $t0 " + (-4 * (i + 1)) + "($sp)");
+                }
+                if (args.length > 0)
+                {
+                    e.emit("subu $sp $sp " + 4 * args.length + "\t# push the arguments");
+                }
+                e.emit("jal proc" + instruction.getName());
+                if (args.length > 0)
+                {
+                    e.emit("addu $sp $sp " + 4 * args.length + "\t# pop the arguments");
+                }
+                store("$v0", dest);
+                break;
+            case WRITE:
+                load("$a0", args[0]);
+                e.emit("li $v0 1");
+                e.emit("syscall");
+                e.emit("li $v0 4");
+                e.emit("la $a0 nL");
+                e.emit("syscall");
+                break;
+            case JUMP:
+                BasicBlock target = instruction.getTargets()[0];
+                copyPhiArguments(instruction.getBlock(), target);
+                if (target != next)
+                {
+                    e.emit("j " + label(target));
+                }
+                break;
+            case BRANCH:
+                generateBranch(instruction, next);
+                break;
+            default:
+                if (function.isMain())
+                {
+                    e.emit("li $v0 10\t# normal termination");
+                    e.emit("syscall");
+                }
+                else
+                {
+                    load("$v0", args[0]);
+                    e.emit("lw $ra " + (frameSize - 4) + "($sp)");
+                    e.emit("addu $sp $sp " + frameSize);
+                    e.emit("jr $ra");
+                }
+        }
+    }
+
+    /**
+     * Writes the code for an arithmetic operation. Adding or subtracting a constant that fits in
+     * an immediate uses addiu.
+     * @param instruction the operation
+     */
+    private void generateArithmetic(Instruction instruction)
+    {
+        Op op = instruction.getOp();
+        load("$t0", instruction.getArg(0));
+        Instruction right = function.getDefinition(instruction.getArg(1));
+        if ((op == Op.ADD || op == Op.SUB) && right.getOp() == Op.CONST
+            && Math.abs(right.getConstant()) < 32768)
+        {
+            int value = op == Op.ADD ? right.getConstant() : -right.getConstant();
+            e.emit("addiu $t0 $t0 " + value);
+            store("$t0", instruction.getDest());
+            return;
+        }
+        load("$t1", instruction.getArg(1));
+        switch (op)
+        {
+            case ADD:
+                e.emit("addu $t0 $t0 $t1");
+                break;
+            case SUB:
+                e.emit("subu $t0 $t0 $t1");
+                break;
+            case MUL:
+                e.emit("mult $t0 $t1");
+                e.emit("mflo $t0");
+                break;
+            case DIV:
+                e.emit("div $t0 $t1");
+                e.emit("mflo $t0");
+                break;
+            default:
+                e.emit("div $t0 $t1");
+                e.emit("mfhi $t0");
+        }
+        store("$t0", instruction.getDest());
+    }
+
+    /**
+     * Writes the code for a BRANCH, falling through to whichever target comes next if either
+     * does.
+     * @param instruction the BRANCH
+     * @param next the block laid out after the one the BRANCH is in, or null if it is last
+     */
+    private void generateBranch(Instruction instruction, BasicBlock next)
+    {
+        load("$t0", instruction.getArg(0));
+        load("$t1", instruction.getArg(1));
+        BasicBlock[] targets = instruction.getTargets();
+        if (targets[0] == next)
+        {
+            e.emit(mnemonic(Instruction.negate(instruction.getName())) + " $t0 $t1 "
+                + label(targets[1]));
+            return;
+        }
+        e.emit(mnemonic(instruction.getName()) + " $t0 $t1 " + label(targets[0]));
+        if (targets[1] != next)
+        {
+            e.emit("j " + label(targets[1]));
+        }
+    }
+
+    /**
+     * Returns the MIPS branch instruction for a relop.
+     * @param relop one of =, <>, <, <=, >, and >=
+     * @return the mnemonic
+     */
+    private static String mnemonic(String relop)
+    {
+        switch (relop)
+        {
+            case "=":
+                return "beq";
+            case "<>":
+                return "bne";
+            case "<":
+                return "blt";
+            case "<=":
+                return "ble";
+            case ">":
+                return "bgt";
+            default:
+                return "bge";
+        }
+    }
+
+    /**
+     * Copies the arguments of the PHIs of a block into them, at the end of one of its
+     * predecessors. If any argument is one of the PHIs, every argument is copied into a scratch
+     * word before any PHI is written.
+     * @precondition the predecessor has no other successor
+     * @param from the predecessor
+     * @param to the block
+     */
+    private void copyPhiArguments(BasicBlock from, BasicBlock to)
+    {
+        List<Instruction> phis = to.getPhis();
+        if (phis.isEmpty())
+        {
+            return;
+        }
+        int index = to.getPredecessors().indexOf(from);
+        boolean overlap = false;
+        for (Instruction phi : phis)
+        {
+            int arg = phi.getArg(index);
+            for (Instruction other : phis)
+            {
+                overlap |= other != phi && other.getDest() == arg;
+            }
+        }
+        if (!overlap)
+        {
+            for (Instruction phi : phis)
+            {
+                if (phi.getArg(index) != phi.getDest())
+                {
+                    load("$t0", phi.getArg(index));
+                    store("$t0", phi.getDest());
+                }
+            }
+            return;
+        }
+        for (int i = 0; i < phis.size(); i++)
+        {
+            load("$t0", phis.get(i).getArg(index));
+            e.emit("sw $t0 " + 4 * (scratch + i) + "($sp)");
+        }
+        for (int i = 0; i < phis.size(); i++)
+        {
+            e.emit("lw $t0 " + 4 * (scratch + i) + "($sp)");
+            store("$t0", phis.get(i).getDest());
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package ir;
+
+/**
+ * The operations of the three-address code. Each Instruction has one of these, defines at most
+ * one value, and uses the values in its arguments.
+ *
+ * @author Ishan Mysore
+ * @version 10/17/26
+ */
+public enum Op
+{
+    /** v = constant */
+    CONST,
+    /** v = the parameter whose index is the constant */
+    PARAM,
+    /** v = a */
+    COPY,
+    /** v = a + b */
+    ADD,
+    /** v = a - b */
+    SUB,
+    /** v = a * b */
+    MUL,
+    /** v = a / b */
+    DIV,
+    /** v = a mod b */
+    MOD,
+    /** v = the global variable named by the name */
+    LOADG,
+    /** The global variable named by the name = a. */
+    STOREG,
+    /** v = the result of calling the procedure named by the name with the arguments */
+    CALL,
+    /** Prints a on a line of its own. */
+    WRITE,
+    /** v = the argument for the predecessor the block was entered from */
+    PHI,
+    /** Jumps to the first target. */
+    JUMP,
+    /** Jumps to the first target if a relop b, where the name is the relop, or else the second. */
+    BRANCH,
+    /** Returns a from a procedure, or stops the main program. */
+    RETURN;
+
+    /**
+     * Determines if the operation ends a basic block.
+     * @return true for JUMP, BRANCH, and RETURN, false otherwise
+     */
+    public boolean isTerminator()
+    {
+        return this == JUMP || this == BRANCH || this == RETURN;
+    }
+
+    /**
+     * Determines if the operation is an arithmetic operation on two values.
+     * @return true for ADD, SUB, MUL, DIV, and MOD, false otherwise
+     */
+    public boolean isArithmetic()
+    {
+        return this == ADD || this == SUB || this == MUL || this == DIV || this == MOD;
+    }
+
+    /**
+     * Determines if the operation does something besides defining its value, so that it has to
+     * be kept even when its value is never used. DIV and MOD are not counted here, although they
+     * fail when dividing by 0 (see Instruction.isRemovable).
+     * @return true for STOREG, CALL, WRITE, and the terminators, false otherwise
+     */
+    public boolean hasSideEffects()
+    {
+        return this == STOREG || this == CALL || this == WRITE || isTerminator();
+    }
+}
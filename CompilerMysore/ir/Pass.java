@@ -0,0 +1,25 @@
+package ir;
+
+/**
+ * A Pass is one step of optimization, or of checking, that a PassManager runs over each Function
+ * of a program in turn.
+ *
+ * @author Ishan Mysore
+ * @version 10/17/26
+ */
+public interface Pass
+{
+    /**
+     * Returns the short name the pass is reported under.
+     * @return the name of the pass
+     */
+    String getName();
+
+    /**
+     * Runs the pass over one function, changing it in place.
+     * @precondition the function is in SSA form
+     * @param function the function
+     * @postcondition the function is still in SSA form, and computes the same results
+     */
+    void run(Function function);
+}
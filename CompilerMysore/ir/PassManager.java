@@ -0,0 +1,167 @@
+package ir;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A PassManager runs an ordered list of Passes over a program, and times each of them.
+ *
+ * Each pass runs over every function of the program before the next pass starts. The time each
+ * pass took is added up over every run, and a pass that is in the list twice is timed
+ * separately each time. If verifying is on, the Verifier checks every function after every
+ * pass, so that a pass that breaks the code is caught where it does so; the time that takes is
+ * not counted against the pass.
+ *
+ * @author Ishan Mysore
+ * @version 10/17/26
+ */
+public class PassManager
+{
+    private List<Pass> passes;
+    private List<Long> times;
+    private boolean verifying;
+
+    /**
+     * Creates a new PassManager with no passes.
+     */
+    public PassManager()
+    {
+        passes = new ArrayList<Pass>();
+        times = new ArrayList<Long>();
+    }
+
+    /**
+     * Creates a PassManager with the standard optimizations, in order: trivial PHIs are removed,
+     * constants are folded, the control-flow graph is simplified, redundant instructions are
+     * removed by value numbering, and then dead code is removed. Value numbering forwards the
+     * values stored into globals to the reads after them, which can make more constants, so
+     * constants are folded and the graph simplified once more after it. Loop-invariant code is
+     * then moved into preheaders, where value numbering can merge it with the same computations
+     * before the loop. Trivial PHIs are removed again after the passes that make more of them.
+     * @return the new PassManager
+     */
+    public static PassManager standard()
+    {
+        PassManager manager = new PassManager();
+        manager.add(new TrivialPhiElimination());
+        manager.add(new ConstantFolding());
+        manager.add(new CfgSimplification());
+        manager.add(new TrivialPhiElimination());
+        manager.add(new GlobalValueNumbering());
+        manager.add(new ConstantFolding());
+        manager.add(new CfgSimplification());
+        manager.add(new TrivialPhiElimination());
+        manager.add(new LoopInvariantCodeMotion());
+        manager.add(new GlobalValueNumbering());
+        manager.add(new DeadCodeElimination());
+        return manager;
+    }
+
+    /**
+     * Adds a pass to the end of the list.
+     * @param pass the pass
+     */
+    public void add(Pass pass)
+    {
+        passes.add(pass);
+        times.add(0L);
+    }
+
+    /**
+     * Returns the passes, in the order they run.
+     * @return the instance variable passes
+     */
+    public List<Pass> getPasses()
+    {
+        return passes;
+    }
+
+    /**
+     * Turns checking the code after every pass on or off.
+     * @param verifying true to run the Verifier after every pass, false otherwise
+     */
+    public void setVerifying(boolean verifying)
+    {
+        this.verifying = verifying;
+    }
+
+    /**
+     * Runs every pass, in order, over every function of a program.
+     * @param program the program
+     * @throws IllegalStateException if verifying is on and a pass leaves broken code
+     */
+    public void run(IrProgram program)
+    {
+        List<Function> functions = program.getFunctions();
+        Verifier verifier = new Verifier();
+        if (verifying)
+        {
+            verify(verifier, functions, "lowering");
+        }
+        for (int i = 0; i < passes.size(); i++)
+        {
+            Pass pass = passes.get(i);
+            long begin = System.nanoTime();
+            for (Function function : functions)
+            {
+                pass.run(function);
+            }
+            times.set(i, times.get(i) + System.nanoTime() - begin);
+            if (verifying)
+            {
+                verify(verifier, functions, pass.getName());
+            }
+        }
+    }
+
+    /**
+     * Verifies every function, and names the step that broke one if it fails.
+     * @param verifier the Verifier
+     * @param functions the functions
+     * @param step the name of the step that last changed them
+     * @throws IllegalStateException if a function is broken
+     */
+    private static void verify(Verifier verifier, List<Function> functions, String step)
+    {
+        for (Function function : functions)
+        {
+            try
+            {
+                verifier.run(function);
+            }
+            catch (IllegalStateException e)
+            {
+                throw new IllegalStateException("After " + step + ": " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Returns the total time one pass has taken over every run.
+     * @param index the position of the pass in the list
+     * @return the time in nanoseconds
+     */
+    public long getTime(int index)
+    {
+        return times.get(index);
+    }
+
+    /**
+     * Returns the time each pass has taken, one line per pass in the order they run, followed by
+     * the total.
+     * @return the report
+     */
+    public String getReport()
+    {
+        StringBuilder report = new StringBuilder();
+        long total = 0;
+        for (int i = 0; i < passes.size(); i++)
+        {
+            report.append(String.format("%2d. %-12s %10.3f ms%n", i + 1, passes.get(i).getName(),
+                times.get(i) / 1e6));
+            total += times.get(i);
+        }
+        report.append(String.format("    %-12s %10.3f ms%n", "total", total / 1e6));
+        return report.toString();
+    }
+}
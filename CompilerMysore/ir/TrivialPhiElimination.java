@@ -0,0 +1,93 @@
+package ir;
+
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * TrivialPhiElimination removes the PHIs that do not actually merge anything: those whose
+ * arguments are all the same value, apart from the PHI itself. Such a PHI is simply that value.
+ *
+ * The IrBuilder leaves many of them behind, for instance in the head of a loop for every
+ * variable that is read in the loop but not assigned, and other passes make more by deleting
+ * edges. Removing one can make others trivial, so the pass repeats until none is left.
+ *
+ * @author Ishan Mysore
+ * @version 10/17/26
+ */
+public class TrivialPhiElimination implements Pass
+{
+    /**
+     * Returns the name of the pass.
+     * @return "phi"
+     */
+    public String getName()
+    {
+        return "phi";
+    }
+
+    /**
+     * Removes the trivial PHIs of a function.
+     * @param function the function
+     */
+    public void run(Function function)
+    {
+        int[] replacements = new int[function.getValueCount()];
+        Arrays.fill(replacements, -1);
+        boolean changed = true;
+        boolean removed = false;
+        while (changed)
+        {
+            changed = false;
+            for (BasicBlock block : function.getBlocks())
+            {
+                Iterator<Instruction> instructions = block.getInstructions().iterator();
+                while (instructions.hasNext())
+                {
+                    Instruction phi = instructions.next();
+                    if (phi.getOp() != Op.PHI)
+                    {
+                        break;
+                    }
+                    int same = sameArgument(phi, replacements);
+                    if (same >= 0)
+                    {
+                        replacements[phi.getDest()] = same;
+                        instructions.remove();
+                        changed = true;
+                        removed = true;
+                    }
+                }
+            }
+        }
+        if (removed)
+        {
+            function.replaceAllUses(replacements);
+        }
+    }
+
+    /**
+     * Finds the one value a PHI merges, if it is trivial.
+     * @param phi the PHI
+     * @param replacements the replacements found so far
+     * @return the value every argument other than the PHI itself stands for, or -1 if there are
+     *         two different ones or none at all
+     */
+    private static int sameArgument(Instruction phi, int[] replacements)
+    {
+        int same = -1;
+        for (int arg : phi.getArgs())
+        {
+            int value = Function.resolve(replacements, arg);
+            if (value == phi.getDest() || value == same)
+            {
+                continue;
+            }
+            if (same >= 0)
+            {
+                return -1;
+            }
+            same = value;
+        }
+        return same;
+    }
+}
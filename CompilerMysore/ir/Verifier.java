@@ -0,0 +1,183 @@
+package ir;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The Verifier checks that a Function is well formed, and fails loudly if it is not: it is run
+ * after every pass while passes are being debugged (see PassManager.setVerifying).
+ *
+ * It checks that every block ends with exactly one terminator and starts with its PHIs, that each
+ * PHI has one argument per predecessor, that the predecessors of each block are exactly the
+ * blocks that jump to it, that each value is defined once, and that every use of a value is
+ * dominated by its definition, which for the argument of a PHI means the end of the matching
+ * predecessor. Blocks that cannot be reached are only checked for their shape.
+ *
+ * @author Ishan Mysore
+ * @version 10/17/26
+ */
+public class Verifier implements Pass
+{
+    /**
+     * Returns the name of the pass.
+     * @return "verify"
+     */
+    public String getName()
+    {
+        return "verify";
+    }
+
+    /**
+     * Checks a function.
+     * @param function the function
+     * @throws IllegalStateException if the function is not well formed
+     */
+    public void run(Function function)
+    {
+        List<BasicBlock> blocks = function.getBlocks();
+        Set<BasicBlock> inFunction = new HashSet<BasicBlock>(blocks);
+        if (!function.getEntry().getPredecessors().isEmpty())
+        {
+            fail(function, "the entry block has predecessors");
+        }
+        Map<Integer, Instruction> defined = new HashMap<Integer, Instruction>();
+        for (BasicBlock block : blocks)
+        {
+            checkShape(function, block, inFunction);
+            for (Instruction instruction : block.getInstructions())
+            {
+                if (instruction.getBlock() != block)
+                {
+                    fail(function, instruction + " in " + block + " belongs to another block");
+                }
+                int dest = instruction.getDest();
+                if (dest >= 0)
+                {
+                    if (defined.put(dest, instruction) != null)
+                    {
+                        fail(function, "v" + dest + " is defined twice");
+                    }
+                    if (function.getDefinition(dest) != instruction)
+                    {
+                        fail(function, "the definition of v" + dest + " is out of date");
+                    }
+                }
+            }
+        }
+        Dominators dominators = new Dominators(function);
+        for (BasicBlock block : dominators.getOrder())
+        {
+            Set<Integer> earlier = new HashSet<Integer>();
+            for (Instruction instruction : block.getInstructions())
+            {
+                int[] args = instruction.getArgs();
+                for (int k = 0; k < args.length; k++)
+                {
+                    Instruction definition = defined.get(args[k]);
+                    if (definition == null)
+                    {
+                        fail(function, instruction + " in " + block + " uses an undefined value");
+                    }
+                    BasicBlock at = instruction.getOp() == Op.PHI
+                        ? block.getPredecessors().get(k) : block;
+                    boolean before = definition.getBlock() != at
+                        ? dominators.dominates(definition.getBlock(), at)
+                        : instruction.getOp() == Op.PHI || earlier.contains(args[k]);
+                    if (!before && dominators.isReachable(at))
+                    {
+                        fail(function, instruction + " in " + block + " uses v" + args[k]
+                            + " where its definition does not dominate it");
+                    }
+                }
+                earlier.add(instruction.getDest());
+            }
+        }
+    }
+
+    /**
+     * Checks the instructions and edges of one block.
+     * @param function the function the block is in
+     * @param block the block
+     * @param inFunction the blocks of the function
+     * @throws IllegalStateException if the block is not well formed
+     */
+    private static void checkShape(Function function, BasicBlock block, Set<BasicBlock> inFunction)
+    {
+        List<Instruction> instructions = block.getInstructions();
+        if (block.getTerminator() == null)
+        {
+            fail(function, block + " does not end with a terminator");
+        }
+        int phis = block.getPhiCount();
+        for (int i = 0; i < instructions.size(); i++)
+        {
+            Instruction instruction = instructions.get(i);
+            if (instruction.getOp().isTerminator() && i != instructions.size() - 1)
+            {
+                fail(function, block + " has a terminator before its end");
+            }
+            if (instruction.getOp() == Op.PHI && i >= phis)
+            {
+                fail(function, block + " has a PHI after another instruction");
+            }
+            if (instruction.getOp() == Op.PHI
+                && instruction.getArgs().length != block.getPredecessors().size())
+            {
+                fail(function, instruction + " does not have one argument per predecessor");
+            }
+        }
+        for (BasicBlock successor : block.getSuccessors())
+        {
+            if (!inFunction.contains(successor))
+            {
+                fail(function, block + " jumps to " + successor + ", which is not in the function");
+            }
+            if (count(successor.getPredecessors(), block)
+                != count(block.getSuccessors(), successor))
+            {
+                fail(function, block + " is not listed as a predecessor of " + successor);
+            }
+        }
+        for (BasicBlock predecessor : block.getPredecessors())
+        {
+            if (!inFunction.contains(predecessor) || !predecessor.getSuccessors().contains(block))
+            {
+                fail(function, predecessor + " is listed as a predecessor of " + block
+                    + ", but does not jump to it");
+            }
+        }
+    }
+
+    /**
+     * Counts the occurrences of a block in a list.
+     * @param blocks the list
+     * @param block the block
+     * @return the number of occurrences
+     */
+    private static int count(List<BasicBlock> blocks, BasicBlock block)
+    {
+        int count = 0;
+        for (BasicBlock other : blocks)
+        {
+            if (other == block)
+            {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Reports a broken function.
+     * @param function the function
+     * @param problem what is wrong with it
+     * @throws IllegalStateException always
+     */
+    private static void fail(Function function, String problem)
+    {
+        throw new IllegalStateException(function.getName() + ": " + problem);
+    }
+}
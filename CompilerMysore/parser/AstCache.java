@@ -0,0 +1,175 @@
+package parser;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import ast.FlatTree;
+import ast.Program;
+import scanner.ScanErrorException;
+import scanner.Scanner;
+
+/**
+ * This class keeps parsed programs in a directory on disk, so that a source file that has not
+ * changed since it was last compiled skips the scanner and parser entirely.
+ *
+ * Each program is stored as a FlatTree in its binary form, in a file named by the SHA-256 hash
+ * of FlatTree.FORMAT_VERSION followed by the source file's bytes. Changing either the source or
+ * the format therefore misses the cache. A cache file that cannot be read, for any reason, is
+ * treated as a miss and written again.
+ *
+ * @author Ishan Mysore
+ * @version 10/17/26
+ */
+public class AstCache
+{
+    private File directory;
+    private int hits;
+    private int misses;
+
+    /**
+     * Creates a new AstCache that stores its files in the given directory.
+     * @param directory the directory to store cached trees in; created if it does not exist
+     */
+    public AstCache(File directory)
+    {
+        this.directory = directory;
+        hits = 0;
+        misses = 0;
+    }
+
+    /**
+     * Returns the program in the given source file, from the cache if possible.
+     * @param source the Pascal source file
+     * @return the parsed program
+     * @throws IOException if the source file cannot be read
+     * @throws ScanErrorException if the source file contains a syntax error
+     */
+    public Program load(File source) throws IOException, ScanErrorException
+    {
+        FlatTree tree = loadTree(source);
+        return tree.toProgram(tree.size() - 1);
+    }
+
+    /**
+     * Returns the FlatTree for the given source file, from the cache if possible. On a miss the
+     * source is parsed and the tree is added to the cache.
+     * @param source the Pascal source file
+     * @return the FlatTree, whose last node is the PROGRAM node
+     * @throws IOException if the source file cannot be read
+     * @throws ScanErrorException if the source file contains a syntax error
+     */
+    public FlatTree loadTree(File source) throws IOException, ScanErrorException
+    {
+        byte[] bytes = Files.readAllBytes(source.toPath());
+        File entry = new File(directory, key(bytes) + ".ast");
+        if (entry.isFile())
+        {
+            try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(entry.toPath()))))
+            {
+                FlatTree tree = FlatTree.read(in);
+                if (tree.size() > 0 && tree.getOp(tree.size() - 1) == FlatTree.PROGRAM)
+                {
+                    hits++;
+                    return tree;
+                }
+            }
+            catch (IOException | RuntimeException e)
+            {
+                // a damaged or unreadable entry is a miss, and is replaced below
+            }
+            entry.delete();
+        }
+        misses++;
+        FlatParser parser = new FlatParser(new Scanner(new ByteArrayInputStream(bytes)));
+        parser.parseProgram();
+        FlatTree tree = parser.getTree();
+        store(tree, entry);
+        return tree;
+    }
+
+    /**
+     * Writes a tree to the cache. The tree is written to a temporary file that is then renamed,
+     * so another compiler sharing the directory never reads a partly written entry.
+     * @param tree the tree to store
+     * @param entry the cache file to store it in
+     * @throws IOException if the directory cannot be written
+     */
+    private void store(FlatTree tree, File entry) throws IOException
+    {
+        directory.mkdirs();
+        Path temp = Files.createTempFile(directory.toPath(), "ast", ".tmp");
+        try
+        {
+            try (OutputStream file = Files.newOutputStream(temp);
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file)))
+            {
+                tree.write(out);
+            }
+            Files.move(temp, entry.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        }
+        finally
+        {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Computes the cache key for a source file.
+     * @param source the bytes of the source file
+     * @return the SHA-256 hash of the FlatTree format version and the source, in hexadecimal
+     */
+    static String key(byte[] source)
+    {
+        MessageDigest digest;
+        try
+        {
+            digest = MessageDigest.getInstance("SHA-256");
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new RuntimeException(e);
+        }
+        digest.update(("FlatTree " + FlatTree.FORMAT_VERSION).getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        byte[] hash = digest.digest(source);
+        StringBuilder hex = new StringBuilder();
+        for (byte b : hash)
+        {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16));
+            hex.append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * Returns the number of loads that were served from the cache.
+     * @return the instance variable hits
+     */
+    public int getHits()
+    {
+        return hits;
+    }
+
+    /**
+     * Returns the number of loads that had to scan and parse the source.
+     * @return the instance variable misses
+     */
+    public int getMisses()
+    {
+        return misses;
+    }
+}
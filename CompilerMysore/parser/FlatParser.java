@@ -0,0 +1,480 @@
+package parser;
+
+import java.util.Arrays;
+
+import ast.FlatTree;
+import scanner.ScanErrorException;
+import scanner.TokenSource;
+import scanner.TokenType;
+
+/**
+ * This class parses the same language as Parser, but builds a FlatTree instead of the ordinary
+ * AST objects. Every parse method returns the index of the node it added, and names are stored
+ * as symbol IDs straight from the TokenSource, so parsing a program allocates almost nothing but
+ * the tree's own arrays.
+ *
+ * @author Ishan Mysore
+ * @version 10/17/26
+ */
+public class FlatParser
+{
+    private static final TokenType[] TOKEN_TYPES = TokenType.values();
+
+    private TokenSource scanner;
+    private TokenType currentToken;
+    private FlatTree tree;
+
+    /**
+     * Instantiates a new FlatParser and an empty FlatTree for it to build.
+     * @param s the TokenSource that this parser will use
+     * @throws ScanErrorException result of calling the next() method of the TokenSource
+     */
+    public FlatParser(TokenSource s) throws ScanErrorException
+    {
+        scanner = s;
+        tree = new FlatTree(s.getSymbols());
+        currentToken = scanner.next();
+    }
+
+    /**
+     * Returns the tree this parser builds.
+     * @return the instance variable tree
+     */
+    public FlatTree getTree()
+    {
+        return tree;
+    }
+
+    /**
+     * A growable stack of ints, used to hold node indexes while they wait for their parent.
+     */
+    private static class IntStack
+    {
+        private int[] items = new int[16];
+        private int size;
+
+        /**
+         * Pushes an int onto the stack.
+         * @param item the int to push
+         */
+        void push(int item)
+        {
+            if (size == items.length)
+            {
+                items = Arrays.copyOf(items, size * 2);
+            }
+            items[size++] = item;
+        }
+
+        /**
+         * Pops the top int off the stack.
+         * @return the int that was on top
+         */
+        int pop()
+        {
+            return items[--size];
+        }
+
+        /**
+         * Returns the top int without removing it.
+         * @return the int on top
+         */
+        int peek()
+        {
+            return items[size - 1];
+        }
+
+        /**
+         * Determines if the stack is empty.
+         * @return true if the stack holds nothing, false otherwise
+         */
+        boolean isEmpty()
+        {
+            return size == 0;
+        }
+    }
+
+    /**
+     * Advances to the next token if currentToken is the expected one.
+     * @param expected the expected TokenType
+     * @throws ScanErrorException if currentToken does not equal expected
+     */
+    private void eat(TokenType expected) throws ScanErrorException
+    {
+        if (currentToken == expected)
+        {
+            currentToken = scanner.next();
+        }
+        else
+        {
+            throw new ScanErrorException("Expected " + expected + " but received "
+                + scanner.getText() + ".");
+        }
+    }
+
+    /**
+     * Eats an identifier and returns its symbol ID.
+     * @return the symbol ID of the identifier
+     * @throws ScanErrorException if current token is not an identifier
+     */
+    private int eatIdentifier() throws ScanErrorException
+    {
+        int symbol = currentToken == TokenType.IDENTIFIER ? scanner.getSymbol() : -1;
+        eat(TokenType.IDENTIFIER);
+        return symbol;
+    }
+
+    /**
+     * Returns the opcode for a binary operator token.
+     * @param op the operator's TokenType
+     * @return the FlatTree opcode of the operator
+     */
+    private static byte opcode(TokenType op)
+    {
+        switch (op)
+        {
+            case PLUS:
+                return FlatTree.ADD;
+            case MINUS:
+                return FlatTree.SUBTRACT;
+            case TIMES:
+                return FlatTree.MULTIPLY;
+            case DIVIDE:
+                return FlatTree.DIVIDE;
+            case MOD:
+                return FlatTree.MOD;
+            case EQUAL:
+                return FlatTree.EQUAL;
+            case NOT_EQUAL:
+                return FlatTree.NOT_EQUAL;
+            case LESS:
+                return FlatTree.LESS;
+            case LESS_EQUAL:
+                return FlatTree.LESS_EQUAL;
+            case GREATER:
+                return FlatTree.GREATER;
+            default:
+                return FlatTree.GREATER_EQUAL;
+        }
+    }
+
+    /**
+     * Returns the binding strength of a binary operator: * / mod bind tighter than + -.
+     * @param op the operator's TokenType
+     * @return 2 for * / mod, 1 for + -, or 0 if op is not a binary operator
+     */
+    private static int precedence(TokenType op)
+    {
+        switch (op)
+        {
+            case TIMES:
+            case DIVIDE:
+            case MOD:
+                return 2;
+            case PLUS:
+            case MINUS:
+                return 1;
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * Pops the top operator and its two operands, and pushes the node that combines them.
+     * @param operands the operand stack
+     * @param operators the operator stack, holding TokenType ordinals
+     */
+    private void reduce(IntStack operands, IntStack operators)
+    {
+        byte op = opcode(TOKEN_TYPES[operators.pop()]);
+        int exp2 = operands.pop();
+        int exp1 = operands.pop();
+        operands.push(tree.add(op, 0, exp1, exp2));
+    }
+
+    /**
+     * Applies the given number of unary minuses to an expression node. A negated NUMBER is
+     * negated in place; anything else is multiplied by -1.
+     * @param node the expression node to negate
+     * @param negations the number of unary minuses in front of the expression
+     * @return the negated expression node
+     */
+    private int negate(int node, int negations)
+    {
+        if (negations % 2 == 0)
+        {
+            return node;
+        }
+        if (tree.getOp(node) == FlatTree.NUMBER)
+        {
+            tree.setPayload(node, -tree.getPayload(node));
+            return node;
+        }
+        return tree.add(FlatTree.MULTIPLY, 0, tree.add(FlatTree.NUMBER, -1), node);
+    }
+
+    /**
+     * Parses a factor, which is a number, a variable, or a procedure call.
+     * @return the index of the factor's node
+     * @throws ScanErrorException if currentToken does not begin a factor
+     */
+    public int parseFactor() throws ScanErrorException
+    {
+        if (currentToken == TokenType.NUMBER)
+        {
+            int value = scanner.getValue();
+            eat(TokenType.NUMBER);
+            return tree.add(FlatTree.NUMBER, value);
+        }
+        int name = eatIdentifier();
+        if (currentToken == TokenType.LEFT_PAREN)
+        {
+            eat(TokenType.LEFT_PAREN);
+            IntStack args = new IntStack();
+            while (currentToken != TokenType.RIGHT_PAREN)
+            {
+                args.push(parseExpression());
+                if (currentToken == TokenType.COMMA)
+                {
+                    eat(TokenType.COMMA);
+                }
+            }
+            eat(TokenType.RIGHT_PAREN);
+            return tree.add(FlatTree.CALL, name, args.items, args.size);
+        }
+        return tree.add(FlatTree.VARIABLE, name);
+    }
+
+    /**
+     * Parses an expression by precedence climbing over explicit stacks, exactly as
+     * Parser.parseExpression() does.
+     * @return the index of the expression's node
+     * @throws ScanErrorException if the expression is malformed
+     */
+    public int parseExpression() throws ScanErrorException
+    {
+        IntStack operands = new IntStack();
+        IntStack operators = new IntStack();
+        IntStack pendingNegations = new IntStack();
+        int leftParen = TokenType.LEFT_PAREN.ordinal();
+        while (true)
+        {
+            int negations = 0;
+            while (currentToken == TokenType.MINUS)
+            {
+                eat(TokenType.MINUS);
+                negations++;
+            }
+            if (currentToken == TokenType.LEFT_PAREN)
+            {
+                eat(TokenType.LEFT_PAREN);
+                operators.push(leftParen);
+                pendingNegations.push(negations);
+                continue;
+            }
+            operands.push(negate(parseFactor(), negations));
+            while (currentToken == TokenType.RIGHT_PAREN && !pendingNegations.isEmpty())
+            {
+                eat(TokenType.RIGHT_PAREN);
+                while (operators.peek() != leftParen)
+                {
+                    reduce(operands, operators);
+                }
+                operators.pop();
+                operands.push(negate(operands.pop(), pendingNegations.pop()));
+            }
+            int prec = precedence(currentToken);
+            if (prec == 0)
+            {
+                break;
+            }
+            while (!operators.isEmpty() && operators.peek() != leftParen
+                && precedence(TOKEN_TYPES[operators.peek()]) >= prec)
+            {
+                reduce(operands, operators);
+            }
+            operators.push(currentToken.ordinal());
+            eat(currentToken);
+        }
+        if (!pendingNegations.isEmpty())
+        {
+            throw new ScanErrorException("Expected ) but received " + scanner.getText() + ".");
+        }
+        while (!operators.isEmpty())
+        {
+            reduce(operands, operators);
+        }
+        return operands.pop();
+    }
+
+    /**
+     * Parses a condition: an expression, a relational operator, and another expression.
+     * @return the index of the condition's node
+     * @throws ScanErrorException if the condition is malformed
+     */
+    public int parseCondition() throws ScanErrorException
+    {
+        int exp1 = parseExpression();
+        TokenType relop = currentToken;
+        if (!relop.isRelop())
+        {
+            throw new ScanErrorException("Expected a relational operator but received "
+                + scanner.getText() + ".");
+        }
+        eat(relop);
+        int exp2 = parseExpression();
+        return tree.add(opcode(relop), 0, exp1, exp2);
+    }
+
+    /**
+     * Parses a statement.
+     * @return the index of the statement's node, or -1 at EOF
+     * @throws ScanErrorException if the statement is malformed
+     */
+    public int parseStatement() throws ScanErrorException
+    {
+        switch (currentToken)
+        {
+            case WRITELN:
+            {
+                eat(TokenType.WRITELN);
+                eat(TokenType.LEFT_PAREN);
+                int exp = parseExpression();
+                eat(TokenType.RIGHT_PAREN);
+                eat(TokenType.SEMICOLON);
+                return tree.add(FlatTree.WRITELN, 0, exp);
+            }
+            case BEGIN:
+            {
+                eat(TokenType.BEGIN);
+                IntStack stmts = new IntStack();
+                while (currentToken != TokenType.END)
+                {
+                    stmts.push(parseStatement());
+                }
+                eat(TokenType.END);
+                eat(TokenType.SEMICOLON);
+                return tree.add(FlatTree.BLOCK, 0, stmts.items, stmts.size);
+            }
+            case IF:
+            {
+                eat(TokenType.IF);
+                int condition = parseCondition();
+                eat(TokenType.THEN);
+                int statement = parseStatement();
+                if (currentToken == TokenType.ELSE)
+                {
+                    eat(TokenType.ELSE);
+                    int elseStatement = parseStatement();
+                    return tree.add(FlatTree.IF, 0, condition, statement, elseStatement);
+                }
+                return tree.add(FlatTree.IF, 0, condition, statement);
+            }
+            case WHILE:
+            {
+                eat(TokenType.WHILE);
+                int condition = parseCondition();
+                eat(TokenType.DO);
+                int statement = parseStatement();
+                return tree.add(FlatTree.WHILE, 0, condition, statement);
+            }
+            case FOR:
+            {
+                eat(TokenType.FOR);
+                int variable = eatIdentifier();
+                eat(TokenType.ASSIGN);
+                int start = parseExpression();
+                eat(TokenType.TO);
+                int end = parseExpression();
+                eat(TokenType.DO);
+                int statement = parseStatement();
+                return tree.add(FlatTree.FOR, variable, start, end, statement);
+            }
+            case BREAK:
+                eat(TokenType.BREAK);
+                eat(TokenType.SEMICOLON);
+                return tree.add(FlatTree.BREAK, 0);
+            case CONTINUE:
+                eat(TokenType.CONTINUE);
+                eat(TokenType.SEMICOLON);
+                return tree.add(FlatTree.CONTINUE, 0);
+            case EOF:
+                return -1;
+            default:
+            {
+                int variable = eatIdentifier();
+                eat(TokenType.ASSIGN);
+                int expression = parseExpression();
+                eat(TokenType.SEMICOLON);
+                return tree.add(FlatTree.ASSIGN, variable, expression);
+            }
+        }
+    }
+
+    /**
+     * Parses a list of names after VAR, adding a node with the given opcode for each.
+     * @param op the opcode to give each name's node
+     * @param names the stack to push the new nodes onto
+     * @throws ScanErrorException if the list is malformed
+     */
+    private void parseNames(byte op, IntStack names) throws ScanErrorException
+    {
+        eat(TokenType.VAR);
+        while (currentToken != TokenType.SEMICOLON)
+        {
+            names.push(tree.add(op, eatIdentifier()));
+            if (currentToken == TokenType.COMMA)
+            {
+                eat(TokenType.COMMA);
+            }
+        }
+        eat(TokenType.SEMICOLON);
+    }
+
+    /**
+     * Parses the entire program: its variables, its procedures, and its main statement.
+     * @return the index of the PROGRAM node, which is always the last node in the tree
+     * @throws ScanErrorException if the program is malformed
+     */
+    public int parseProgram() throws ScanErrorException
+    {
+        IntStack children = new IntStack();
+        while (currentToken == TokenType.VAR)
+        {
+            parseNames(FlatTree.GLOBAL, children);
+        }
+        while (currentToken == TokenType.PROCEDURE)
+        {
+            eat(TokenType.PROCEDURE);
+            int name = eatIdentifier();
+            IntStack parts = new IntStack();
+            eat(TokenType.LEFT_PAREN);
+            while (currentToken != TokenType.RIGHT_PAREN)
+            {
+                parts.push(tree.add(FlatTree.PARAM, eatIdentifier()));
+                if (currentToken == TokenType.COMMA)
+                {
+                    eat(TokenType.COMMA);
+                }
+            }
+            eat(TokenType.RIGHT_PAREN);
+            eat(TokenType.SEMICOLON);
+            if (currentToken == TokenType.VAR)
+            {
+                parseNames(FlatTree.LOCAL, parts);
+            }
+            int body = parseStatement();
+            if (body >= 0)
+            {
+                parts.push(body);
+            }
+            children.push(tree.add(FlatTree.PROCEDURE, name, parts.items, parts.size));
+        }
+        int main = parseStatement();
+        if (main >= 0)
+        {
+            children.push(main);
+        }
+        return tree.add(FlatTree.PROGRAM, 0, children.items, children.size);
+    }
+}
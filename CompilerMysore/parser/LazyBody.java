@@ -0,0 +1,215 @@
+package parser;
+
+import ast.Effects;
+import ast.Hoister;
+import ast.ProcedureDeclaration;
+import ast.Statement;
+import emitter.Emitter;
+import environment.Environment;
+import environment.Scope;
+import ir.IrBuilder;
+import scanner.ScanErrorException;
+import scanner.TokenArray;
+import vm.BytecodeBuilder;
+
+/**
+ * This class is a statement that stands in for a procedure body that has not been parsed yet.
+ * 
+ * It holds the tokens of the body, and parses them into the real Statement the first time the
+ * body is executed or compiled. After that, it simply passes every call on to the parsed body.
+ * 
+ * @author Ishan Mysore
+ * @version 10/17/26
+ */
+public class LazyBody extends Statement
+{
+    private TokenArray tokens;
+    private volatile Statement body;
+    private Scope scope;
+    private ProcedureDeclaration tailProcedure;
+
+    /**
+     * Creates a new LazyBody for the body that begins at the first token of the given tokens.
+     * @param tokens the tokens of the body, positioned so that next() returns its first token
+     */
+    LazyBody(TokenArray tokens)
+    {
+        this.tokens = tokens;
+    }
+
+    /**
+     * Returns the parsed body, parsing it if this is the first time it has been needed. Once the
+     * body is parsed, it is read without taking the lock; it is only published after it has been
+     * resolved and its tail calls marked, so no thread sees a partly prepared body.
+     * @return the Statement the body's tokens parse to
+     * @throws RuntimeException if the body contains a syntax error
+     */
+    public Statement getBody()
+    {
+        Statement parsed = body;
+        if (parsed != null)
+        {
+            return parsed;
+        }
+        synchronized (this)
+        {
+            if (body == null)
+            {
+                try
+                {
+                    parsed = new Parser(tokens).parseStatement();
+                    if (scope != null)
+                    {
+                        parsed.resolve(scope);
+                    }
+                    if (tailProcedure != null)
+                    {
+                        parsed.markTailCalls(tailProcedure);
+                    }
+                }
+                catch (ScanErrorException e)
+                {
+                    throw new RuntimeException(e.getMessage(), e);
+                }
+                tokens = null;
+                body = parsed;
+            }
+            return body;
+        }
+    }
+
+    /**
+     * Determines if the body has been parsed yet.
+     * @return true if the body has been parsed, false otherwise
+     */
+    public boolean isParsed()
+    {
+        return body != null;
+    }
+
+    /**
+     * Parses the body, if it has not been parsed yet.
+     */
+    public void build()
+    {
+        getBody();
+    }
+
+    /**
+     * Executes the body, parsing it first if needed.
+     * @param env the environment to execute the body in
+     * @return the completion of the body
+     */
+    public int exec(Environment env)
+    {
+        return getBody().exec(env);
+    }
+
+    /**
+     * Generates MIPS code for the body, parsing it first if needed.
+     * @param e the Emitter that writes code to the output file
+     */
+    public void compile(Emitter e)
+    {
+        getBody().compile(e);
+    }
+
+    /**
+     * Resolves the body in the given scope, or remembers the scope so that the body is resolved
+     * in it as soon as it is parsed.
+     * @param scope the scope of the procedure
+     */
+    public synchronized void resolve(Scope scope)
+    {
+        if (body == null)
+        {
+            this.scope = scope;
+        }
+        else
+        {
+            body.resolve(scope);
+        }
+    }
+
+    /**
+     * Specializes the statement, building it first if needed.
+     * @param env the environment the statement will first be executed in
+     * @return the specialized statement
+     */
+    public Statement specialize(Environment env)
+    {
+        return getBody().specialize(env);
+    }
+
+    /**
+     * Lowers the body to bytecode, parsing it first if needed.
+     * @param b the BytecodeBuilder the instructions are added to
+     */
+    public void compile(BytecodeBuilder b)
+    {
+        getBody().compile(b);
+    }
+
+    /**
+     * Lowers the body to three-address code, parsing it first if needed.
+     * @param b the IrBuilder the instructions are added to
+     */
+    public void lower(IrBuilder b)
+    {
+        getBody().lower(b);
+    }
+
+    /**
+     * Adds the effects of the body, parsing it first if needed.
+     * @param effects the Effects to add to
+     */
+    public void addEffects(Effects effects)
+    {
+        getBody().addEffects(effects);
+    }
+
+    /**
+     * Marks the tail calls of the body, or remembers the procedure so that they are marked as
+     * soon as it is parsed.
+     * @param procedure the procedure whose body this is
+     */
+    public synchronized void markTailCalls(ProcedureDeclaration procedure)
+    {
+        if (body == null)
+        {
+            tailProcedure = procedure;
+        }
+        else
+        {
+            body.markTailCalls(procedure);
+        }
+    }
+
+    /**
+     * Prunes the body, parsing it first if needed.
+     * @return the pruned body, which takes the place of this one
+     */
+    public Statement prune()
+    {
+        return getBody().prune();
+    }
+
+    /**
+     * Determines if the body always ends abruptly, parsing it first if needed.
+     * @return true if the body always ends with a BREAK or CONTINUE, false otherwise
+     */
+    public boolean endsAbruptly()
+    {
+        return getBody().endsAbruptly();
+    }
+
+    /**
+     * Hoists the invariant parts of the body, parsing it first if needed.
+     * @param h the Hoister, which knows the loops the body is in
+     * @return the hoisted body, which takes the place of this one
+     */
+    public Statement hoist(Hoister h)
+    {
+        return getBody().hoist(h);
+    }
+}
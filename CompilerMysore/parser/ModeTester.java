@@ -0,0 +1,198 @@
+package parser;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.PrintStream;
+
+import ast.Memoizer;
+import ast.Program;
+import ast.Tiering;
+import environment.Environment;
+import environment.MemoryOutput;
+import environment.Output;
+import ir.GlobalValueNumbering;
+import ir.IrInterpreter;
+import ir.IrProgram;
+import ir.LoopInvariantCodeMotion;
+import ir.PassManager;
+import scanner.Scanner;
+import scanner.TokenArray;
+import vm.JvmCompiler;
+import vm.VM;
+
+/**
+ * A tester for the other ways a Program can be run and optimized. Each test program is run by
+ * exec(), and then in each mode, parsing it again every time, since the passes change the
+ * Program. Every mode has to print the same values that exec() printed.
+ *
+ * @author Ishan Mysore
+ * @version 10/17/26
+ */
+public class ModeTester
+{
+    private static final String[] MODES = {"lazy", "flat", "spec", "vm", "jvm", "tier", "memo", "fold",
+        "dce", "ir", "ir passes", "gvn", "licm", "hoist"};
+
+    public static void main(String[] args) throws Exception
+    {
+        int failures = 0;
+        for (int i = 11; i <= 34; i++)
+        {
+            File source = new File("/Users/ishanmysore/Documents/Ishan/Harker/10th Grade/ATCS - Compilers/CompilerMysore/parser/parserTest" + i + ".txt");
+            String expected = run(source, "exec");
+
+            System.out.println("Testing parserTest" + i + ".txt");
+            for (String mode : MODES)
+            {
+                String actual;
+                try
+                {
+                    actual = run(source, mode);
+                }
+                catch (RuntimeException e)
+                {
+                    actual = e.toString();
+                }
+                if (!actual.equals(expected))
+                {
+                    System.out.println("    " + mode + " does not match exec");
+                    failures++;
+                }
+            }
+        }
+        if (failures == 0)
+        {
+            System.out.println("All modes match exec!!!");
+        }
+        else
+        {
+            System.out.println(failures + " runs did not match exec.");
+        }
+    }
+
+    /**
+     * Parses a test program for one mode. In "lazy" mode, the program is parsed from a
+     * TokenArray, so each procedure body is only parsed the first time it is called. In "flat"
+     * mode, it is parsed into a FlatTree, so each procedure body is only built the first time it
+     * is called.
+     * @param source the test program
+     * @param mode the mode
+     * @return the parsed program
+     * @throws Exception if the program cannot be read or contains a syntax error
+     */
+    private static Program parse(File source, String mode) throws Exception
+    {
+        Scanner scanner = new Scanner(new FileInputStream(source));
+        if (mode.equals("lazy"))
+        {
+            return new Parser(TokenArray.scan(scanner), true).parseProgram();
+        }
+        if (mode.equals("flat"))
+        {
+            FlatParser parser = new FlatParser(scanner);
+            int root = parser.parseProgram();
+            return parser.getTree().toProgram(root);
+        }
+        return new Parser(scanner).parseProgram();
+    }
+
+    /**
+     * Parses a test program and runs it in one mode. A class compiled by the JvmCompiler prints
+     * straight to System.out, so System.out is captured while it runs.
+     * @param source the test program
+     * @param mode the mode, or "exec" for exec() itself
+     * @return the values the program printed, one per line
+     * @throws Exception if the program cannot be read or contains a syntax error
+     */
+    private static String run(File source, String mode) throws Exception
+    {
+        Program program = parse(source, mode);
+        MemoryOutput output = new MemoryOutput();
+        Environment env = new Environment(null);
+        env.setOutput(output);
+        switch (mode)
+        {
+            case "spec":
+                program.execSpecialized(env);
+                break;
+            case "tier":
+                program.execTiered(env, new Tiering(1, 1));
+                break;
+            case "memo":
+                program.execMemoized(env, new Memoizer());
+                break;
+            case "fold":
+                program.foldConstants();
+                program.exec(env);
+                break;
+            case "dce":
+                program.eliminateDeadCode();
+                program.exec(env);
+                break;
+            case "ir":
+                runIr(program, new PassManager(), output);
+                break;
+            case "ir passes":
+                runIr(program, PassManager.standard(), output);
+                break;
+            case "gvn":
+            {
+                PassManager passes = new PassManager();
+                passes.add(new GlobalValueNumbering());
+                runIr(program, passes, output);
+                break;
+            }
+            case "licm":
+            {
+                PassManager passes = new PassManager();
+                passes.add(new LoopInvariantCodeMotion());
+                runIr(program, passes, output);
+                break;
+            }
+            case "hoist":
+                program.hoistInvariants();
+                program.exec(env);
+                break;
+            case "vm":
+                new VM(output).run(program.compileBytecode());
+                break;
+            case "jvm":
+            {
+                Runnable main = new JvmCompiler().load(program.compileBytecode());
+                ByteArrayOutputStream printed = new ByteArrayOutputStream();
+                PrintStream standard = System.out;
+                System.setOut(new PrintStream(printed, true));
+                try
+                {
+                    main.run();
+                }
+                finally
+                {
+                    System.setOut(standard);
+                }
+                return printed.toString().replace(System.lineSeparator(), "\n");
+            }
+            default:
+                program.exec(env);
+                break;
+        }
+        return output.getText();
+    }
+
+    /**
+     * Lowers a program to three-address code, runs passes over it with the Verifier checking the
+     * code after each one, and runs what is left with an IrInterpreter.
+     * @param program the program
+     * @param passes the passes to run
+     * @param output the Output the program prints to
+     * @throws IllegalStateException if a pass leaves broken code
+     */
+    private static void runIr(Program program, PassManager passes, Output output)
+    {
+        IrProgram lowered = program.lower();
+        passes.setVerifying(true);
+        passes.run(lowered);
+        new IrInterpreter(output).run(lowered);
+    }
+}
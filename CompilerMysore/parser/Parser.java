@@ -1,6 +1,8 @@
 package parser;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
 
 import ast.Assignment;
@@ -22,7 +24,9 @@ import ast.While;
 import ast.Writeln;
 
 import scanner.ScanErrorException;
-import scanner.Scanner;
+import scanner.TokenArray;
+import scanner.TokenSource;
+import scanner.TokenType;
 
 /**
  * This class implements a Parser for the Pascal language.
@@ -32,47 +36,85 @@ import scanner.Scanner;
  * writes MIPS code that corresponds to the PASCAL code.
  * 
  * @author Ishan Mysore
- * @version 11/20/23
+ * @version 10/17/26
  */
 public class Parser
 {
-    private Scanner scanner;
-    private String currentToken;
+    private TokenSource scanner;
+    private TokenType currentToken;
+    private boolean lazy;
 
     /**
      * Instantiates a new Parser and initializes the instance variables.
-     * - scanner is initialized to the Scanner passed in as a parameter
-     * - currentToken is initialized to the first token
-     * - varMapInts is initialized to a new HashMap with keys as Strings and values as Integers
-     * @param s the Scanner that this parser will use
+     * - scanner is initialized to the TokenSource passed in as a parameter (a Scanner, or a
+     *   TokenArray scanned ahead of time)
+     * - currentToken is initialized to the type of the first token
+     * - lazy is initialized to false, so every procedure body is parsed up front
+     * @param s the TokenSource that this parser will use
      * @postcondition the instance variables are instantiated as described above
      * @throws ScanErrorException result of calling the nextToken() method of the Scanner class
      */
-    public Parser(Scanner s) throws ScanErrorException
+    public Parser(TokenSource s) throws ScanErrorException
+    {
+        this(s, false);
+    }
+
+    /**
+     * Instantiates a new Parser that may defer parsing procedure bodies.
+     * 
+     * In lazy mode, parseProgram() does not parse a procedure body that begins with BEGIN. It
+     * only matches BEGIN with END to find where the body stops, and the body is parsed the first
+     * time the procedure is called or compiled. Procedures that are never used are never parsed.
+     * Lazy mode needs to read the body's tokens again later, so it only takes effect when s is a
+     * TokenArray; with any other TokenSource every body is parsed up front.
+     * 
+     * @param s the TokenSource that this parser will use
+     * @param lazy true to defer parsing procedure bodies, false to parse them immediately
+     * @postcondition the instance variables are instantiated as described above
+     * @throws ScanErrorException result of calling the next() method of the TokenSource
+     */
+    public Parser(TokenSource s, boolean lazy) throws ScanErrorException
     {
         scanner = s;
-        currentToken = scanner.nextToken();
+        this.lazy = lazy && s instanceof TokenArray;
+        currentToken = scanner.next();
     }
 
     /**
      * If the parameter passed into this method is equal to currentToken, then this method will
-     * advance to the next token. Otherwise, this method will throw an IllegalArgumentException
-     * @param expected the expected String that the scanner will "eat"
+     * advance to the next token. Otherwise, this method will throw a ScanErrorException
+     * @param expected the expected TokenType that the scanner will "eat"
      * @postcondition currentToken equals the next token if currentToken equals expected
      * @throws ScanErrorException if currentToken does not equal expected
      */
-    private void eat(String expected) throws ScanErrorException
+    private void eat(TokenType expected) throws ScanErrorException
     {
-        if (currentToken.equals(expected))
+        if (currentToken == expected)
         {
-            currentToken = scanner.nextToken();
+            currentToken = scanner.next();
         }
         else
         {
-            throw new ScanErrorException("Expected " + expected + " but received " + currentToken + ".");
+            throw new ScanErrorException("Expected " + expected + " but received "
+                + scanner.getText() + ".");
         }
     }
 
+    /**
+     * Eats an identifier and returns its name. The name is the Scanner's interned String for
+     * the identifier, so every occurrence of an identifier shares one String instance.
+     * @precondition current token is an identifier
+     * @postcondition identifier token has been eaten
+     * @return the interned name of the identifier
+     * @throws ScanErrorException if current token is not an identifier
+     */
+    private String eatIdentifier() throws ScanErrorException
+    {
+        String name = scanner.getText();
+        eat(TokenType.IDENTIFIER);
+        return name;
+    }
+
     /**
      * Parses a number and returns the number parsed.
      * @precondition current token is an integer
@@ -81,110 +123,163 @@ public class Parser
      */
     private Number parseNumber() throws ScanErrorException
     {
-        int num = Integer.parseInt(currentToken);
-        eat(currentToken);
+        int num = scanner.getValue();
+        eat(TokenType.NUMBER);
         return new Number(num);
     }
 
     /**
-     * Parses a factor, which is any expression that might be multiplied or divided, or contains
-     * a variable or procedure call.
+     * Parses a factor, which is a number, a variable, or a procedure call. Parenthesized
+     * expressions and unary minus are handled by parseExpression.
      * @return an Expression representing the parsed factor
-     * @throws ScanErrorException if currentToken does not equal expected
+     * @throws ScanErrorException if currentToken does not begin a factor
      */
     public Expression parseFactor() throws ScanErrorException
     {
-        if (currentToken.equals("("))
-        {
-            eat("(");
-            Expression num = parseExpression();
-            eat(")");
-            return num;
-        }
-        else if (currentToken.equals("-"))
+        if (currentToken == TokenType.NUMBER)
         {
-            eat(currentToken);
-            return new BinOp("*", new Number(-1), parseFactor());
+            return parseNumber();
         }
-        else if (currentToken.compareTo("0") >= 0 && currentToken.compareTo("9") <= 0)
+        String current = eatIdentifier();
+        if (currentToken == TokenType.LEFT_PAREN)
         {
-            Number num = parseNumber();
-            return num;
-        }
-        String current = currentToken;
-        eat(currentToken);
-        if (currentToken.equals("("))
-        {
-            eat("(");
+            eat(TokenType.LEFT_PAREN);
             List<Expression> args = new ArrayList<Expression>();
-            while (! currentToken.equals(")"))
+            while (currentToken != TokenType.RIGHT_PAREN)
             {
                 args.add(parseExpression());
-                if (currentToken.equals(","))
+                if (currentToken == TokenType.COMMA)
                 {
-                    eat(",");
+                    eat(TokenType.COMMA);
                 }
             }
-            eat(")");
+            eat(TokenType.RIGHT_PAREN);
             return new ProcedureCall(current, args);
         }
         return new Variable(current);
-        
     }
 
     /**
-     * Parses a term, which is any expression that might be added or subtracted.
-     * @postcondition currentToken has been eaten
-     * @return an Expression representing the parsed term
-     * @throws ScanErrorException if currentToken does not equal expected
+     * Returns the binding strength of a binary operator: * / mod bind tighter than + -.
+     * @param op the operator's TokenType
+     * @return 2 for * / mod, 1 for + -, or 0 if op is not a binary operator
      */
-    public Expression parseTerm() throws ScanErrorException
+    private static int precedence(TokenType op)
     {
-        Expression val = parseFactor();
-        while (currentToken.equals("*") || currentToken.equals("/") || currentToken.equals("mod"))
-        {   
-            if (currentToken.equals("*"))
-            {
-                eat("*");
-                val = new BinOp("*", val, parseFactor());
-            }
-            else if (currentToken.equals("/"))
-            {
-                eat("/");
-                val = new BinOp("/", val, parseFactor());
-            }
-            else if (currentToken.equals("mod"))
-            {
-                eat("mod");
-                val = new BinOp("%", val, parseFactor());
-            }
+        switch (op)
+        {
+            case TIMES:
+            case DIVIDE:
+            case MOD:
+                return 2;
+            case PLUS:
+            case MINUS:
+                return 1;
+            default:
+                return 0;
         }
-        return val;
+    }
+
+    /**
+     * Pops the top operator and its two operands, and pushes the BinOp that combines them.
+     * @param operands the operand stack
+     * @param operators the operator stack
+     */
+    private static void reduce(Deque<Expression> operands, Deque<TokenType> operators)
+    {
+        TokenType op = operators.pop();
+        Expression exp2 = operands.pop();
+        Expression exp1 = operands.pop();
+        String text = op == TokenType.MOD ? "%" : op.getText();
+        operands.push(new BinOp(text, exp1, exp2));
+    }
+
+    /**
+     * Applies the given number of unary minuses to an expression. A negated Number literal is
+     * folded into a new Number; anything else is multiplied by -1.
+     * @param exp the expression to negate
+     * @param negations the number of unary minuses in front of the expression
+     * @return the negated expression
+     */
+    private static Expression negate(Expression exp, int negations)
+    {
+        if (negations % 2 == 0)
+        {
+            return exp;
+        }
+        if (exp instanceof Number)
+        {
+            return new Number(-((Number) exp).getValue());
+        }
+        return new BinOp("*", new Number(-1), exp);
     }
 
     /**
      * Parses an expression, which is contained within the WRITELN statement.
+     * 
+     * Expressions are parsed by precedence climbing over an explicit operand stack and operator
+     * stack, so neither long chains of terms nor deeply nested parentheses use any Java stack.
+     * Unary minus binds tighter than any binary operator and is applied as soon as the factor
+     * (or parenthesized expression) after it is complete. A closing parenthesis that does not
+     * match an opening one in this expression ends the expression, since it belongs to the
+     * caller (a WRITELN or a procedure call).
+     * 
      * @postcondition currentToken has been eaten
      * @return an Expression representing the parsed expression
      * @throws ScanErrorException if currentToken does not equal expected
      */
     public Expression parseExpression() throws ScanErrorException
     {
-        Expression val = parseTerm();
-        while (currentToken.equals("+") || currentToken.equals("-"))
-        {   
-            if (currentToken.equals("+"))
+        Deque<Expression> operands = new ArrayDeque<Expression>();
+        Deque<TokenType> operators = new ArrayDeque<TokenType>();
+        Deque<Integer> pendingNegations = new ArrayDeque<Integer>();
+        while (true)
+        {
+            int negations = 0;
+            while (currentToken == TokenType.MINUS)
+            {
+                eat(TokenType.MINUS);
+                negations++;
+            }
+            if (currentToken == TokenType.LEFT_PAREN)
+            {
+                eat(TokenType.LEFT_PAREN);
+                operators.push(TokenType.LEFT_PAREN);
+                pendingNegations.push(negations);
+                continue;
+            }
+            operands.push(negate(parseFactor(), negations));
+            while (currentToken == TokenType.RIGHT_PAREN && !pendingNegations.isEmpty())
+            {
+                eat(TokenType.RIGHT_PAREN);
+                while (operators.peek() != TokenType.LEFT_PAREN)
+                {
+                    reduce(operands, operators);
+                }
+                operators.pop();
+                operands.push(negate(operands.pop(), pendingNegations.pop()));
+            }
+            int prec = precedence(currentToken);
+            if (prec == 0)
             {
-                eat("+");
-                val = new BinOp("+", val, parseTerm());
+                break;
             }
-            else if (currentToken.equals("-"))
+            while (!operators.isEmpty() && precedence(operators.peek()) >= prec)
             {
-                eat("-");
-                val = new BinOp("-", val, parseTerm());
+                reduce(operands, operators);
             }
+            operators.push(currentToken);
+            eat(currentToken);
+        }
+        if (!pendingNegations.isEmpty())
+        {
+            throw new ScanErrorException("Expected ) but received " + scanner.getText() + ".");
+        }
+        while (!operators.isEmpty())
+        {
+            reduce(operands, operators);
         }
-        return val;
+        return operands.pop();
     }
 
     /**
@@ -196,10 +291,15 @@ public class Parser
     public Condition parseCondition() throws ScanErrorException
     {
         Expression exp1 = parseExpression();
-        String relop = currentToken;
-        eat(currentToken);
+        TokenType relop = currentToken;
+        if (!relop.isRelop())
+        {
+            throw new ScanErrorException("Expected a relational operator but received "
+                + scanner.getText() + ".");
+        }
+        eat(relop);
         Expression exp2 = parseExpression();
-        return new Condition(relop, exp1, exp2);
+        return new Condition(relop.getText(), exp1, exp2);
     }
 
     /**
@@ -233,84 +333,115 @@ public class Parser
      */
     public Statement parseStatement() throws ScanErrorException
     {
-        if (currentToken.equals("WRITELN"))
-        {
-            eat("WRITELN");
-            eat("(");
-            Expression exp = parseExpression();
-            eat(")");
-            eat(";");
-            return new Writeln(exp);
-        }
-        else if (currentToken.equals("BEGIN"))
+        switch (currentToken)
         {
-            eat("BEGIN");
-            List<Statement> stmts = new ArrayList<Statement>();
-            while (! currentToken.equals("END"))
+            case WRITELN:
             {
-                stmts.add(parseStatement());
+                eat(TokenType.WRITELN);
+                eat(TokenType.LEFT_PAREN);
+                Expression exp = parseExpression();
+                eat(TokenType.RIGHT_PAREN);
+                eat(TokenType.SEMICOLON);
+                return new Writeln(exp);
             }
-            eat("END");
-            eat(";");
-            return new Block(stmts);
-        }
-        else if (currentToken.equals("IF"))
-        {
-            eat("IF");
-            Condition condition = parseCondition();
-            eat("THEN");
-            Statement statement = parseStatement();
-            Statement elseStatement = null;
-            if (currentToken.equals("ELSE"))
+            case BEGIN:
             {
-                eat("ELSE");
-                elseStatement = parseStatement();
+                eat(TokenType.BEGIN);
+                List<Statement> stmts = new ArrayList<Statement>();
+                while (currentToken != TokenType.END)
+                {
+                    stmts.add(parseStatement());
+                }
+                eat(TokenType.END);
+                eat(TokenType.SEMICOLON);
+                return new Block(stmts);
+            }
+            case IF:
+            {
+                eat(TokenType.IF);
+                Condition condition = parseCondition();
+                eat(TokenType.THEN);
+                Statement statement = parseStatement();
+                Statement elseStatement = null;
+                if (currentToken == TokenType.ELSE)
+                {
+                    eat(TokenType.ELSE);
+                    elseStatement = parseStatement();
+                }
+                return new If(condition, statement, elseStatement);
+            }
+            case WHILE:
+            {
+                eat(TokenType.WHILE);
+                Condition condition = parseCondition();
+                eat(TokenType.DO);
+                Statement statement = parseStatement();
+                return new While(condition, statement);
+            }
+            case FOR:
+            {
+                eat(TokenType.FOR);
+                String variable = eatIdentifier();
+                eat(TokenType.ASSIGN);
+                Expression start = parseExpression();
+                eat(TokenType.TO);
+                Expression end = parseExpression();
+                eat(TokenType.DO);
+                Statement statement = parseStatement();
+                return new For(variable, start, end, statement);
+            }
+            case BREAK:
+                eat(TokenType.BREAK);
+                eat(TokenType.SEMICOLON);
+                return new Break();
+            case CONTINUE:
+                eat(TokenType.CONTINUE);
+                eat(TokenType.SEMICOLON);
+                return new Continue();
+            case EOF:
+                return null;
+            default:
+            {
+                String current = eatIdentifier();
+                eat(TokenType.ASSIGN);
+                Expression expression = parseExpression();
+                eat(TokenType.SEMICOLON);
+                return new Assignment(current, expression);
             }
-            return new If(condition, statement, elseStatement);
-        }
-        else if (currentToken.equals("WHILE"))
-        {
-            eat("WHILE");
-            Condition condition = parseCondition();
-            eat("DO");
-            Statement statement = parseStatement();
-            return new While(condition, statement);
-        }
-        else if (currentToken.equals("FOR"))
-        {
-            eat("FOR");
-            String variable = currentToken;
-            eat(currentToken);
-            eat(":=");
-            Expression start = parseExpression();
-            eat("TO");
-            Expression end = parseExpression();
-            eat("DO");
-            Statement statement = parseStatement();
-            return new For(variable, start, end, statement);
-        }
-        else if (currentToken.equals("BREAK"))
-        {
-            eat("BREAK");
-            eat(";");
-            return new Break();
-        }
-        else if (currentToken.equals("CONTINUE"))
-        {
-            eat("CONTINUE");
-            eat(";");
-            return new Continue();
         }
-        else if (! currentToken.equals("EOF"))
+    }
+
+    /**
+     * Skips over a procedure body without parsing it, by matching each BEGIN with its END.
+     * @precondition lazy is true and currentToken is the BEGIN that opens the body
+     * @postcondition the body and the semicolon after its END have been eaten
+     * @return a LazyBody that parses the skipped tokens the first time it is used
+     * @throws ScanErrorException if the source ends before the body does
+     */
+    private Statement skipBody() throws ScanErrorException
+    {
+        TokenArray tokens = (TokenArray) scanner;
+        int start = tokens.getCursor();
+        int depth = 0;
+        do
         {
-            String current = currentToken;
-            eat(currentToken);
-            eat(":=");
-            Expression expression = parseExpression();
-            eat(";");
-            return new Assignment(current, expression);
+            if (currentToken == TokenType.BEGIN)
+            {
+                depth++;
+            }
+            else if (currentToken == TokenType.END)
+            {
+                depth--;
+            }
+            else if (currentToken == TokenType.EOF)
+            {
+                throw new ScanErrorException("Expected END but received EOF.");
+            }
+            currentToken = scanner.next();
         }
-        return null;
+        while (depth > 0);
+        eat(TokenType.SEMICOLON);
+        return new LazyBody(tokens.from(start));
     }
 
     /**
@@ -323,56 +454,59 @@ public class Parser
     public Program parseProgram() throws ScanErrorException
     {
         List<Variable> variables = new ArrayList<Variable>();
-        while (currentToken.equals("VAR"))
+        while (currentToken == TokenType.VAR)
         {
-            eat("VAR");
-            while (! currentToken.equals(";"))
+            eat(TokenType.VAR);
+            while (currentToken != TokenType.SEMICOLON)
             {
-                variables.add(new Variable(currentToken));
-                eat(currentToken);
-                if (currentToken.equals(","))
+                variables.add(new Variable(eatIdentifier()));
+                if (currentToken == TokenType.COMMA)
                 {
-                    eat(",");
+                    eat(TokenType.COMMA);
                 }
             }
-            eat(";");
+            eat(TokenType.SEMICOLON);
         }
         List<ProcedureDeclaration> procedures = new ArrayList<ProcedureDeclaration>();
-        while (currentToken.equals("PROCEDURE"))
+        while (currentToken == TokenType.PROCEDURE)
         {
-            eat("PROCEDURE");
-            String name = currentToken;
-            eat(currentToken);
-            eat("(");
+            eat(TokenType.PROCEDURE);
+            String name = eatIdentifier();
+            eat(TokenType.LEFT_PAREN);
             List<String> params = new ArrayList<String>();
-            while (! currentToken.equals(")"))
+            while (currentToken != TokenType.RIGHT_PAREN)
             {
-                String param = currentToken;
-                eat(currentToken);
-                params.add(param);
-                if (currentToken.equals(","))
+                params.add(eatIdentifier());
+                if (currentToken == TokenType.COMMA)
                 {
-                    eat(",");
+                    eat(TokenType.COMMA);
                 }
             }
-            eat(")");
-            eat(";");
+            eat(TokenType.RIGHT_PAREN);
+            eat(TokenType.SEMICOLON);
             List<String> localVars = new ArrayList<String>();
-            if (currentToken.equals("VAR"))
+            if (currentToken == TokenType.VAR)
             {
-                eat("VAR");
-                while (! currentToken.equals(";"))
+                eat(TokenType.VAR);
+                while (currentToken != TokenType.SEMICOLON)
                 {
-                    localVars.add(currentToken);
-                    eat(currentToken);
-                    if (currentToken.equals(","))
+                    localVars.add(eatIdentifier());
+                    if (currentToken == TokenType.COMMA)
                     {
-                        eat(",");
+                        eat(TokenType.COMMA);
                     }
                 }
-                eat(";");
+                eat(TokenType.SEMICOLON);
+            }
+            Statement statement;
+            if (lazy && currentToken == TokenType.BEGIN)
+            {
+                statement = skipBody();
+            }
+            else
+            {
+                statement = parseStatement();
             }
-            Statement statement = parseStatement();
             procedures.add(new ProcedureDeclaration(name, params, localVars, statement));
         }
         Statement mainStatement = parseStatement();
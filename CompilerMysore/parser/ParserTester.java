@@ -19,7 +19,8 @@ public class ParserTester
 {
     public static void main(String[] args) throws Exception
     {
-        for (int i = 11; i <= 29; i++)
+        AstCache cache = new AstCache(new File("astcache"));
+        for (int i = 11; i <= 34; i++)
         {
             Scanner scanner = new Scanner(new FileInputStream(new File("/Users/ishanmysore/Documents/Ishan/Harker/10th Grade/ATCS - Compilers/CompilerMysore/parser/parserTest" + i + ".txt")));
             Parser parser = new Parser(scanner);
@@ -38,8 +39,15 @@ public class ParserTester
                 parser2.parseProgram().exec(env);
             }
             System.out.println("\n");
+
+            File source = new File("/Users/ishanmysore/Documents/Ishan/Harker/10th Grade/ATCS - Compilers/CompilerMysore/parser/parserTest" + i + ".txt");
+            System.out.println("Testing parserTest" + i + ".txt from the AST cache\n");
+            cache.load(source).exec(new Environment(null));
+            System.out.println("\n");
         }
         System.out.println("All tests successful!!!");
         System.out.println("MIPS code has been generated for all tests in the output files.");
+        System.out.println("Parsed " + cache.getMisses() + " files, loaded " + cache.getHits()
+            + " from the cache.");
     }
 }
\ No newline at end of file
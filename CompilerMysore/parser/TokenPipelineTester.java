@@ -0,0 +1,149 @@
+package parser;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import environment.Environment;
+import environment.MemoryOutput;
+import scanner.ScanErrorException;
+import scanner.Scanner;
+import scanner.TokenPipeline;
+import scanner.TokenSource;
+import scanner.TokenType;
+
+/**
+ * A tester for the TokenPipeline. Each test file is read through a TokenPipeline whose ring
+ * holds only a few tokens, so that the producer thread keeps finding it full and the parser
+ * keeps finding it empty. The pipeline has to hand over exactly the tokens the Scanner gives,
+ * keep returning EOF once the input has ended, and throw the same error as the Scanner when
+ * the Scanner fails. The programs the Parser reads from a pipeline then have to print the same
+ * values as those it reads straight from a Scanner.
+ *
+ * @author Ishan Mysore
+ * @version 10/17/26
+ */
+public class TokenPipelineTester
+{
+    private static final String DIRECTORY =
+        "/Users/ishanmysore/Documents/Ishan/Harker/10th Grade/ATCS - Compilers/CompilerMysore/";
+    private static final int[] CAPACITIES = {2, 3, 4096};
+
+    public static void main(String[] args) throws Exception
+    {
+        int failures = 0;
+        List<File> files = new ArrayList<File>();
+        files.add(new File(DIRECTORY + "scanner/ScannerTest.txt"));
+        files.add(new File(DIRECTORY + "scanner/ScannerTestAdvanced.txt"));
+        for (int i = 11; i <= 34; i++)
+        {
+            files.add(new File(DIRECTORY + "parser/parserTest" + i + ".txt"));
+        }
+
+        for (File file : files)
+        {
+            System.out.println("Testing " + file.getName());
+            List<String> expected = read(new Scanner(new FileInputStream(file)));
+            for (int capacity : CAPACITIES)
+            {
+                try (TokenPipeline pipeline = new TokenPipeline(
+                    new Scanner(new FileInputStream(file)), capacity, Thread::new))
+                {
+                    if (!read(pipeline).equals(expected))
+                    {
+                        System.out.println("    the tokens in a ring of " + capacity
+                            + " do not match");
+                        failures++;
+                    }
+                    else if (expected.get(expected.size() - 1).equals("EOF")
+                        && (pipeline.next() != TokenType.EOF || pipeline.hasNext()))
+                    {
+                        System.out.println("    a ring of " + capacity
+                            + " does not stay at EOF");
+                        failures++;
+                    }
+                }
+            }
+            if (file.getName().startsWith("parserTest")
+                && !run(file, true).equals(run(file, false)))
+            {
+                System.out.println("    the program parsed from a pipeline does not match");
+                failures++;
+            }
+        }
+
+        if (failures == 0)
+        {
+            System.out.println("The TokenPipeline matches the Scanner!!!");
+        }
+        else
+        {
+            System.out.println(failures + " runs did not match the Scanner.");
+        }
+    }
+
+    /**
+     * Reads every token from a TokenSource, up to EOF or the first scanning error.
+     * @param tokens the TokenSource to read
+     * @return one line for each token, with its type, its value or symbol ID, and its text,
+     *         followed by the error message if the source could not be scanned to the end
+     */
+    private static List<String> read(TokenSource tokens)
+    {
+        List<String> lines = new ArrayList<String>();
+        try
+        {
+            TokenType type;
+            do
+            {
+                type = tokens.next();
+                if (type == TokenType.NUMBER)
+                {
+                    lines.add(type + " " + tokens.getValue() + " " + tokens.getText());
+                }
+                else if (type == TokenType.IDENTIFIER)
+                {
+                    lines.add(type + " " + tokens.getSymbol() + " " + tokens.getText());
+                }
+                else
+                {
+                    lines.add(type.toString());
+                }
+            }
+            while (type != TokenType.EOF);
+        }
+        catch (ScanErrorException e)
+        {
+            lines.add("error: " + e.getMessage());
+        }
+        return lines;
+    }
+
+    /**
+     * Parses a test program and runs it.
+     * @param source the test program
+     * @param pipelined true to parse from a TokenPipeline, false to parse from a Scanner
+     * @return the values the program printed, one per line
+     * @throws Exception if the program cannot be read or contains a syntax error
+     */
+    private static String run(File source, boolean pipelined) throws Exception
+    {
+        Scanner scanner = new Scanner(new FileInputStream(source));
+        MemoryOutput output = new MemoryOutput();
+        Environment env = new Environment(null);
+        env.setOutput(output);
+        if (pipelined)
+        {
+            try (TokenPipeline pipeline = new TokenPipeline(scanner))
+            {
+                new Parser(pipeline).parseProgram().exec(env);
+            }
+        }
+        else
+        {
+            new Parser(scanner).parseProgram().exec(env);
+        }
+        return output.getText();
+    }
+}
@@ -0,0 +1,82 @@
+package scanner;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+
+/**
+ * A tester for the Scanner that memory-maps its file. Each test file is scanned through
+ * Scanner(File) in windows much smaller than the file, so that tokens, comments and white space
+ * are split between windows, and it has to give exactly the tokens that the Scanner reads from
+ * a stream. A file the stream Scanner cannot scan has to fail with the same error.
+ *
+ * @author Ishan Mysore
+ * @version 10/17/26
+ */
+public class MappedScannerTester
+{
+    private static final String DIRECTORY =
+        "/Users/ishanmysore/Documents/Ishan/Harker/10th Grade/ATCS - Compilers/CompilerMysore/";
+    private static final int[] WINDOW_SIZES = {16, 17, 64, Scanner.WINDOW_SIZE};
+
+    public static void main(String[] args) throws IOException
+    {
+        int failures = 0;
+        failures += test(new File(DIRECTORY + "scanner/ScannerTest.txt"));
+        failures += test(new File(DIRECTORY + "scanner/ScannerTestAdvanced.txt"));
+        for (int i = 11; i <= 34; i++)
+        {
+            failures += test(new File(DIRECTORY + "parser/parserTest" + i + ".txt"));
+        }
+        if (failures == 0)
+        {
+            System.out.println("The mapped Scanner matches the stream Scanner!!!");
+        }
+        else
+        {
+            System.out.println(failures + " scans did not match the stream Scanner.");
+        }
+    }
+
+    /**
+     * Scans a file from a stream, and then through Scanner(File) with each window size.
+     * @param file the file to scan
+     * @return the number of window sizes for which the tokens or the error did not match
+     * @throws IOException if the file cannot be read or mapped
+     */
+    private static int test(File file) throws IOException
+    {
+        System.out.println("Testing " + file.getName());
+        TokenArray expected = null;
+        String expectedError = null;
+        try
+        {
+            expected = TokenArray.scan(new Scanner(new FileInputStream(file)));
+        }
+        catch (ScanErrorException e)
+        {
+            expectedError = e.getMessage();
+        }
+
+        int failures = 0;
+        for (int windowSize : WINDOW_SIZES)
+        {
+            boolean matches;
+            try
+            {
+                TokenArray actual = TokenArray.scan(new Scanner(file, windowSize));
+                matches = expected != null && expected.sameTokens(actual);
+            }
+            catch (ScanErrorException e)
+            {
+                matches = e.getMessage().equals(expectedError);
+            }
+            if (!matches)
+            {
+                System.out.println("    windows of " + windowSize + " bytes do not match");
+                failures++;
+            }
+        }
+        return failures;
+    }
+}
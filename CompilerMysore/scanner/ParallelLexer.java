@@ -0,0 +1,333 @@
+package scanner;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * ParallelLexer scans a large source on several threads and produces a TokenArray that is
+ * identical, token for token and symbol ID for symbol ID, to what scanning it sequentially with
+ * a single Scanner would produce.
+ *
+ * The source is cut into chunks of roughly equal size. Every cut is moved forward to the start
+ * of a line, which is a safe place to begin scanning unless the line is inside a block comment.
+ * Each chunk is scanned on a fork-join pool by its own Scanner with its own SymbolTable, as
+ * though nothing came before it, until it reaches the first token at or after the next cut.
+ *
+ * The chunks are then stitched together in order. A chunk is kept only if its first token starts
+ * exactly where the previous chunk stopped; otherwise a block comment crossed the cut, and that
+ * chunk is scanned again from where the previous one stopped. Symbol IDs from each chunk are
+ * renumbered in first-seen order, which is the order a sequential Scanner would have used.
+ *
+ * @author Ishan Mysore
+ * @version 10/17/26
+ */
+public class ParallelLexer
+{
+    static final int DEFAULT_CHUNK_SIZE = 1 << 22;
+    private static final int MIN_MAP_SIZE = 1 << 16;
+
+    private File file;
+    private byte[] bytes;
+    private long size;
+    private int chunkSize;
+
+    /**
+     * The tokens scanned from one chunk of the source.
+     */
+    private static class Chunk
+    {
+        private TokenArray tokens;
+        private long firstStart;
+        private long nextStart;
+        private boolean ended;
+        private ScanErrorException error;
+    }
+
+    /**
+     * Creates a new ParallelLexer for either a file or an array of bytes.
+     * @param file the file to scan, or null to scan bytes
+     * @param bytes the bytes to scan, or null to scan file
+     * @param size the number of bytes in the source
+     * @param chunkSize the number of bytes to give each chunk
+     */
+    private ParallelLexer(File file, byte[] bytes, long size, int chunkSize)
+    {
+        this.file = file;
+        this.bytes = bytes;
+        this.size = size;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Scans the given file in parallel on the common fork-join pool.
+     * @param file the file to scan
+     * @return every token in the file, up to and including EOF
+     * @throws IOException if the file cannot be read
+     * @throws ScanErrorException if the file contains a scanning error
+     */
+    public static TokenArray lex(File file) throws IOException, ScanErrorException
+    {
+        return lex(file, DEFAULT_CHUNK_SIZE, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Scans the given file in parallel.
+     * @param file the file to scan
+     * @param chunkSize the number of bytes to give each chunk
+     * @param pool the pool to scan the chunks on
+     * @return every token in the file, up to and including EOF
+     * @throws IOException if the file cannot be read
+     * @throws ScanErrorException if the file contains a scanning error
+     */
+    public static TokenArray lex(File file, int chunkSize, ForkJoinPool pool)
+        throws IOException, ScanErrorException
+    {
+        return new ParallelLexer(file, null, file.length(), chunkSize).lex(pool);
+    }
+
+    /**
+     * Scans the given bytes in parallel.
+     * @param source the bytes to scan
+     * @param chunkSize the number of bytes to give each chunk
+     * @param pool the pool to scan the chunks on
+     * @return every token in the source, up to and including EOF
+     * @throws ScanErrorException if the source contains a scanning error
+     */
+    public static TokenArray lex(byte[] source, int chunkSize, ForkJoinPool pool)
+        throws ScanErrorException
+    {
+        try
+        {
+            return new ParallelLexer(null, source, source.length, chunkSize).lex(pool);
+        }
+        catch (IOException io)
+        {
+            throw new ScanErrorException(io.getMessage());
+        }
+    }
+
+    /**
+     * Cuts the source into chunks, scans them on the given pool, and stitches the results.
+     * @param pool the pool to scan the chunks on
+     * @return every token in the source, up to and including EOF
+     * @throws IOException if the source cannot be read
+     * @throws ScanErrorException if the source contains a scanning error
+     */
+    private TokenArray lex(ForkJoinPool pool) throws IOException, ScanErrorException
+    {
+        int chunkCount = (int) Math.max(1, (size + chunkSize - 1) / chunkSize);
+        List<Callable<Chunk>> tasks = new ArrayList<Callable<Chunk>>();
+        for (int i = 0; i < chunkCount; i++)
+        {
+            long nominal = (long) i * chunkSize;
+            boolean last = i == chunkCount - 1;
+            tasks.add(() -> {
+                long start = lineStart(nominal);
+                long stop = last ? Long.MAX_VALUE : lineStart(nominal + chunkSize);
+                return scanChunk(open(start), stop);
+            });
+        }
+        Chunk[] chunks = new Chunk[chunkCount];
+        List<Future<Chunk>> futures = pool.invokeAll(tasks);
+        for (int i = 0; i < chunkCount; i++)
+        {
+            chunks[i] = join(futures.get(i));
+        }
+
+        SymbolTable symbols = new SymbolTable();
+        int total = 0;
+        for (Chunk chunk : chunks)
+        {
+            total += chunk.tokens.size();
+        }
+        TokenArray result = new TokenArray(symbols, total);
+        long expected = chunks[0].firstStart;
+        for (int i = 0; i < chunkCount; i++)
+        {
+            Chunk chunk = chunks[i];
+            if (chunk.firstStart != expected)
+            {
+                long stop = i == chunkCount - 1 ? Long.MAX_VALUE
+                    : lineStart((long) (i + 1) * chunkSize);
+                chunk = scanChunk(open(expected), stop);
+            }
+            if (chunk.error != null)
+            {
+                throw chunk.error;
+            }
+            append(result, chunk.tokens);
+            if (chunk.ended)
+            {
+                break;
+            }
+            expected = chunk.nextStart;
+        }
+        return result;
+    }
+
+    /**
+     * Waits for a chunk to be scanned.
+     * @param future the pending chunk
+     * @return the scanned chunk
+     * @throws IOException if the chunk could not be read
+     */
+    private static Chunk join(Future<Chunk> future) throws IOException
+    {
+        try
+        {
+            return future.get();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        }
+        catch (ExecutionException e)
+        {
+            if (e.getCause() instanceof IOException)
+            {
+                throw (IOException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    /**
+     * Creates a Scanner that begins scanning at the given offset of the source.
+     * @param offset the offset of the first byte to scan
+     * @return a new Scanner with its own SymbolTable
+     * @throws IOException if the file cannot be mapped
+     */
+    private Scanner open(long offset) throws IOException
+    {
+        if (file == null)
+        {
+            return new Scanner(bytes, (int) offset);
+        }
+        long window = Math.max(MIN_MAP_SIZE, 2L * chunkSize);
+        return new Scanner(file, (int) Math.min(Scanner.WINDOW_SIZE, window), offset);
+    }
+
+    /**
+     * Finds the first offset at or after the given one that begins a line.
+     * @param offset the offset to start looking from
+     * @return the offset just after the next newline, or the size of the source if none
+     * @throws IOException if the file cannot be read
+     */
+    private long lineStart(long offset) throws IOException
+    {
+        if (offset <= 0)
+        {
+            return 0;
+        }
+        if (file == null)
+        {
+            long i = offset - 1;
+            while (i < size && bytes[(int) i] != '\n')
+            {
+                i++;
+            }
+            return Math.min(i + 1, size);
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ))
+        {
+            ByteBuffer block = ByteBuffer.allocate(4096);
+            long position = offset - 1;
+            while (position < size)
+            {
+                block.clear();
+                int read = channel.read(block, position);
+                if (read <= 0)
+                {
+                    break;
+                }
+                for (int i = 0; i < read; i++)
+                {
+                    if (block.get(i) == '\n')
+                    {
+                        return position + i + 1;
+                    }
+                }
+                position += read;
+            }
+            return size;
+        }
+    }
+
+    /**
+     * Scans tokens from the given Scanner until it reaches the first token that starts at or
+     * after stop, or EOF. A scanning error ends the chunk and is recorded rather than thrown,
+     * since the chunk may turn out to have begun inside a comment.
+     * @param scanner the Scanner positioned at the start of the chunk
+     * @param stop the offset where the next chunk begins
+     * @return the scanned chunk
+     */
+    private static Chunk scanChunk(Scanner scanner, long stop)
+    {
+        Chunk chunk = new Chunk();
+        chunk.tokens = new TokenArray(scanner.getSymbols(), 1024);
+        chunk.nextStart = -1;
+        try
+        {
+            while (true)
+            {
+                TokenType type = scanner.next();
+                if (scanner.getStart() >= stop)
+                {
+                    chunk.nextStart = scanner.getStart();
+                    break;
+                }
+                chunk.tokens.add(scanner);
+                if (type == TokenType.EOF)
+                {
+                    chunk.ended = true;
+                    break;
+                }
+            }
+        }
+        catch (ScanErrorException e)
+        {
+            chunk.error = e;
+        }
+        chunk.firstStart = chunk.tokens.size() > 0 ? chunk.tokens.getStart(0) : chunk.nextStart;
+        return chunk;
+    }
+
+    /**
+     * Appends the tokens of a chunk to the result, renumbering the chunk's symbol IDs into the
+     * result's SymbolTable in the order the identifiers are first seen.
+     * @param result the stitched TokenArray
+     * @param tokens the tokens of the chunk
+     */
+    private static void append(TokenArray result, TokenArray tokens)
+    {
+        SymbolTable local = tokens.getSymbols();
+        int[] remap = new int[local.size()];
+        Arrays.fill(remap, -1);
+        int identifier = TokenType.IDENTIFIER.ordinal();
+        for (int i = 0; i < tokens.size(); i++)
+        {
+            int type = tokens.getType(i).ordinal();
+            int value = tokens.getPayload(i);
+            if (type == identifier)
+            {
+                if (remap[value] < 0)
+                {
+                    remap[value] = result.getSymbols().intern(local.getName(value));
+                }
+                value = remap[value];
+            }
+            result.add(type, tokens.getStart(i), tokens.getLength(i), value);
+        }
+    }
+}
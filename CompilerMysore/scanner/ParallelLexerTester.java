@@ -0,0 +1,122 @@
+package scanner;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * A tester for the ParallelLexer. Each test file is lexed in parallel with chunks much smaller
+ * than the file, and has to give exactly the tokens that a single Scanner gives, symbol IDs
+ * included. A file the Scanner cannot scan has to fail with the same error.
+ *
+ * A small source with a block comment that spans several lines and a long identifier is also
+ * lexed with every chunk size from 1 byte up to its whole length, so that every possible cut
+ * falls inside the comment, inside the identifier, and everywhere else once.
+ *
+ * @author Ishan Mysore
+ * @version 10/17/26
+ */
+public class ParallelLexerTester
+{
+    private static final String DIRECTORY =
+        "/Users/ishanmysore/Documents/Ishan/Harker/10th Grade/ATCS - Compilers/CompilerMysore/";
+    private static final int[] CHUNK_SIZES = {1, 7, 16, 64, ParallelLexer.DEFAULT_CHUNK_SIZE};
+    private static final String SPLIT_SOURCE = "VAR aVeryLongIdentifierName, y;\n"
+        + "/* a block comment whose lines look like code:\n"
+        + "   y := 12345;\n"
+        + "   WRITELN(y);\n"
+        + "*/\n"
+        + "BEGIN\n"
+        + "    aVeryLongIdentifierName := 7; // a line comment\n"
+        + "    y := aVeryLongIdentifierName * 6;\n"
+        + "    WRITELN(y);\n"
+        + "END;\n"
+        + ".\n";
+
+    public static void main(String[] args) throws IOException, ScanErrorException
+    {
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        int failures = 0;
+        failures += test(new File(DIRECTORY + "scanner/ScannerTest.txt"), pool);
+        failures += test(new File(DIRECTORY + "scanner/ScannerTestAdvanced.txt"), pool);
+        for (int i = 11; i <= 34; i++)
+        {
+            failures += test(new File(DIRECTORY + "parser/parserTest" + i + ".txt"), pool);
+        }
+
+        System.out.println("Testing cuts inside a comment and an identifier");
+        byte[] source = SPLIT_SOURCE.getBytes(StandardCharsets.UTF_8);
+        TokenArray expected = TokenArray.scan(new Scanner(SPLIT_SOURCE));
+        for (int chunkSize = 1; chunkSize <= source.length; chunkSize++)
+        {
+            TokenArray actual;
+            try
+            {
+                actual = ParallelLexer.lex(source, chunkSize, pool);
+            }
+            catch (ScanErrorException e)
+            {
+                actual = null;
+            }
+            if (actual == null || !expected.sameTokens(actual))
+            {
+                System.out.println("    chunks of " + chunkSize + " bytes do not match");
+                failures++;
+            }
+        }
+
+        if (failures == 0)
+        {
+            System.out.println("The ParallelLexer matches the Scanner!!!");
+        }
+        else
+        {
+            System.out.println(failures + " lexes did not match the Scanner.");
+        }
+    }
+
+    /**
+     * Scans a file with a single Scanner, and then lexes it in parallel with each chunk size.
+     * @param file the file to scan
+     * @param pool the pool to lex the chunks on
+     * @return the number of chunk sizes for which the tokens or the error did not match
+     * @throws IOException if the file cannot be read
+     */
+    private static int test(File file, ForkJoinPool pool) throws IOException
+    {
+        System.out.println("Testing " + file.getName());
+        TokenArray expected = null;
+        String expectedError = null;
+        try
+        {
+            expected = TokenArray.scan(new Scanner(new FileInputStream(file)));
+        }
+        catch (ScanErrorException e)
+        {
+            expectedError = e.getMessage();
+        }
+
+        int failures = 0;
+        for (int chunkSize : CHUNK_SIZES)
+        {
+            boolean matches;
+            try
+            {
+                TokenArray actual = ParallelLexer.lex(file, chunkSize, pool);
+                matches = expected != null && expected.sameTokens(actual);
+            }
+            catch (ScanErrorException e)
+            {
+                matches = e.getMessage().equals(expectedError);
+            }
+            if (!matches)
+            {
+                System.out.println("    chunks of " + chunkSize + " bytes do not match");
+                failures++;
+            }
+        }
+        return failures;
+    }
+}
@@ -1,317 +1,661 @@
-package scanner;
-
-
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.StringReader;
-
-/**
- * 
- * NOTEBOOK ENTRY QUESTION
- * 
- * 
- * 1. If the next character had been a newline or an open parenthesis, we can also 
- *    conclude that we reached the end of the token representing "IF".
- * 
- */
-
-/**
- * Scanner is a simple scanner for Compilers and Interpreters (2014-2015) lab exercise 1
- * @author Anu Datar
- *  
- * Usage:
- *      This scanner class reads in tokens from an input stream or a String, and classifies
- * them as a digit, letter, operator, or END OF FILE.
- * 
- * @author Ishan Mysore
- * @version 9/4/23
- *
- */
-public class Scanner
-{
-    private BufferedReader in;
-    private char currentChar;
-    private boolean eof;
-
-    /**
-     * Scanner constructor for construction of a scanner that 
-     * uses an InputStream object for input.  
-     * Usage: 
-     * FileInputStream inStream = new FileInputStream(new File(<file name>);
-     * Scanner lex = new Scanner(inStream);
-     * @param inStream the input stream to use
-     */
-    public Scanner(InputStream inStream)
-    {
-        in = new BufferedReader(new InputStreamReader(inStream));
-        eof = false;
-        getNextChar();
-    }
-    /**
-     * Scanner constructor for constructing a scanner that 
-     * scans a given input string.  It sets the end-of-file flag an then reads
-     * the first character of the input string into the instance field currentChar.
-     * Usage: Scanner lex = new Scanner(input_string);
-     * @param inString the string to scan
-     */
-    public Scanner(String inString)
-    {
-        in = new BufferedReader(new StringReader(inString));
-        eof = false;
-        getNextChar();
-    }
-
-    /**
-     * Retrieves the next character from the input by reading it.
-     * If the next character is -1, that means there are no more tokens
-     * left and the eof (end of file) variable gets set to true.
-     * @postcondition eof becomes true if currentChar == -1
-     * @throws IOException if the file is not found
-     */
-    private void getNextChar()
-    {
-        try
-        {
-            currentChar = (char) (in.read());
-            if (currentChar == -1)
-            {
-                eof = true;
-            }
-        }
-        catch (IOException io) { io.printStackTrace(); }
-        finally {}
-    }
-    /**
-     * Advances to the next character if the character passed in as a parameter
-     * equals the current character. If the parameter is not equal to the current
-     * character, then the method throws a ScanErrorException
-     * 
-     * @param expected the character that should equal currentChar
-     * @postcondition the method has advanced to the next character if expected
-     * == currentChar
-     * @throws ScanErrorException if expected != currentChar
-     */
-    private void eat(char expected) throws ScanErrorException
-    {
-        if (expected == currentChar)
-        {
-            getNextChar();
-        }
-        else
-        {
-            throw new ScanErrorException("Illegal character - expected currentChar and found char");
-        }
-    }
-
-    /**
-     * Determines if the char passed in as a parameter is a digit.
-     * @param value a char passed in to check if it is a digit
-     * @return true if value is a digit, false otherwise
-     */
-    public static boolean isDigit(char value)
-    {
-        return value >= '0' && value <= '9';
-    }
-
-    /**
-     * Determines if the char passed in as a parameter is a letter.
-     * @param value a char passed in to check if it is a letter
-     * @return true if value is a letter, false otherwise
-     */
-    public static boolean isLetter(char value)
-    {
-        return value >= 'A' && value <= 'z';
-    }
-
-    /**
-     * Determines if the char passed in as a parameter is a white space.
-     * @param value a char passed in to check if it is a white space
-     * @return true if value is a white space, false otherwise
-     */
-    public static boolean isWhiteSpace(char value)
-    {
-        return value == ' ' || value == '\t' || value == '\r' || value == '\n';
-    }
-
-    /**
-     * Determines if the char passed in as a parameter is an operand.
-     * @param value a char passed in to check if it is an operand
-     * @return true if value is an operand, false otherwise
-     */
-    public static boolean isOperand(char value)
-    {
-        char[] operands = {'=','+','-','*','/','%','(',')',';',':','<','>','\'','\"'};
-        for (char operand : operands)
-        {
-            if (value == operand)
-            {
-                return true;
-            }
-        }
-        return false;
-    }
-
-    /**
-     * Retrieves and returns a String representing a number lexeme.
-     * @precondition currentChar is a digit to start
-     * @postcondition currentChar has been advanced to the character
-     * right after the last character in the lexeme
-     * @return a String representing the lexeme found
-     * @throws ScanErrorException if expected != currentChar
-     */
-    private String scanNumber() throws ScanErrorException
-    {
-        String result = "";
-        while (isDigit(currentChar))
-        {
-            result += currentChar;
-            eat(currentChar);
-        }
-        return result;
-    }
-
-    /**
-     * Retrieves and returns a String representing an identifier lexeme.
-     * An identifier starts with a letter and then continues until the
-     * character is no longer a letter nor a digit.
-     * @precondition currentChar is a letter to start
-     * @postcondition currentChar has been advanced to the character
-     * right after the last character in the lexeme
-     * @return a String representing the lexeme found
-     * @throws ScanErrorException if expected != currentChar
-     */
-    private String scanIdentifier() throws ScanErrorException
-    {
-        String result = "" + currentChar;
-        eat(currentChar);
-        while (isLetter(currentChar) || isDigit(currentChar))
-        {
-            result += currentChar;
-            eat(currentChar);
-        }
-        return result;
-    }
-
-    /**
-     * Retrieves and returns a String representing an operand lexeme.
-     * <=, >=, <>, and := are counted as one token.
-     * If the method encounters single or multi-line comments, it just
-     * skips over them and eats until the character right after the comment
-     * ends.
-     * @precondition currentChar is an operand to start
-     * @postcondition currentChar has been advanced to the character
-     * right after the last character in the lexeme
-     * @return a String representing the lexeme found. If the lexeme is a
-     * comment, then the method returns the next token after the comment
-     * (so it just calls nextToken)
-     * @throws ScanErrorException if expected != currentChar
-     */
-    private String scanOperand() throws ScanErrorException
-    {
-        String result = "" + currentChar;
-        eat(currentChar);
-        if (result.equals("/") || result.equals("<") || result.equals(">") || result.equals(":")/* || result.equals("(")*/)
-        {
-            if (isOperand(currentChar))
-            {
-                result += currentChar;
-                eat(currentChar);
-            }
-        }
-        if (result.equals("//"))
-        {
-            while (currentChar != '\n')
-            {
-                eat(currentChar);
-            }
-            return nextToken();
-        }
-        if (result.equals("/*"))
-        {
-            handleMultiLineComments();
-            eat(currentChar);
-            return nextToken();
-        }
-        else if (result.length() > 0 && (!result.equals("<=") && !result.equals(">=") && !result.equals("<>") && !result.equals(":=") && !result.equals("((")))
-        {
-            result = result.substring(0,1);
-        }
-        return result;
-    }
-
-    /**
-     * Helper method to handle multi-line comments.
-     * @precondition we have just encountered an opening multi-line
-     * comment
-     * @postcondition currentChar has been advanced to the character
-     * right after the closing multi-line comment
-     * @throws ScanErrorException if expected != currentChar
-     */
-    private void handleMultiLineComments() throws ScanErrorException
-    {
-        while (currentChar != '*')
-        {
-            eat(currentChar);
-        }
-        eat(currentChar);
-        if (currentChar != '/')
-        {
-            handleMultiLineComments();
-        }
-    }
-
-    /**
-     * Determines if there are any more characters in the file.
-     * @return true if there are more characters in the file, false
-     * if not
-     */
-    public boolean hasNext()
-    {
-        return !eof;
-    }
-
-    /**
-     * Retrieves and returns the next token in the file, calling
-     * the helper methods scanNumber, scanIdentifier, and scanOperand
-     * appropriately. If the program encounters a period, it returns
-     * the token "end" indicating the end of the file. If the starting
-     * character of the token is not a digit, letter, nor operand, the
-     * method throws a ScanErrorException indicating an unrecognized
-     * character.
-     * @return the next token
-     * @throws ScanErrorException if expected != currentChar, or if we
-     * encounter an unrecognized character
-     */
-    public String nextToken() throws ScanErrorException
-    {
-        while (hasNext() && isWhiteSpace(currentChar))
-        {
-            eat(currentChar);
-        }
-        if (!hasNext() || currentChar == '.')
-        {
-            eof = true;
-            return "EOF";
-        }
-        if (isDigit(currentChar))
-        {
-            return scanNumber();
-        }
-        if (isLetter(currentChar))
-        {
-            return scanIdentifier();
-        }
-        if (isOperand(currentChar))
-        {
-            return scanOperand();
-        }
-        if (currentChar == ',')
-        {
-            eat(currentChar);
-            return ",";
-        }
-        throw new ScanErrorException("Unrecognized character: " + currentChar);
-    }
-}
\ No newline at end of file
+package scanner;
+
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 
+ * NOTEBOOK ENTRY QUESTION
+ * 
+ * 
+ * 1. If the next character had been a newline or an open parenthesis, we can also 
+ *    conclude that we reached the end of the token representing "IF".
+ * 
+ */
+
+/**
+ * Scanner is a simple scanner for Compilers and Interpreters (2014-2015) lab exercise 1
+ * @author Anu Datar
+ *  
+ * Usage:
+ *      This scanner class reads in tokens from an input stream or a String, and classifies
+ * them as a number, identifier, keyword, operator, or END OF FILE.
+ * 
+ * The source is scanned as ASCII/UTF-8 bytes straight out of a ByteBuffer, with no charset
+ * decoding. Tokens are produced with next(), which returns the TokenType of the token and
+ * allocates nothing: the text of the current token is kept as an offset and length into the
+ * buffer, and the value of a NUMBER token is decoded to an int while it is scanned. getText()
+ * builds a String for the current token only when a caller actually needs one.
+ * 
+ * Identifiers are interned in the Scanner's SymbolTable as they are scanned, and getSymbol()
+ * returns the dense int ID of the current identifier. getText() for an identifier returns the
+ * interned name, so it does not allocate either.
+ * 
+ * Tokens are recognised by a table-driven DFA. Every byte is first mapped to a character class
+ * by a lookup table, and the class and current state index a state-transition table that is
+ * generated once when the class is loaded. Two-character operators and comments are recognised
+ * in a single forward pass: no character is ever read twice and nothing recurses.
+ * 
+ * A Scanner constructed from a File memory-maps the file instead of reading it onto the heap.
+ * The file is mapped one window at a time, so files larger than the heap (or larger than a
+ * single 2GB mapping) can be scanned.
+ * 
+ * @author Ishan Mysore
+ * @version 10/17/26
+ *
+ */
+public class Scanner implements TokenSource
+{
+    private static final int END_OF_INPUT = 256;
+    static final int WINDOW_SIZE = 1 << 30;
+
+    // DFA states; the states up to LAST_SKIP_STATE are inside white space or comments
+    private static final int STATE_START = 0;
+    private static final int STATE_LINE_COMMENT = 1;
+    private static final int STATE_BLOCK_COMMENT = 2;
+    private static final int STATE_BLOCK_COMMENT_STAR = 3;
+    private static final int LAST_SKIP_STATE = 3;
+    private static final int STATE_AFTER_SLASH = 4;
+    private static final int STATE_NUMBER = 5;
+    private static final int STATE_IDENTIFIER = 6;
+    private static final int STATE_AFTER_COLON = 7;
+    private static final int STATE_AFTER_LESS = 8;
+    private static final int STATE_AFTER_GREATER = 9;
+    private static final int STATE_COUNT = 10;
+
+    // character classes
+    private static final byte CLASS_WHITE_SPACE = 0;
+    private static final byte CLASS_NEWLINE = 1;
+    private static final byte CLASS_DIGIT = 2;
+    private static final byte CLASS_LETTER = 3;
+    private static final byte CLASS_SLASH = 4;
+    private static final byte CLASS_STAR = 5;
+    private static final byte CLASS_COLON = 6;
+    private static final byte CLASS_LESS = 7;
+    private static final byte CLASS_GREATER = 8;
+    private static final byte CLASS_EQUAL = 9;
+    private static final byte CLASS_DOT = 10;
+    private static final byte CLASS_OPERAND = 11;
+    private static final byte CLASS_OTHER = 12;
+    private static final byte CLASS_END = 13;
+    private static final int CLASS_COUNT = 14;
+
+    // pseudo token codes for actions that do not name a single TokenType
+    private static final int ACTION_SINGLE = TokenType.values().length;
+    private static final int ACTION_ERROR = ACTION_SINGLE + 1;
+    private static final int ACTION_UNTERMINATED = ACTION_SINGLE + 2;
+
+    private static final TokenType[] TOKEN_TYPES = TokenType.values();
+    private static final byte[] CLASSES = new byte[END_OF_INPUT + 1];
+    private static final TokenType[] SINGLES = new TokenType[END_OF_INPUT + 1];
+    private static final int[] TRANSITIONS = new int[STATE_COUNT * CLASS_COUNT];
+
+    static
+    {
+        java.util.Arrays.fill(CLASSES, CLASS_OTHER);
+        for (int c = 'A'; c <= 'z'; c++)
+        {
+            CLASSES[c] = CLASS_LETTER;
+        }
+        for (int c = '0'; c <= '9'; c++)
+        {
+            CLASSES[c] = CLASS_DIGIT;
+        }
+        CLASSES[' '] = CLASS_WHITE_SPACE;
+        CLASSES['\t'] = CLASS_WHITE_SPACE;
+        CLASSES['\r'] = CLASS_WHITE_SPACE;
+        CLASSES['\n'] = CLASS_NEWLINE;
+        CLASSES['/'] = CLASS_SLASH;
+        CLASSES['*'] = CLASS_STAR;
+        CLASSES[':'] = CLASS_COLON;
+        CLASSES['<'] = CLASS_LESS;
+        CLASSES['>'] = CLASS_GREATER;
+        CLASSES['='] = CLASS_EQUAL;
+        CLASSES['.'] = CLASS_DOT;
+        CLASSES[END_OF_INPUT] = CLASS_END;
+        for (TokenType single : new TokenType[] {TokenType.PLUS, TokenType.MINUS,
+            TokenType.PERCENT, TokenType.LEFT_PAREN, TokenType.RIGHT_PAREN, TokenType.SEMICOLON,
+            TokenType.COMMA, TokenType.QUOTE, TokenType.DOUBLE_QUOTE, TokenType.TIMES,
+            TokenType.EQUAL})
+        {
+            char c = single.getText().charAt(0);
+            SINGLES[c] = single;
+            if (CLASSES[c] == CLASS_OTHER)
+            {
+                CLASSES[c] = CLASS_OPERAND;
+            }
+        }
+
+        setAll(STATE_START, accept(ACTION_ERROR, false));
+        set(STATE_START, CLASS_WHITE_SPACE, STATE_START);
+        set(STATE_START, CLASS_NEWLINE, STATE_START);
+        set(STATE_START, CLASS_DIGIT, STATE_NUMBER);
+        set(STATE_START, CLASS_LETTER, STATE_IDENTIFIER);
+        set(STATE_START, CLASS_SLASH, STATE_AFTER_SLASH);
+        set(STATE_START, CLASS_COLON, STATE_AFTER_COLON);
+        set(STATE_START, CLASS_LESS, STATE_AFTER_LESS);
+        set(STATE_START, CLASS_GREATER, STATE_AFTER_GREATER);
+        set(STATE_START, CLASS_STAR, accept(ACTION_SINGLE, true));
+        set(STATE_START, CLASS_EQUAL, accept(ACTION_SINGLE, true));
+        set(STATE_START, CLASS_OPERAND, accept(ACTION_SINGLE, true));
+        set(STATE_START, CLASS_DOT, accept(TokenType.EOF.ordinal(), false));
+        set(STATE_START, CLASS_END, accept(TokenType.EOF.ordinal(), false));
+
+        setAll(STATE_LINE_COMMENT, STATE_LINE_COMMENT);
+        set(STATE_LINE_COMMENT, CLASS_NEWLINE, STATE_START);
+        set(STATE_LINE_COMMENT, CLASS_END, accept(TokenType.EOF.ordinal(), false));
+
+        setAll(STATE_BLOCK_COMMENT, STATE_BLOCK_COMMENT);
+        set(STATE_BLOCK_COMMENT, CLASS_STAR, STATE_BLOCK_COMMENT_STAR);
+        set(STATE_BLOCK_COMMENT, CLASS_END, accept(ACTION_UNTERMINATED, false));
+
+        setAll(STATE_BLOCK_COMMENT_STAR, STATE_BLOCK_COMMENT);
+        set(STATE_BLOCK_COMMENT_STAR, CLASS_STAR, STATE_BLOCK_COMMENT_STAR);
+        set(STATE_BLOCK_COMMENT_STAR, CLASS_SLASH, STATE_START);
+        set(STATE_BLOCK_COMMENT_STAR, CLASS_END, accept(ACTION_UNTERMINATED, false));
+
+        setAll(STATE_AFTER_SLASH, accept(TokenType.DIVIDE.ordinal(), false));
+        set(STATE_AFTER_SLASH, CLASS_SLASH, STATE_LINE_COMMENT);
+        set(STATE_AFTER_SLASH, CLASS_STAR, STATE_BLOCK_COMMENT);
+
+        setAll(STATE_NUMBER, accept(TokenType.NUMBER.ordinal(), false));
+        set(STATE_NUMBER, CLASS_DIGIT, STATE_NUMBER);
+
+        setAll(STATE_IDENTIFIER, accept(TokenType.IDENTIFIER.ordinal(), false));
+        set(STATE_IDENTIFIER, CLASS_LETTER, STATE_IDENTIFIER);
+        set(STATE_IDENTIFIER, CLASS_DIGIT, STATE_IDENTIFIER);
+
+        setAll(STATE_AFTER_COLON, accept(TokenType.COLON.ordinal(), false));
+        set(STATE_AFTER_COLON, CLASS_EQUAL, accept(TokenType.ASSIGN.ordinal(), true));
+
+        setAll(STATE_AFTER_LESS, accept(TokenType.LESS.ordinal(), false));
+        set(STATE_AFTER_LESS, CLASS_EQUAL, accept(TokenType.LESS_EQUAL.ordinal(), true));
+        set(STATE_AFTER_LESS, CLASS_GREATER, accept(TokenType.NOT_EQUAL.ordinal(), true));
+
+        setAll(STATE_AFTER_GREATER, accept(TokenType.GREATER.ordinal(), false));
+        set(STATE_AFTER_GREATER, CLASS_EQUAL, accept(TokenType.GREATER_EQUAL.ordinal(), true));
+    }
+
+    private ByteBuffer buf;
+    private long base;
+    private int limit;
+    private int pos;
+    private int currentChar;
+    private boolean eof;
+
+    private FileChannel channel;
+    private int windowSize;
+
+    private SymbolTable symbols = new SymbolTable();
+
+    private TokenType type;
+    private int tokenStart;
+    private int tokenLength;
+    private int tokenValue;
+    private int symbol;
+
+    /**
+     * Scanner constructor for construction of a scanner that 
+     * uses an InputStream object for input. The entire stream is read into the
+     * source buffer as raw bytes.
+     * Usage: 
+     * FileInputStream inStream = new FileInputStream(new File(<file name>);
+     * Scanner lex = new Scanner(inStream);
+     * @param inStream the input stream to use
+     */
+    public Scanner(InputStream inStream)
+    {
+        byte[] bytes;
+        try
+        {
+            bytes = inStream.readAllBytes();
+        }
+        catch (IOException io)
+        {
+            io.printStackTrace();
+            bytes = new byte[0];
+        }
+        buf = ByteBuffer.wrap(bytes);
+        limit = bytes.length;
+        start(0);
+    }
+    /**
+     * Scanner constructor for constructing a scanner that 
+     * scans a given input string.  It sets the end-of-file flag an then reads
+     * the first character of the input string into the instance field currentChar.
+     * Usage: Scanner lex = new Scanner(input_string);
+     * @param inString the string to scan
+     */
+    public Scanner(String inString)
+    {
+        byte[] bytes = inString.getBytes(StandardCharsets.UTF_8);
+        buf = ByteBuffer.wrap(bytes);
+        limit = bytes.length;
+        start(0);
+    }
+
+    /**
+     * Scanner constructor for constructing a scanner that scans the given bytes, starting at
+     * the given offset as though it were the beginning of the input.
+     * @param bytes the source to scan
+     * @param offset the index of the first byte to scan
+     */
+    Scanner(byte[] bytes, int offset)
+    {
+        buf = ByteBuffer.wrap(bytes);
+        limit = bytes.length;
+        start(offset);
+    }
+
+    /**
+     * Scanner constructor for constructing a scanner that memory-maps the given file and
+     * scans its bytes directly, without reading the file onto the heap.
+     * Usage: Scanner lex = new Scanner(new File(<file name>));
+     * @param file the file to scan
+     * @throws IOException if the file cannot be opened or mapped
+     */
+    public Scanner(File file) throws IOException
+    {
+        this(file, WINDOW_SIZE);
+    }
+
+    /**
+     * Scanner constructor for constructing a scanner that memory-maps the given file, at most
+     * windowSize bytes at a time.
+     * @param file the file to scan
+     * @param windowSize the largest number of bytes to map at once
+     * @throws IOException if the file cannot be opened or mapped
+     */
+    Scanner(File file, int windowSize) throws IOException
+    {
+        this(file, windowSize, 0);
+    }
+
+    /**
+     * Scanner constructor for constructing a scanner that memory-maps the given file, at most
+     * windowSize bytes at a time, starting at the given offset as though it were the beginning
+     * of the input. Token offsets are still reported from the beginning of the file.
+     * @param file the file to scan
+     * @param windowSize the largest number of bytes to map at once
+     * @param offset the offset in the file of the first byte to scan
+     * @throws IOException if the file cannot be opened or mapped
+     */
+    Scanner(File file, int windowSize, long offset) throws IOException
+    {
+        this.windowSize = windowSize;
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        map(offset);
+        start(0);
+    }
+
+    /**
+     * Maps the window of the file that begins at the given offset, closing the channel once
+     * the final window has been mapped.
+     * @param offset the offset in the file where the window begins
+     * @postcondition buf is the new window, base is offset, and limit is the window's length
+     * @throws IOException if the window cannot be mapped
+     */
+    private void map(long offset) throws IOException
+    {
+        long size = channel.size();
+        limit = (int) Math.min(windowSize, size - offset);
+        buf = channel.map(FileChannel.MapMode.READ_ONLY, offset, limit);
+        base = offset;
+        if (base + limit >= size)
+        {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    /**
+     * Maps the next window of the file once pos has run off the end of the current one. The
+     * current token is kept in the new window, and pos and tokenStart are rebased to match.
+     * While white space and comments are being skipped, tokenStart follows pos, so only the
+     * current character is kept.
+     * @return true if more bytes were mapped, false if the whole file has been consumed
+     * @throws ScanErrorException if a single token is larger than a window, or mapping fails
+     */
+    private boolean refill() throws ScanErrorException
+    {
+        if (channel == null)
+        {
+            return false;
+        }
+        int keep = tokenStart;
+        if (keep == 0)
+        {
+            throw new ScanErrorException("Token too long at offset " + base);
+        }
+        try
+        {
+            map(base + keep);
+        }
+        catch (IOException io)
+        {
+            throw new ScanErrorException("Could not map source: " + io.getMessage());
+        }
+        pos -= keep;
+        tokenStart -= keep;
+        return true;
+    }
+
+    /**
+     * Positions the scanner on the given character of the source buffer.
+     * @param startPos the index in buf of the first character to scan
+     * @postcondition currentChar is the character at startPos, and eof is false
+     */
+    private void start(int startPos)
+    {
+        eof = false;
+        type = null;
+        pos = Math.min(startPos, limit);
+        currentChar = pos < limit ? buf.get(pos) & 0xFF : END_OF_INPUT;
+    }
+
+    /**
+     * Advances to the next byte in the source buffer, mapping the next window of a mapped file
+     * if needed. If there are no more bytes, currentChar becomes END_OF_INPUT.
+     * @postcondition currentChar is the byte at pos, or END_OF_INPUT past the end
+     * @throws ScanErrorException if the next window cannot be mapped
+     */
+    private void getNextChar() throws ScanErrorException
+    {
+        if (pos < limit)
+        {
+            pos++;
+        }
+        if (pos < limit || refill())
+        {
+            currentChar = buf.get(pos) & 0xFF;
+        }
+        else
+        {
+            currentChar = END_OF_INPUT;
+        }
+    }
+
+    /**
+     * Sets the transition taken from the given state on the given character class.
+     * @param state the state the DFA is in
+     * @param charClass the class of the current character
+     * @param entry the next state, or an action built by accept()
+     */
+    private static void set(int state, int charClass, int entry)
+    {
+        TRANSITIONS[state * CLASS_COUNT + charClass] = entry;
+    }
+
+    /**
+     * Sets the transition taken from the given state on every character class.
+     * @param state the state the DFA is in
+     * @param entry the next state, or an action built by accept()
+     */
+    private static void setAll(int state, int entry)
+    {
+        for (int charClass = 0; charClass < CLASS_COUNT; charClass++)
+        {
+            set(state, charClass, entry);
+        }
+    }
+
+    /**
+     * Builds a transition table entry that ends the token. Actions are stored as negative
+     * numbers so that they can never be confused with a state.
+     * @param code the ordinal of the TokenType produced, or one of the ACTION_ codes
+     * @param consume true if the current character is part of the token, false if it begins
+     * the next one
+     * @return the encoded table entry
+     */
+    private static int accept(int code, boolean consume)
+    {
+        return -1 - (code * 2 + (consume ? 1 : 0));
+    }
+
+    /**
+     * Determines if the char passed in as a parameter is a digit.
+     * @param value a char passed in to check if it is a digit
+     * @return true if value is a digit, false otherwise
+     */
+    public static boolean isDigit(char value)
+    {
+        return value < END_OF_INPUT && CLASSES[value] == CLASS_DIGIT;
+    }
+
+    /**
+     * Determines if the char passed in as a parameter is a letter.
+     * @param value a char passed in to check if it is a letter
+     * @return true if value is a letter, false otherwise
+     */
+    public static boolean isLetter(char value)
+    {
+        return value < END_OF_INPUT && CLASSES[value] == CLASS_LETTER;
+    }
+
+    /**
+     * Determines if the char passed in as a parameter is a white space.
+     * @param value a char passed in to check if it is a white space
+     * @return true if value is a white space, false otherwise
+     */
+    public static boolean isWhiteSpace(char value)
+    {
+        return value < END_OF_INPUT
+            && (CLASSES[value] == CLASS_WHITE_SPACE || CLASSES[value] == CLASS_NEWLINE);
+    }
+
+    /**
+     * Determines if the char passed in as a parameter is an operand.
+     * @param value a char passed in to check if it is an operand
+     * @return true if value is an operand, false otherwise
+     */
+    public static boolean isOperand(char value)
+    {
+        if (value >= END_OF_INPUT || value == ',')
+        {
+            return false;
+        }
+        byte charClass = CLASSES[value];
+        return charClass >= CLASS_SLASH && charClass <= CLASS_EQUAL || charClass == CLASS_OPERAND;
+    }
+
+    /**
+     * Decodes the value of the number lexeme that was just scanned.
+     * @precondition the digits of the number lie between tokenStart and pos
+     * @return the int value of the number
+     * @throws ScanErrorException if the number does not fit in an int
+     */
+    private int decodeNumber() throws ScanErrorException
+    {
+        int value = 0;
+        for (int i = tokenStart; i < pos; i++)
+        {
+            int digit = buf.get(i) - '0';
+            if (value > (Integer.MAX_VALUE - digit) / 10)
+            {
+                throw new ScanErrorException("Integer literal too large at offset "
+                    + (base + tokenStart));
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * Determines if there are any more characters in the file.
+     * @return true if there are more characters in the file, false
+     * if not
+     */
+    public boolean hasNext()
+    {
+        return !eof;
+    }
+
+    /**
+     * Scans the next token by running the DFA from the start state until the transition table
+     * produces an action. White space and comments lead back to the start state, so they are
+     * skipped along the way. If the program encounters a period or the end of the input, the
+     * token is EOF. Identifiers that spell a keyword become that keyword's TokenType, and the
+     * value of a NUMBER is decoded so that getValue() can return it.
+     * @return the TokenType of the token scanned
+     * @throws ScanErrorException if we encounter an unrecognized character, an unterminated
+     * comment, or a number that does not fit in an int
+     */
+    public TokenType next() throws ScanErrorException
+    {
+        int state = STATE_START;
+        int entry;
+        while (true)
+        {
+            if (state <= LAST_SKIP_STATE)
+            {
+                tokenStart = pos;
+            }
+            entry = TRANSITIONS[state * CLASS_COUNT + CLASSES[currentChar]];
+            if (entry < 0)
+            {
+                break;
+            }
+            state = entry;
+            getNextChar();
+        }
+        int action = -1 - entry;
+        int code = action >> 1;
+        int single = currentChar;
+        if ((action & 1) != 0)
+        {
+            getNextChar();
+        }
+        if (code == ACTION_SINGLE)
+        {
+            type = SINGLES[single];
+        }
+        else if (code == ACTION_ERROR)
+        {
+            throw new ScanErrorException("Unrecognized character: " + (char) currentChar);
+        }
+        else if (code == ACTION_UNTERMINATED)
+        {
+            throw new ScanErrorException("Unterminated comment");
+        }
+        else
+        {
+            type = TOKEN_TYPES[code];
+            if (type == TokenType.IDENTIFIER)
+            {
+                type = SymbolTable.keyword(buf, tokenStart, pos - tokenStart);
+                if (type == TokenType.IDENTIFIER)
+                {
+                    symbol = symbols.intern(buf, tokenStart, pos - tokenStart);
+                }
+            }
+            else if (type == TokenType.NUMBER)
+            {
+                tokenValue = decodeNumber();
+            }
+            else if (type == TokenType.EOF)
+            {
+                eof = true;
+            }
+        }
+        tokenLength = pos - tokenStart;
+        return type;
+    }
+
+    /**
+     * Returns the TokenType of the current token.
+     * @return the type of the token most recently scanned by next()
+     */
+    public TokenType getType()
+    {
+        return type;
+    }
+
+    /**
+     * Returns the decoded value of the current token.
+     * @precondition the current token is a NUMBER
+     * @return the int value of the number
+     */
+    public int getValue()
+    {
+        return tokenValue;
+    }
+
+    /**
+     * Returns the symbol ID of the current token.
+     * @precondition the current token is an IDENTIFIER
+     * @return the ID of the identifier in this Scanner's SymbolTable
+     */
+    public int getSymbol()
+    {
+        return symbol;
+    }
+
+    /**
+     * Returns the SymbolTable that this Scanner interns identifiers into.
+     * @return the instance variable symbols
+     */
+    public SymbolTable getSymbols()
+    {
+        return symbols;
+    }
+
+    /**
+     * Returns the offset of the current token in the source.
+     * @return the byte offset of the first character of the current token
+     */
+    public long getStart()
+    {
+        return base + tokenStart;
+    }
+
+    /**
+     * Returns the length of the current token in the source buffer.
+     * @return the number of bytes in the current token
+     */
+    public int getLength()
+    {
+        return tokenLength;
+    }
+
+    /**
+     * Returns the text of the current token. Tokens with a fixed spelling return that spelling
+     * and identifiers return their interned name, without allocating; NUMBER tokens are copied
+     * out of the source buffer.
+     * @return the text of the current token
+     */
+    public String getText()
+    {
+        if (type.getText() != null)
+        {
+            return type.getText();
+        }
+        if (type == TokenType.IDENTIFIER)
+        {
+            return symbols.getName(symbol);
+        }
+        char[] chars = new char[tokenLength];
+        for (int i = 0; i < tokenLength; i++)
+        {
+            chars[i] = (char) (buf.get(tokenStart + i) & 0xFF);
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Retrieves and returns the text of the next token in the file.
+     * This is a convenience wrapper around next() and getText().
+     * @return the next token
+     * @throws ScanErrorException if we encounter an unrecognized character or a bad literal
+     */
+    public String nextToken() throws ScanErrorException
+    {
+        next();
+        return getText();
+    }
+}
@@ -0,0 +1,282 @@
+package scanner;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * SymbolTable interns identifiers for the Scanner.
+ *
+ * Every distinct identifier is stored exactly once and given a dense int ID, starting at 0 in
+ * the order the identifiers are first seen. Scanning an identifier that is already in the table
+ * allocates nothing, and getName() always returns the same String instance for the same ID, so
+ * later phases can compare names by ID (or by reference) instead of by content.
+ *
+ * Keywords are never interned. They are recognised first, by a perfect hash over the first
+ * character, last character, and length of the identifier. The hash multiplier is searched for
+ * when the class is loaded, so the keyword table has no collisions and a keyword check costs a
+ * single probe and one comparison.
+ *
+ * @author Ishan Mysore
+ * @version 10/17/26
+ */
+public class SymbolTable
+{
+    private static final int KEYWORD_BITS = 6;
+    private static final TokenType[] KEYWORD_SLOTS = new TokenType[1 << KEYWORD_BITS];
+    private static final int KEYWORD_SEED;
+
+    static
+    {
+        int keywordCount = 0;
+        for (TokenType type : TokenType.values())
+        {
+            if (type.isKeyword())
+            {
+                keywordCount++;
+            }
+        }
+        TokenType[] keywords = new TokenType[keywordCount];
+        keywordCount = 0;
+        for (TokenType type : TokenType.values())
+        {
+            if (type.isKeyword())
+            {
+                keywords[keywordCount++] = type;
+            }
+        }
+        int seed = 1;
+        while (!placeKeywords(keywords, seed))
+        {
+            seed += 2;
+        }
+        KEYWORD_SEED = seed;
+    }
+
+    private String[] names;
+    private int[] hashes;
+    private int[] slots;
+    private int count;
+
+    /**
+     * Creates a new, empty SymbolTable.
+     */
+    public SymbolTable()
+    {
+        names = new String[64];
+        hashes = new int[64];
+        slots = new int[128];
+        count = 0;
+    }
+
+    /**
+     * Tries to place every keyword in KEYWORD_SLOTS using the given hash multiplier.
+     * @param keywords the keyword token types
+     * @param seed the hash multiplier to try
+     * @return true if no two keywords share a slot, false otherwise
+     */
+    private static boolean placeKeywords(TokenType[] keywords, int seed)
+    {
+        Arrays.fill(KEYWORD_SLOTS, null);
+        for (TokenType keyword : keywords)
+        {
+            String text = keyword.getText();
+            int slot = keywordSlot(text.charAt(0), text.charAt(text.length() - 1),
+                text.length(), seed);
+            if (KEYWORD_SLOTS[slot] != null)
+            {
+                return false;
+            }
+            KEYWORD_SLOTS[slot] = keyword;
+        }
+        return true;
+    }
+
+    /**
+     * Computes the keyword slot for a word with the given first character, last character, and
+     * length.
+     * @param first the first character of the word
+     * @param last the last character of the word
+     * @param length the number of characters in the word
+     * @param seed the hash multiplier
+     * @return the index into KEYWORD_SLOTS
+     */
+    private static int keywordSlot(int first, int last, int length, int seed)
+    {
+        return ((first * 31 + last) * 31 + length) * seed >>> (32 - KEYWORD_BITS);
+    }
+
+    /**
+     * Classifies the identifier spelled by the given range of bytes as either a keyword or a
+     * plain IDENTIFIER. Keywords are case-sensitive.
+     * @param buf the byte buffer holding the identifier
+     * @param start the index of the first byte of the identifier
+     * @param length the number of bytes in the identifier
+     * @return the keyword token type, or IDENTIFIER if the range does not spell a keyword
+     */
+    public static TokenType keyword(ByteBuffer buf, int start, int length)
+    {
+        TokenType keyword = KEYWORD_SLOTS[keywordSlot(buf.get(start) & 0xFF,
+            buf.get(start + length - 1) & 0xFF, length, KEYWORD_SEED)];
+        if (keyword != null && matches(keyword.getText(), buf, start, length))
+        {
+            return keyword;
+        }
+        return TokenType.IDENTIFIER;
+    }
+
+    /**
+     * Determines whether the given String spells the given range of bytes.
+     * @param text the String to compare
+     * @param buf the byte buffer holding the range
+     * @param start the index of the first byte of the range
+     * @param length the number of bytes in the range
+     * @return true if the String and the range hold the same characters, false otherwise
+     */
+    private static boolean matches(String text, ByteBuffer buf, int start, int length)
+    {
+        if (text.length() != length)
+        {
+            return false;
+        }
+        for (int i = 0; i < length; i++)
+        {
+            if (text.charAt(i) != (buf.get(start + i) & 0xFF))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the ID of the identifier spelled by the given range of bytes, adding it to the
+     * table if it has not been seen before.
+     * @param buf the byte buffer holding the identifier
+     * @param start the index of the first byte of the identifier
+     * @param length the number of bytes in the identifier
+     * @return the ID of the identifier
+     */
+    public int intern(ByteBuffer buf, int start, int length)
+    {
+        int hash = 0;
+        for (int i = 0; i < length; i++)
+        {
+            hash = 31 * hash + (buf.get(start + i) & 0xFF);
+        }
+        int mask = slots.length - 1;
+        int slot = mix(hash) & mask;
+        while (slots[slot] != 0)
+        {
+            int id = slots[slot] - 1;
+            if (hashes[id] == hash && matches(names[id], buf, start, length))
+            {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++)
+        {
+            chars[i] = (char) (buf.get(start + i) & 0xFF);
+        }
+        return add(new String(chars), hash, slot);
+    }
+
+    /**
+     * Returns the ID of the given identifier, adding it to the table if it has not been seen
+     * before.
+     * @param name the identifier
+     * @return the ID of the identifier
+     */
+    public int intern(String name)
+    {
+        int hash = name.hashCode();
+        int mask = slots.length - 1;
+        int slot = mix(hash) & mask;
+        while (slots[slot] != 0)
+        {
+            int id = slots[slot] - 1;
+            if (hashes[id] == hash && names[id].equals(name))
+            {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return add(name, hash, slot);
+    }
+
+    /**
+     * Adds a new identifier to the table at the given empty slot, growing the table if it has
+     * become more than half full.
+     * @param name the identifier
+     * @param hash the hash of the identifier
+     * @param slot the empty slot the identifier hashed to
+     * @return the ID given to the identifier
+     */
+    private int add(String name, int hash, int slot)
+    {
+        if (count == names.length)
+        {
+            names = Arrays.copyOf(names, count * 2);
+            hashes = Arrays.copyOf(hashes, count * 2);
+        }
+        int id = count;
+        names[id] = name;
+        hashes[id] = hash;
+        count++;
+        slots[slot] = id + 1;
+        if (count * 2 > slots.length)
+        {
+            rehash();
+        }
+        return id;
+    }
+
+    /**
+     * Doubles the number of slots and re-inserts every identifier.
+     */
+    private void rehash()
+    {
+        slots = new int[slots.length * 2];
+        int mask = slots.length - 1;
+        for (int id = 0; id < count; id++)
+        {
+            int slot = mix(hashes[id]) & mask;
+            while (slots[slot] != 0)
+            {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = id + 1;
+        }
+    }
+
+    /**
+     * Spreads the bits of a hash so that similar identifiers land in different slots.
+     * @param hash the hash to mix
+     * @return the mixed hash
+     */
+    private static int mix(int hash)
+    {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Returns the identifier with the given ID.
+     * @param id the ID of the identifier
+     * @return the interned name of the identifier
+     */
+    public String getName(int id)
+    {
+        return names[id];
+    }
+
+    /**
+     * Returns the number of distinct identifiers in the table.
+     * @return the number of identifiers interned so far
+     */
+    public int size()
+    {
+        return count;
+    }
+}
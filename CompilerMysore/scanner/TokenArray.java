@@ -0,0 +1,287 @@
+package scanner;
+
+import java.util.Arrays;
+
+/**
+ * TokenArray is a fully scanned token stream stored as parallel primitive arrays: the ordinal of
+ * each token's TokenType, its offset and length in the source, and an int payload that holds the
+ * value of a NUMBER or the symbol ID of an IDENTIFIER.
+ *
+ * A TokenArray is also a TokenSource, so the Parser can read it exactly as it would read a
+ * Scanner. Since the source itself is not kept, getText() for a NUMBER returns the decimal
+ * spelling of its value.
+ *
+ * @author Ishan Mysore
+ * @version 10/17/26
+ */
+public class TokenArray implements TokenSource
+{
+    private static final TokenType[] TOKEN_TYPES = TokenType.values();
+
+    private byte[] types;
+    private long[] starts;
+    private int[] lengths;
+    private int[] values;
+    private int count;
+    private SymbolTable symbols;
+    private int cursor;
+
+    /**
+     * Creates a new, empty TokenArray.
+     * @param symbols the SymbolTable that identifier payloads refer to
+     * @param capacity the number of tokens to make room for
+     */
+    TokenArray(SymbolTable symbols, int capacity)
+    {
+        this.symbols = symbols;
+        capacity = Math.max(capacity, 16);
+        types = new byte[capacity];
+        starts = new long[capacity];
+        lengths = new int[capacity];
+        values = new int[capacity];
+        count = 0;
+        cursor = -1;
+    }
+
+    /**
+     * Creates a new TokenArray that shares the tokens of another, with its cursor placed just
+     * before the given index.
+     * @param other the TokenArray whose tokens to share
+     * @param index the index of the token that next() will return first
+     */
+    private TokenArray(TokenArray other, int index)
+    {
+        symbols = other.symbols;
+        types = other.types;
+        starts = other.starts;
+        lengths = other.lengths;
+        values = other.values;
+        count = other.count;
+        cursor = index - 1;
+    }
+
+    /**
+     * Scans every token from the given Scanner, up to and including EOF.
+     * @param scanner the Scanner to drain
+     * @return the tokens scanned, sharing the Scanner's SymbolTable
+     * @throws ScanErrorException if a token cannot be scanned
+     */
+    public static TokenArray scan(Scanner scanner) throws ScanErrorException
+    {
+        TokenArray tokens = new TokenArray(scanner.getSymbols(), 1024);
+        TokenType type;
+        do
+        {
+            type = scanner.next();
+            tokens.add(scanner);
+        }
+        while (type != TokenType.EOF);
+        return tokens;
+    }
+
+    /**
+     * Appends the Scanner's current token.
+     * @param scanner the Scanner positioned on the token to append
+     */
+    void add(Scanner scanner)
+    {
+        TokenType type = scanner.getType();
+        int value = 0;
+        if (type == TokenType.NUMBER)
+        {
+            value = scanner.getValue();
+        }
+        else if (type == TokenType.IDENTIFIER)
+        {
+            value = scanner.getSymbol();
+        }
+        add(type.ordinal(), scanner.getStart(), scanner.getLength(), value);
+    }
+
+    /**
+     * Appends a token.
+     * @param type the ordinal of the token's TokenType
+     * @param start the offset of the token in the source
+     * @param length the length of the token in the source
+     * @param value the value of a NUMBER, the symbol ID of an IDENTIFIER, or 0
+     */
+    void add(int type, long start, int length, int value)
+    {
+        if (count == types.length)
+        {
+            int capacity = count * 2;
+            types = Arrays.copyOf(types, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+        types[count] = (byte) type;
+        starts[count] = start;
+        lengths[count] = length;
+        values[count] = value;
+        count++;
+    }
+
+    /**
+     * Returns the number of tokens in the array.
+     * @return the number of tokens
+     */
+    public int size()
+    {
+        return count;
+    }
+
+    /**
+     * Returns the TokenType of the token at the given index.
+     * @param index the index of the token
+     * @return the type of the token
+     */
+    public TokenType getType(int index)
+    {
+        return TOKEN_TYPES[types[index]];
+    }
+
+    /**
+     * Returns the offset in the source of the token at the given index.
+     * @param index the index of the token
+     * @return the offset of the token
+     */
+    public long getStart(int index)
+    {
+        return starts[index];
+    }
+
+    /**
+     * Returns the length in the source of the token at the given index.
+     * @param index the index of the token
+     * @return the length of the token
+     */
+    public int getLength(int index)
+    {
+        return lengths[index];
+    }
+
+    /**
+     * Returns the payload of the token at the given index.
+     * @param index the index of the token
+     * @return the value of a NUMBER, the symbol ID of an IDENTIFIER, or 0
+     */
+    public int getPayload(int index)
+    {
+        return values[index];
+    }
+
+    /**
+     * Determines if this array holds exactly the same tokens as another, including symbol IDs.
+     * @param other the TokenArray to compare with
+     * @return true if both arrays hold the same tokens, false otherwise
+     */
+    public boolean sameTokens(TokenArray other)
+    {
+        return count == other.count
+            && Arrays.equals(types, 0, count, other.types, 0, count)
+            && Arrays.equals(starts, 0, count, other.starts, 0, count)
+            && Arrays.equals(lengths, 0, count, other.lengths, 0, count)
+            && Arrays.equals(values, 0, count, other.values, 0, count);
+    }
+
+    /**
+     * Returns the index of the token under the cursor.
+     * @return the instance variable cursor
+     */
+    public int getCursor()
+    {
+        return cursor;
+    }
+
+    /**
+     * Returns a TokenArray over the same tokens whose first call to next() returns the token at
+     * the given index. The two arrays share their tokens but have separate cursors, so the tokens
+     * from index onward can be read again without scanning them again.
+     * @param index the index of the first token to read
+     * @return a new TokenArray sharing this array's tokens
+     */
+    public TokenArray from(int index)
+    {
+        return new TokenArray(this, index);
+    }
+
+    /**
+     * Advances the cursor to the next token. Once the EOF token is reached, the cursor stays on
+     * it.
+     * @return the TokenType of the new current token
+     */
+    public TokenType next()
+    {
+        if (cursor < count - 1)
+        {
+            cursor++;
+        }
+        return getType();
+    }
+
+    /**
+     * Returns the TokenType of the token under the cursor.
+     * @return the type of the current token
+     */
+    public TokenType getType()
+    {
+        return TOKEN_TYPES[types[cursor]];
+    }
+
+    /**
+     * Returns the decoded value of the token under the cursor.
+     * @precondition the current token is a NUMBER
+     * @return the int value of the number
+     */
+    public int getValue()
+    {
+        return values[cursor];
+    }
+
+    /**
+     * Returns the symbol ID of the token under the cursor.
+     * @precondition the current token is an IDENTIFIER
+     * @return the ID of the identifier
+     */
+    public int getSymbol()
+    {
+        return values[cursor];
+    }
+
+    /**
+     * Returns the text of the token under the cursor.
+     * @return the fixed spelling, the interned identifier, or the decimal value of a NUMBER
+     */
+    public String getText()
+    {
+        TokenType type = getType();
+        if (type.getText() != null)
+        {
+            return type.getText();
+        }
+        if (type == TokenType.IDENTIFIER)
+        {
+            return symbols.getName(values[cursor]);
+        }
+        return Integer.toString(values[cursor]);
+    }
+
+    /**
+     * Returns the SymbolTable that identifier payloads refer to.
+     * @return the instance variable symbols
+     */
+    public SymbolTable getSymbols()
+    {
+        return symbols;
+    }
+
+    /**
+     * Determines if the cursor has not reached the EOF token yet.
+     * @return true if there are more tokens, false once EOF has been returned
+     */
+    public boolean hasNext()
+    {
+        return cursor < 0 || types[cursor] != TokenType.EOF.ordinal();
+    }
+}
@@ -0,0 +1,254 @@
+package scanner;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * TokenPipeline runs a Scanner on its own thread and hands its tokens to the Parser through a
+ * bounded, lock-free single-producer/single-consumer ring. Reading the source and scanning it
+ * overlap with parsing instead of happening one after another on the parser's thread.
+ *
+ * The ring is a set of parallel arrays indexed by sequence number modulo the capacity. The
+ * producer is the only writer of tail and the consumer is the only writer of head; each slot is
+ * filled before tail is published, and read before head is published, so no locks are needed.
+ * A side that finds the ring full (or empty) spins briefly and then parks for a microsecond at a
+ * time until the other side catches up.
+ *
+ * Identifier names are copied into the ring along with their symbol IDs, so the consumer never
+ * reads the SymbolTable while the producer may still be adding to it. getSymbols() is therefore
+ * only safe to use once EOF has been returned. A consumer that stops before EOF should call
+ * close() so that the producer does not wait forever for room in the ring.
+ *
+ * @author Ishan Mysore
+ * @version 10/17/26
+ */
+public class TokenPipeline implements TokenSource, AutoCloseable
+{
+    static final int DEFAULT_CAPACITY = 1 << 12;
+    private static final int SPINS = 100;
+
+    private final Scanner scanner;
+    private final int mask;
+    private final TokenType[] types;
+    private final int[] values;
+    private final String[] texts;
+
+    private volatile long head;
+    private volatile long tail;
+    private volatile boolean finished;
+    private volatile boolean closed;
+    private volatile ScanErrorException error;
+
+    private TokenType type;
+    private int value;
+    private String text;
+
+    /**
+     * Creates a new TokenPipeline with the default capacity, and starts scanning on a new
+     * daemon thread.
+     * @param scanner the Scanner to run on the producer thread
+     */
+    public TokenPipeline(Scanner scanner)
+    {
+        this(scanner, DEFAULT_CAPACITY, runnable -> {
+            Thread thread = new Thread(runnable, "scanner-pipeline");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Creates a new TokenPipeline and starts scanning on a thread made by the given factory.
+     * @param scanner the Scanner to run on the producer thread
+     * @param capacity the number of tokens the ring can hold; rounded up to a power of two
+     * @param threads the factory that makes the producer thread
+     */
+    public TokenPipeline(Scanner scanner, int capacity, ThreadFactory threads)
+    {
+        this.scanner = scanner;
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        mask = size - 1;
+        types = new TokenType[size];
+        values = new int[size];
+        texts = new String[size];
+        head = 0;
+        tail = 0;
+        threads.newThread(this::produce).start();
+    }
+
+    /**
+     * Scans tokens and publishes them into the ring until EOF or a scanning error.
+     */
+    private void produce()
+    {
+        long next = 0;
+        long consumed = 0;
+        try
+        {
+            TokenType scanned;
+            do
+            {
+                scanned = scanner.next();
+                int spins = 0;
+                while (next - consumed > mask)
+                {
+                    if (closed)
+                    {
+                        return;
+                    }
+                    consumed = head;
+                    spins = backOff(spins);
+                }
+                int slot = (int) next & mask;
+                types[slot] = scanned;
+                if (scanned == TokenType.NUMBER)
+                {
+                    values[slot] = scanner.getValue();
+                    texts[slot] = null;
+                }
+                else if (scanned == TokenType.IDENTIFIER)
+                {
+                    values[slot] = scanner.getSymbol();
+                    texts[slot] = scanner.getText();
+                }
+                next++;
+                tail = next;
+            }
+            while (scanned != TokenType.EOF && !closed);
+        }
+        catch (ScanErrorException e)
+        {
+            error = e;
+        }
+        finally
+        {
+            finished = true;
+        }
+    }
+
+    /**
+     * Waits a little while for the other side of the ring.
+     * @param spins the number of times this side has already waited
+     * @return the new number of times this side has waited
+     */
+    private static int backOff(int spins)
+    {
+        if (spins < SPINS)
+        {
+            Thread.onSpinWait();
+        }
+        else
+        {
+            LockSupport.parkNanos(1000);
+        }
+        return spins + 1;
+    }
+
+    /**
+     * Takes the next token out of the ring, waiting for the producer if the ring is empty. Once
+     * EOF has been taken, the current token stays EOF.
+     * @return the TokenType of the new current token
+     * @throws ScanErrorException if the producer hit a scanning error
+     */
+    public TokenType next() throws ScanErrorException
+    {
+        if (type == TokenType.EOF)
+        {
+            return type;
+        }
+        long current = head;
+        int spins = 0;
+        while (current == tail)
+        {
+            if (finished && current == tail)
+            {
+                if (error != null)
+                {
+                    throw error;
+                }
+                throw new ScanErrorException("Scanner stopped before EOF");
+            }
+            spins = backOff(spins);
+        }
+        int slot = (int) current & mask;
+        type = types[slot];
+        value = values[slot];
+        text = texts[slot];
+        head = current + 1;
+        return type;
+    }
+
+    /**
+     * Stops the producer thread if it is still scanning. Tokens already in the ring are
+     * discarded.
+     */
+    public void close()
+    {
+        closed = true;
+    }
+
+    /**
+     * Returns the TokenType of the current token.
+     * @return the type of the token most recently taken by next()
+     */
+    public TokenType getType()
+    {
+        return type;
+    }
+
+    /**
+     * Returns the decoded value of the current token.
+     * @precondition the current token is a NUMBER
+     * @return the int value of the number
+     */
+    public int getValue()
+    {
+        return value;
+    }
+
+    /**
+     * Returns the symbol ID of the current token.
+     * @precondition the current token is an IDENTIFIER
+     * @return the ID of the identifier
+     */
+    public int getSymbol()
+    {
+        return value;
+    }
+
+    /**
+     * Returns the text of the current token.
+     * @return the fixed spelling, the interned identifier, or the decimal value of a NUMBER
+     */
+    public String getText()
+    {
+        if (type.getText() != null)
+        {
+            return type.getText();
+        }
+        if (type == TokenType.IDENTIFIER)
+        {
+            return text;
+        }
+        return Integer.toString(value);
+    }
+
+    /**
+     * Returns the SymbolTable of the producing Scanner.
+     * @precondition EOF has been returned, so the producer has stopped adding to the table
+     * @return the producing Scanner's SymbolTable
+     */
+    public SymbolTable getSymbols()
+    {
+        return scanner.getSymbols();
+    }
+
+    /**
+     * Determines if the EOF token has not been taken yet.
+     * @return true if there are more tokens, false once EOF has been returned
+     */
+    public boolean hasNext()
+    {
+        return type != TokenType.EOF;
+    }
+}
@@ -0,0 +1,56 @@
+package scanner;
+
+/**
+ * TokenSource is anything the Parser can pull tokens from: the Scanner itself, or a TokenArray
+ * of tokens that were scanned ahead of time.
+ *
+ * @author Ishan Mysore
+ * @version 10/17/26
+ */
+public interface TokenSource
+{
+    /**
+     * Advances to the next token.
+     * @return the TokenType of the new current token
+     * @throws ScanErrorException if the next token cannot be scanned
+     */
+    TokenType next() throws ScanErrorException;
+
+    /**
+     * Returns the TokenType of the current token.
+     * @return the type of the current token
+     */
+    TokenType getType();
+
+    /**
+     * Returns the decoded value of the current token.
+     * @precondition the current token is a NUMBER
+     * @return the int value of the number
+     */
+    int getValue();
+
+    /**
+     * Returns the symbol ID of the current token.
+     * @precondition the current token is an IDENTIFIER
+     * @return the ID of the identifier in getSymbols()
+     */
+    int getSymbol();
+
+    /**
+     * Returns the text of the current token.
+     * @return the text of the current token
+     */
+    String getText();
+
+    /**
+     * Returns the SymbolTable that identifier IDs refer to.
+     * @return the SymbolTable for this source
+     */
+    SymbolTable getSymbols();
+
+    /**
+     * Determines if the EOF token has not been reached yet.
+     * @return true if there are more tokens, false once EOF has been returned
+     */
+    boolean hasNext();
+}
@@ -0,0 +1,95 @@
+package scanner;
+
+/**
+ * TokenType enumerates every kind of token that the Scanner can produce.
+ *
+ * Tokens with a fixed spelling (keywords, operators, and punctuation) carry that spelling as
+ * their text, so the Scanner never needs to build a String for them. NUMBER and IDENTIFIER have
+ * no fixed text; their text lives in the Scanner's source buffer.
+ *
+ * @author Ishan Mysore
+ * @version 10/17/26
+ */
+public enum TokenType
+{
+    NUMBER(null),
+    IDENTIFIER(null),
+
+    VAR("VAR"),
+    PROCEDURE("PROCEDURE"),
+    BEGIN("BEGIN"),
+    END("END"),
+    WRITELN("WRITELN"),
+    IF("IF"),
+    THEN("THEN"),
+    ELSE("ELSE"),
+    WHILE("WHILE"),
+    DO("DO"),
+    FOR("FOR"),
+    TO("TO"),
+    BREAK("BREAK"),
+    CONTINUE("CONTINUE"),
+    MOD("mod"),
+
+    ASSIGN(":="),
+    COLON(":"),
+    EQUAL("="),
+    NOT_EQUAL("<>"),
+    LESS("<"),
+    LESS_EQUAL("<="),
+    GREATER(">"),
+    GREATER_EQUAL(">="),
+    PLUS("+"),
+    MINUS("-"),
+    TIMES("*"),
+    DIVIDE("/"),
+    PERCENT("%"),
+    LEFT_PAREN("("),
+    RIGHT_PAREN(")"),
+    SEMICOLON(";"),
+    COMMA(","),
+    QUOTE("'"),
+    DOUBLE_QUOTE("\""),
+
+    EOF("EOF");
+
+    private final String text;
+
+    /**
+     * Creates a new TokenType with the given fixed spelling.
+     * @param text the spelling of the token, or null if the token has no fixed spelling
+     */
+    private TokenType(String text)
+    {
+        this.text = text;
+    }
+
+    /**
+     * Returns the fixed spelling of this token type.
+     * @return the spelling of the token, or null for NUMBER and IDENTIFIER
+     */
+    public String getText()
+    {
+        return text;
+    }
+
+    /**
+     * Determines whether this token type is a relational operator (=, <>, <, >, <=, >=).
+     * @return true if this token type is a relational operator, false otherwise
+     */
+    public boolean isRelop()
+    {
+        return this == EQUAL || this == NOT_EQUAL || this == LESS || this == LESS_EQUAL
+            || this == GREATER || this == GREATER_EQUAL;
+    }
+
+    /**
+     * Determines whether this token type is a keyword, i.e. a word the Scanner recognises
+     * instead of treating as an identifier.
+     * @return true if this token type is a keyword, false otherwise
+     */
+    public boolean isKeyword()
+    {
+        return text != null && Character.isLetter(text.charAt(0));
+    }
+}
@@ -0,0 +1,251 @@
+package vm;
+
+/**
+ * Bytecode is a program lowered for the VM: a flat array of instructions, and a table of the
+ * procedures it contains.
+ *
+ * Every instruction is four ints: an opcode and three operands, called a, b, and c below. Most
+ * operands name registers. A register is a slot of the current frame; the first slots of a
+ * procedure's frame are its variables, in the order of its Scope, and the rest are temporaries.
+ * The main program's frame is the global frame, so in the main program a global variable is
+ * just a register, while a procedure reaches a global with LOADG and STOREG. Jump targets are
+ * indexes into the instruction array.
+ *
+ * @author Ishan Mysore
+ * @version 10/17/26
+ */
+public class Bytecode
+{
+    public static final int WIDTH = 4;
+
+    /** Stops the program. */
+    public static final int HALT = 0;
+    /** r[a] = b */
+    public static final int CONST = 1;
+    /** r[a] = r[b] */
+    public static final int MOVE = 2;
+    /** r[a] = global[b] */
+    public static final int LOADG = 3;
+    /** global[a] = r[b] */
+    public static final int STOREG = 4;
+    /** r[a] = r[b] + r[c] */
+    public static final int ADD = 5;
+    /** r[a] = r[b] - r[c] */
+    public static final int SUB = 6;
+    /** r[a] = r[b] * r[c] */
+    public static final int MUL = 7;
+    /** r[a] = r[b] / r[c] */
+    public static final int DIV = 8;
+    /** r[a] = r[b] % r[c] */
+    public static final int MOD = 9;
+    /** r[a] = r[b] + c */
+    public static final int ADDI = 10;
+    /** Jumps to a. */
+    public static final int JMP = 11;
+    /** Jumps to c if r[a] = r[b]. */
+    public static final int JEQ = 12;
+    /** Jumps to c if r[a] <> r[b]. */
+    public static final int JNE = 13;
+    /** Jumps to c if r[a] < r[b]. */
+    public static final int JLT = 14;
+    /** Jumps to c if r[a] <= r[b]. */
+    public static final int JLE = 15;
+    /** Jumps to c if r[a] > r[b]. */
+    public static final int JGT = 16;
+    /** Jumps to c if r[a] >= r[b]. */
+    public static final int JGE = 17;
+    /** Jumps to c if r[a] = b. */
+    public static final int JEQI = 18;
+    /** Jumps to c if r[a] <> b. */
+    public static final int JNEI = 19;
+    /** Jumps to c if r[a] < b. */
+    public static final int JLTI = 20;
+    /** Jumps to c if r[a] <= b. */
+    public static final int JLEI = 21;
+    /** Jumps to c if r[a] > b. */
+    public static final int JGTI = 22;
+    /** Jumps to c if r[a] >= b. */
+    public static final int JGEI = 23;
+    /** Prints r[a] on its own line. */
+    public static final int WRITE = 24;
+    /** Calls procedure b with its arguments in r[c], r[c + 1], ..., and puts its result in r[a]. */
+    public static final int CALL = 25;
+    /** Returns from the current procedure. */
+    public static final int RET = 26;
+    /** r[a] = r[b] * c */
+    public static final int MULI = 27;
+    /** r[a] = r[b] / c */
+    public static final int DIVI = 28;
+    /** r[a] = r[b] % c */
+    public static final int MODI = 29;
+
+    private static final String[] NAMES = {"HALT", "CONST", "MOVE", "LOADG", "STOREG", "ADD",
+        "SUB", "MUL", "DIV", "MOD", "ADDI", "JMP", "JEQ", "JNE", "JLT", "JLE", "JGT", "JGE",
+        "JEQI", "JNEI", "JLTI", "JLEI", "JGTI", "JGEI", "WRITE", "CALL", "RET", "MULI", "DIVI", "MODI"};
+
+    private int[] code;
+    private int mainEntry;
+    private int mainFrameSize;
+    private int globalCount;
+    private String[] procedureNames;
+    private int[] entries;
+    private int[] ends;
+    private int[] frameSizes;
+    private int[] paramCounts;
+    private int[] resultSlots;
+
+    /**
+     * Creates a new Bytecode.
+     * @param code the instructions
+     * @param mainEntry the index of the main program's first instruction
+     * @param mainFrameSize the number of registers in the global frame
+     * @param globalCount the number of global variables, which are the first registers of the
+     *        global frame
+     * @param procedureNames the name of each procedure
+     * @param entries the index of each procedure's first instruction
+     * @param ends the index just past each procedure's last instruction
+     * @param frameSizes the number of registers in each procedure's frame
+     * @param paramCounts the number of parameters of each procedure
+     * @param resultSlots the register that holds each procedure's return value
+     */
+    Bytecode(int[] code, int mainEntry, int mainFrameSize, int globalCount,
+        String[] procedureNames, int[] entries, int[] ends, int[] frameSizes, int[] paramCounts, int[] resultSlots)
+    {
+        this.code = code;
+        this.mainEntry = mainEntry;
+        this.mainFrameSize = mainFrameSize;
+        this.globalCount = globalCount;
+        this.procedureNames = procedureNames;
+        this.entries = entries;
+        this.ends = ends;
+        this.frameSizes = frameSizes;
+        this.paramCounts = paramCounts;
+        this.resultSlots = resultSlots;
+    }
+
+    /**
+     * Returns the instructions.
+     * @return the instance variable code
+     */
+    int[] getCode()
+    {
+        return code;
+    }
+
+    /**
+     * Returns the index of the main program's first instruction.
+     * @return the instance variable mainEntry
+     */
+    int getMainEntry()
+    {
+        return mainEntry;
+    }
+
+    /**
+     * Returns the number of registers in the global frame.
+     * @return the instance variable mainFrameSize
+     */
+    int getMainFrameSize()
+    {
+        return mainFrameSize;
+    }
+
+    /**
+     * Returns the number of global variables.
+     * @return the instance variable globalCount
+     */
+    int getGlobalCount()
+    {
+        return globalCount;
+    }
+
+    /**
+     * Returns the index of each procedure's first instruction.
+     * @return the instance variable entries
+     */
+    int[] getEntries()
+    {
+        return entries;
+    }
+
+    /**
+     * Returns the index just past each procedure's last instruction.
+     * @return the instance variable ends
+     */
+    int[] getEnds()
+    {
+        return ends;
+    }
+
+    /**
+     * Returns the names of the procedures.
+     * @return the instance variable procedureNames
+     */
+    String[] getProcedureNames()
+    {
+        return procedureNames;
+    }
+
+    /**
+     * Returns the number of registers in each procedure's frame.
+     * @return the instance variable frameSizes
+     */
+    int[] getFrameSizes()
+    {
+        return frameSizes;
+    }
+
+    /**
+     * Returns the number of parameters of each procedure.
+     * @return the instance variable paramCounts
+     */
+    int[] getParamCounts()
+    {
+        return paramCounts;
+    }
+
+    /**
+     * Returns the register that holds each procedure's return value.
+     * @return the instance variable resultSlots
+     */
+    int[] getResultSlots()
+    {
+        return resultSlots;
+    }
+
+    /**
+     * Returns the number of instructions.
+     * @return the length of the code divided by the width of an instruction
+     */
+    public int size()
+    {
+        return code.length / WIDTH;
+    }
+
+    /**
+     * Lists the instructions, one per line, with the entry point of each procedure marked.
+     * @return a readable listing of the bytecode
+     */
+    public String toString()
+    {
+        StringBuilder listing = new StringBuilder();
+        for (int pc = 0; pc < code.length; pc += WIDTH)
+        {
+            if (pc == mainEntry)
+            {
+                listing.append("main:\n");
+            }
+            for (int p = 0; p < entries.length; p++)
+            {
+                if (entries[p] == pc)
+                {
+                    listing.append("proc").append(procedureNames[p]).append(":\n");
+                }
+            }
+            listing.append('\t').append(pc).append('\t').append(NAMES[code[pc]]);
+            listing.append(' ').append(code[pc + 1]).append(' ').append(code[pc + 2]);
+            listing.append(' ').append(code[pc + 3]).append('\n');
+        }
+        return listing.toString();
+    }
+}
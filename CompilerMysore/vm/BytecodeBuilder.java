@@ -0,0 +1,402 @@
+package vm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A BytecodeBuilder collects the instructions for a program while its AST is lowered, in the same
+ * way an Emitter collects MIPS code.
+ *
+ * Besides the instructions, it keeps track of the things lowering needs to know: which procedure
+ * is being lowered and how many variables its frame has, which temporary registers are in use,
+ * where BREAK and CONTINUE should jump, and which procedure each name refers to. Jumps are
+ * emitted to labels, which are numbers handed out by newLabel(), and are patched with the real
+ * instruction indexes when the labels are placed.
+ *
+ * Temporaries are allocated like a stack. An expression leaves its value in some register and
+ * returns that register; the caller remembers getTemps() beforehand and calls release() once it
+ * has used the value.
+ *
+ * @author Ishan Mysore
+ * @version 10/17/26
+ */
+public class BytecodeBuilder
+{
+    private int[] code;
+    private int size;
+    private int lastInstruction;
+
+    private int[] labels;
+    private int labelCount;
+    private List<int[]> fixups;
+
+    private Map<String, Integer> procedureIndexes;
+    private List<String> procedureNames;
+    private int[] entries;
+    private int[] ends;
+    private int[] frameSizes;
+    private int[] paramCounts;
+    private int[] resultSlots;
+
+    private int current;
+    private boolean inMain;
+    private int variables;
+    private int temps;
+    private int maxTemps;
+    private int endLabel;
+    private int entryLabel;
+    private int[] breakLabels;
+    private int[] continueLabels;
+    private int loops;
+
+    private int mainEntry;
+    private int mainFrameSize;
+    private int globalCount;
+
+    /**
+     * Creates a new, empty BytecodeBuilder.
+     */
+    public BytecodeBuilder()
+    {
+        code = new int[256];
+        lastInstruction = -1;
+        labels = new int[16];
+        fixups = new ArrayList<int[]>();
+        procedureIndexes = new HashMap<String, Integer>();
+        procedureNames = new ArrayList<String>();
+        entries = new int[0];
+        ends = new int[0];
+        frameSizes = new int[0];
+        paramCounts = new int[0];
+        resultSlots = new int[0];
+        breakLabels = new int[8];
+        continueLabels = new int[8];
+        mainEntry = -1;
+    }
+
+    /**
+     * Adds a procedure to the table, so that calls to it can be lowered before its body is.
+     * Declaring a name again replaces the earlier procedure, as it does in the Environment, so
+     * whichever body with that name is lowered last is the one that gets called.
+     * @param name the name of the procedure
+     * @param paramCount the number of parameters of the procedure
+     * @param resultSlot the register that holds the procedure's return value
+     */
+    public void declareProcedure(String name, int paramCount, int resultSlot)
+    {
+        Integer existing = procedureIndexes.get(name);
+        int index = existing == null ? procedureNames.size() : existing;
+        if (existing == null)
+        {
+            procedureIndexes.put(name, index);
+            procedureNames.add(name);
+            entries = Arrays.copyOf(entries, index + 1);
+            ends = Arrays.copyOf(ends, index + 1);
+            frameSizes = Arrays.copyOf(frameSizes, index + 1);
+            paramCounts = Arrays.copyOf(paramCounts, index + 1);
+            resultSlots = Arrays.copyOf(resultSlots, index + 1);
+        }
+        paramCounts[index] = paramCount;
+        resultSlots[index] = resultSlot;
+    }
+
+    /**
+     * Returns the index of the procedure with the given name.
+     * @param name the name of the procedure
+     * @return the index of the procedure most recently declared with that name
+     * @throws IllegalArgumentException if no procedure has that name
+     */
+    public int getProcedure(String name)
+    {
+        Integer index = procedureIndexes.get(name);
+        if (index == null)
+        {
+            throw new IllegalArgumentException("Undefined procedure " + name);
+        }
+        return index;
+    }
+
+    /**
+     * Returns the number of parameters of a procedure.
+     * @param procedure the index of the procedure
+     * @return the number of parameters it was declared with
+     */
+    public int getParamCount(int procedure)
+    {
+        return paramCounts[procedure];
+    }
+
+    /**
+     * Starts lowering the body of a procedure.
+     * @param name the name of the procedure
+     * @param variables the number of variables in the procedure's scope
+     * @postcondition instructions emitted from now on belong to the procedure
+     */
+    public void beginProcedure(String name, int variables)
+    {
+        current = getProcedure(name);
+        entries[current] = size;
+        begin(false, variables);
+        entryLabel = newLabel();
+        placeLabel(entryLabel);
+    }
+
+    /**
+     * Returns the label at the start of the body of the current procedure, which a tail call
+     * jumps back to.
+     * @return the label
+     */
+    public int getEntryLabel()
+    {
+        return entryLabel;
+    }
+
+    /**
+     * Finishes the body of the current procedure, which returns when control reaches its end.
+     */
+    public void endProcedure()
+    {
+        placeLabel(endLabel);
+        emit(Bytecode.RET, 0, 0, 0);
+        ends[current] = size;
+        frameSizes[current] = variables + maxTemps;
+    }
+
+    /**
+     * Starts lowering the main program.
+     * @param variables the number of global variables
+     * @postcondition instructions emitted from now on belong to the main program
+     */
+    public void beginMain(int variables)
+    {
+        mainEntry = size;
+        globalCount = variables;
+        begin(true, variables);
+    }
+
+    /**
+     * Finishes the main program, which halts when control reaches its end.
+     */
+    public void endMain()
+    {
+        placeLabel(endLabel);
+        emit(Bytecode.HALT, 0, 0, 0);
+        mainFrameSize = variables + maxTemps;
+    }
+
+    /**
+     * Resets the per-body state at the start of a procedure or of the main program.
+     * @param main true for the main program, false for a procedure
+     * @param variables the number of variables in the body's frame
+     */
+    private void begin(boolean main, int variables)
+    {
+        inMain = main;
+        this.variables = variables;
+        temps = 0;
+        maxTemps = 0;
+        loops = 0;
+        endLabel = newLabel();
+        lastInstruction = -1;
+    }
+
+    /**
+     * Determines if a register holds a global variable that a procedure call could change while
+     * an expression is being evaluated. That is only the case in the main program, where the
+     * global variables are registers.
+     * @param register the register
+     * @return true if the register is a global variable of the main program, false otherwise
+     */
+    public boolean isGlobalRegister(int register)
+    {
+        return inMain && register < variables;
+    }
+
+    /**
+     * Allocates a temporary register.
+     * @return the new register, which is above every register currently in use
+     */
+    public int allocate()
+    {
+        temps++;
+        if (temps > maxTemps)
+        {
+            maxTemps = temps;
+        }
+        return variables + temps - 1;
+    }
+
+    /**
+     * Returns the number of temporary registers in use, to be passed to release() later.
+     * @return the number of temporaries in use
+     */
+    public int getTemps()
+    {
+        return temps;
+    }
+
+    /**
+     * Frees every temporary register allocated since getTemps() returned the given mark.
+     * @param mark a value returned by getTemps()
+     */
+    public void release(int mark)
+    {
+        temps = mark;
+    }
+
+    /**
+     * Appends an instruction.
+     * @param op the opcode
+     * @param a the first operand
+     * @param b the second operand
+     * @param c the third operand
+     */
+    public void emit(int op, int a, int b, int c)
+    {
+        if (size + Bytecode.WIDTH > code.length)
+        {
+            code = Arrays.copyOf(code, code.length * 2);
+        }
+        lastInstruction = size;
+        code[size] = op;
+        code[size + 1] = a;
+        code[size + 2] = b;
+        code[size + 3] = c;
+        size += Bytecode.WIDTH;
+    }
+
+    /**
+     * Appends a jump whose target is a label.
+     * @param op JMP, or one of the conditional jumps
+     * @param a the first operand, ignored for JMP
+     * @param b the second operand, ignored for JMP
+     * @param label the label to jump to
+     */
+    public void emitJump(int op, int a, int b, int label)
+    {
+        if (op == Bytecode.JMP)
+        {
+            emit(op, 0, 0, 0);
+            fixups.add(new int[] {size - Bytecode.WIDTH + 1, label});
+        }
+        else
+        {
+            emit(op, a, b, 0);
+            fixups.add(new int[] {size - 1, label});
+        }
+    }
+
+    /**
+     * Makes the last instruction write its result to another register, so that an assignment
+     * does not need a MOVE after the expression that computes its value.
+     * @param from the temporary register the last instruction writes
+     * @param to the register the value should end up in
+     * @return true if the last instruction was changed, false if the caller must still move the
+     *         value
+     */
+    public boolean retarget(int from, int to)
+    {
+        if (lastInstruction < 0 || from < variables || code[lastInstruction + 1] != from)
+        {
+            return false;
+        }
+        int op = code[lastInstruction];
+        if (op == Bytecode.CONST || op == Bytecode.MOVE || op == Bytecode.LOADG
+            || (op >= Bytecode.ADD && op <= Bytecode.ADDI) || op == Bytecode.CALL
+            || op >= Bytecode.MULI)
+        {
+            code[lastInstruction + 1] = to;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Creates a new label that has not been placed yet.
+     * @return the label
+     */
+    public int newLabel()
+    {
+        if (labelCount == labels.length)
+        {
+            labels = Arrays.copyOf(labels, labelCount * 2);
+        }
+        labels[labelCount] = -1;
+        return labelCount++;
+    }
+
+    /**
+     * Places a label at the next instruction.
+     * @param label the label
+     */
+    public void placeLabel(int label)
+    {
+        labels[label] = size;
+        lastInstruction = -1;
+    }
+
+    /**
+     * Marks the start of a loop, so that BREAK and CONTINUE inside it jump to its labels.
+     * @param breakLabel the label after the loop
+     * @param continueLabel the label that starts the next iteration
+     */
+    public void beginLoop(int breakLabel, int continueLabel)
+    {
+        if (loops == breakLabels.length)
+        {
+            breakLabels = Arrays.copyOf(breakLabels, loops * 2);
+            continueLabels = Arrays.copyOf(continueLabels, loops * 2);
+        }
+        breakLabels[loops] = breakLabel;
+        continueLabels[loops] = continueLabel;
+        loops++;
+    }
+
+    /**
+     * Marks the end of the innermost loop.
+     */
+    public void endLoop()
+    {
+        loops--;
+    }
+
+    /**
+     * Returns the label BREAK jumps to: the end of the innermost loop, or the end of the body if
+     * the BREAK is not inside a loop.
+     * @return the label
+     */
+    public int getBreakLabel()
+    {
+        return loops == 0 ? endLabel : breakLabels[loops - 1];
+    }
+
+    /**
+     * Returns the label CONTINUE jumps to: the next iteration of the innermost loop, or the end
+     * of the body if the CONTINUE is not inside a loop.
+     * @return the label
+     */
+    public int getContinueLabel()
+    {
+        return loops == 0 ? endLabel : continueLabels[loops - 1];
+    }
+
+    /**
+     * Patches every jump with the position of its label and returns the finished bytecode.
+     * @precondition the main program and every declared procedure have been lowered
+     * @return the bytecode
+     */
+    public Bytecode build()
+    {
+        int[] finished = Arrays.copyOf(code, size);
+        for (int[] fixup : fixups)
+        {
+            finished[fixup[0]] = labels[fixup[1]];
+        }
+        return new Bytecode(finished, mainEntry, mainFrameSize, globalCount,
+            procedureNames.toArray(new String[0]), entries, ends, frameSizes, paramCounts,
+            resultSlots);
+    }
+}
@@ -0,0 +1,332 @@
+package vm;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A ClassWriter assembles a JVM class file with static int fields and static methods, which is
+ * all the JvmCompiler needs.
+ *
+ * The constant pool is built up as fields and methods refer to things, and each distinct constant
+ * is only added once. The code of every method is handed over already assembled, together with
+ * its StackMapTable frames. Every frame this compiler needs has only int locals and an empty
+ * operand stack, so a frame is described by nothing more than its offset and its number of
+ * locals.
+ *
+ * @author Ishan Mysore
+ * @version 10/17/26
+ */
+public class ClassWriter
+{
+    public static final int VERSION = 52;
+
+    private static final int ACC_PUBLIC = 0x0001;
+    private static final int ACC_STATIC = 0x0008;
+    private static final int ACC_FINAL = 0x0010;
+    private static final int ACC_SUPER = 0x0020;
+
+    private static final int UTF8 = 1;
+    private static final int INTEGER = 3;
+    private static final int CLASS = 7;
+    private static final int FIELDREF = 9;
+    private static final int METHODREF = 10;
+    private static final int NAME_AND_TYPE = 12;
+
+    private ByteArrayOutputStream pool;
+    private DataOutputStream poolOut;
+    private Map<String, Integer> constants;
+    private int poolSize;
+
+    private List<byte[]> fields;
+    private List<byte[]> methods;
+    private String name;
+    private int thisClass;
+    private int superClass;
+
+    /**
+     * Creates a new ClassWriter for a public final class that extends Object.
+     * @param name the internal name of the class, such as "vm/PascalProgram"
+     */
+    public ClassWriter(String name)
+    {
+        pool = new ByteArrayOutputStream();
+        poolOut = new DataOutputStream(pool);
+        constants = new HashMap<String, Integer>();
+        poolSize = 1;
+        fields = new ArrayList<byte[]>();
+        methods = new ArrayList<byte[]>();
+        this.name = name;
+        thisClass = classRef(name);
+        superClass = classRef("java/lang/Object");
+    }
+
+    /**
+     * Returns the internal name of the class.
+     * @return the instance variable name
+     */
+    public String getName()
+    {
+        return name;
+    }
+
+    /**
+     * Adds a constant to the pool unless an equal one is already there.
+     * @param key a string that identifies the constant
+     * @param tag the tag of the constant
+     * @param a the first two-byte operand, or the int value of an INTEGER
+     * @param b the second two-byte operand, if the tag has one
+     * @return the index of the constant
+     */
+    private int constant(String key, int tag, int a, int b)
+    {
+        Integer index = constants.get(key);
+        if (index != null)
+        {
+            return index;
+        }
+        try
+        {
+            poolOut.writeByte(tag);
+            if (tag == INTEGER)
+            {
+                poolOut.writeInt(a);
+            }
+            else
+            {
+                poolOut.writeShort(a);
+                if (tag != CLASS)
+                {
+                    poolOut.writeShort(b);
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            throw new RuntimeException(e);
+        }
+        constants.put(key, poolSize);
+        return poolSize++;
+    }
+
+    /**
+     * Returns the index of a UTF8 constant.
+     * @param value the string
+     * @return the index of the constant
+     */
+    public int utf8(String value)
+    {
+        String key = "U" + value;
+        Integer index = constants.get(key);
+        if (index != null)
+        {
+            return index;
+        }
+        try
+        {
+            poolOut.writeByte(UTF8);
+            poolOut.writeUTF(value);
+        }
+        catch (IOException e)
+        {
+            throw new RuntimeException(e);
+        }
+        constants.put(key, poolSize);
+        return poolSize++;
+    }
+
+    /**
+     * Returns the index of an INTEGER constant.
+     * @param value the int
+     * @return the index of the constant
+     */
+    public int integer(int value)
+    {
+        return constant("I" + value, INTEGER, value, 0);
+    }
+
+    /**
+     * Returns the index of a CLASS constant.
+     * @param className the internal name of the class
+     * @return the index of the constant
+     */
+    public int classRef(String className)
+    {
+        int nameIndex = utf8(className);
+        return constant("C" + className, CLASS, nameIndex, 0);
+    }
+
+    /**
+     * Returns the index of a NAME_AND_TYPE constant.
+     * @param memberName the name of the field or method
+     * @param descriptor its descriptor
+     * @return the index of the constant
+     */
+    private int nameAndType(String memberName, String descriptor)
+    {
+        int nameIndex = utf8(memberName);
+        int descriptorIndex = utf8(descriptor);
+        return constant("N" + memberName + ":" + descriptor, NAME_AND_TYPE, nameIndex,
+            descriptorIndex);
+    }
+
+    /**
+     * Returns the index of a FIELDREF constant.
+     * @param owner the internal name of the class that declares the field
+     * @param fieldName the name of the field
+     * @param descriptor the descriptor of the field
+     * @return the index of the constant
+     */
+    public int fieldRef(String owner, String fieldName, String descriptor)
+    {
+        int classIndex = classRef(owner);
+        int typeIndex = nameAndType(fieldName, descriptor);
+        return constant("F" + owner + "." + fieldName + ":" + descriptor, FIELDREF, classIndex,
+            typeIndex);
+    }
+
+    /**
+     * Returns the index of a METHODREF constant.
+     * @param owner the internal name of the class that declares the method
+     * @param methodName the name of the method
+     * @param descriptor the descriptor of the method
+     * @return the index of the constant
+     */
+    public int methodRef(String owner, String methodName, String descriptor)
+    {
+        int classIndex = classRef(owner);
+        int typeIndex = nameAndType(methodName, descriptor);
+        return constant("M" + owner + "." + methodName + ":" + descriptor, METHODREF, classIndex,
+            typeIndex);
+    }
+
+    /**
+     * Adds a static int field.
+     * @param fieldName the name of the field
+     */
+    public void addIntField(String fieldName)
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try
+        {
+            out.writeShort(ACC_STATIC);
+            out.writeShort(utf8(fieldName));
+            out.writeShort(utf8("I"));
+            out.writeShort(0);
+        }
+        catch (IOException e)
+        {
+            throw new RuntimeException(e);
+        }
+        fields.add(bytes.toByteArray());
+    }
+
+    /**
+     * Adds a public static method.
+     * @param methodName the name of the method
+     * @param descriptor the descriptor of the method
+     * @param code the bytecode of the method
+     * @param maxStack the deepest the operand stack gets
+     * @param maxLocals the number of local variables, including the parameters
+     * @param frameOffsets the offsets that need a stack map frame, in increasing order
+     * @param frameLocals the number of int locals at each of those offsets
+     * @param frameCount the number of frames
+     * @throws IllegalArgumentException if the code is too long for a method
+     */
+    public void addMethod(String methodName, String descriptor, byte[] code, int maxStack,
+        int maxLocals, int[] frameOffsets, int[] frameLocals, int frameCount)
+    {
+        if (code.length > 65535)
+        {
+            throw new IllegalArgumentException("Method " + methodName + " is too large");
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try
+        {
+            ByteArrayOutputStream frames = new ByteArrayOutputStream();
+            DataOutputStream framesOut = new DataOutputStream(frames);
+            int last = -1;
+            for (int i = 0; i < frameCount; i++)
+            {
+                framesOut.writeByte(255);
+                framesOut.writeShort(frameOffsets[i] - last - 1);
+                framesOut.writeShort(frameLocals[i]);
+                for (int local = 0; local < frameLocals[i]; local++)
+                {
+                    framesOut.writeByte(1);
+                }
+                framesOut.writeShort(0);
+                last = frameOffsets[i];
+            }
+            out.writeShort(ACC_PUBLIC | ACC_STATIC);
+            out.writeShort(utf8(methodName));
+            out.writeShort(utf8(descriptor));
+            out.writeShort(1);
+            out.writeShort(utf8("Code"));
+            int stackMapLength = frameCount == 0 ? 0 : 8 + frames.size();
+            out.writeInt(12 + code.length + stackMapLength);
+            out.writeShort(maxStack);
+            out.writeShort(maxLocals);
+            out.writeInt(code.length);
+            out.write(code);
+            out.writeShort(0);
+            out.writeShort(frameCount == 0 ? 0 : 1);
+            if (frameCount > 0)
+            {
+                out.writeShort(utf8("StackMapTable"));
+                out.writeInt(2 + frames.size());
+                out.writeShort(frameCount);
+                out.write(frames.toByteArray());
+            }
+        }
+        catch (IOException e)
+        {
+            throw new RuntimeException(e);
+        }
+        methods.add(bytes.toByteArray());
+    }
+
+    /**
+     * Assembles the class file.
+     * @return the bytes of the class file
+     */
+    public byte[] toByteArray()
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try
+        {
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(VERSION);
+            out.writeShort(poolSize);
+            out.write(pool.toByteArray());
+            out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(0);
+            out.writeShort(fields.size());
+            for (byte[] field : fields)
+            {
+                out.write(field);
+            }
+            out.writeShort(methods.size());
+            for (byte[] method : methods)
+            {
+                out.write(method);
+            }
+            out.writeShort(0);
+        }
+        catch (IOException e)
+        {
+            throw new RuntimeException(e);
+        }
+        return bytes.toByteArray();
+    }
+}
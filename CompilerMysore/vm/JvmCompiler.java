@@ -0,0 +1,552 @@
+package vm;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The JvmCompiler translates Bytecode into a JVM class, so that a Pascal program is run by
+ * HotSpot's JIT instead of an interpreter.
+ *
+ * The class has a static int field for every global variable, a static int method for every
+ * procedure, taking its parameters as int arguments, and a static main method for the main
+ * program. The translation goes instruction by instruction: each register of a procedure is the
+ * int local with the same number, and in the main program the global variables are the fields and
+ * the temporaries are locals. Every register instruction starts and ends with an empty operand
+ * stack, so each stack map frame is just the method's int locals.
+ *
+ * Pascal calls are JVM calls, so unlike the VM, deep recursion is limited by the Java stack, just
+ * as it is for the tree walker.
+ *
+ * @author Ishan Mysore
+ * @version 10/17/26
+ */
+public class JvmCompiler
+{
+    private static final String CLASS_NAME = "vm/PascalProgram";
+
+    private static final int NOP = 0;
+    private static final int ICONST_0 = 3;
+    private static final int BIPUSH = 16;
+    private static final int SIPUSH = 17;
+    private static final int LDC = 18;
+    private static final int LDC_W = 19;
+    private static final int ILOAD = 21;
+    private static final int ILOAD_0 = 26;
+    private static final int ISTORE = 54;
+    private static final int ISTORE_0 = 59;
+    private static final int IADD = 96;
+    private static final int ISUB = 100;
+    private static final int IMUL = 104;
+    private static final int IDIV = 108;
+    private static final int IREM = 112;
+    private static final int IINC = 132;
+    private static final int IF_ICMPEQ = 159;
+    private static final int GOTO = 167;
+    private static final int IRETURN = 172;
+    private static final int RETURN = 177;
+    private static final int GETSTATIC = 178;
+    private static final int PUTSTATIC = 179;
+    private static final int INVOKEVIRTUAL = 182;
+    private static final int INVOKESTATIC = 184;
+    private static final int WIDE = 196;
+
+    private ClassWriter writer;
+    private Bytecode bytecode;
+    private ByteArrayOutputStream out;
+    private boolean inMain;
+    private int globals;
+
+    /**
+     * Translates Bytecode into the bytes of a class file.
+     * @param bytecode the program
+     * @return the class file
+     * @throws IllegalArgumentException if a procedure or the main program is too large for a JVM
+     *         method
+     */
+    public byte[] compile(Bytecode bytecode)
+    {
+        this.bytecode = bytecode;
+        writer = new ClassWriter(CLASS_NAME);
+        globals = bytecode.getGlobalCount();
+        for (int g = 0; g < globals; g++)
+        {
+            writer.addIntField("g" + g);
+        }
+        String[] names = bytecode.getProcedureNames();
+        int[] entries = bytecode.getEntries();
+        int[] ends = bytecode.getEnds();
+        int[] frameSizes = bytecode.getFrameSizes();
+        int[] paramCounts = bytecode.getParamCounts();
+        for (int p = 0; p < names.length; p++)
+        {
+            inMain = false;
+            compileMethod("proc" + names[p], descriptor(paramCounts[p]), entries[p], ends[p],
+                paramCounts[p], frameSizes[p], bytecode.getResultSlots()[p]);
+        }
+        inMain = true;
+        compileMethod("main", "()V", bytecode.getMainEntry(), bytecode.getCode().length, 0,
+            bytecode.getMainFrameSize() - globals, 0);
+        return writer.toByteArray();
+    }
+
+    /**
+     * Translates Bytecode into a class, defines it as a hidden class, and returns a Runnable that
+     * runs its main program. Each run starts with every global variable set to 0.
+     * @param bytecode the program
+     * @return a Runnable that runs the program
+     * @throws IllegalArgumentException if the program is too large for JVM methods
+     * @throws IllegalStateException if the generated class cannot be loaded
+     */
+    public Runnable load(Bytecode bytecode)
+    {
+        byte[] bytes = compile(bytecode);
+        MethodHandle main;
+        try
+        {
+            MethodHandles.Lookup lookup = MethodHandles.lookup().defineHiddenClass(bytes, true);
+            main = lookup.findStatic(lookup.lookupClass(), "main",
+                MethodType.methodType(void.class));
+        }
+        catch (ReflectiveOperationException e)
+        {
+            throw new IllegalStateException("Could not load the generated class", e);
+        }
+        return () ->
+        {
+            try
+            {
+                main.invokeExact();
+            }
+            catch (RuntimeException | Error e)
+            {
+                throw e;
+            }
+            catch (Throwable t)
+            {
+                throw new IllegalStateException(t);
+            }
+        };
+    }
+
+    /**
+     * Returns the descriptor of a procedure's method.
+     * @param params the number of parameters
+     * @return a descriptor taking that many ints and returning an int
+     */
+    private static String descriptor(int params)
+    {
+        StringBuilder descriptor = new StringBuilder("(");
+        for (int i = 0; i < params; i++)
+        {
+            descriptor.append('I');
+        }
+        return descriptor.append(")I").toString();
+    }
+
+    /**
+     * Translates the instructions of one procedure or of the main program into a method.
+     * @param name the name of the method
+     * @param descriptor the descriptor of the method
+     * @param start the index of the first instruction
+     * @param end the index just past the last instruction
+     * @param params the number of parameters, which are already set on entry
+     * @param locals the number of int locals the method needs
+     * @param resultSlot the register RET returns
+     */
+    private void compileMethod(String name, String descriptor, int start, int end, int params,
+        int locals, int resultSlot)
+    {
+        int[] code = bytecode.getCode();
+        int count = (end - start) / Bytecode.WIDTH;
+        boolean[] needsFrame = new boolean[count + 1];
+        for (int pc = start; pc < end; pc += Bytecode.WIDTH)
+        {
+            int op = code[pc];
+            if (op == Bytecode.JMP)
+            {
+                needsFrame[(code[pc + 1] - start) / Bytecode.WIDTH] = true;
+            }
+            else if (op >= Bytecode.JEQ && op <= Bytecode.JGEI)
+            {
+                needsFrame[(code[pc + 3] - start) / Bytecode.WIDTH] = true;
+            }
+            if (op == Bytecode.JMP || op == Bytecode.RET || op == Bytecode.HALT)
+            {
+                needsFrame[(pc - start) / Bytecode.WIDTH + 1] = true;
+            }
+        }
+
+        out = new ByteArrayOutputStream();
+        if (inMain)
+        {
+            for (int g = 0; g < globals; g++)
+            {
+                out.write(ICONST_0);
+                emitField(PUTSTATIC, g);
+            }
+        }
+        for (int local = params; local < locals; local++)
+        {
+            out.write(ICONST_0);
+            emitLocal(ISTORE_0, ISTORE, local);
+        }
+        if (out.size() == 0 && needsFrame[0])
+        {
+            out.write(NOP);
+        }
+
+        int[] offsets = new int[count + 1];
+        List<int[]> branches = new ArrayList<int[]>();
+        for (int pc = start; pc < end; pc += Bytecode.WIDTH)
+        {
+            offsets[(pc - start) / Bytecode.WIDTH] = out.size();
+            emitInstruction(code[pc], code[pc + 1], code[pc + 2], code[pc + 3], resultSlot,
+                branches);
+        }
+        offsets[count] = out.size();
+
+        byte[] bytes = out.toByteArray();
+        for (int[] branch : branches)
+        {
+            int offset = offsets[(branch[1] - start) / Bytecode.WIDTH] - branch[0];
+            if (offset != (short) offset)
+            {
+                throw new IllegalArgumentException("Method " + name + " is too large");
+            }
+            bytes[branch[0] + 1] = (byte) (offset >> 8);
+            bytes[branch[0] + 2] = (byte) offset;
+        }
+
+        int[] frameOffsets = new int[count];
+        int[] frameLocals = new int[count];
+        int frameCount = 0;
+        for (int i = 0; i < count; i++)
+        {
+            if (needsFrame[i])
+            {
+                frameOffsets[frameCount] = offsets[i];
+                frameLocals[frameCount] = locals;
+                frameCount++;
+            }
+        }
+        int maxStack = 2;
+        for (int paramCount : bytecode.getParamCounts())
+        {
+            maxStack = Math.max(maxStack, paramCount);
+        }
+        writer.addMethod(name, descriptor, bytes, maxStack, locals, frameOffsets, frameLocals,
+            frameCount);
+    }
+
+    /**
+     * Translates one register instruction.
+     * @param op the opcode
+     * @param a the first operand
+     * @param b the second operand
+     * @param c the third operand
+     * @param resultSlot the register RET returns
+     * @param branches the list that each branch is added to, as its offset and its target
+     */
+    private void emitInstruction(int op, int a, int b, int c, int resultSlot,
+        List<int[]> branches)
+    {
+        switch (op)
+        {
+            case Bytecode.HALT:
+                out.write(RETURN);
+                break;
+            case Bytecode.CONST:
+                emitConstant(b);
+                emitStore(a);
+                break;
+            case Bytecode.MOVE:
+                emitLoad(b);
+                emitStore(a);
+                break;
+            case Bytecode.LOADG:
+                emitField(GETSTATIC, b);
+                emitStore(a);
+                break;
+            case Bytecode.STOREG:
+                emitLoad(b);
+                emitField(PUTSTATIC, a);
+                break;
+            case Bytecode.ADD:
+            case Bytecode.SUB:
+            case Bytecode.MUL:
+            case Bytecode.DIV:
+            case Bytecode.MOD:
+                emitLoad(b);
+                emitLoad(c);
+                out.write(arithmetic(op - Bytecode.ADD));
+                emitStore(a);
+                break;
+            case Bytecode.ADDI:
+                if (a == b && !isField(a) && c == (short) c)
+                {
+                    emitIncrement(a, c);
+                    break;
+                }
+                emitLoad(b);
+                emitConstant(c);
+                out.write(IADD);
+                emitStore(a);
+                break;
+            case Bytecode.MULI:
+            case Bytecode.DIVI:
+            case Bytecode.MODI:
+                emitLoad(b);
+                emitConstant(c);
+                out.write(arithmetic(op - Bytecode.MULI + 2));
+                emitStore(a);
+                break;
+            case Bytecode.JMP:
+                branches.add(new int[] {out.size(), a});
+                emitBranch(GOTO);
+                break;
+            case Bytecode.WRITE:
+                out.write(GETSTATIC);
+                emitShort(writer.fieldRef("java/lang/System", "out", "Ljava/io/PrintStream;"));
+                emitLoad(a);
+                out.write(INVOKEVIRTUAL);
+                emitShort(writer.methodRef("java/io/PrintStream", "println", "(I)V"));
+                break;
+            case Bytecode.CALL:
+            {
+                int params = bytecode.getParamCounts()[b];
+                for (int i = 0; i < params; i++)
+                {
+                    emitLoad(c + i);
+                }
+                out.write(INVOKESTATIC);
+                emitShort(writer.methodRef(CLASS_NAME, "proc" + bytecode.getProcedureNames()[b],
+                    descriptor(params)));
+                emitStore(a);
+                break;
+            }
+            case Bytecode.RET:
+                emitLoad(resultSlot);
+                out.write(IRETURN);
+                break;
+            default:
+                emitLoad(a);
+                if (op >= Bytecode.JEQI)
+                {
+                    emitConstant(b);
+                    op -= Bytecode.JEQI - Bytecode.JEQ;
+                }
+                else
+                {
+                    emitLoad(b);
+                }
+                branches.add(new int[] {out.size(), c});
+                emitBranch(comparison(op));
+        }
+    }
+
+    /**
+     * Returns the JVM instruction for an arithmetic operator.
+     * @param index 0 through 4 for add, subtract, multiply, divide, and remainder
+     * @return the JVM opcode
+     */
+    private static int arithmetic(int index)
+    {
+        int[] opcodes = {IADD, ISUB, IMUL, IDIV, IREM};
+        return opcodes[index];
+    }
+
+    /**
+     * Returns the JVM branch for a register comparison.
+     * @param op one of JEQ, JNE, JLT, JLE, JGT, and JGE
+     * @return the matching if_icmp instruction
+     */
+    private static int comparison(int op)
+    {
+        switch (op)
+        {
+            case Bytecode.JEQ:
+                return IF_ICMPEQ;
+            case Bytecode.JNE:
+                return IF_ICMPEQ + 1;
+            case Bytecode.JLT:
+                return IF_ICMPEQ + 2;
+            case Bytecode.JGE:
+                return IF_ICMPEQ + 3;
+            case Bytecode.JGT:
+                return IF_ICMPEQ + 4;
+            default:
+                return IF_ICMPEQ + 5;
+        }
+    }
+
+    /**
+     * Determines if a register is a global variable of the main program, which is a field.
+     * @param register the register
+     * @return true if the register is a field, false if it is a local
+     */
+    private boolean isField(int register)
+    {
+        return inMain && register < globals;
+    }
+
+    /**
+     * Pushes the value of a register.
+     * @param register the register
+     */
+    private void emitLoad(int register)
+    {
+        if (isField(register))
+        {
+            emitField(GETSTATIC, register);
+        }
+        else
+        {
+            emitLocal(ILOAD_0, ILOAD, local(register));
+        }
+    }
+
+    /**
+     * Pops a value into a register.
+     * @param register the register
+     */
+    private void emitStore(int register)
+    {
+        if (isField(register))
+        {
+            emitField(PUTSTATIC, register);
+        }
+        else
+        {
+            emitLocal(ISTORE_0, ISTORE, local(register));
+        }
+    }
+
+    /**
+     * Returns the local that holds a register.
+     * @param register a register that is not a field
+     * @return the number of the local
+     */
+    private int local(int register)
+    {
+        return inMain ? register - globals : register;
+    }
+
+    /**
+     * Writes a load or store of a local, using the shortest form of the instruction.
+     * @param shortOpcode the opcode for local 0, which is followed by those for locals 1 to 3
+     * @param opcode the general opcode
+     * @param local the number of the local
+     */
+    private void emitLocal(int shortOpcode, int opcode, int local)
+    {
+        if (local < 4)
+        {
+            out.write(shortOpcode + local);
+        }
+        else if (local < 256)
+        {
+            out.write(opcode);
+            out.write(local);
+        }
+        else
+        {
+            out.write(WIDE);
+            out.write(opcode);
+            emitShort(local);
+        }
+    }
+
+    /**
+     * Writes an increment of a register that is a local.
+     * @param register the register
+     * @param amount the amount to add, which fits in a short
+     */
+    private void emitIncrement(int register, int amount)
+    {
+        int local = local(register);
+        if (local < 256 && amount == (byte) amount)
+        {
+            out.write(IINC);
+            out.write(local);
+            out.write(amount);
+        }
+        else
+        {
+            out.write(WIDE);
+            out.write(IINC);
+            emitShort(local);
+            emitShort(amount);
+        }
+    }
+
+    /**
+     * Writes a getstatic or putstatic of a global variable's field.
+     * @param opcode GETSTATIC or PUTSTATIC
+     * @param global the slot of the global variable
+     */
+    private void emitField(int opcode, int global)
+    {
+        out.write(opcode);
+        emitShort(writer.fieldRef(CLASS_NAME, "g" + global, "I"));
+    }
+
+    /**
+     * Pushes a constant, using the shortest instruction that can hold it.
+     * @param value the constant
+     */
+    private void emitConstant(int value)
+    {
+        if (value >= -1 && value <= 5)
+        {
+            out.write(ICONST_0 + value);
+        }
+        else if (value == (byte) value)
+        {
+            out.write(BIPUSH);
+            out.write(value);
+        }
+        else if (value == (short) value)
+        {
+            out.write(SIPUSH);
+            emitShort(value);
+        }
+        else
+        {
+            int index = writer.integer(value);
+            if (index < 256)
+            {
+                out.write(LDC);
+                out.write(index);
+            }
+            else
+            {
+                out.write(LDC_W);
+                emitShort(index);
+            }
+        }
+    }
+
+    /**
+     * Writes a branch whose offset is patched once every instruction has been placed.
+     * @param opcode the branch instruction
+     */
+    private void emitBranch(int opcode)
+    {
+        out.write(opcode);
+        emitShort(0);
+    }
+
+    /**
+     * Writes two bytes, high byte first.
+     * @param value the value
+     */
+    private void emitShort(int value)
+    {
+        out.write(value >> 8);
+        out.write(value);
+    }
+}
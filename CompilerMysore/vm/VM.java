@@ -0,0 +1,274 @@
+package vm;
+
+import java.util.Arrays;
+
+import environment.BufferedOutput;
+import environment.Output;
+
+/**
+ * The VM executes Bytecode with a single switch-dispatch loop.
+ *
+ * All registers live in one int[]. The global frame sits at the bottom, and each call pushes the
+ * callee's frame directly above the caller's, so a register is read as registers[fp + r] where fp
+ * is the base of the current frame. The global variables are the first registers of the global
+ * frame, which is how LOADG and STOREG find them from any procedure.
+ *
+ * Calls do not use the Java stack. CALL saves the return address, the caller's frame base, the
+ * register the result goes to, and the caller's procedure on an explicit call stack, and RET
+ * pops them again, so a Pascal program can recurse as deep as memory allows.
+ *
+ * @author Ishan Mysore
+ * @version 10/17/26
+ */
+public class VM
+{
+    private static final int MAIN = -1;
+
+    private Output out;
+
+    /**
+     * Creates a new VM that writes to standard output.
+     */
+    public VM()
+    {
+        this(BufferedOutput.getStandard());
+    }
+
+    /**
+     * Creates a new VM.
+     * @param out the Output WRITELN prints to
+     */
+    public VM(Output out)
+    {
+        this.out = out;
+    }
+
+    /**
+     * Runs a program from the start of its main program until it halts, and then flushes the
+     * Output, even if the program ends with an exception.
+     * @param bytecode the program
+     * @throws ArithmeticException if the program divides by zero
+     */
+    public void run(Bytecode bytecode)
+    {
+        try
+        {
+            execute(bytecode);
+        }
+        finally
+        {
+            out.flush();
+        }
+    }
+
+    /**
+     * Runs a program from the start of its main program until it halts.
+     * @param bytecode the program
+     * @throws ArithmeticException if the program divides by zero
+     */
+    private void execute(Bytecode bytecode)
+    {
+        int[] code = bytecode.getCode();
+        int[] entries = bytecode.getEntries();
+        int[] frameSizes = bytecode.getFrameSizes();
+        int[] paramCounts = bytecode.getParamCounts();
+        int[] resultSlots = bytecode.getResultSlots();
+
+        int[] registers = new int[Math.max(1024, bytecode.getMainFrameSize() * 2)];
+        int[] calls = new int[64];
+        int depth = 0;
+        int procedure = MAIN;
+        int frameSize = bytecode.getMainFrameSize();
+        int fp = 0;
+        int pc = bytecode.getMainEntry();
+
+        while (true)
+        {
+            int a = code[pc + 1];
+            int b = code[pc + 2];
+            int c = code[pc + 3];
+            switch (code[pc])
+            {
+                case Bytecode.HALT:
+                    return;
+                case Bytecode.CONST:
+                    registers[fp + a] = b;
+                    break;
+                case Bytecode.MOVE:
+                    registers[fp + a] = registers[fp + b];
+                    break;
+                case Bytecode.LOADG:
+                    registers[fp + a] = registers[b];
+                    break;
+                case Bytecode.STOREG:
+                    registers[a] = registers[fp + b];
+                    break;
+                case Bytecode.ADD:
+                    registers[fp + a] = registers[fp + b] + registers[fp + c];
+                    break;
+                case Bytecode.SUB:
+                    registers[fp + a] = registers[fp + b] - registers[fp + c];
+                    break;
+                case Bytecode.MUL:
+                    registers[fp + a] = registers[fp + b] * registers[fp + c];
+                    break;
+                case Bytecode.DIV:
+                    registers[fp + a] = registers[fp + b] / registers[fp + c];
+                    break;
+                case Bytecode.MOD:
+                    registers[fp + a] = registers[fp + b] % registers[fp + c];
+                    break;
+                case Bytecode.ADDI:
+                    registers[fp + a] = registers[fp + b] + c;
+                    break;
+                case Bytecode.MULI:
+                    registers[fp + a] = registers[fp + b] * c;
+                    break;
+                case Bytecode.DIVI:
+                    registers[fp + a] = registers[fp + b] / c;
+                    break;
+                case Bytecode.MODI:
+                    registers[fp + a] = registers[fp + b] % c;
+                    break;
+                case Bytecode.JMP:
+                    pc = a;
+                    continue;
+                case Bytecode.JEQ:
+                    if (registers[fp + a] == registers[fp + b])
+                    {
+                        pc = c;
+                        continue;
+                    }
+                    break;
+                case Bytecode.JNE:
+                    if (registers[fp + a] != registers[fp + b])
+                    {
+                        pc = c;
+                        continue;
+                    }
+                    break;
+                case Bytecode.JLT:
+                    if (registers[fp + a] < registers[fp + b])
+                    {
+                        pc = c;
+                        continue;
+                    }
+                    break;
+                case Bytecode.JLE:
+                    if (registers[fp + a] <= registers[fp + b])
+                    {
+                        pc = c;
+                        continue;
+                    }
+                    break;
+                case Bytecode.JGT:
+                    if (registers[fp + a] > registers[fp + b])
+                    {
+                        pc = c;
+                        continue;
+                    }
+                    break;
+                case Bytecode.JGE:
+                    if (registers[fp + a] >= registers[fp + b])
+                    {
+                        pc = c;
+                        continue;
+                    }
+                    break;
+                case Bytecode.JEQI:
+                    if (registers[fp + a] == b)
+                    {
+                        pc = c;
+                        continue;
+                    }
+                    break;
+                case Bytecode.JNEI:
+                    if (registers[fp + a] != b)
+                    {
+                        pc = c;
+                        continue;
+                    }
+                    break;
+                case Bytecode.JLTI:
+                    if (registers[fp + a] < b)
+                    {
+                        pc = c;
+                        continue;
+                    }
+                    break;
+                case Bytecode.JLEI:
+                    if (registers[fp + a] <= b)
+                    {
+                        pc = c;
+                        continue;
+                    }
+                    break;
+                case Bytecode.JGTI:
+                    if (registers[fp + a] > b)
+                    {
+                        pc = c;
+                        continue;
+                    }
+                    break;
+                case Bytecode.JGEI:
+                    if (registers[fp + a] >= b)
+                    {
+                        pc = c;
+                        continue;
+                    }
+                    break;
+                case Bytecode.WRITE:
+                    out.writeln(registers[fp + a]);
+                    break;
+                case Bytecode.CALL:
+                {
+                    int newFp = fp + frameSize;
+                    int newSize = frameSizes[b];
+                    if (newFp + newSize > registers.length)
+                    {
+                        registers = Arrays.copyOf(registers,
+                            Math.max(registers.length * 2, newFp + newSize));
+                    }
+                    if (depth + 4 > calls.length)
+                    {
+                        calls = Arrays.copyOf(calls, calls.length * 2);
+                    }
+                    calls[depth] = pc + Bytecode.WIDTH;
+                    calls[depth + 1] = fp;
+                    calls[depth + 2] = a;
+                    calls[depth + 3] = procedure;
+                    depth += 4;
+                    int params = paramCounts[b];
+                    for (int i = 0; i < params; i++)
+                    {
+                        registers[newFp + i] = registers[fp + c + i];
+                    }
+                    for (int i = params; i < newSize; i++)
+                    {
+                        registers[newFp + i] = 0;
+                    }
+                    fp = newFp;
+                    procedure = b;
+                    frameSize = newSize;
+                    pc = entries[b];
+                    continue;
+                }
+                case Bytecode.RET:
+                {
+                    int result = registers[fp + resultSlots[procedure]];
+                    depth -= 4;
+                    pc = calls[depth];
+                    fp = calls[depth + 1];
+                    procedure = calls[depth + 3];
+                    frameSize = procedure == MAIN ? bytecode.getMainFrameSize()
+                        : frameSizes[procedure];
+                    registers[fp + calls[depth + 2]] = result;
+                    continue;
+                }
+                default:
+                    throw new IllegalStateException("Bad opcode " + code[pc] + " at " + pc);
+            }
+            pc += Bytecode.WIDTH;
+        }
+    }
+}